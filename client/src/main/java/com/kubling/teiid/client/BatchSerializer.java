@@ -57,6 +57,34 @@ public class BatchSerializer {
 
     private static final ColumnSerializer defaultSerializer = new ColumnSerializer();
 
+    /**
+     * The types used by {@link #getBatchTypes(List)} by exact value class, other classes are written as objects
+     */
+    private static final Map<Class<?>, String> VALUE_TYPES = new HashMap<>(32);
+
+    static {
+        VALUE_TYPES.put(String.class, DataTypeManager.DefaultDataTypes.STRING);
+        VALUE_TYPES.put(Integer.class, DataTypeManager.DefaultDataTypes.INTEGER);
+        VALUE_TYPES.put(Long.class, DataTypeManager.DefaultDataTypes.LONG);
+        VALUE_TYPES.put(Double.class, DataTypeManager.DefaultDataTypes.DOUBLE);
+        VALUE_TYPES.put(Float.class, DataTypeManager.DefaultDataTypes.FLOAT);
+        VALUE_TYPES.put(Short.class, DataTypeManager.DefaultDataTypes.SHORT);
+        VALUE_TYPES.put(Byte.class, DataTypeManager.DefaultDataTypes.BYTE);
+        VALUE_TYPES.put(Boolean.class, DataTypeManager.DefaultDataTypes.BOOLEAN);
+        VALUE_TYPES.put(Character.class, DataTypeManager.DefaultDataTypes.CHAR);
+        VALUE_TYPES.put(BigDecimal.class, DataTypeManager.DefaultDataTypes.BIG_DECIMAL);
+        VALUE_TYPES.put(BigInteger.class, DataTypeManager.DefaultDataTypes.BIG_INTEGER);
+        VALUE_TYPES.put(java.sql.Date.class, DataTypeManager.DefaultDataTypes.DATE);
+        VALUE_TYPES.put(Time.class, DataTypeManager.DefaultDataTypes.TIME);
+        VALUE_TYPES.put(Timestamp.class, DataTypeManager.DefaultDataTypes.TIMESTAMP);
+        //primitive columns of a ColumnBatch
+        VALUE_TYPES.put(int[].class, DataTypeManager.DefaultDataTypes.INTEGER);
+        VALUE_TYPES.put(long[].class, DataTypeManager.DefaultDataTypes.LONG);
+        VALUE_TYPES.put(double[].class, DataTypeManager.DefaultDataTypes.DOUBLE);
+        VALUE_TYPES.put(float[].class, DataTypeManager.DefaultDataTypes.FLOAT);
+        VALUE_TYPES.put(short[].class, DataTypeManager.DefaultDataTypes.SHORT);
+    }
+
     private static final Map<String, ColumnSerializer[]> serializers = new HashMap<>(128);
 
     static {
@@ -400,6 +428,11 @@ public class BatchSerializer {
         public void readColumn(ObjectInput in, int col,
                                List<List<Object>> batch, byte[] isNull, List<Object> cache, byte version) {
         }
+
+        @Override
+        public Object readColumnVector(ObjectInput in, int rows, byte[] isNull, List<Object> cache, byte version) {
+            return new Object[rows];
+        }
     }
 
     private static class ClobColumnSerializer1 extends ColumnSerializer {
@@ -514,29 +547,36 @@ public class BatchSerializer {
      *
      * @since 4.2
      */
+    private static boolean isNull(List<?> row, int col) {
+        if (row instanceof ColumnBatch.Row columnRow) {
+            return columnRow.isNull(col);
+        }
+        return row.get(col) == null;
+    }
+
     static void writeIsNullData(ObjectOutput out, int col, List<? extends List<?>> batch) throws IOException {
         int numBytes = batch.size() / 8, row = 0, currentByte;
         for (int byteNum = 0; byteNum < numBytes; byteNum++, row += 8) {
-            currentByte = (batch.get(row).get(col) == null) ? 0x80 : 0;
-            if (batch.get(row + 1).get(col) == null) {
+            currentByte = isNull(batch.get(row), col) ? 0x80 : 0;
+            if (isNull(batch.get(row + 1), col)) {
                 currentByte |= 0x40;
             }
-            if (batch.get(row + 2).get(col) == null) {
+            if (isNull(batch.get(row + 2), col)) {
                 currentByte |= 0x20;
             }
-            if (batch.get(row + 3).get(col) == null) {
+            if (isNull(batch.get(row + 3), col)) {
                 currentByte |= 0x10;
             }
-            if (batch.get(row + 4).get(col) == null) {
+            if (isNull(batch.get(row + 4), col)) {
                 currentByte |= 0x08;
             }
-            if (batch.get(row + 5).get(col) == null) {
+            if (isNull(batch.get(row + 5), col)) {
                 currentByte |= 0x04;
             }
-            if (batch.get(row + 6).get(col) == null) {
+            if (isNull(batch.get(row + 6), col)) {
                 currentByte |= 0x02;
             }
-            if (batch.get(row + 7).get(col) == null) {
+            if (isNull(batch.get(row + 7), col)) {
                 currentByte |= 0x01;
             }
             out.write(currentByte);
@@ -544,7 +584,7 @@ public class BatchSerializer {
         if (batch.size() % 8 > 0) {
             currentByte = 0;
             for (int mask = 0x80; row < batch.size(); row++, mask >>= 1) {
-                if (batch.get(row).get(col) == null) {
+                if (isNull(batch.get(row), col)) {
                     currentByte |= mask;
                 }
             }
@@ -602,6 +642,9 @@ public class BatchSerializer {
             writeIsNullData(out, col, batch);
             Object obj;
             for (List<?> objects : batch) {
+                if (objects instanceof ColumnBatch.Row row && writePrimitive(out, row, col)) {
+                    continue;
+                }
                 obj = objects.get(col);
                 if (obj != null) {
                     writeObject(out, obj, cache, version);
@@ -609,6 +652,15 @@ public class BatchSerializer {
             }
         }
 
+        /**
+         * Write the value directly from a primitive column of a {@link ColumnBatch}, rather than boxing it
+         *
+         * @return false if the column is not of the primitive type written by this serializer
+         */
+        protected boolean writePrimitive(ObjectOutput out, ColumnBatch.Row row, int col) throws IOException {
+            return false;
+        }
+
         public void readColumn(
                 ObjectInput in,
                 int col,
@@ -624,6 +676,26 @@ public class BatchSerializer {
             }
         }
 
+        /**
+         * Read the column into an array rather than into rows.  Serializers for
+         * primitive types return a primitive array and leave the null mask in isNull.
+         */
+        public Object readColumnVector(
+                ObjectInput in,
+                int rows,
+                byte[] isNull,
+                List<Object> cache,
+                byte version) throws IOException, ClassNotFoundException {
+            readIsNullData(in, isNull);
+            Object[] values = new Object[rows];
+            for (int i = 0; i < rows; i++) {
+                if (!isNullObject(isNull, i)) {
+                    values[i] = DataTypeManager.getCanonicalValue(readObject(in, cache, version));
+                }
+            }
+            return values;
+        }
+
         protected void writeObject(ObjectOutput out, Object obj, Map<Object, Integer> cache, byte version)
                 throws IOException {
             out.writeObject(obj);
@@ -646,11 +718,36 @@ public class BatchSerializer {
             out.writeInt((Integer) obj);
         }
 
+        @Override
+        protected boolean writePrimitive(ObjectOutput out, ColumnBatch.Row row, int col) throws IOException {
+            ColumnBatch batch = row.getBatch();
+            if (!batch.isIntColumn(col)) {
+                return false;
+            }
+            if (!row.isNull(col)) {
+                out.writeInt(batch.getInt(row.getRowIndex(), col));
+            }
+            return true;
+        }
+
         @Override
         protected Object readObject(ObjectInput in, List<Object> cache, byte version)
                 throws IOException {
             return in.readInt();
         }
+
+        @Override
+        public Object readColumnVector(ObjectInput in, int rows, byte[] isNull, List<Object> cache, byte version)
+                throws IOException {
+            readIsNullData(in, isNull);
+            int[] values = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                if (!isNullObject(isNull, i)) {
+                    values[i] = in.readInt();
+                }
+            }
+            return values;
+        }
     }
 
     private static class LongColumnSerializer extends ColumnSerializer {
@@ -660,11 +757,36 @@ public class BatchSerializer {
             out.writeLong((Long) obj);
         }
 
+        @Override
+        protected boolean writePrimitive(ObjectOutput out, ColumnBatch.Row row, int col) throws IOException {
+            ColumnBatch batch = row.getBatch();
+            if (!batch.isLongColumn(col)) {
+                return false;
+            }
+            if (!row.isNull(col)) {
+                out.writeLong(batch.getLong(row.getRowIndex(), col));
+            }
+            return true;
+        }
+
         @Override
         protected Object readObject(ObjectInput in, List<Object> cache, byte version)
                 throws IOException {
             return in.readLong();
         }
+
+        @Override
+        public Object readColumnVector(ObjectInput in, int rows, byte[] isNull, List<Object> cache, byte version)
+                throws IOException {
+            readIsNullData(in, isNull);
+            long[] values = new long[rows];
+            for (int i = 0; i < rows; i++) {
+                if (!isNullObject(isNull, i)) {
+                    values[i] = in.readLong();
+                }
+            }
+            return values;
+        }
     }
 
     private static class FloatColumnSerializer extends ColumnSerializer {
@@ -678,6 +800,19 @@ public class BatchSerializer {
         protected Object readObject(ObjectInput in, List<Object> cache, byte version) throws IOException {
             return in.readFloat();
         }
+
+        @Override
+        public Object readColumnVector(ObjectInput in, int rows, byte[] isNull, List<Object> cache, byte version)
+                throws IOException {
+            readIsNullData(in, isNull);
+            float[] values = new float[rows];
+            for (int i = 0; i < rows; i++) {
+                if (!isNullObject(isNull, i)) {
+                    values[i] = in.readFloat();
+                }
+            }
+            return values;
+        }
     }
 
     private static class DoubleColumnSerializer extends ColumnSerializer {
@@ -687,10 +822,35 @@ public class BatchSerializer {
             out.writeDouble((Double) obj);
         }
 
+        @Override
+        protected boolean writePrimitive(ObjectOutput out, ColumnBatch.Row row, int col) throws IOException {
+            ColumnBatch batch = row.getBatch();
+            if (!batch.isDoubleColumn(col)) {
+                return false;
+            }
+            if (!row.isNull(col)) {
+                out.writeDouble(batch.getDouble(row.getRowIndex(), col));
+            }
+            return true;
+        }
+
         @Override
         protected Object readObject(ObjectInput in, List<Object> cache, byte version) throws IOException {
             return in.readDouble();
         }
+
+        @Override
+        public Object readColumnVector(ObjectInput in, int rows, byte[] isNull, List<Object> cache, byte version)
+                throws IOException {
+            readIsNullData(in, isNull);
+            double[] values = new double[rows];
+            for (int i = 0; i < rows; i++) {
+                if (!isNullObject(isNull, i)) {
+                    values[i] = in.readDouble();
+                }
+            }
+            return values;
+        }
     }
 
     private static class ShortColumnSerializer extends ColumnSerializer {
@@ -704,6 +864,19 @@ public class BatchSerializer {
         protected Object readObject(ObjectInput in, List<Object> cache, byte version) throws IOException {
             return in.readShort();
         }
+
+        @Override
+        public Object readColumnVector(ObjectInput in, int rows, byte[] isNull, List<Object> cache, byte version)
+                throws IOException {
+            readIsNullData(in, isNull);
+            short[] values = new short[rows];
+            for (int i = 0; i < rows; i++) {
+                if (!isNullObject(isNull, i)) {
+                    values[i] = in.readShort();
+                }
+            }
+            return values;
+        }
     }
 
     private static class BooleanColumnSerializer extends ColumnSerializer {
@@ -778,6 +951,30 @@ public class BatchSerializer {
                 }
             }
         }
+
+        @Override
+        public Object readColumnVector(ObjectInput in, int rows, byte[] isNull, List<Object> cache, byte version)
+                throws IOException {
+            Object[] values = new Object[rows];
+            int currentByte = 0, mask = 0;
+            for (int i = 0; i < rows; i++) {
+                if (mask == 0) {
+                    currentByte = in.read();
+                    mask = 0x80;
+                }
+                boolean isNullVal = (currentByte & mask) != 0;
+                mask >>= 1;
+                if (!isNullVal) {
+                    if (mask == 0) {
+                        currentByte = in.read();
+                        mask = 0x80;
+                    }
+                    values[i] = ((currentByte & mask) == 0) ? Boolean.FALSE : Boolean.TRUE;
+                    mask >>= 1;
+                }
+            }
+            return values;
+        }
     }
 
     private static class ByteColumnSerializer extends ColumnSerializer {
@@ -956,6 +1153,48 @@ public class BatchSerializer {
         return sers[Math.min(version, sers.length - 1)];
     }
 
+    /**
+     * Determine the type of each column from the values, such as for batched parameter values that
+     * are not typed by the client.  Columns with mixed types are objects.
+     *
+     * @return the types for {@link #writeBatch(ObjectOutput, String[], List)}, or null if the rows are not all the same size
+     */
+    public static String[] getBatchTypes(List<? extends List<?>> batch) {
+        if (batch.isEmpty()) {
+            return null;
+        }
+        int columns = batch.getFirst().size();
+        for (List<?> row : batch) {
+            if (row.size() != columns) {
+                return null;
+            }
+        }
+        String[] types = new String[columns];
+        for (int col = 0; col < columns; col++) {
+            String type = null;
+            for (List<?> row : batch) {
+                String valueType;
+                if (row instanceof ColumnBatch.Row columnRow && !(columnRow.getBatch().getColumn(col) instanceof Object[])) {
+                    valueType = VALUE_TYPES.get(columnRow.getBatch().getColumn(col).getClass());
+                } else {
+                    Object value = row.get(col);
+                    if (value == null) {
+                        continue;
+                    }
+                    valueType = VALUE_TYPES.getOrDefault(value.getClass(), DataTypeManager.DefaultDataTypes.OBJECT);
+                }
+                if (type == null) {
+                    type = valueType;
+                } else if (!type.equals(valueType)) {
+                    type = DataTypeManager.DefaultDataTypes.OBJECT;
+                    break;
+                }
+            }
+            types[col] = type == null ? DataTypeManager.DefaultDataTypes.NULL : type;
+        }
+        return types;
+    }
+
     public static void writeBatch(ObjectOutput out, String[] types, List<? extends List<?>> batch)
             throws IOException {
         writeBatch(out, types, batch, CURRENT_VERSION);
@@ -1005,6 +1244,15 @@ public class BatchSerializer {
 
     public static List<List<Object>> readBatch(ObjectInput in, String[] types)
             throws IOException, ClassNotFoundException {
+        return readBatch(in, types, false);
+    }
+
+    /**
+     * @param columnar if true the result will be a {@link ColumnBatch} with numeric
+     * columns held in primitive arrays rather than a list of mutable rows
+     */
+    public static List<List<Object>> readBatch(ObjectInput in, String[] types, boolean columnar)
+            throws IOException, ClassNotFoundException {
 
         int rows;
         try {
@@ -1029,6 +1277,9 @@ public class BatchSerializer {
             version = in.readByte();
         }
         int columns = in.readInt();
+        if (columnar) {
+            return readColumnBatch(in, types, rows, columns, version);
+        }
         List<List<Object>> batch = new ResizingArrayList<>(rows);
         int numBytes = rows / 8;
         int extraRows = rows % 8;
@@ -1047,6 +1298,25 @@ public class BatchSerializer {
         return batch;
     }
 
+    private static ColumnBatch readColumnBatch(ObjectInput in, String[] types, int rows, int columns, byte version)
+            throws IOException, ClassNotFoundException {
+        Object[] vectors = new Object[columns];
+        byte[][] nulls = new byte[columns][];
+        byte[] isNullBuffer = new byte[(rows + 7) / 8];
+        List<Object> cache = null;
+        for (int col = 0; col < columns; col++) {
+            ColumnSerializer serializer = getSerializer(types[col], version);
+            if (cache == null && serializer.usesCache(version)) {
+                cache = new ArrayList<>();
+            }
+            vectors[col] = serializer.readColumnVector(in, rows, isNullBuffer, cache, version);
+            if (!(vectors[col] instanceof Object[])) {
+                nulls[col] = isNullBuffer.clone();
+            }
+        }
+        return new ColumnBatch(rows, vectors, nulls);
+    }
+
     public static String getClientSafeType(String type,
                                            byte clientSerializationVersion) {
         if (clientSerializationVersion == CURRENT_VERSION) {
@@ -0,0 +1,190 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.client;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A batch held in memory by column.  Numeric columns are kept as primitive arrays
+ * with a bit-packed null mask, all others as an Object[].
+ * <p>
+ * The batch is also a list of rows, where each row is a view that boxes primitive
+ * values on access.  Callers that know the column type can avoid boxing entirely by
+ * using the typed accessors.
+ */
+public class ColumnBatch extends AbstractList<List<Object>> implements RandomAccess {
+
+    /**
+     * A row view over the batch.  Serialized as a copy of its values.
+     */
+    public final class Row extends AbstractList<Object> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 2436137622431264578L;
+
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int index) {
+            return getValue(row, index);
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            Object old = getValue(row, index);
+            setValue(row, index, element);
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        public ColumnBatch getBatch() {
+            return ColumnBatch.this;
+        }
+
+        public int getRowIndex() {
+            return row;
+        }
+
+        /**
+         * @return true if the value is null, without boxing a primitive value
+         */
+        public boolean isNull(int index) {
+            return ColumnBatch.this.isNull(row, index);
+        }
+
+        private Object writeReplace() {
+            return new ArrayList<>(this);
+        }
+    }
+
+    private final int rows;
+    private final Object[] columns;
+    private final byte[][] nulls;
+
+    /**
+     * @param columns an array per column of length rows
+     * @param nulls the packed null mask for each primitive column, a null mask has no null values
+     */
+    public ColumnBatch(int rows, Object[] columns, byte[][] nulls) {
+        this.rows = rows;
+        this.columns = columns;
+        this.nulls = nulls;
+    }
+
+    @Override
+    public List<Object> get(int index) {
+        if (index < 0 || index >= rows) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return new Row(index);
+    }
+
+    @Override
+    public int size() {
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * @return the backing array for the column, either a primitive array or Object[]
+     */
+    public Object getColumn(int col) {
+        return columns[col];
+    }
+
+    public boolean isNull(int row, int col) {
+        Object column = columns[col];
+        if (column instanceof Object[] values) {
+            return values[row] == null;
+        }
+        return nulls[col] != null && BatchSerializer.isNullObject(nulls[col], row);
+    }
+
+    public boolean isIntColumn(int col) {
+        return columns[col] instanceof int[];
+    }
+
+    public boolean isLongColumn(int col) {
+        return columns[col] instanceof long[];
+    }
+
+    public boolean isDoubleColumn(int col) {
+        return columns[col] instanceof double[];
+    }
+
+    public int getInt(int row, int col) {
+        return ((int[]) columns[col])[row];
+    }
+
+    public long getLong(int row, int col) {
+        return ((long[]) columns[col])[row];
+    }
+
+    public double getDouble(int row, int col) {
+        return ((double[]) columns[col])[row];
+    }
+
+    public Object getValue(int row, int col) {
+        Object column = columns[col];
+        if (column instanceof Object[] values) {
+            return values[row];
+        }
+        if (nulls[col] != null && BatchSerializer.isNullObject(nulls[col], row)) {
+            return null;
+        }
+        return switch (column) {
+            case int[] values -> values[row];
+            case long[] values -> values[row];
+            case double[] values -> values[row];
+            case float[] values -> values[row];
+            case short[] values -> values[row];
+            default -> throw new AssertionError();
+        };
+    }
+
+    /**
+     * Set a value, a primitive column is converted to an Object[] first
+     */
+    public void setValue(int row, int col, Object value) {
+        if (!(columns[col] instanceof Object[])) {
+            Object[] values = new Object[rows];
+            for (int i = 0; i < rows; i++) {
+                values[i] = getValue(i, col);
+            }
+            columns[col] = values;
+            nulls[col] = null;
+        }
+        ((Object[]) columns[col])[row] = value;
+    }
+
+}
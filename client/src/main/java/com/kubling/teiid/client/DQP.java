@@ -22,6 +22,7 @@ import com.kubling.teiid.client.lob.LobChunk;
 import com.kubling.teiid.client.metadata.MetadataResult;
 import com.kubling.teiid.client.security.Secure;
 import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.client.util.ResultsStream;
 import com.kubling.teiid.client.xa.XATransactionException;
 import com.kubling.teiid.client.xa.XidImpl;
 import com.kubling.teiid.core.TeiidComponentException;
@@ -39,6 +40,24 @@ public interface DQP {
     ResultsFuture<ResultsMessage> processCursorRequest(long reqID, int batchFirst, int fetchSize)
             throws TeiidProcessingException;
 
+    /**
+     * Have the server push the batches of a forward only cursor starting at batchFirst, rather than
+     * waiting for a {@link #processCursorRequest(long, int, int)} per batch.  Batches are sent as long
+     * as the client has credits, each batch consuming a credit per row, and the stream is ended
+     * with a null result after the last batch or when the request is closed.
+     * <p>
+     * Only valid if the server connection {@link com.kubling.teiid.net.ServerConnection#supportsStreamingCursors()}
+     *
+     * @param credits the number of rows the server may send before more are granted
+     */
+    ResultsStream<ResultsMessage> streamCursorRequest(long reqID, int batchFirst, int fetchSize, int credits)
+            throws TeiidProcessingException;
+
+    /**
+     * Allow the server to push the given number of additional rows for a {@link #streamCursorRequest(long, int, int, int)}
+     */
+    ResultsFuture<?> grantCursorCredits(long reqID, int credits) throws TeiidProcessingException;
+
     ResultsFuture<?> closeRequest(long requestID) throws TeiidProcessingException, TeiidComponentException;
 
     boolean cancelRequest(long requestID) throws TeiidProcessingException, TeiidComponentException;
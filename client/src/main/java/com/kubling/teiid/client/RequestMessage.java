@@ -22,6 +22,8 @@ import com.kubling.teiid.core.TeiidProcessingException;
 import com.kubling.teiid.core.util.ExternalizeUtil;
 import com.kubling.teiid.jdbc.JDBCPlugin;
 import com.kubling.teiid.jdbc.RequestOptions;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectInput;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectOutput;
 
 import java.io.*;
 import java.util.*;
@@ -73,6 +75,7 @@ public class RequestMessage implements Externalizable {
     private boolean partialResultsFlag;
     private StatementType statementType = StatementType.STATEMENT;
     private List<?> parameterValues;
+    private String[] parameterTypes;
     private String txnAutoWrapMode;
     private String styleSheet;
     private ResultsMode resultsMode = ResultsMode.EITHER;
@@ -163,6 +166,18 @@ public class RequestMessage implements Externalizable {
         parameterValues = values;
     }
 
+    /**
+     * @return the runtime types of the batched parameter values, with which the batch was sent by column.
+     * If not set, the binary protocol determines the types from the values.  May be null.
+     */
+    public String[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public void setParameterTypes(String[] parameterTypes) {
+        this.parameterTypes = parameterTypes;
+    }
+
     /**
      * @return String
      */
@@ -403,6 +418,122 @@ public class RequestMessage implements Externalizable {
         ExternalizeUtil.writeMap(out, properties);
     }
 
+    /**
+     * Write with the binary protocol.  The legacy fields of the externalized form are omitted.
+     * Batched parameter values with known types are written by column if the negotiated version allows.
+     */
+    @SuppressWarnings("unchecked")
+    public void writeBinary(BinaryObjectOutput out) throws IOException {
+        out.writeStringArray(commands);
+        int flags = 0;
+        if (isBatchedUpdate) {
+            flags |= 1;
+        }
+        if (partialResultsFlag) {
+            flags |= 2;
+        }
+        if (useResultSetCache) {
+            flags |= 4;
+        }
+        if (ansiQuotedIdentifiers) {
+            flags |= 8;
+        }
+        if (noExec) {
+            flags |= 16;
+        }
+        if (autoGeneratedKeys) {
+            flags |= 32;
+        }
+        if (delaySerialization) {
+            flags |= 64;
+        }
+        String[] types = null;
+        if (isBatchedUpdate && parameterValues != null && !parameterValues.isEmpty()
+                && out.getVersion() >= BinaryObjectOutput.VERSION_COLUMNAR_PARAMETERS) {
+            types = parameterTypes != null ? parameterTypes : BatchSerializer.getBatchTypes((List<? extends List<?>>) parameterValues);
+        }
+        boolean columnar = types != null;
+        if (columnar) {
+            flags |= 128;
+        }
+        out.writeByte(flags);
+        out.writeSignedVarInt(fetchSize);
+        out.writeSignedVarInt(cursorType);
+        out.writeByte(statementType.ordinal());
+        if (columnar) {
+            out.writeStringArray(types);
+            BatchSerializer.writeBatch(out, types, (List<? extends List<?>>) parameterValues);
+        } else if (parameterValues == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(parameterValues.size() + 1);
+            for (Object value : parameterValues) {
+                out.writeObject(value);
+            }
+        }
+        out.writeString(txnAutoWrapMode);
+        out.writeString(styleSheet);
+        out.writeByte(resultsMode.ordinal());
+        out.writeByte(showPlan.ordinal());
+        out.writeSignedVarInt(rowLimit);
+        out.writeObject(executionPayload);
+        out.writeVarLong(executionId);
+        out.writeSignedVarInt(transactionIsolation);
+        if (properties == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(properties.size() + 1);
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeString(entry.getValue());
+            }
+        }
+    }
+
+    public void readBinary(BinaryObjectInput in) throws IOException, ClassNotFoundException {
+        this.commands = in.readStringArray();
+        int flags = in.readUnsignedByte();
+        this.isBatchedUpdate = (flags & 1) != 0;
+        this.partialResultsFlag = (flags & 2) != 0;
+        this.useResultSetCache = (flags & 4) != 0;
+        this.ansiQuotedIdentifiers = (flags & 8) != 0;
+        this.noExec = (flags & 16) != 0;
+        this.autoGeneratedKeys = (flags & 32) != 0;
+        this.delaySerialization = (flags & 64) != 0;
+        this.fetchSize = in.readSignedVarInt();
+        this.cursorType = in.readSignedVarInt();
+        this.statementType = StatementType.values()[in.readByte()];
+        int size;
+        if ((flags & 128) != 0) {
+            this.parameterTypes = in.readStringArray();
+            this.parameterValues = BatchSerializer.readBatch(in, parameterTypes);
+        } else {
+            size = in.readVarInt() - 1;
+            if (size >= 0) {
+                List<Object> values = new ArrayList<>(Math.min(size, 1 << 10));
+                for (int i = 0; i < size; i++) {
+                    values.add(in.readObject());
+                }
+                this.parameterValues = values;
+            }
+        }
+        this.txnAutoWrapMode = in.readString();
+        this.styleSheet = in.readString();
+        this.resultsMode = ResultsMode.values()[in.readByte()];
+        this.showPlan = ShowPlan.values()[in.readByte()];
+        this.rowLimit = in.readSignedVarInt();
+        this.executionPayload = (Serializable) in.readObject();
+        this.executionId = in.readVarLong();
+        this.transactionIsolation = in.readSignedVarInt();
+        size = in.readVarInt() - 1;
+        if (size >= 0) {
+            this.properties = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                this.properties.put(in.readString(), in.readString());
+            }
+        }
+    }
+
     public RequestOptions getRequestOptions() {
         if (this.requestOptions == null) {
             this.requestOptions = DEFAULT_REQUEST_OPTIONS;
@@ -23,13 +23,17 @@ import com.kubling.teiid.client.plan.Annotation;
 import com.kubling.teiid.client.plan.PlanNode;
 import com.kubling.teiid.client.util.ExceptionHolder;
 import com.kubling.teiid.core.TeiidException;
+import com.kubling.teiid.core.util.BufferPool;
 import com.kubling.teiid.core.util.ExternalizeUtil;
 import com.kubling.teiid.core.util.MultiArrayOutputStream;
 import com.kubling.teiid.jdbc.TeiidSQLException;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectInput;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectOutput;
 import com.kubling.teiid.netty.handler.codec.serialization.CompactObjectInputStream;
 import com.kubling.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -125,7 +129,7 @@ public class ResultsMessage implements Externalizable {
             try {
                 CompactObjectInputStream ois = new CompactObjectInputStream(
                         new ByteArrayInputStream(resultBytes), ResultsMessage.class.getClassLoader());
-                results = BatchSerializer.readBatch(ois, dataTypes);
+                results = BatchSerializer.readBatch(ois, dataTypes, true);
             } catch (IOException | ClassNotFoundException e) {
                 throw TeiidSQLException.create(e);
             } finally {
@@ -224,7 +228,7 @@ public class ResultsMessage implements Externalizable {
         dataTypes = ExternalizeUtil.readStringArray(in);
 
         // Row data
-        results = BatchSerializer.readBatch(in, dataTypes);
+        results = BatchSerializer.readBatch(in, dataTypes, true);
 
         // Plan Descriptions
         planDescription = (PlanNode) in.readObject();
@@ -290,6 +294,7 @@ public class ResultsMessage implements Externalizable {
             serialize(true);
             out.writeInt(serializationBuffer.getCount());
             serializationBuffer.writeTo(out);
+            serializationBuffer.release();
             serializationBuffer = null;
         }
 
@@ -314,6 +319,65 @@ public class ResultsMessage implements Externalizable {
         }
     }
 
+    /**
+     * Write with the binary protocol.  The row data uses the same {@link BatchSerializer} format
+     * as the externalized form, while the remaining fields use varints and tagged values.
+     */
+    public void writeBinary(BinaryObjectOutput out) throws IOException {
+        out.writeStringArray(columnNames);
+        out.writeStringArray(dataTypes);
+        BatchSerializer.writeBatch(out, dataTypes, delayDeserialization ? null : results, clientSerializationVersion);
+        out.writeObject(planDescription);
+        out.writeObject(exception == null ? null : new ExceptionHolder(exception));
+        //the delayed row data length plus one, or zero
+        if (delayDeserialization && results != null) {
+            serialize(true);
+            out.writeVarInt(serializationBuffer.getCount() + 1);
+            serializationBuffer.writeTo(out);
+            serializationBuffer.release();
+            serializationBuffer = null;
+        } else {
+            out.writeVarInt(0);
+        }
+        out.writeObject(warnings == null ? null : ExceptionHolder.toExceptionHolders(warnings));
+        out.writeSignedVarInt(firstRow);
+        out.writeSignedVarInt(lastRow);
+        out.writeSignedVarInt(finalRow);
+        out.writeObject(parameters);
+        out.writeString(debugLog);
+        out.writeObject(annotations == null ? null : new ArrayList<>(annotations));
+        out.writeBoolean(isUpdateResult);
+        out.writeSignedVarInt(updateCount);
+    }
+
+    public void readBinary(BinaryObjectInput in) throws IOException, ClassNotFoundException {
+        columnNames = in.readStringArray();
+        dataTypes = in.readStringArray();
+        results = BatchSerializer.readBatch(in, dataTypes, true);
+        planDescription = (PlanNode) in.readObject();
+        ExceptionHolder holder = (ExceptionHolder) in.readObject();
+        if (holder != null) {
+            this.exception = (TeiidException) holder.getException();
+        }
+        int length = in.readVarInt() - 1;
+        if (length >= 0) {
+            resultBytes = new byte[length];
+            in.readFully(resultBytes);
+        }
+        List<ExceptionHolder> holderList = (List<ExceptionHolder>) in.readObject();
+        if (holderList != null) {
+            this.warnings = ExceptionHolder.toThrowables(holderList);
+        }
+        firstRow = in.readSignedVarInt();
+        lastRow = in.readSignedVarInt();
+        finalRow = in.readSignedVarInt();
+        parameters = (List<ParameterInfo>) in.readObject();
+        debugLog = in.readString();
+        annotations = (List<Annotation>) in.readObject();
+        isUpdateResult = in.readBoolean();
+        updateCount = in.readSignedVarInt();
+    }
+
     /**
      * Serialize the result data
      *
@@ -321,13 +385,14 @@ public class ResultsMessage implements Externalizable {
      */
     public int serialize(boolean keepSerialization) throws IOException {
         if (serializationBuffer == null) {
-            serializationBuffer = new MultiArrayOutputStream(1 << 13);
+            serializationBuffer = new MultiArrayOutputStream(1 << 13, BufferPool.getSharedPool());
             CompactObjectOutputStream oos = new CompactObjectOutputStream(serializationBuffer);
             BatchSerializer.writeBatch(oos, dataTypes, results, clientSerializationVersion);
             oos.close();
         }
         int result = serializationBuffer.getCount();
         if (!keepSerialization) {
+            serializationBuffer.release();
             serializationBuffer = null;
         }
         return result;
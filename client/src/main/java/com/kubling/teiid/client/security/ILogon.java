@@ -34,6 +34,14 @@ public interface ILogon {
     String KRB5TOKEN = "KRB5TOKEN";
     String KRB5_ESTABLISHED = "KRB5_CONTEXT_ESTABLISHED";
     String AUTH_TYPE = "authType";
+    /**
+     * {@link LogonResult} property holding the opaque session ticket bytes, if the server supports resumption
+     */
+    String SESSION_TICKET = "sessionTicket";
+    /**
+     * {@link LogonResult} property holding the ticket lifetime in ms as a Number
+     */
+    String SESSION_TICKET_LIFETIME = "sessionTicketLifetime";
 
     @Secure
     LogonResult logon(Properties connectionProperties)
@@ -20,11 +20,14 @@ package com.kubling.teiid.client.util;
 
 import com.kubling.teiid.jdbc.JDBCPlugin;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -32,6 +35,9 @@ import java.util.logging.Logger;
 /**
  * Implements a call back based future that can also have
  * completion listeners.
+ * <p>
+ * Waiting uses a {@link ReentrantLock} rather than the object monitor so that a waiting
+ * virtual thread does not pin its carrier.  Listeners are called without holding the lock.
  */
 public class ResultsFuture<T> implements Future<T> {
 
@@ -47,34 +53,42 @@ public class ResultsFuture<T> implements Future<T> {
         void onCompletion(ResultsFuture<T> future);
     }
 
-    private final LinkedList<CompletionListener<T>> listeners = new LinkedList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition completed = lock.newCondition();
+    private List<CompletionListener<T>> listeners;
 
     private T result;
     private Throwable exception;
     private boolean done;
     private final ResultsReceiver<T> resultsReceiver = new ResultsReceiver<>() {
         public void exceptionOccurred(Throwable e) {
-            synchronized (ResultsFuture.this) {
+            List<CompletionListener<T>> toNotify;
+            lock.lock();
+            try {
                 if (done) {
                     throw new IllegalStateException("Already sent results");
                 }
                 exception = e;
-                done = true;
-                ResultsFuture.this.notifyAll();
+                toNotify = complete();
+            } finally {
+                lock.unlock();
             }
-            done();
+            done(toNotify);
         }
 
         public void receiveResults(T results) {
-            synchronized (ResultsFuture.this) {
+            List<CompletionListener<T>> toNotify;
+            lock.lock();
+            try {
                 if (done) {
                     throw new IllegalStateException("Already sent results");
                 }
                 result = results;
-                done = true;
-                ResultsFuture.this.notifyAll();
+                toNotify = complete();
+            } finally {
+                lock.unlock();
             }
-            done();
+            done(toNotify);
         }
     };
 
@@ -90,9 +104,14 @@ public class ResultsFuture<T> implements Future<T> {
         return false;
     }
 
-    public synchronized T get() throws InterruptedException, ExecutionException {
-        while (!this.done) {
-            this.wait();
+    public T get() throws InterruptedException, ExecutionException {
+        lock.lock();
+        try {
+            while (!this.done) {
+                completed.await();
+            }
+        } finally {
+            lock.unlock();
         }
         return convertResult();
     }
@@ -104,16 +123,19 @@ public class ResultsFuture<T> implements Future<T> {
         return result;
     }
 
-    public synchronized T get(long timeout, TimeUnit unit) throws InterruptedException,
+    public T get(long timeout, TimeUnit unit) throws InterruptedException,
             ExecutionException, TimeoutException {
-        long millis = unit.toMillis(timeout);
-        long start = System.currentTimeMillis();
-        while (!this.done) {
-            long waitTill = start + millis - System.currentTimeMillis();
-            if (waitTill <= 0) {
-                throw new TimeoutException();
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!this.done) {
+                if (nanos <= 0) {
+                    throw new TimeoutException();
+                }
+                nanos = completed.awaitNanos(nanos);
             }
-            this.wait(waitTill);
+        } finally {
+            lock.unlock();
         }
         return convertResult();
     }
@@ -122,36 +144,69 @@ public class ResultsFuture<T> implements Future<T> {
         return false;
     }
 
-    public synchronized boolean isDone() {
-        return done;
+    public boolean isDone() {
+        lock.lock();
+        try {
+            return done;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    private void done() {
-        synchronized (this.listeners) {
-            for (CompletionListener<T> completionListener : this.listeners) {
-                try {
-                    completionListener.onCompletion(this);
-                } catch (Throwable t) {
-                    logger.log(Level.SEVERE, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20031), t);
-                }
-            }
-            this.listeners.clear();
+    /**
+     * Mark as done and wake the waiters, must be called holding the lock
+     *
+     * @return the listeners to notify
+     */
+    private List<CompletionListener<T>> complete() {
+        done = true;
+        completed.signalAll();
+        List<CompletionListener<T>> result = this.listeners;
+        this.listeners = null;
+        return result;
+    }
+
+    private void done(List<CompletionListener<T>> toNotify) {
+        if (toNotify == null) {
+            return;
+        }
+        for (CompletionListener<T> completionListener : toNotify) {
+            notifyListener(completionListener);
+        }
+    }
+
+    private void notifyListener(CompletionListener<T> listener) {
+        try {
+            listener.onCompletion(this);
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20031), t);
         }
     }
 
     public void addCompletionListener(CompletionListener<T> listener) {
-        synchronized (this) {
+        if (!addCompletionListenerIfPending(listener)) {
+            notifyListener(listener);
+        }
+    }
+
+    /**
+     * Add the listener only if this future is not yet done.
+     *
+     * @return true if the listener was added, false if the future is already done
+     */
+    public boolean addCompletionListenerIfPending(CompletionListener<T> listener) {
+        lock.lock();
+        try {
             if (done) {
-                try {
-                    listener.onCompletion(this);
-                } catch (Throwable t) {
-                    logger.log(Level.SEVERE, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20031), t);
-                }
-                return;
+                return false;
             }
-            synchronized (this.listeners) {
-                this.listeners.add(listener);
+            if (this.listeners == null) {
+                this.listeners = new ArrayList<>(2);
             }
+            this.listeners.add(listener);
+            return true;
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -0,0 +1,149 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.client.util;
+
+import java.util.ArrayDeque;
+
+/**
+ * The results of a remote call that the server answers with a sequence of messages rather than
+ * a single result, such as a streaming cursor.
+ * <p>
+ * Results are queued as they are received and are taken in order with {@link #next()}.  The server
+ * ends the stream with a null result, or with an exception.  The queue itself is not bounded,
+ * the caller bounds it with whatever flow control the call provides.
+ */
+public class ResultsStream<T> implements ResultsReceiver<T> {
+
+    private final ArrayDeque<T> results = new ArrayDeque<>();
+    private ResultsFuture<T> waiting;
+    private boolean done;
+    private Throwable exception;
+
+    /**
+     * @return a future for the next result, which will be null once the stream has ended
+     * @throws IllegalStateException if the future for the previous result has not completed
+     */
+    public ResultsFuture<T> next() {
+        ResultsFuture<T> future = createFuture();
+        T result;
+        Throwable e;
+        synchronized (this) {
+            if (waiting != null) {
+                throw new IllegalStateException();
+            }
+            result = results.poll();
+            e = exception;
+            if (result == null && !done) {
+                waiting = future;
+                return future;
+            }
+        }
+        if (result == null && e != null) {
+            future.getResultsReceiver().exceptionOccurred(e);
+        } else {
+            future.getResultsReceiver().receiveResults(result);
+        }
+        return future;
+    }
+
+    /**
+     * Create the future returned by {@link #next()}, which may need to drive reading the results
+     */
+    protected ResultsFuture<T> createFuture() {
+        return new ResultsFuture<>();
+    }
+
+    @Override
+    public void receiveResults(T result) {
+        ResultsFuture<T> future;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            if (result == null) {
+                done = true;
+            }
+            future = waiting;
+            waiting = null;
+            if (future == null) {
+                if (result != null) {
+                    results.add(result);
+                }
+                return;
+            }
+        }
+        future.getResultsReceiver().receiveResults(result);
+    }
+
+    @Override
+    public void exceptionOccurred(Throwable e) {
+        ResultsFuture<T> future;
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            done = true;
+            exception = e;
+            future = waiting;
+            waiting = null;
+        }
+        if (future != null) {
+            future.getResultsReceiver().exceptionOccurred(e);
+        }
+    }
+
+    /**
+     * End the stream locally, discarding the results that have not been taken.  A future that
+     * is waiting receives the end of the stream.
+     */
+    public void close() {
+        ResultsFuture<T> future;
+        synchronized (this) {
+            done = true;
+            results.clear();
+            future = waiting;
+            waiting = null;
+        }
+        if (future != null) {
+            future.getResultsReceiver().receiveResults(null);
+        }
+        closed();
+    }
+
+    /**
+     * Called after {@link #close()}, to stop the delivery of further results
+     */
+    protected void closed() {
+    }
+
+    /**
+     * @return true if the end of the stream or an exception has been received
+     */
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return the number of results received that have not been taken
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+}
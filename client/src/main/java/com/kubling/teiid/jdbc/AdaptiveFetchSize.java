@@ -0,0 +1,158 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.ColumnBatch;
+import com.kubling.teiid.core.types.BinaryType;
+
+import java.util.List;
+
+/**
+ * Chooses the number of rows to request in the next batch.
+ * <p>
+ * The row width is estimated from a sample of each batch and the fetch size is capped so that
+ * a batch stays near the target number of bytes.  Below that cap the size grows while the
+ * application has to wait on the next batch, meaning that the prefetch is not hiding the round trip,
+ * and shrinks back toward the initial size when the application is the slower side.
+ */
+final class AdaptiveFetchSize {
+
+    static final int DEFAULT_TARGET_BYTES = 1 << 21;
+    static final int MIN_FETCH_SIZE = 16;
+    static final int MAX_FETCH_SIZE = 1 << 16;
+
+    private static final int SAMPLE_ROWS = 8;
+
+    private final int initialFetchSize;
+    private final long targetBytes;
+
+    private volatile int fetchSize;
+    private double rowBytes;
+    private long lastBatchTime;
+    private long consumeNanos;
+
+    AdaptiveFetchSize(int initialFetchSize, long targetBytes) {
+        this.initialFetchSize = Math.max(MIN_FETCH_SIZE, initialFetchSize);
+        this.targetBytes = targetBytes > 0 ? targetBytes : DEFAULT_TARGET_BYTES;
+        this.fetchSize = this.initialFetchSize;
+    }
+
+    int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @return the estimated bytes per row, or 0 if no rows have been seen
+     */
+    double getRowBytes() {
+        return rowBytes;
+    }
+
+    /**
+     * Called when the application needs the next batch, before waiting on it.
+     */
+    void batchNeeded(long now) {
+        if (lastBatchTime != 0) {
+            consumeNanos = now - lastBatchTime;
+        }
+    }
+
+    /**
+     * Called once a batch is available.
+     *
+     * @param rows the rows of the batch
+     * @param waitNanos the time spent waiting on the batch after it was needed
+     */
+    void batchReceived(List<? extends List<?>> rows, long waitNanos, long now) {
+        lastBatchTime = now;
+        if (rows != null && !rows.isEmpty()) {
+            double sample = estimateRowBytes(rows);
+            rowBytes = rowBytes == 0 ? sample : (rowBytes + sample) / 2;
+        }
+        int next = fetchSize;
+        if (waitNanos > consumeNanos / 8) {
+            //the application is starved
+            next = fetchSize << 1;
+        } else if (waitNanos == 0 && fetchSize > initialFetchSize) {
+            next = Math.max(initialFetchSize, fetchSize - (fetchSize >> 2));
+        }
+        if (rowBytes > 0) {
+            next = (int) Math.min(next, targetBytes / rowBytes);
+        }
+        fetchSize = Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, next));
+    }
+
+    static double estimateRowBytes(List<? extends List<?>> rows) {
+        int size = rows.size();
+        int samples = Math.min(SAMPLE_ROWS, size);
+        long total = 0;
+        for (int i = 0; i < samples; i++) {
+            int index = (int) ((long) i * size / samples);
+            List<?> row = rows.get(index);
+            if (row instanceof ColumnBatch.Row columnRow) {
+                total += estimateRowBytes(columnRow);
+                continue;
+            }
+            total += 16;
+            for (int col = 0; col < row.size(); col++) {
+                total += estimateValueBytes(row.get(col));
+            }
+        }
+        return (double) total / samples;
+    }
+
+    private static long estimateRowBytes(ColumnBatch.Row row) {
+        ColumnBatch batch = row.getBatch();
+        long total = 0;
+        for (int col = 0; col < batch.getColumnCount(); col++) {
+            Object column = batch.getColumn(col);
+            if (column instanceof Object[] values) {
+                total += estimateValueBytes(values[row.getRowIndex()]);
+            } else {
+                //primitive slots, no per value overhead
+                total += 8;
+            }
+        }
+        return total;
+    }
+
+    static long estimateValueBytes(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof String s) {
+            return 40 + s.length();
+        }
+        if (value instanceof byte[] b) {
+            return 16 + b.length;
+        }
+        if (value instanceof BinaryType b) {
+            return 32 + b.getLength();
+        }
+        if (value instanceof Object[] array) {
+            long total = 16;
+            for (Object o : array) {
+                total += estimateValueBytes(o);
+            }
+            return total;
+        }
+        return 24;
+    }
+
+}
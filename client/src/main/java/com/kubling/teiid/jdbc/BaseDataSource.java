@@ -150,6 +150,11 @@ public abstract class BaseDataSource extends WrapperImpl implements javax.sql.Da
 
     private boolean useJDBC4ColumnNameAndLabelSemantics = true;
 
+    /**
+     * The number of closed prepared statements cached by each connection, 0 disables caching.
+     */
+    private int maxStatements;
+
     /**
      * Reference to the logWriter, which is transient and is therefore not serialized with the DataSource.
      */
@@ -254,6 +259,10 @@ public abstract class BaseDataSource extends WrapperImpl implements javax.sql.Da
             props.setProperty(ExecutionProperties.JDBC4COLUMNNAMEANDLABELSEMANTICS, Boolean.FALSE.toString());
         }
 
+        if (this.getMaxStatements() > 0) {
+            props.setProperty(ConnectionImpl.MAX_STATEMENTS, String.valueOf(this.getMaxStatements()));
+        }
+
         if (this.additionalProperties != null) {
             JDBCURL.parseConnectionProperties(this.additionalProperties, props);
         }
@@ -609,6 +618,22 @@ public abstract class BaseDataSource extends WrapperImpl implements javax.sql.Da
         this.useJDBC4ColumnNameAndLabelSemantics = useJDBC4ColumnNameAndLabelSemantics;
     }
 
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    /**
+     * Set the number of closed {@link java.sql.PreparedStatement}s each connection will cache for reuse.
+     * A cached statement is returned by a later prepare of the same sql, with the same result set type,
+     * concurrency, and generated keys setting, without having to fetch its metadata again.
+     * Statements are evicted least recently used first.  Defaults to 0, which disables caching.
+     *
+     * @param maxStatements the maximum number of cached statements per connection
+     */
+    public void setMaxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
     // --------------------------------------------------------------------------------------------
     //                  V A L I D A T I O N   M E T H O D S
     // --------------------------------------------------------------------------------------------
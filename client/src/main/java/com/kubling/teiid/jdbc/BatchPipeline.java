@@ -0,0 +1,167 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.core.TeiidComponentException;
+import com.kubling.teiid.core.TeiidProcessingException;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends the chunks of a large prepared statement batch without waiting for the previous chunk to complete.
+ * <p>
+ * At most window chunks are in flight.  The results are received in the order the chunks were sent so that
+ * the update counts are in the order of the batch, however the server may apply the chunks in flight in any order.
+ * A pipeline is therefore only used in a transaction, so that the batch as a whole is either committed or rolled back.
+ * If a chunk fails, the chunks after it are cancelled and the {@link BatchUpdateException} has the update counts
+ * of the commands prior to the failure.
+ */
+final class BatchPipeline {
+
+    private record Chunk(long requestID, ResultsFuture<ResultsMessage> future) {
+    }
+
+    private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
+
+    private final PreparedStatementImpl statement;
+    private final int window;
+    private final ArrayDeque<Chunk> inFlight = new ArrayDeque<>();
+    private int[] updateCounts = new int[0];
+
+    BatchPipeline(PreparedStatementImpl statement, int window) throws SQLException {
+        this.statement = statement;
+        this.window = Math.max(1, window);
+        statement.checkStatement();
+        statement.resetExecutionState();
+    }
+
+    /**
+     * Send the next chunk, first waiting for the oldest chunk if the window is full
+     */
+    void submit(List<List<Object>> rows) throws SQLException {
+        while (inFlight.size() >= window) {
+            completeOldest();
+        }
+        ResultsFuture<ResultsMessage> future;
+        try {
+            future = statement.submitBatchChunk(rows);
+        } catch (SQLException e) {
+            abort();
+            throw batchFailure(e);
+        }
+        long requestID = statement.getCurrentRequestID();
+        if (logger.isLoggable(Level.FINER)) {
+            logger.finer("Submitted batch chunk: requestID " + requestID + " rows " + rows.size() + " in flight " + (inFlight.size() + 1));
+        }
+        inFlight.add(new Chunk(requestID, future));
+    }
+
+    /**
+     * Wait for the remaining chunks
+     *
+     * @return the update counts of the whole batch
+     */
+    int[] finish() throws SQLException {
+        while (!inFlight.isEmpty()) {
+            completeOldest();
+        }
+        statement.commandStatus = StatementImpl.State.DONE;
+        return updateCounts;
+    }
+
+    private void completeOldest() throws SQLException {
+        Chunk chunk = inFlight.poll();
+        long timeout = statement.queryTimeoutMS;
+        int[] counts;
+        try {
+            ResultsMessage results = chunk.future().get(timeout == 0 ? Integer.MAX_VALUE : timeout, TimeUnit.MILLISECONDS);
+            counts = statement.receiveBatchedUpdate(chunk.requestID(), results);
+        } catch (BatchUpdateException e) {
+            abort();
+            throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(),
+                    PreparedStatementImpl.concatArrays(updateCounts, e.getUpdateCounts()), e);
+        } catch (SQLException e) {
+            abort();
+            throw batchFailure(e);
+        } catch (ExecutionException e) {
+            abort();
+            if (e.getCause() instanceof SQLException) {
+                throw batchFailure((SQLException) e.getCause());
+            }
+            throw batchFailure(TeiidSQLException.create(e.getCause() != null ? e.getCause() : e));
+        } catch (InterruptedException | TimeoutException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            cancel();
+            inFlight.clear();
+            statement.timeoutOccurred();
+            throw batchFailure(new TeiidSQLException(JDBCPlugin.Util.getString("MMStatement.Timeout_before_complete")));
+        }
+        updateCounts = PreparedStatementImpl.concatArrays(updateCounts, counts);
+    }
+
+    /**
+     * @return an exception with the update counts of the chunks that have completed
+     */
+    private BatchUpdateException batchFailure(SQLException e) {
+        return new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), updateCounts, e);
+    }
+
+    /**
+     * Cancel the chunks in flight and wait for them to end
+     */
+    void abort() {
+        cancel();
+        long timeout = statement.queryTimeoutMS;
+        Chunk chunk;
+        while ((chunk = inFlight.poll()) != null) {
+            try {
+                chunk.future().get(timeout == 0 ? Integer.MAX_VALUE : timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                inFlight.clear();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.log(Level.FINE, "Batch chunk " + chunk.requestID() + " did not complete", e);
+            }
+        }
+    }
+
+    private void cancel() {
+        for (Chunk chunk : inFlight) {
+            try {
+                statement.getDQP().cancelRequest(chunk.requestID());
+            } catch (TeiidProcessingException | TeiidComponentException e) {
+                logger.log(Level.FINE, "Could not cancel batch chunk " + chunk.requestID(), e);
+            }
+        }
+    }
+
+}
@@ -215,6 +215,10 @@ public class BatchResults {
         return true;
     }
 
+    Batch getLatestBatch() {
+        return batches.getFirst();
+    }
+
     public int getCurrentRowNumber() {
         return currentRowNumber;
     }
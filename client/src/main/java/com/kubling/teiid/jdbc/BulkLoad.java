@@ -0,0 +1,195 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.ParameterMetaData;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads a table from delimited text that is sent as a single clob parameter of
+ * <code>INSERT INTO table (columns) SELECT ... FROM TEXTTABLE(? COLUMNS ...)</code>.
+ * <p>
+ * The clob is streamed in chunks after the request like any other lob parameter, so neither the client
+ * nor the request message holds the rows and the load is not bound by the max object size.
+ * The TEXTTABLE column types are those of the target columns, which are determined by preparing an
+ * insert of the columns.
+ */
+final class BulkLoad {
+
+    private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
+
+    private BulkLoad() {
+    }
+
+    static int load(ConnectionImpl connection, String table, String[] columns, Reader text) throws SQLException {
+        if (columns == null || columns.length == 0) {
+            throw new TeiidSQLException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20044, table));
+        }
+        String[] types = new String[columns.length];
+        try (PreparedStatementImpl insert = connection.prepareStatement(getInsertSql(table, columns))) {
+            ParameterMetaData metadata = insert.getParameterMetaData();
+            for (int i = 0; i < columns.length; i++) {
+                types[i] = metadata.getParameterTypeName(i + 1);
+            }
+        }
+        String sql = getLoadSql(table, columns, types);
+        if (logger.isLoggable(Level.FINER)) {
+            logger.finer("Bulk loading: " + sql);
+        }
+        try (PreparedStatementImpl load = connection.prepareStatement(sql)) {
+            load.setCharacterStream(1, text);
+            return load.executeUpdate();
+        }
+    }
+
+    static String getInsertSql(String table, String[] columns) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        appendColumns(sql, columns, null);
+        sql.append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append('?');
+        }
+        return sql.append(')').toString();
+    }
+
+    static String getLoadSql(String table, String[] columns, String[] types) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (");
+        appendColumns(sql, columns, null);
+        sql.append(") SELECT ");
+        appendColumns(sql, columns, "\"t\".");
+        sql.append(" FROM TEXTTABLE(? COLUMNS ");
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            appendId(sql, columns[i]);
+            sql.append(' ').append(types[i]);
+        }
+        return sql.append(") AS \"t\"").toString();
+    }
+
+    private static void appendColumns(StringBuilder sql, String[] columns, String prefix) {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            if (prefix != null) {
+                sql.append(prefix);
+            }
+            appendId(sql, columns[i]);
+        }
+    }
+
+    private static void appendId(StringBuilder sql, String id) {
+        sql.append('"').append(id.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Presents rows as comma delimited text in the TEXTTABLE defaults, one row per line.  Values are written
+     * with their string form, quoted if needed.  A null value is an empty field, an empty string is quoted.
+     * <p>
+     * Only a single row is formatted at a time.
+     */
+    static final class TextRowsReader extends Reader {
+
+        private final Iterator<? extends List<?>> rows;
+        private final int columns;
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+
+        TextRowsReader(Iterator<? extends List<?>> rows, int columns) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == line.length() && !nextLine()) {
+                return -1;
+            }
+            int count = Math.min(len, line.length() - position);
+            line.getChars(position, position + count, cbuf, off);
+            position += count;
+            return count;
+        }
+
+        private boolean nextLine() throws IOException {
+            line.setLength(0);
+            position = 0;
+            if (!rows.hasNext()) {
+                return false;
+            }
+            List<?> row = rows.next();
+            if (row.size() != columns) {
+                throw new IOException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20045, row.size(), columns));
+            }
+            for (int i = 0; i < columns; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                Object value = row.get(i);
+                if (value != null) {
+                    appendValue(value.toString());
+                }
+            }
+            line.append('\n');
+            return true;
+        }
+
+        private void appendValue(String value) {
+            boolean quote = value.isEmpty();
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        @Override
+        public void close() {
+            line.setLength(0);
+            position = 0;
+        }
+    }
+
+}
@@ -66,8 +66,10 @@ public class CallableStatementImpl extends PreparedStatementImpl implements Call
     }
 
     public void close() throws SQLException {
-        this.prepareSql = null;
         super.close();
+        if (!isCached()) {
+            this.prepareSql = null;
+        }
     }
 
     public BigDecimal getBigDecimal(int parameterIndex, int scale) throws SQLException {
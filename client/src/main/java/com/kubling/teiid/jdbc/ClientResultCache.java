@@ -0,0 +1,217 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.BatchSerializer;
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.core.types.DataTypeManager;
+import com.kubling.teiid.core.util.PropertiesUtils;
+import com.kubling.teiid.netty.handler.codec.serialization.CompactObjectInputStream;
+import com.kubling.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A client side cache of small query results.  The cache is bounded for all the connections of the driver,
+ * but each entry is only reused by the session that created it.
+ * <p>
+ * Only results that are complete in the first batch and have no lob values are cached.  The rows
+ * are held serialized so that each hit creates its own rows and the size is known.  Entries expire
+ * after the ttl given when they were added and the least recently used entries are evicted once the
+ * total size exceeds the maximum bytes, which is set with the org.teiid.clientResultCacheBytes system property.
+ */
+final class ClientResultCache {
+
+    /**
+     * The identity of a query result - the server, the vdb and session, the sql and parameter values, and the
+     * request settings that affect the rows.  Results may depend upon session state, such as session variables,
+     * so they are not shared between sessions even of the same user.
+     */
+    record Key(String url, String vdbName, int vdbVersion, String sessionId, String sql,
+               List<?> parameters, int rowLimit, boolean ansiQuotedIdentifiers) {
+    }
+
+    private static final class Entry {
+        private final String[] columnNames;
+        private final String[] dataTypes;
+        private final byte[] rows;
+        private final long expires;
+
+        Entry(String[] columnNames, String[] dataTypes, byte[] rows, long expires) {
+            this.columnNames = columnNames;
+            this.dataTypes = dataTypes;
+            this.rows = rows;
+            this.expires = expires;
+        }
+    }
+
+    static final long DEFAULT_MAX_BYTES = 1 << 25;
+    /**
+     * Expiry is compared as a nanoTime difference, so ttls are capped well below the wrap around
+     */
+    static final long MAX_TTL_NANOS = Long.MAX_VALUE / 2;
+
+    private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
+
+    private static final ClientResultCache INSTANCE = new ClientResultCache(
+            PropertiesUtils.getHierarchicalProperty("org.teiid.clientResultCacheBytes", DEFAULT_MAX_BYTES, Long.class));
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, .75f, true);
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    ClientResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    static ClientResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if values of the parameter can be part of a {@link Key}
+     */
+    static boolean isCacheableParameter(Object value) {
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Date;
+    }
+
+    /**
+     * @return true if the results are complete and can be held by the cache
+     */
+    static boolean isCacheable(ResultsMessage resultsMsg) {
+        if (resultsMsg.isUpdateResult() || resultsMsg.getException() != null
+                || (resultsMsg.getParameters() != null && !resultsMsg.getParameters().isEmpty())
+                || (resultsMsg.getWarnings() != null && !resultsMsg.getWarnings().isEmpty())
+                || resultsMsg.getPlanDescription() != null || resultsMsg.getDebugLog() != null
+                || resultsMsg.getResultsList() == null
+                || resultsMsg.getDataTypes() == null || resultsMsg.getFirstRow() != 1
+                || resultsMsg.getLastRow() != resultsMsg.getFinalRow()) {
+            return false;
+        }
+        for (String type : resultsMsg.getDataTypes()) {
+            if (DataTypeManager.isLOB(type) || DataTypeManager.DefaultDataTypes.OBJECT.equals(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a new message with the cached rows or null if there is no current entry
+     */
+    ResultsMessage get(Key key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.expires - System.nanoTime() <= 0) {
+                remove(key);
+                expirationCount++;
+                entry = null;
+            }
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+        }
+        try {
+            CompactObjectInputStream ois = new CompactObjectInputStream(new ByteArrayInputStream(entry.rows),
+                    ResultsMessage.class.getClassLoader());
+            List<? extends List<?>> rows = BatchSerializer.readBatch(ois, entry.dataTypes, true);
+            ResultsMessage resultsMsg = new ResultsMessage(rows, entry.columnNames, entry.dataTypes);
+            resultsMsg.setFinalRow(rows.size());
+            return resultsMsg;
+        } catch (IOException | ClassNotFoundException e) {
+            logger.log(Level.WARNING, "Could not read cached results", e);
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    remove(key);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Add the rows of a result that is {@link #isCacheable(ResultsMessage)}
+     */
+    void put(Key key, ResultsMessage resultsMsg, long ttlMillis) {
+        byte[] rows;
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            CompactObjectOutputStream oos = new CompactObjectOutputStream(baos);
+            BatchSerializer.writeBatch(oos, resultsMsg.getDataTypes(), resultsMsg.getResultsList());
+            oos.close();
+            rows = baos.toByteArray();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not cache results", e);
+            return;
+        }
+        if (rows.length > maxBytes) {
+            return;
+        }
+        Entry entry = new Entry(resultsMsg.getColumnNames(), resultsMsg.getDataTypes(), rows,
+                System.nanoTime() + Math.min(TimeUnit.MILLISECONDS.toNanos(ttlMillis), MAX_TTL_NANOS));
+        synchronized (this) {
+            remove(key);
+            entries.put(key, entry);
+            bytes += rows.length;
+            Iterator<Map.Entry<Key, Entry>> iter = entries.entrySet().iterator();
+            while (bytes > maxBytes && iter.hasNext()) {
+                Map.Entry<Key, Entry> eldest = iter.next();
+                iter.remove();
+                bytes -= eldest.getValue().rows.length;
+                evictionCount++;
+            }
+        }
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.rows.length;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    synchronized ClientResultCacheStatistics getStatistics() {
+        return new ClientResultCacheStatistics(entries.size(), bytes, maxBytes, hitCount, missCount, evictionCount,
+                expirationCount);
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+/**
+ * A snapshot of the state of the client side result cache.
+ *
+ * @see ExecutionProperties#RESULT_SET_CLIENT_CACHE_TTL
+ */
+public final class ClientResultCacheStatistics {
+
+    private final int entryCount;
+    private final long bytes;
+    private final long maxBytes;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+
+    public ClientResultCacheStatistics(int entryCount, long bytes, long maxBytes, long hitCount, long missCount,
+                                       long evictionCount, long expirationCount) {
+        this.entryCount = entryCount;
+        this.bytes = bytes;
+        this.maxBytes = maxBytes;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    /**
+     * @return the number of cached results
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the serialized size of the cached results
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the size at which least recently used results are evicted
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the number of executions answered from the cache
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of cacheable executions sent to the server
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of results evicted to stay within the max bytes
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of results removed because their ttl had passed
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientResultCacheStatistics [entries=" + entryCount + ", bytes=" + bytes + ", maxBytes=" + maxBytes
+                + ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+                + ", expirations=" + expirationCount + "]";
+    }
+
+}
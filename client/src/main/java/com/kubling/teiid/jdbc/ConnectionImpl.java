@@ -21,6 +21,7 @@ package com.kubling.teiid.jdbc;
 import com.kubling.teiid.client.DQP;
 import com.kubling.teiid.client.plan.Annotation;
 import com.kubling.teiid.client.plan.PlanNode;
+import com.kubling.teiid.client.security.LogonResult;
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.client.xa.XATransactionException;
 import com.kubling.teiid.client.xa.XidImpl;
@@ -36,6 +37,10 @@ import com.kubling.teiid.net.TeiidURL;
 import com.kubling.teiid.net.socket.SocketServerConnection;
 
 import javax.transaction.xa.Xid;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -54,6 +59,12 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
 
     public static final int DEFAULT_ISOLATION = Connection.TRANSACTION_READ_COMMITTED;
 
+    /**
+     * The number of prepared statement metadata results to cache on the connection, 0 disables the cache.
+     */
+    public static final String METADATA_CACHE_SIZE = "metadataCacheSize";
+    public static final String MAX_STATEMENTS = "maxStatements";
+
     // constant value giving product name
     private final static String SERVER_NAME = "Kubling DBVirt Server";
     private final static String EMBEDDED_NAME = "Kubling DBVirt Embedded";
@@ -101,8 +112,17 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
     private Boolean savedReadOnly;
     private int savedIsolationLevel;
 
+    private MetadataCache metadataCache;
+    private boolean sharedMetadataCache;
+    private int metadataCacheReconnects;
+    private StatementCache statementCache;
+
+    private final Object initialUserName;
+    private volatile Connection publicConnection;
+
     public ConnectionImpl(ServerConnection serverConn, Properties info, String url) {
         this.connectionProps = info;
+        this.initialUserName = info.get(TeiidURL.CONNECTION.USER_NAME);
         this.serverConn = serverConn;
         this.url = url;
         this.dqp = serverConn.getService(DQP.class);
@@ -113,12 +133,29 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
         }
 
         setExecutionProperties(info);
+
+        int metadataCacheSize = PropertiesUtils.getIntProperty(info, METADATA_CACHE_SIZE, 0);
+        if (metadataCacheSize > 0) {
+            this.metadataCache = new MetadataCache(metadataCacheSize);
+            this.metadataCacheReconnects = serverConn.getReconnectCount();
+        }
+        int maxStatements = PropertiesUtils.getIntProperty(info, MAX_STATEMENTS, 0);
+        if (maxStatements > 0) {
+            this.statementCache = new StatementCache(maxStatements, serverConn.getReconnectCount());
+        }
     }
 
     boolean isInLocalTxn() {
         return inLocalTxn;
     }
 
+    /**
+     * @return true if statements will run in a local or global transaction
+     */
+    boolean isInTransaction() {
+        return this.transactionXid != null || inLocalTxn || (!this.autoCommitFlag && !isDisableLocalTxn());
+    }
+
     private void setExecutionProperties(Properties info) {
         this.propInfo = new Properties();
 
@@ -277,6 +314,9 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
             } catch (SQLException se) {
                 firstException = se;
             } finally {
+                if (this.statementCache != null) {
+                    this.statementCache.clear();
+                }
                 this.serverConn.close();
                 if (firstException != null) {
                     throw firstException;
@@ -325,6 +365,46 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
         this.statements.remove(statement);
     }
 
+    /**
+     * Called by a closing prepared statement to return it to the statement cache.  Only a statement
+     * currently open on this connection is accepted, so it cannot be cached twice.
+     *
+     * @return true if the statement was reset and cached, false if it should be closed
+     */
+    boolean cacheStatement(PreparedStatementImpl statement) {
+        StatementCache.StatementKey key = statement.getCacheKey();
+        if (this.statementCache == null || key == null || this.closed) {
+            return false;
+        }
+        int reconnects = this.serverConn.getReconnectCount();
+        this.statementCache.checkReconnects(reconnects);
+        //a statement handed out before a reconnect may hold stale metadata
+        if (!statement.isPoolableInternal() || statement.publishing || statement.getCacheReconnects() != reconnects
+                || !this.statements.remove(statement)) {
+            return false;
+        }
+        try {
+            statement.recycle();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Could not reset the statement for reuse", e);
+            return false;
+        }
+        this.statementCache.put(key, statement, reconnects);
+        return true;
+    }
+
+    StatementCache getStatementCache() {
+        return this.statementCache;
+    }
+
+    @Override
+    public StatementCacheStatistics getStatementCacheStatistics() {
+        if (this.statementCache == null) {
+            return null;
+        }
+        return this.statementCache.getStatistics();
+    }
+
     /**
      * <p>This method makes any changes involved in a transaction permanent and releases
      * any locks held by the connection object.  This is only used when auto-commit
@@ -577,10 +657,22 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
         validateResultSetConcurrency(resultSetConcurrency);
         validateSQL(sql);
 
+        boolean generatedKeys = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS;
+        int reconnects = this.serverConn.getReconnectCount();
+        StatementCache.StatementKey key = null;
+        PreparedStatementImpl newStatement = null;
+        if (this.statementCache != null) {
+            key = new StatementCache.StatementKey(sql, resultSetType, resultSetConcurrency, generatedKeys, false);
+            newStatement = this.statementCache.take(key, reconnects);
+        }
+        if (newStatement == null) {
+            newStatement = new PreparedStatementImpl(this, sql, resultSetType, resultSetConcurrency);
+            newStatement.setCacheKey(key);
+        }
+        newStatement.setAutoGeneratedKeys(generatedKeys);
         // add the statement object to the map
-        PreparedStatementImpl newStatement = new PreparedStatementImpl(this, sql, resultSetType, resultSetConcurrency);
-        newStatement.setAutoGeneratedKeys(autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS);
         addStatement(newStatement);
+        newStatement.open(reconnects);
         return newStatement;
     }
 
@@ -813,6 +905,39 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
         }
     }
 
+    /**
+     * Restore the session state this connection was opened with - the execution properties, read only,
+     * transaction isolation and payload - so that a pooled connection does not carry the settings of
+     * its previous user.  Should be called after {@link #recycleConnection()}.
+     *
+     * @return false if the state cannot be restored, because the user was changed or a transaction
+     * is still associated, and the connection should not be reused
+     */
+    boolean resetSessionState() {
+        if (!Objects.equals(this.initialUserName, this.connectionProps.get(TeiidURL.CONNECTION.USER_NAME))
+                || this.transactionXid != null || !this.autoCommitFlag) {
+            return false;
+        }
+        setExecutionProperties(this.connectionProps);
+        this.readOnly = false;
+        this.transactionIsolation = DEFAULT_ISOLATION;
+        this.savedReadOnly = null;
+        this.payload = null;
+        return true;
+    }
+
+    /**
+     * Set the connection returned by the statements and metadata of this connection, such as a pool proxy.
+     */
+    void setPublicConnection(Connection publicConnection) {
+        this.publicConnection = publicConnection;
+    }
+
+    Connection getPublicConnection() {
+        Connection result = this.publicConnection;
+        return result != null ? result : this;
+    }
+
     public boolean isSameProcess(ConnectionImpl conn) throws CommunicationException {
         return this.serverConn.isSameInstance(conn.serverConn);
     }
@@ -892,9 +1017,20 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
         validateSQL(sql);
         //TODO: implement close cursors at commit
 
+        int reconnects = this.serverConn.getReconnectCount();
+        StatementCache.StatementKey key = null;
+        CallableStatementImpl newStatement = null;
+        if (this.statementCache != null) {
+            key = new StatementCache.StatementKey(sql, resultSetType, resultSetConcurrency, false, true);
+            newStatement = (CallableStatementImpl) this.statementCache.take(key, reconnects);
+        }
+        if (newStatement == null) {
+            newStatement = new CallableStatementImpl(this, sql, resultSetType, resultSetConcurrency);
+            newStatement.setCacheKey(key);
+        }
         // add the statement object to the map
-        CallableStatementImpl newStatement = new CallableStatementImpl(this, sql, resultSetType, resultSetConcurrency);
         addStatement(newStatement);
+        newStatement.open(reconnects);
         return newStatement;
     }
 
@@ -959,6 +1095,26 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
         return result.toString();
     }
 
+    @Override
+    public int bulkLoad(String table, String[] columns, Iterator<? extends List<?>> rows) throws SQLException {
+        return BulkLoad.load(this, table, columns, new BulkLoad.TextRowsReader(rows, columns == null ? 0 : columns.length));
+    }
+
+    @Override
+    public int bulkLoad(String table, String[] columns, Reader csv) throws SQLException {
+        return BulkLoad.load(this, table, columns, csv);
+    }
+
+    @Override
+    public int bulkLoad(String table, String[] columns, InputStream csv) throws SQLException {
+        return BulkLoad.load(this, table, columns, new InputStreamReader(csv, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public ClientResultCacheStatistics getClientResultCacheStatistics() {
+        return ClientResultCache.getInstance().getStatistics();
+    }
+
     @Override
     public void changeUser(String userName, String newPassword)
             throws SQLException {
@@ -1022,6 +1178,37 @@ public class ConnectionImpl extends WrapperImpl implements TeiidConnection {
         this.payload = payload;
     }
 
+    /**
+     * Use the given cache, typically shared by a {@link TeiidDataSource}, for prepared statement metadata
+     */
+    synchronized void setMetadataCache(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+        this.sharedMetadataCache = true;
+        this.metadataCacheReconnects = this.serverConn.getReconnectCount();
+    }
+
+    /**
+     * Get the prepared statement metadata cache.  A cache held by this connection is cleared if the
+     * session has moved to another server since it was last used, such as after a fail over.
+     * A shared cache is not cleared, as other connections may not have moved and the entries
+     * are keyed by the vdb version.
+     *
+     * @return the cache or null if caching is not enabled
+     */
+    synchronized MetadataCache getMetadataCache() {
+        if (this.metadataCache == null) {
+            return null;
+        }
+        int reconnects = this.serverConn.getReconnectCount();
+        if (reconnects != this.metadataCacheReconnects) {
+            if (!this.sharedMetadataCache) {
+                this.metadataCache.clear();
+            }
+            this.metadataCacheReconnects = reconnects;
+        }
+        return this.metadataCache;
+    }
+
     public Properties getConnectionProps() {
         return connectionProps;
     }
@@ -0,0 +1,444 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.security.InvalidSessionException;
+import com.kubling.teiid.client.util.ExceptionUtil;
+import com.kubling.teiid.net.CommunicationException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A simple pool of {@link ConnectionImpl}s for a {@link TeiidDataSource}.
+ * <p>
+ * Idle connections are reused most recently used first, so that the least used connections
+ * age out after the idle timeout.  A connection that has been idle longer than the validation
+ * interval is pinged before it is handed out.  Threads waiting on a full pool are served
+ * in arrival order.
+ * <p>
+ * Connections are handed out as proxies.  Closing the proxy recycles the connection, which closes
+ * its statements and rolls back any local transaction, and returns it to the pool.
+ */
+final class ConnectionPool {
+
+    interface ConnectionFactory {
+        ConnectionImpl createConnection() throws SQLException;
+    }
+
+    static final long DEFAULT_IDLE_TIMEOUT = 600000;
+    static final long DEFAULT_VALIDATION_INTERVAL = 30000;
+    static final long DEFAULT_WAIT_TIMEOUT = 30000;
+    static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
+    private static final EnhancedTimer EVICTION_TIMER = new EnhancedTimer("Teiid Connection Pool");
+
+    private static final class IdleConnection {
+        final ConnectionImpl connection;
+        final long lastUsed;
+
+        IdleConnection(ConnectionImpl connection, long lastUsed) {
+            this.connection = connection;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final class PooledConnectionHandler implements InvocationHandler {
+        private final ConnectionImpl connection;
+        private boolean closed;
+        private boolean broken;
+
+        PooledConnectionHandler(ConnectionImpl connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            //answered by the proxy, so that the pooled connection does not escape
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "unwrap":
+                    if (!((Class<?>) args[0]).isInstance(proxy)) {
+                        throw new SQLException(JDBCPlugin.Util.getString("WrapperImpl.wrong_class", args[0]));
+                    }
+                    return proxy;
+                default:
+                    break;
+            }
+            synchronized (this) {
+                if ("close".equals(name)) {
+                    if (!closed) {
+                        closed = true;
+                        release(connection, broken);
+                    }
+                    return null;
+                }
+                if ("isClosed".equals(name)) {
+                    return closed || connection.isClosed();
+                }
+                if (closed) {
+                    throw new TeiidSQLException(JDBCPlugin.Util.getString("MMConnection.Cant_use_closed_connection"));
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                if (ExceptionUtil.getExceptionOfType(e, InvalidSessionException.class) != null
+                        || ExceptionUtil.getExceptionOfType(e, CommunicationException.class) != null) {
+                    synchronized (this) {
+                        broken = true;
+                    }
+                }
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final int minIdle;
+    private final int maxIdle;
+    private final long idleTimeout;
+    private final long waitTimeout;
+    private final long validationInterval;
+
+    //fair, so that waiting threads acquire connections in order
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+    private final ArrayDeque<IdleConnection> idle = new ArrayDeque<>();
+    private int total;
+    private int waiting;
+    private boolean closed;
+    private EnhancedTimer.Task evictionTask;
+
+    private long created;
+    private long destroyed;
+    private long borrowed;
+    private long waitTimeouts;
+    private long validationFailures;
+
+    /**
+     * @param maxSize the maximum number of open connections
+     * @param minIdle the number of idle connections to keep open, even after the idle timeout
+     * @param maxIdle the maximum number of idle connections, or &lt;= 0 for no limit beyond the max size
+     * @param idleTimeout ms a connection may stay idle before it is closed, or &lt;= 0 to never time out
+     * @param waitTimeout ms to wait for a connection when the pool is exhausted
+     * @param validationInterval ms a connection may stay idle before it is validated on borrow
+     */
+    ConnectionPool(ConnectionFactory factory, int maxSize, int minIdle, int maxIdle, long idleTimeout,
+                   long waitTimeout, long validationInterval) {
+        this.factory = factory;
+        this.maxSize = Math.max(1, maxSize);
+        this.minIdle = Math.max(0, Math.min(minIdle, this.maxSize));
+        this.maxIdle = maxIdle <= 0 ? this.maxSize : Math.max(this.minIdle, maxIdle);
+        this.idleTimeout = idleTimeout;
+        this.waitTimeout = Math.max(0, waitTimeout);
+        this.validationInterval = validationInterval;
+        scheduleEviction();
+    }
+
+    /**
+     * Get a connection from the pool, opening a new one if there are no idle connections
+     * and the pool is not at its max size.
+     *
+     * @return a proxy that returns the connection to the pool when closed
+     */
+    Connection getConnection() throws SQLException {
+        ConnectionImpl connection = borrow();
+        Connection proxy = (Connection) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class[]{TeiidConnection.class}, new PooledConnectionHandler(connection));
+        //statements and metadata return the proxy, so that closing their connection also releases it
+        connection.setPublicConnection(proxy);
+        return proxy;
+    }
+
+    /**
+     * @return the connection behind a proxy returned by {@link #getConnection()}
+     */
+    static ConnectionImpl getPooledConnection(Connection proxy) {
+        return ((PooledConnectionHandler) Proxy.getInvocationHandler(proxy)).connection;
+    }
+
+    ConnectionImpl borrow() throws SQLException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(waitTimeout);
+        while (true) {
+            IdleConnection candidate = null;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new TeiidSQLException(JDBCPlugin.Util.getString("MMConnection.Cant_use_closed_connection"));
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate != null) {
+                        break;
+                    }
+                    if (total < maxSize) {
+                        //reserve the slot before connecting outside of the lock
+                        total++;
+                        break;
+                    }
+                    if (remaining <= 0) {
+                        waitTimeouts++;
+                        throw new TeiidSQLException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20040, waitTimeout, maxSize));
+                    }
+                    waiting++;
+                    try {
+                        remaining = available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw TeiidSQLException.create(e);
+                    } finally {
+                        waiting--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (candidate == null) {
+                ConnectionImpl connection = create();
+                lock.lock();
+                try {
+                    borrowed++;
+                } finally {
+                    lock.unlock();
+                }
+                return connection;
+            }
+            if (validate(candidate)) {
+                lock.lock();
+                try {
+                    borrowed++;
+                } finally {
+                    lock.unlock();
+                }
+                return candidate.connection;
+            }
+            lock.lock();
+            try {
+                validationFailures++;
+            } finally {
+                lock.unlock();
+            }
+            destroy(candidate.connection);
+        }
+    }
+
+    private ConnectionImpl create() throws SQLException {
+        boolean success = false;
+        try {
+            ConnectionImpl connection = factory.createConnection();
+            if (connection == null) {
+                throw new TeiidSQLException(JDBCPlugin.Util.getString("MMConnection.Cant_use_closed_connection"));
+            }
+            success = true;
+            return connection;
+        } finally {
+            lock.lock();
+            try {
+                if (success) {
+                    created++;
+                } else {
+                    total--;
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean validate(IdleConnection candidate) {
+        if (candidate.connection.isClosed()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - candidate.lastUsed < validationInterval) {
+            return true;
+        }
+        try {
+            return candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return a connection to the pool with its session state reset.  A broken connection, one whose
+     * state cannot be reset such as after a change of user, or one beyond the max idle count, is closed instead.
+     */
+    void release(ConnectionImpl connection, boolean broken) {
+        connection.setPublicConnection(null);
+        if (!broken && !connection.isClosed()) {
+            connection.recycleConnection();
+            broken = !connection.resetSessionState();
+        }
+        lock.lock();
+        try {
+            if (!closed && !broken && !connection.isClosed() && idle.size() < maxIdle) {
+                idle.addFirst(new IdleConnection(connection, System.currentTimeMillis()));
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroy(connection);
+    }
+
+    private void destroy(ConnectionImpl connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Error closing a pooled connection", e);
+        }
+        lock.lock();
+        try {
+            total--;
+            destroyed++;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close idle connections that have exceeded the idle timeout, keeping at least the min idle
+     * connections, then open connections until there are min idle connections.
+     */
+    void evict(long now) {
+        List<ConnectionImpl> toClose = new ArrayList<>();
+        int toCreate;
+        lock.lock();
+        try {
+            if (idleTimeout > 0) {
+                //the oldest connections are at the end
+                Iterator<IdleConnection> iter = idle.descendingIterator();
+                while (iter.hasNext() && idle.size() > minIdle) {
+                    IdleConnection candidate = iter.next();
+                    if (now - candidate.lastUsed < idleTimeout) {
+                        break;
+                    }
+                    iter.remove();
+                    toClose.add(candidate.connection);
+                }
+            }
+            toCreate = closed ? 0 : Math.min(minIdle - idle.size(), maxSize - total + toClose.size());
+        } finally {
+            lock.unlock();
+        }
+        for (ConnectionImpl connection : toClose) {
+            destroy(connection);
+        }
+        for (int i = 0; i < toCreate; i++) {
+            lock.lock();
+            try {
+                if (closed || total >= maxSize) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                release(create(), false);
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Could not open an idle pooled connection", e);
+                return;
+            }
+        }
+    }
+
+    private void scheduleEviction() {
+        if (idleTimeout <= 0 && minIdle == 0) {
+            return;
+        }
+        long interval = idleTimeout > 0 ? Math.min(idleTimeout, DEFAULT_VALIDATION_INTERVAL) : DEFAULT_VALIDATION_INTERVAL;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            evictionTask = EVICTION_TIMER.add(() -> {
+                try {
+                    evict(System.currentTimeMillis());
+                } finally {
+                    scheduleEviction();
+                }
+            }, interval);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close the idle connections and prevent further use of the pool.  Connections in use
+     * are closed when they are returned.
+     */
+    void close() {
+        List<IdleConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            if (evictionTask != null) {
+                evictionTask.cancel();
+            }
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (IdleConnection connection : toClose) {
+            destroy(connection.connection);
+        }
+    }
+
+    ConnectionPoolStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new ConnectionPoolStatistics(total - idle.size(), idle.size(), waiting, created, destroyed,
+                    borrowed, waitTimeouts, validationFailures);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
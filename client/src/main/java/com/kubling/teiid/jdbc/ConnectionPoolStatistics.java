@@ -0,0 +1,110 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+/**
+ * A snapshot of the state of a {@link TeiidDataSource} connection pool.
+ */
+public final class ConnectionPoolStatistics {
+
+    private final int activeCount;
+    private final int idleCount;
+    private final int waitingCount;
+    private final long createdCount;
+    private final long destroyedCount;
+    private final long borrowedCount;
+    private final long waitTimeoutCount;
+    private final long validationFailureCount;
+
+    public ConnectionPoolStatistics(int activeCount, int idleCount, int waitingCount, long createdCount,
+                                    long destroyedCount, long borrowedCount, long waitTimeoutCount, long validationFailureCount) {
+        this.activeCount = activeCount;
+        this.idleCount = idleCount;
+        this.waitingCount = waitingCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.borrowedCount = borrowedCount;
+        this.waitTimeoutCount = waitTimeoutCount;
+        this.validationFailureCount = validationFailureCount;
+    }
+
+    /**
+     * @return the number of connections currently in use by the application
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return the number of open connections waiting in the pool
+     */
+    public int getIdleCount() {
+        return idleCount;
+    }
+
+    /**
+     * @return the number of threads waiting for a connection
+     */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    /**
+     * @return the number of connections opened by the pool
+     */
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * @return the number of connections closed by the pool
+     */
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    /**
+     * @return the number of times a connection has been handed out
+     */
+    public long getBorrowedCount() {
+        return borrowedCount;
+    }
+
+    /**
+     * @return the number of requests that timed out waiting for a connection
+     */
+    public long getWaitTimeoutCount() {
+        return waitTimeoutCount;
+    }
+
+    /**
+     * @return the number of idle connections discarded because they failed validation
+     */
+    public long getValidationFailureCount() {
+        return validationFailureCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStatistics [active=" + activeCount + ", idle=" + idleCount + ", waiting=" + waitingCount
+                + ", created=" + createdCount + ", destroyed=" + destroyedCount + ", borrowed=" + borrowedCount
+                + ", waitTimeouts=" + waitTimeoutCount + ", validationFailures=" + validationFailureCount + "]";
+    }
+
+}
@@ -2479,7 +2479,7 @@ public class DatabaseMetaDataImpl extends WrapperImpl implements DatabaseMetaDat
     }
 
     public Connection getConnection() throws SQLException {
-        return driverConnection;
+        return driverConnection.getPublicConnection();
     }
 
     public boolean supportsStoredFunctionsUsingCallSyntax() {
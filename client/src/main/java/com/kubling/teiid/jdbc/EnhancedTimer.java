@@ -24,13 +24,17 @@ import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.Executor;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Specialized timer that can purge tasks in lg(n) time
- * Will only hold a thread while there are pending tasks.
+ * Will only hold a thread while there are pending tasks, which may be a virtual thread
+ * if org.teiid.useVirtualThreads is set.
  */
 public class EnhancedTimer {
 
@@ -72,6 +76,8 @@ public class EnhancedTimer {
     private final ConcurrentSkipListSet<Task> queue = new ConcurrentSkipListSet<>();
     private final Executor taskExecutor;
     private final Executor bossExecutor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
     private boolean running;
 
     /**
@@ -105,19 +111,25 @@ public class EnhancedTimer {
         try {
             task = queue.first();
         } catch (NoSuchElementException e) {
-            synchronized (this) {
+            lock.lock();
+            try {
                 if (queue.isEmpty()) {
                     running = false;
                     return false;
                 }
                 return true;
+            } finally {
+                lock.unlock();
             }
         }
         long toWait = task.endTime - System.currentTimeMillis();
         if (toWait > 0) {
-            synchronized (this) {
-                this.wait(toWait);
+            lock.lock();
+            try {
+                changed.await(toWait, TimeUnit.MILLISECONDS);
                 return true; //try again (guards against spurious wake-ups)
+            } finally {
+                lock.unlock();
             }
         }
         if (task.isCancelled()) {
@@ -143,12 +155,15 @@ public class EnhancedTimer {
         try {
             if (this.queue.add(result)
                     && this.queue.first() == result) {
-                //only need to synchronize when this is the first task
-                synchronized (this) {
+                //only need to lock when this is the first task
+                lock.lock();
+                try {
                     if (!running) {
                         start();
                     }
-                    this.notifyAll();
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
                 }
             }
         } catch (NoSuchElementException e) {
@@ -134,5 +134,67 @@ public interface ExecutionProperties {
 
     String JDBC4COLUMNNAMEANDLABELSEMANTICS = "useJDBC4ColumnNameAndLabelSemantics";
 
+    /**
+     * If true, forward only result sets will adjust the number of rows requested
+     * per batch based upon the observed row width and how quickly the rows are consumed.
+     * The fetch size is then only the starting point.
+     * <p>
+     * Default is <code>false</code>
+     */
+    String ADAPTIVE_FETCH_SIZE = "adaptiveFetchSize";
+
+    /**
+     * The approximate number of bytes targeted per batch when using {@link #ADAPTIVE_FETCH_SIZE}.
+     * <p>
+     * Default is 2097152
+     */
+    String ADAPTIVE_FETCH_BYTES = "adaptiveFetchBytes";
+
+    /**
+     * The number of batches that forward only result sets may hold ahead of the
+     * current batch.  Values greater than 1 have the server push the batches, if it supports
+     * streaming cursors, so that they do not each wait for a request.  Otherwise a single
+     * batch is requested ahead.
+     * <p>
+     * Default is 1
+     */
+    String READ_AHEAD_BATCHES = "readAheadBatches";
+
+    /**
+     * The approximate number of bytes that may be held in read ahead batches when using {@link #READ_AHEAD_BATCHES}.
+     * The row width of the first batch is used to limit the number of rows pushed ahead.
+     * <p>
+     * Default is 8388608
+     */
+    String READ_AHEAD_BYTES = "readAheadBytes";
+
+    /**
+     * The number of rows a forward only result set allows the server to push ahead of the application,
+     * if the server supports streaming cursors.  Takes precedence over {@link #READ_AHEAD_BATCHES}.
+     * <p>
+     * Default is 0, which requests each batch
+     */
+    String STREAMING_CURSOR_ROWS = "streamingCursorRows";
+
+    /**
+     * The number of chunks of a large prepared statement batch that may be sent before the
+     * results of the first are received.  The update counts are still returned in order, but the server may apply
+     * the chunks in flight in any order, so the window is only used in a transaction and a warning is logged
+     * when it is set in auto commit mode.
+     * <p>
+     * Default is 1, which sends each chunk once the previous has completed
+     */
+    String BATCH_PIPELINE_WINDOW = "batchPipelineWindow";
+
+    /**
+     * The number of milliseconds query results may be reused from the client side result cache.  Only results
+     * of auto commit queries that are complete in the first batch and have no lob values are cached, and they are
+     * only reused by the same session.  Unlike {@link #RESULT_SET_CACHE_MODE} a hit does not contact
+     * the server, so updates and changes to session state are not seen until the ttl has passed.
+     * <p>
+     * Default is 0, which does not use the client side cache
+     */
+    String RESULT_SET_CLIENT_CACHE_TTL = "resultSetClientCacheTtl";
+
 
 }
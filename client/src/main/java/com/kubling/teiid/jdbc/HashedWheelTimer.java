@@ -0,0 +1,255 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.core.util.ExecutorUtils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timer for a high volume of short lived, usually cancelled, tasks such as statement timeouts.
+ * <p>
+ * Tasks are hashed by deadline into a wheel of buckets that is advanced every tick, so that
+ * add and cancel are constant time and callers only contend on a lock free queue.  Only the
+ * timer thread touches the wheel.  Deadlines are based upon {@link System#nanoTime()}, and a
+ * task may run up to one tick late.
+ * <p>
+ * Like the {@link EnhancedTimer} it will only hold a thread while there are pending tasks.
+ */
+public class HashedWheelTimer {
+
+    private static final Logger LOGGER = Logger.getLogger("org.teiid.jdbc");
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    public class Task extends FutureTask<Void> {
+        final long deadline;
+        private final AtomicInteger state = new AtomicInteger();
+
+        //wheel state - only accessed by the timer thread
+        Bucket bucket;
+        Task next;
+        Task prev;
+
+        Task(Runnable task, long deadline) {
+            super(task, null);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (state.compareAndSet(INIT, CANCELLED)) {
+                size.decrementAndGet();
+                cancelled.add(this);
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        public void cancel() {
+            cancel(false);
+        }
+
+        void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            size.decrementAndGet();
+            try {
+                taskExecutor.execute(this);
+            } catch (Throwable t) {
+                LOGGER.log(Level.SEVERE, "Unexpected exception running task", t);
+            }
+        }
+
+    }
+
+    /**
+     * A doubly linked list of tasks, so that cancelled tasks can be removed in constant time
+     */
+    private final class Bucket {
+        private Task head;
+        private Task tail;
+
+        void add(Task task) {
+            task.bucket = this;
+            if (head == null) {
+                head = tail = task;
+            } else {
+                tail.next = task;
+                task.prev = tail;
+                tail = task;
+            }
+        }
+
+        void remove(Task task) {
+            if (task.prev != null) {
+                task.prev.next = task.next;
+            } else {
+                head = task.next;
+            }
+            if (task.next != null) {
+                task.next.prev = task.prev;
+            } else {
+                tail = task.prev;
+            }
+            task.prev = task.next = null;
+            task.bucket = null;
+        }
+
+        /**
+         * Expire the due tasks.  Later tasks remain for a later revolution of the wheel.
+         */
+        void expire(long now) {
+            Task task = head;
+            while (task != null) {
+                Task next = task.next;
+                if (task.deadline - now <= 0) {
+                    remove(task);
+                    task.expire();
+                }
+                task = next;
+            }
+        }
+    }
+
+    private final long startTime = System.nanoTime();
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<Task> added = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Task> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Executor taskExecutor;
+    private final Executor bossExecutor;
+    //the last tick processed - only accessed by the timer thread
+    private long tick = -1;
+
+    /**
+     * Constructs a new timer with a 10 ms tick and 512 buckets that directly executes
+     * tasks off of a single-thread thread pool.
+     */
+    public HashedWheelTimer(String name) {
+        this(ExecutorUtils.newFixedThreadPool(1, name), ExecutorUtils.getDirectExecutor(), 10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(Executor bossExecutor, Executor taskExecutor, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.bossExecutor = bossExecutor;
+        this.taskExecutor = taskExecutor;
+        this.tickNanos = unit.toNanos(tickDuration);
+        int buckets = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(1, buckets)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+    }
+
+    /**
+     * Add a delayed task
+     *
+     * @param delay in ms
+     * @return a cancellable Task
+     */
+    public Task add(Runnable task, long delay) {
+        Task result = new Task(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay)));
+        size.incrementAndGet();
+        added.add(result);
+        if (!running.get() && running.compareAndSet(false, true)) {
+            bossExecutor.execute(this::run);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of tasks that have not yet run or been cancelled
+     */
+    public int getQueueSize() {
+        return size.get();
+    }
+
+    private void run() {
+        while (true) {
+            long now = System.nanoTime();
+            long currentTick = (now - startTime) / tickNanos;
+            if (tick < 0) {
+                tick = currentTick - 1;
+            }
+            removeCancelled();
+            transferAdded(currentTick);
+            //process every tick since the last, but no more than one full revolution
+            long from = Math.max(tick + 1, currentTick - mask);
+            for (long t = from; t <= currentTick; t++) {
+                wheel[(int) (t & mask)].expire(now);
+            }
+            tick = currentTick;
+            if (size.get() == 0) {
+                removeCancelled();
+                running.set(false);
+                //recheck for an add that saw running as true
+                if (size.get() == 0 || !running.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+            long sleep = startTime + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+
+    private void transferAdded(long currentTick) {
+        Task task;
+        while ((task = added.poll()) != null) {
+            if (task.state.get() != INIT) {
+                continue;
+            }
+            //a task due on or before the current tick goes in the current bucket
+            long taskTick = Math.max(currentTick, (task.deadline - startTime + tickNanos - 1) / tickNanos);
+            wheel[(int) (taskTick & mask)].add(task);
+        }
+    }
+
+    private void removeCancelled() {
+        Task task;
+        while ((task = cancelled.poll()) != null) {
+            Bucket bucket = task.bucket;
+            if (bucket != null) {
+                bucket.remove(task);
+            }
+        }
+    }
+
+}
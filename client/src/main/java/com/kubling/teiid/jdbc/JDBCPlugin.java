@@ -67,5 +67,16 @@ public class JDBCPlugin { // extends Plugin {
         TEIID20037,
         TEIID20038,
         TEIID20039,
+        TEIID20040,
+        TEIID20041,
+        TEIID20042,
+        TEIID20043,
+        TEIID20044,
+        TEIID20045,
+        TEIID20046,
+        TEIID20047,
+        TEIID20048,
+        TEIID20049,
+        TEIID20050,
     }
 }
@@ -84,9 +84,13 @@ public class JDBCURL {
                 TeiidURL.CONNECTION.KERBEROS_SERVICE_PRINCIPLE_NAME,
                 TeiidURL.CONNECTION.ENCRYPT_REQUESTS,
                 TeiidURL.CONNECTION.LOGIN_TIMEOUT,
+                TeiidURL.CONNECTION.LOAD_BALANCING_POLICY,
+                TeiidURL.CONNECTION.HEARTBEAT_INTERVAL,
                 DatabaseMetaDataImpl.REPORT_AS_VIEWS,
                 DatabaseMetaDataImpl.NULL_SORT,
-                ResultSetImpl.DISABLE_FETCH_SIZE));
+                ResultSetImpl.DISABLE_FETCH_SIZE,
+                ConnectionImpl.METADATA_CACHE_SIZE,
+                ConnectionImpl.MAX_STATEMENTS));
         props.addAll(EXECUTION_PROPERTIES.keySet());
         Map<String, String> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
         for (String string : props) {
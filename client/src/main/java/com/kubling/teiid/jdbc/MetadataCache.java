@@ -0,0 +1,112 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.metadata.MetadataResult;
+import com.kubling.teiid.core.util.EquivalenceUtil;
+import com.kubling.teiid.core.util.HashCodeUtil;
+import com.kubling.teiid.core.util.LRUCache;
+
+/**
+ * A bounded cache of prepared statement {@link MetadataResult}s.
+ * <p>
+ * Entries are keyed by the vdb, vdb version, and user as well as the sql, since
+ * the visible metadata may depend upon the user's roles.  A cache may be held
+ * by a single connection or shared by all connections from a {@link TeiidDataSource}.
+ */
+final class MetadataCache {
+
+    static final class CacheKey {
+        private final String vdbName;
+        private final int vdbVersion;
+        private final String userName;
+        private final String sql;
+        private final boolean ansiQuotedIdentifiers;
+        private final int hashCode;
+
+        CacheKey(String vdbName, int vdbVersion, String userName, String sql, boolean ansiQuotedIdentifiers) {
+            this.vdbName = vdbName;
+            this.vdbVersion = vdbVersion;
+            this.userName = userName;
+            this.sql = sql;
+            this.ansiQuotedIdentifiers = ansiQuotedIdentifiers;
+            this.hashCode = HashCodeUtil.hashCode(sql.hashCode(), vdbName, vdbVersion, userName, ansiQuotedIdentifiers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey other)) {
+                return false;
+            }
+            return hashCode == other.hashCode
+                    && vdbVersion == other.vdbVersion
+                    && ansiQuotedIdentifiers == other.ansiQuotedIdentifiers
+                    && sql.equals(other.sql)
+                    && EquivalenceUtil.areEqual(vdbName, other.vdbName)
+                    && EquivalenceUtil.areEqual(userName, other.userName);
+        }
+    }
+
+    private final LRUCache<CacheKey, MetadataResult> cache;
+    private long hits;
+    private long misses;
+
+    MetadataCache(int maxEntries) {
+        this.cache = new LRUCache<>(maxEntries);
+    }
+
+    synchronized MetadataResult get(CacheKey key) {
+        MetadataResult result = cache.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    synchronized void put(CacheKey key, MetadataResult result) {
+        cache.put(key, result);
+    }
+
+    synchronized void clear() {
+        cache.clear();
+    }
+
+    synchronized int size() {
+        return cache.size();
+    }
+
+    synchronized long getHitCount() {
+        return hits;
+    }
+
+    synchronized long getMissCount() {
+        return misses;
+    }
+
+}
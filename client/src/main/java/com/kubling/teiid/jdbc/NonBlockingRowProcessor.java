@@ -20,19 +20,29 @@ package com.kubling.teiid.jdbc;
 
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.core.TeiidRuntimeException;
+import com.kubling.teiid.core.util.ExecutorUtils;
 
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Handles the future processing logic and makes the appropriate calls to the callback
+ * <p>
+ * By default the callback is called from the thread that completes the results future.
+ * If org.teiid.useVirtualThreads is set the processing is instead handed to a new virtual
+ * thread, so that a callback may block without holding up the socket reader.
  */
 public class NonBlockingRowProcessor implements
         ResultsFuture.CompletionListener<Boolean> {
 
     private static final Logger logger = Logger.getLogger(NonBlockingRowProcessor.class.getName());
+    static final Executor CALLBACK_EXECUTOR = ExecutorUtils.isUseVirtualThreads()
+            ? ExecutorUtils.newThreadPerTaskExecutor("Teiid Statement Callback")
+            : ExecutorUtils.getDirectExecutor();
+
     private final StatementImpl stmt;
     private final StatementCallback callback;
 
@@ -43,6 +53,10 @@ public class NonBlockingRowProcessor implements
 
     @Override
     public void onCompletion(ResultsFuture<Boolean> future) {
+        CALLBACK_EXECUTOR.execute(() -> process(future));
+    }
+
+    private void process(ResultsFuture<Boolean> future) {
         try {
             boolean hasResultSet = future.get();
             if (!hasResultSet) {
@@ -61,15 +75,12 @@ public class NonBlockingRowProcessor implements
                                 break;
                             }
                             ResultsFuture<Boolean> hasNext = resultSet.submitNext();
-                            synchronized (hasNext) {
-                                if (!hasNext.isDone()) {
-                                    hasNext.addCompletionListener(f -> {
-                                        if (processRow(f)) {
-                                            run();
-                                        }
-                                    });
-                                    break; // will be resumed by onCompletion above
+                            if (hasNext.addCompletionListenerIfPending(f -> CALLBACK_EXECUTOR.execute(() -> {
+                                if (processRow(f)) {
+                                    run();
                                 }
+                            }))) {
+                                break; // will be resumed by onCompletion above
                             }
                             if (!processRow(hasNext)) {
                                 break;
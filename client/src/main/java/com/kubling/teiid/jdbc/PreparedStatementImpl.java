@@ -18,8 +18,11 @@
 
 package com.kubling.teiid.jdbc;
 
+import com.kubling.teiid.client.ColumnBatch;
 import com.kubling.teiid.client.RequestMessage;
+import com.kubling.teiid.client.ResultsMessage;
 import com.kubling.teiid.client.metadata.MetadataResult;
+import com.kubling.teiid.client.security.LogonResult;
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.core.TeiidComponentException;
 import com.kubling.teiid.core.TeiidProcessingException;
@@ -40,6 +43,9 @@ import java.nio.charset.Charset;
 import java.sql.Date;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 
 
@@ -55,6 +61,9 @@ import java.util.regex.Matcher;
  */
 
 public class PreparedStatementImpl extends StatementImpl implements TeiidPreparedStatement {
+
+    private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
+
     // sql, which this prepared statement is operating on
     protected String prepareSql;
 
@@ -75,6 +84,11 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
 
     private boolean autoGeneratedKeys;
 
+    private StatementCache.StatementKey cacheKey;
+    private int cacheReconnects;
+    private boolean cached;
+    private boolean pipelineWindowIgnored;
+
     /**
      * <p>PreparedStatementImpl constructor.
      *
@@ -89,6 +103,8 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
             throw new TeiidSQLException(JDBCPlugin.Util.getString("MMPreparedStatement.Err_prep_sql"));
         }
         this.prepareSql = sql;
+        //prepared statements are poolable by default
+        setPoolableInternal(true);
 
         TimeZone timezone = connection.getServerConnection().getLogonResult().getTimeZone();
 
@@ -97,6 +113,57 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
         }
     }
 
+    StatementCache.StatementKey getCacheKey() {
+        return cacheKey;
+    }
+
+    void setCacheKey(StatementCache.StatementKey cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    int getCacheReconnects() {
+        return cacheReconnects;
+    }
+
+    /**
+     * @return true if the statement is idle in the connection's statement cache
+     */
+    boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Hand the statement out, either new or from the statement cache.
+     *
+     * @param reconnects the reconnect count of the connection, the server metadata is only reused until it changes
+     */
+    void open(int reconnects) {
+        this.cacheReconnects = reconnects;
+        this.cached = false;
+        reopen();
+    }
+
+    @Override
+    void recycle() throws SQLException {
+        super.recycle();
+        if (parameterMap != null) {
+            parameterMap.clear();
+        }
+        this.command = null;
+        this.cached = true;
+    }
+
+    /**
+     * A poolable statement is reset and returned to the connection's statement cache rather than closed.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (!isClosed() && getMMConnection().cacheStatement(this)) {
+            return;
+        }
+        super.close();
+    }
+
     public void setAutoGeneratedKeys(boolean getAutoGeneratedKeys) {
         this.autoGeneratedKeys = getAutoGeneratedKeys;
     }
@@ -115,6 +182,41 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
         batchParameterList.add(getParameterValues());
     }
 
+    @Override
+    public void addBatchColumns(Object... columns) throws SQLException {
+        checkStatement();
+        //the count is checked here only if it is known without a round trip, otherwise the server checks it on execution
+        MetadataResult metadata = getCachedMetadataResults();
+        if (metadata != null) {
+            int parameterCount = metadata.getParameterMetadata() == null ? 0 : metadata.getParameterMetadata().length;
+            if (columns.length != parameterCount) {
+                throw new TeiidSQLException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20048, columns.length, parameterCount));
+            }
+        }
+        int rows = -1;
+        for (int i = 0; i < columns.length; i++) {
+            Object column = columns[i];
+            if (!(column instanceof Object[] || column instanceof int[] || column instanceof long[]
+                    || column instanceof double[] || column instanceof float[] || column instanceof short[])) {
+                throw new TeiidSQLException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20043, i + 1));
+            }
+            int length = java.lang.reflect.Array.getLength(column);
+            if (rows == -1) {
+                rows = length;
+            } else if (rows != length) {
+                throw new TeiidSQLException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20043, i + 1));
+            }
+        }
+        if (rows <= 0) {
+            return;
+        }
+        if (batchParameterList == null) {
+            batchParameterList = new ArrayList<>();
+        }
+        //the rows are views over the columns, primitive values are only boxed if accessed
+        batchParameterList.addAll(new ColumnBatch(rows, columns.clone(), new byte[columns.length][]));
+    }
+
     /**
      * Makes the set of commands in the current batch empty.
      */
@@ -222,6 +324,16 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
         return executeSql(new String[]{this.prepareSql}, false, mode, false, options, autoGeneratedKeys);
     }
 
+    @Override
+    public Flow.Publisher<List<?>> publishRows(RequestOptions options) {
+        return new ResultsPublisher<>(this, () -> submitExecute(RequestMessage.ResultsMode.EITHER, options), false);
+    }
+
+    @Override
+    public Flow.Publisher<List<List<?>>> publishBatches(RequestOptions options) {
+        return new ResultsPublisher<>(this, () -> submitExecute(RequestMessage.ResultsMode.EITHER, options), true);
+    }
+
     @Override
     public boolean execute() throws SQLException {
         executeSql(new String[]{this.prepareSql}, false,
@@ -237,7 +349,18 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
         try {
             //check to see if we need to split large batches
             int[] allUpdateCounts = null;
-            if (batchParameterList.size() > 256 && !this.getConnection().getServerConnection().isLocal()) {
+            if (batchParameterList.size() > 256 && !this.getMMConnection().getServerConnection().isLocal()) {
+                int window = getIntExecutionProperty(ExecutionProperties.BATCH_PIPELINE_WINDOW, 1);
+                BatchPipeline pipeline = null;
+                if (window > 1) {
+                    //outside of a transaction the chunks in flight may be applied out of order
+                    if (this.getMMConnection().isInTransaction()) {
+                        pipeline = new BatchPipeline(this, window);
+                    } else if (!pipelineWindowIgnored) {
+                        pipelineWindowIgnored = true;
+                        logger.log(Level.WARNING, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20050, window));
+                    }
+                }
                 MultiArrayOutputStream maos = new MultiArrayOutputStream(1 << 13);
                 try {
                     CompactObjectOutputStream coos = new CompactObjectOutputStream(maos);
@@ -249,6 +372,13 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
                         //if we have have over .5 mb, then send that as a single message
                         //TODO: we could use max message size from the server
                         if (maos.getCount() > (1 << 19) && i + 1 < copy.size()) {
+                            if (pipeline != null) {
+                                pipeline.submit(copy.subList(start, i + 1));
+                                start = i + 1;
+                                coos.reset();
+                                maos.reset(0);
+                                continue;
+                            }
                             this.batchParameterList = copy.subList(start, i + 1);
                             start = i + 1;
                             executeSql(new String[]{this.prepareSql}, true,
@@ -262,7 +392,13 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
                             maos.reset(0);
                         }
                     }
-                    if (allUpdateCounts != null) {
+                    if (pipeline != null) {
+                        if (start < copy.size()) {
+                            pipeline.submit(copy.subList(start, copy.size()));
+                        }
+                        allUpdateCounts = pipeline.finish();
+                        this.updateCounts = allUpdateCounts;
+                    } else if (allUpdateCounts != null) {
                         if (start < copy.size()) {
                             this.batchParameterList = copy.subList(start, copy.size());
                             executeSql(new String[]{this.prepareSql}, true,
@@ -272,6 +408,9 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
                         this.updateCounts = allUpdateCounts;
                     }
                 } catch (IOException e) {
+                    if (pipeline != null) {
+                        pipeline.abort();
+                    }
                     TeiidSQLException ex = TeiidSQLException.create(e);
                     throw new BatchUpdateException(e.getMessage(), ex.getSQLState(), ex.getErrorCode(),
                             allUpdateCounts == null ? new int[0] : allUpdateCounts, e);
@@ -293,6 +432,16 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
         return this.updateCounts;
     }
 
+    /**
+     * Send a chunk of the batch for {@link BatchPipeline}
+     */
+    ResultsFuture<ResultsMessage> submitBatchChunk(List<List<Object>> rows) throws SQLException {
+        this.batchParameterList = new ArrayList<>(rows);
+        RequestMessage reqMessage = createRequestMessage(new String[]{this.prepareSql}, true,
+                RequestMessage.ResultsMode.UPDATECOUNT);
+        return submitBatchedUpdate(reqMessage);
+    }
+
     static int[] concatArrays(int[] array1, int[] array2) {
         int length = array1.length;
         array1 = Arrays.copyOf(array1, length + array2.length);
@@ -361,6 +510,25 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
     }
 
     private MetadataResult getMetadataResults() throws SQLException {
+        if (getCachedMetadataResults() == null) {
+            boolean ansiQuotedIdentifiers = Boolean.parseBoolean(getExecutionProperty(ExecutionProperties.ANSI_QUOTED_IDENTIFIERS));
+            try {
+                metadataResults = this.getDQP().getMetadata(this.currentRequestID, prepareSql, ansiQuotedIdentifiers);
+            } catch (TeiidComponentException | TeiidProcessingException e) {
+                throw TeiidSQLException.create(e);
+            }
+            MetadataCache.CacheKey key = getMetadataCacheKey();
+            if (key != null) {
+                getMMConnection().getMetadataCache().put(key, metadataResults);
+            }
+        }
+        return metadataResults;
+    }
+
+    /**
+     * @return the metadata if it is known without a round trip to the server, or null
+     */
+    private MetadataResult getCachedMetadataResults() throws SQLException {
         if (metadataResults == null) {
             if (StatementImpl.SET_STATEMENT.matcher(prepareSql).matches()
                     || StatementImpl.TRANSACTION_STATEMENT.matcher(prepareSql).matches()
@@ -368,17 +536,25 @@ public class PreparedStatementImpl extends StatementImpl implements TeiidPrepare
                     || StatementImpl.SET_CHARACTERISTIC_STATEMENT.matcher(prepareSql).matches()) {
                 metadataResults = new MetadataResult();
             } else {
-                try {
-                    metadataResults = this.getDQP().getMetadata(this.currentRequestID, prepareSql,
-                            Boolean.parseBoolean(getExecutionProperty(ExecutionProperties.ANSI_QUOTED_IDENTIFIERS)));
-                } catch (TeiidComponentException | TeiidProcessingException e) {
-                    throw TeiidSQLException.create(e);
+                MetadataCache.CacheKey key = getMetadataCacheKey();
+                if (key != null) {
+                    metadataResults = getMMConnection().getMetadataCache().get(key);
                 }
             }
         }
         return metadataResults;
     }
 
+    private MetadataCache.CacheKey getMetadataCacheKey() throws SQLException {
+        if (getMMConnection().getMetadataCache() == null) {
+            return null;
+        }
+        boolean ansiQuotedIdentifiers = Boolean.parseBoolean(getExecutionProperty(ExecutionProperties.ANSI_QUOTED_IDENTIFIERS));
+        LogonResult logon = getMMConnection().getServerConnection().getLogonResult();
+        return new MetadataCache.CacheKey(logon.getVdbName(), logon.getVdbVersion(), logon.getUserName(),
+                prepareSql, ansiQuotedIdentifiers);
+    }
+
     public void setAsciiStream(int parameterIndex, InputStream in, int length) throws SQLException {
         setAsciiStream(parameterIndex, in);
     }
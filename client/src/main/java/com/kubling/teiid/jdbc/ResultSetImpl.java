@@ -18,11 +18,13 @@
 
 package com.kubling.teiid.jdbc;
 
+import com.kubling.teiid.client.ColumnBatch;
 import com.kubling.teiid.client.ResultsMessage;
 import com.kubling.teiid.client.lob.LobChunkInputStream;
 import com.kubling.teiid.client.lob.StreamingLobChunckProducer;
 import com.kubling.teiid.client.plan.PlanNode;
 import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.client.util.ResultsStream;
 import com.kubling.teiid.core.TeiidComponentException;
 import com.kubling.teiid.core.TeiidProcessingException;
 import com.kubling.teiid.core.types.*;
@@ -52,6 +54,9 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
 
     // the object which was last read from Results
     private Object currentValue;
+    // set instead of currentValue when the last value was read directly from a ColumnBatch
+    private ColumnBatch.Row currentVectorRow;
+    private int currentVectorColumn;
 
     // This object represents metadata for this result set.
     private ResultSetMetaData rmetadata;
@@ -83,9 +88,13 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
 
     private ResultsFuture<ResultsMessage> prefetch;
     private final boolean usePrefetch;
+    private AdaptiveFetchSize adaptiveFetchSize;
+    private StreamingCursor streamingCursor;
 
     private int skipTo;
 
+    static final long DEFAULT_READ_AHEAD_BYTES = 1 << 23;
+
     private static final boolean DISABLE_FETCH_SIZE_DEFAULT =
             PropertiesUtils.getHierarchicalProperty("org.teiid." + DISABLE_FETCH_SIZE, false, Boolean.class);
 
@@ -123,18 +132,78 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
         if (logger.isLoggable(Level.FINER)) {
             logger.finer("Creating ResultSet requestID: " + requestID + " beginRow: " + resultsMsg.getFirstRow() + " resultsColumns: " + resultColumns + " parameters: " + parameters);
         }
-        this.usePrefetch = cursorType == ResultSet.TYPE_FORWARD_ONLY && !statement.useCallingThread();
+        //a publisher controls its own cursor requests
+        this.usePrefetch = cursorType == ResultSet.TYPE_FORWARD_ONLY && !statement.useCallingThread() && !statement.publishing;
         this.maxRows = statement.getMaxRows();
+        if (this.usePrefetch && Boolean.parseBoolean(statement.getExecutionProperty(ExecutionProperties.ADAPTIVE_FETCH_SIZE))) {
+            this.adaptiveFetchSize = new AdaptiveFetchSize(this.fetchSize, statement.getLongExecutionProperty(
+                    ExecutionProperties.ADAPTIVE_FETCH_BYTES, AdaptiveFetchSize.DEFAULT_TARGET_BYTES));
+        }
+        if (this.usePrefetch) {
+            int streamingCredits = getStreamingCredits(resultsMsg);
+            if (streamingCredits > 0 && statement.supportsStreamingCursors()) {
+                this.streamingCursor = new StreamingCursor(new StreamingCursor.CursorStreamer() {
+                    @Override
+                    public ResultsStream<ResultsMessage> streamCursorRequest(int beginRow, int credits) throws TeiidSQLException {
+                        try {
+                            return statement.getDQP().streamCursorRequest(requestID, beginRow, getRequestFetchSize(), credits);
+                        } catch (TeiidProcessingException e) {
+                            throw TeiidSQLException.create(e);
+                        }
+                    }
+
+                    @Override
+                    public void grantCursorCredits(int credits) throws TeiidSQLException {
+                        try {
+                            statement.getDQP().grantCursorCredits(requestID, credits);
+                        } catch (TeiidProcessingException e) {
+                            throw TeiidSQLException.create(e);
+                        }
+                    }
+                }, streamingCredits);
+            }
+        }
         this.batchResults = new BatchResults(this,
                 getCurrentBatch(resultsMsg), this.cursorType == ResultSet.TYPE_FORWARD_ONLY ? 1 : BatchResults.DEFAULT_SAVED_BATCHES);
     }
 
+    /**
+     * The server handles a single cursor request at a time, so reading more than one batch ahead
+     * requires the server to push the batches.  Read ahead batches are converted to streaming credits,
+     * bounded by the read ahead bytes using the row width of the first batch.
+     *
+     * @return the number of rows the server may push ahead of the application, or 0 to request each batch
+     */
+    private int getStreamingCredits(ResultsMessage resultsMsg) throws SQLException {
+        int streamingRows = statement.getIntExecutionProperty(ExecutionProperties.STREAMING_CURSOR_ROWS, 0);
+        if (streamingRows > 0) {
+            return streamingRows;
+        }
+        int batches = statement.getIntExecutionProperty(ExecutionProperties.READ_AHEAD_BATCHES, 1);
+        if (batches <= 1) {
+            return 0;
+        }
+        int batchRows = Math.max(1, getRequestFetchSize());
+        long rows = (long) batches * batchRows;
+        long budgetBytes = statement.getLongExecutionProperty(ExecutionProperties.READ_AHEAD_BYTES, DEFAULT_READ_AHEAD_BYTES);
+        resultsMsg.processResults();
+        List<? extends List<?>> sample = resultsMsg.getResultsList();
+        if (sample != null && !sample.isEmpty()) {
+            double rowBytes = Math.max(1, AdaptiveFetchSize.estimateRowBytes(sample));
+            rows = Math.min(rows, Math.max(batchRows, (long) (budgetBytes / rowBytes)));
+        }
+        return (int) Math.min(rows, Integer.MAX_VALUE);
+    }
+
     public void setMaxFieldSize(int maxFieldSize) {
         this.maxFieldSize = maxFieldSize;
     }
 
     public void close() throws SQLException {
         if (!isClosed) {
+            if (streamingCursor != null) {
+                streamingCursor.close();
+            }
             // close the server's statement object (if necessary)
             if (this.requestID >= 0) {
                 this.statement.checkStatement();
@@ -194,6 +263,11 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
      * @throws SQLException if a results access error occurs or transform fails.
      */
     public Object getObject(int column) throws SQLException {
+        checkResultColumn(column);
+        return getObjectDirect(column);
+    }
+
+    private void checkResultColumn(int column) throws SQLException {
         if (isAfterLast()) {
             throw new TeiidSQLException(JDBCPlugin.Util.getString("StoredProcedureResultsImpl.ResultSet_cursor_is_after_the_last_row._1"));
         }
@@ -201,7 +275,24 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
         if (column > resultColumns) {
             throw new TeiidSQLException(JDBCPlugin.Util.getString("ResultsImpl.Invalid_col_index", column));
         }
-        return getObjectDirect(column);
+    }
+
+    /**
+     * Get the current row if it is backed by a {@link ColumnBatch} so that primitive
+     * values may be read without boxing.  The column is then considered the last one read.
+     *
+     * @return the row or null if the current row is not from a {@link ColumnBatch}
+     */
+    private ColumnBatch.Row getColumnBatchRow(int column) throws SQLException {
+        checkResultColumn(column);
+        List<?> cursorRow = getCursorRow(column);
+        if (cursorRow instanceof ColumnBatch.Row row) {
+            currentValue = null;
+            currentVectorRow = row;
+            currentVectorColumn = column - 1;
+            return row;
+        }
+        return null;
     }
 
     public int getFetchSize() {
@@ -253,6 +344,9 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
     }
 
     public Object getRawCurrentValue() {
+        if (currentVectorRow != null) {
+            return currentVectorRow.get(currentVectorColumn);
+        }
         return currentValue;
     }
 
@@ -264,43 +358,64 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
      * @throws SQLException if this result set has an exception
      */
     public Object getObjectDirect(int column) throws SQLException {
-        checkClosed();
-        if (column < 1 || column > columnCount) {
-            throw new IllegalArgumentException(JDBCPlugin.Util.getString("ResultsImpl.Invalid_col_index", column));
-        }
-        List<?> cursorRow = batchResults.getCurrentRow();
-
-        if (cursorRow == null) {
-            throw new TeiidSQLException(JDBCPlugin.Util.getString("ResultsImpl.The_cursor_is_not_on_a_valid_row._1"));
-        }
+        List<?> cursorRow = getCursorRow(column);
+        currentVectorRow = null;
 
         // defect 13539 - set the currentValue (defined in MMResultSet) so that wasNull() accurately returns whether this value was null
         currentValue = cursorRow.get(column - 1);
 
-        if (currentValue instanceof Streamable<?>) {
-            Object reference = ((Streamable<?>) currentValue).getReference();
+        return getClientValue(currentValue);
+    }
+
+    /**
+     * @return the result columns of the given row with the values as returned by {@link #getObject(int)}
+     */
+    List<Object> getClientRow(List<?> row) throws SQLException {
+        List<Object> result = new ArrayList<>(resultColumns);
+        for (int i = 0; i < resultColumns; i++) {
+            result.add(getClientValue(row.get(i)));
+        }
+        return result;
+    }
+
+    private Object getClientValue(Object value) throws SQLException {
+        if (value instanceof Streamable<?>) {
+            Object reference = ((Streamable<?>) value).getReference();
             if (reference != null) {
                 return reference;
             }
-            if (currentValue instanceof BaseClobType) {
-                return new ClobImpl(createInputStreamFactory((BaseClobType) currentValue), ((BaseClobType) currentValue).getLength());
-            } else if (currentValue instanceof BlobType) {
-                InputStreamFactory isf = createInputStreamFactory((BlobType) currentValue);
-                isf.setLength(((BlobType) currentValue).getLength());
+            if (value instanceof BaseClobType) {
+                return new ClobImpl(createInputStreamFactory((BaseClobType) value), ((BaseClobType) value).getLength());
+            } else if (value instanceof BlobType) {
+                InputStreamFactory isf = createInputStreamFactory((BlobType) value);
+                isf.setLength(((BlobType) value).getLength());
                 return new BlobImpl(isf);
-            } else if (currentValue instanceof XMLType val) {
+            } else if (value instanceof XMLType val) {
                 SQLXMLImpl impl = new SQLXMLImpl(createInputStreamFactory(val));
                 impl.setEncoding(val.getEncoding());
                 return impl;
             }
-        } else if (currentValue instanceof java.util.Date) {
-            return TimestampWithTimezone.create((java.util.Date) currentValue, serverTimeZone, getDefaultCalendar(), currentValue.getClass());
-        } else if (maxFieldSize > 0 && currentValue instanceof String val) {
+        } else if (value instanceof java.util.Date) {
+            return TimestampWithTimezone.create((java.util.Date) value, serverTimeZone, getDefaultCalendar(), value.getClass());
+        } else if (maxFieldSize > 0 && value instanceof String val) {
             return val.substring(0, Math.min(maxFieldSize / 2, val.length()));
-        } else if (currentValue instanceof BinaryType val) {
+        } else if (value instanceof BinaryType val) {
             return val.getBytesDirect();
         }
-        return currentValue;
+        return value;
+    }
+
+    private List<?> getCursorRow(int column) throws SQLException {
+        checkClosed();
+        if (column < 1 || column > columnCount) {
+            throw new IllegalArgumentException(JDBCPlugin.Util.getString("ResultsImpl.Invalid_col_index", column));
+        }
+        List<?> cursorRow = batchResults.getCurrentRow();
+
+        if (cursorRow == null) {
+            throw new TeiidSQLException(JDBCPlugin.Util.getString("ResultsImpl.The_cursor_is_not_on_a_valid_row._1"));
+        }
+        return cursorRow;
     }
 
     private InputStreamFactory createInputStreamFactory(Streamable<?> type) {
@@ -345,12 +460,33 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
     public BatchResults.Batch requestBatch(int beginRow) throws SQLException {
         checkClosed();
         try {
-            if (prefetch != null) {
+            ResultsFuture<ResultsMessage> ahead = prefetch;
+            if (ahead == null && streamingCursor != null) {
+                ahead = streamingCursor.take();
+            }
+            if (ahead != null) {
                 //TODO: this is not efficient if the user is skipping around the results
                 //but the server logic at this point basically requires us
                 //to read what we have requested before requesting more (no queuing)
-                ResultsMessage result = getResults(prefetch);
+                long waitStart = 0;
+                if (adaptiveFetchSize != null) {
+                    waitStart = System.nanoTime();
+                    adaptiveFetchSize.batchNeeded(waitStart);
+                    if (ahead.isDone()) {
+                        waitStart = 0;
+                    }
+                }
+                ResultsMessage result = getResults(ahead);
                 prefetch = null;
+                if (result == null) {
+                    //the stream ended before the results, continue with cursor requests
+                    return processBatch(getResults(submitRequestBatch(beginRow)));
+                }
+                if (adaptiveFetchSize != null) {
+                    result.processResults();
+                    long now = System.nanoTime();
+                    adaptiveFetchSize.batchReceived(result.getResultsList(), waitStart == 0 ? 0 : now - waitStart, now);
+                }
                 return processBatch(result);
             }
             ResultsFuture<ResultsMessage> results = submitRequestBatch(beginRow);
@@ -367,8 +503,40 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
         }
     }
 
+    /**
+     * Asynchronously request a batch of up to the given number of rows, independent of the cursor position.
+     * Used by the {@link ResultsPublisher}, which must not have more than one request outstanding.
+     */
+    ResultsFuture<BatchResults.Batch> submitBatch(int beginRow, int rows) throws SQLException {
+        checkClosed();
+        ResultsFuture<ResultsMessage> pendingResult = submitRequestBatch(beginRow, rows);
+        final ResultsFuture<BatchResults.Batch> result = new ResultsFuture<>();
+        pendingResult.addCompletionListener(future -> {
+            try {
+                result.getResultsReceiver().receiveResults(processBatch(future.get()));
+            } catch (ExecutionException e) {
+                result.getResultsReceiver().exceptionOccurred(e.getCause());
+            } catch (Throwable t) {
+                result.getResultsReceiver().exceptionOccurred(t);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return the most recently received batch
+     */
+    BatchResults.Batch getLatestBatch() {
+        return batchResults.getLatestBatch();
+    }
+
     private ResultsFuture<ResultsMessage> submitRequestBatch(int beginRow)
             throws TeiidSQLException {
+        return submitRequestBatch(beginRow, getRequestFetchSize());
+    }
+
+    private ResultsFuture<ResultsMessage> submitRequestBatch(int beginRow, int rows)
+            throws TeiidSQLException {
         if (beginRow > maxRows && skipTo > 0) {
             beginRow = skipTo;
         }
@@ -386,13 +554,23 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
             logger.finer("requestBatch requestID: " + requestID + " beginRow: " + beginRow);
         }
         try {
-            results = statement.getDQP().processCursorRequest(requestID, beginRow, fetchSize);
+            results = statement.getDQP().processCursorRequest(requestID, beginRow, rows);
         } catch (TeiidProcessingException e) {
             throw TeiidSQLException.create(e);
         }
         return results;
     }
 
+    /**
+     * @return the number of rows to request, which may differ from the fetch size if it is adaptive
+     */
+    int getRequestFetchSize() {
+        if (adaptiveFetchSize != null) {
+            return adaptiveFetchSize.getFetchSize();
+        }
+        return fetchSize;
+    }
+
     private BatchResults.Batch processBatch(
             ResultsMessage currentResultMsg) throws TeiidSQLException {
         this.statement.setAnalysisInfo(currentResultMsg);
@@ -419,7 +597,11 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
         if (usePrefetch && !asynch
                 && prefetch == null && currentResultMsg.getLastRow() != currentResultMsg.getFinalRow()) {
             //fetch before processing the results
-            prefetch = submitRequestBatch(currentResultMsg.getLastRow() + 1);
+            if (streamingCursor != null) {
+                streamingCursor.start(currentResultMsg.getLastRow() + 1);
+            } else {
+                prefetch = submitRequestBatch(currentResultMsg.getLastRow() + 1);
+            }
         }
         currentResultMsg.processResults();
         List<?> lastTuple = null;
@@ -635,6 +817,10 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
     }
 
     public double getDouble(int columnIndex) throws SQLException {
+        ColumnBatch.Row row = getColumnBatchRow(columnIndex);
+        if (row != null && row.getBatch().isDoubleColumn(columnIndex - 1)) {
+            return row.getBatch().getDouble(row.getRowIndex(), columnIndex - 1);
+        }
         return DataTypeTransformer.getDouble(getObject(columnIndex));
     }
 
@@ -668,6 +854,10 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
+        ColumnBatch.Row row = getColumnBatchRow(columnIndex);
+        if (row != null && row.getBatch().isIntColumn(columnIndex - 1)) {
+            return row.getBatch().getInt(row.getRowIndex(), columnIndex - 1);
+        }
         return DataTypeTransformer.getInteger(getObject(columnIndex));
     }
 
@@ -679,6 +869,16 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
+        ColumnBatch.Row row = getColumnBatchRow(columnIndex);
+        if (row != null) {
+            ColumnBatch batch = row.getBatch();
+            if (batch.isLongColumn(columnIndex - 1)) {
+                return batch.getLong(row.getRowIndex(), columnIndex - 1);
+            }
+            if (batch.isIntColumn(columnIndex - 1)) {
+                return batch.getInt(row.getRowIndex(), columnIndex - 1);
+            }
+        }
         return DataTypeTransformer.getLong(getObject(columnIndex));
     }
 
@@ -793,6 +993,9 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
 
         checkClosed(); // check to see if the ResultSet is closed
 
+        if (currentVectorRow != null) {
+            return currentVectorRow.getBatch().isNull(currentVectorRow.getRowIndex(), currentVectorColumn);
+        }
         return currentValue == null;
     }
 
@@ -1132,7 +1335,7 @@ public class ResultSetImpl extends WrapperImpl implements TeiidResultSet, BatchR
         } else {
             if (disableFetchSize == null) {
                 this.disableFetchSize =
-                        PropertiesUtils.getBooleanProperty(statement.getConnection().getConnectionProps(),
+                        PropertiesUtils.getBooleanProperty(statement.getMMConnection().getConnectionProps(),
                                 DISABLE_FETCH_SIZE, DISABLE_FETCH_SIZE_DEFAULT);
             }
             if (disableFetchSize == null || !disableFetchSize) {
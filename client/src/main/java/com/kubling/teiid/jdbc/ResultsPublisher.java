@@ -0,0 +1,271 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.util.ResultsFuture;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link Flow.Publisher} of the rows, or batches of rows, of a single execution of a statement.
+ * <p>
+ * The statement is executed once the subscriber first requests data.  After that cursor requests are
+ * sized by the outstanding demand, capped at the fetch size, and the next request is sent as soon as the
+ * demand exceeds the buffered rows so that it overlaps delivery.  As the server handles a single cursor
+ * request at a time, at most one request is outstanding.
+ * <p>
+ * Signals are serialized by a drain loop.  Subscriber methods are called from the requesting thread or
+ * from the thread completing the results, which is the same as for a {@link StatementCallback}.
+ */
+final class ResultsPublisher<T> implements Flow.Publisher<T> {
+
+    interface Execution {
+        ResultsFuture<Boolean> submit() throws SQLException;
+    }
+
+    private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
+
+    private final StatementImpl statement;
+    private final Execution execution;
+    private final boolean batches;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * @param batches true to publish each batch as a list of rows, rather than each row
+     */
+    ResultsPublisher(StatementImpl statement, Execution execution, boolean batches) {
+        this.statement = statement;
+        this.execution = execution;
+        this.batches = batches;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20041)));
+            return;
+        }
+        subscriber.onSubscribe(new ResultsSubscription(subscriber));
+    }
+
+    private final class ResultsSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        //drain state - only accessed while holding wip
+        private boolean started;
+        private boolean done;
+        private boolean last;
+        private ResultsFuture<?> pending;
+        private ResultSetImpl results;
+        private int nextRow;
+        private int fetchSize;
+        private final ArrayDeque<Object> buffer = new ArrayDeque<>();
+
+        ResultsSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20042, n));
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (done) {
+                    return;
+                }
+                if (cancelled) {
+                    done = true;
+                    close();
+                    return;
+                }
+                try {
+                    if (invalidRequest != null) {
+                        throw invalidRequest;
+                    }
+                    if (pending != null && pending.isDone()) {
+                        ResultsFuture<?> future = pending;
+                        pending = null;
+                        received(future.get());
+                    }
+                    long requested = demand.get();
+                    if (!started) {
+                        if (requested > 0) {
+                            started = true;
+                            execute();
+                        }
+                    } else {
+                        //request before delivering so that the next batch is in flight
+                        fetch(requested);
+                        long emitted = 0;
+                        while (emitted != requested && !buffer.isEmpty() && !cancelled) {
+                            @SuppressWarnings("unchecked")
+                            T next = (T) buffer.poll();
+                            subscriber.onNext(next);
+                            emitted++;
+                        }
+                        if (emitted != 0 && requested != Long.MAX_VALUE) {
+                            demand.addAndGet(-emitted);
+                        }
+                        if (buffer.isEmpty() && last && !cancelled) {
+                            done = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                    }
+                } catch (Throwable t) {
+                    fail(t);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void execute() throws SQLException {
+            ResultsFuture<Boolean> executed;
+            statement.publishing = true;
+            try {
+                executed = execution.submit();
+            } catch (SQLException | RuntimeException e) {
+                statement.publishing = false;
+                throw e;
+            }
+            pending = executed;
+            executed.addCompletionListener(f -> {
+                statement.publishing = false;
+                NonBlockingRowProcessor.CALLBACK_EXECUTOR.execute(this::drain);
+            });
+        }
+
+        private void fetch(long requested) throws SQLException {
+            if (pending != null || last) {
+                return;
+            }
+            long needed = requested - buffer.size();
+            if (needed <= 0) {
+                return;
+            }
+            int rows = batches ? fetchSize : (int) Math.min(needed, fetchSize);
+            ResultsFuture<BatchResults.Batch> next = results.submitBatch(nextRow, rows);
+            pending = next;
+            next.addCompletionListener(f -> NonBlockingRowProcessor.CALLBACK_EXECUTOR.execute(this::drain));
+        }
+
+        private void received(Object value) throws SQLException {
+            if (value instanceof Boolean hasResultSet) {
+                if (!hasResultSet) {
+                    last = true;
+                    return;
+                }
+                results = statement.getResultSet();
+                fetchSize = Math.max(1, results.getFetchSize());
+                value = results.getLatestBatch();
+            }
+            BatchResults.Batch batch = (BatchResults.Batch) value;
+            int end = batch.getEndRow();
+            int lastRow = batch.getLastRow();
+            nextRow = end + 1;
+            if (lastRow != -1 && end >= lastRow) {
+                last = true;
+                //exclude the output parameter row
+                end = lastRow - results.getOffset();
+            }
+            List<Object> rows = batches ? new ArrayList<>(Math.max(0, end - batch.getBeginRow() + 1)) : null;
+            for (int i = batch.getBeginRow(); i <= end; i++) {
+                List<Object> row = results.getClientRow(batch.getRow(i));
+                if (rows != null) {
+                    rows.add(row);
+                } else {
+                    buffer.add(row);
+                }
+            }
+            if (rows != null && !rows.isEmpty()) {
+                buffer.add(rows);
+            }
+        }
+
+        private void fail(Throwable t) {
+            done = true;
+            close();
+            if (t instanceof ExecutionException && t.getCause() != null) {
+                t = t.getCause();
+            }
+            subscriber.onError(t);
+        }
+
+        /**
+         * Release the results, or cancel the execution if it has not completed
+         */
+        private void close() {
+            buffer.clear();
+            try {
+                if (results != null) {
+                    results.close();
+                } else if (started && pending != null) {
+                    statement.cancel();
+                }
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Could not close the published results", e);
+            }
+        }
+    }
+
+}
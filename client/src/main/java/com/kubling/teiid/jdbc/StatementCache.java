@@ -0,0 +1,136 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.core.util.HashCodeUtil;
+import com.kubling.teiid.core.util.LRUCache;
+
+/**
+ * A per connection LRU cache of closed {@link PreparedStatementImpl}s for reuse.
+ * <p>
+ * A statement is either open and held by the application or idle in the cache, never both.
+ * Closing returns it to the cache at most once, and {@link #take(StatementKey, int)} removes it
+ * before it is reopened, so an idle statement is only ever handed to one caller.  As with any
+ * JDBC statement cache, a reference must not be used after the statement is closed.
+ * <p>
+ * The cached statements hold server metadata, so the whole cache is dropped when the session
+ * has moved to another server, such as after a fail over.
+ */
+final class StatementCache {
+
+    static final class StatementKey {
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final boolean autoGeneratedKeys;
+        private final boolean callable;
+        private final int hashCode;
+
+        StatementKey(String sql, int resultSetType, int resultSetConcurrency, boolean autoGeneratedKeys, boolean callable) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            this.callable = callable;
+            this.hashCode = HashCodeUtil.hashCode(sql.hashCode(), resultSetType, resultSetConcurrency, autoGeneratedKeys, callable);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof StatementKey other)) {
+                return false;
+            }
+            return hashCode == other.hashCode
+                    && resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && autoGeneratedKeys == other.autoGeneratedKeys
+                    && callable == other.callable
+                    && sql.equals(other.sql);
+        }
+    }
+
+    private final LRUCache<StatementKey, PreparedStatementImpl> cache;
+    private final int maxStatements;
+    private int reconnects;
+    private long hits;
+    private long misses;
+
+    StatementCache(int maxStatements, int reconnects) {
+        this.cache = new LRUCache<>(maxStatements);
+        this.maxStatements = maxStatements;
+        this.reconnects = reconnects;
+    }
+
+    /**
+     * Remove and return the cached statement for the key, or null if there is none.
+     *
+     * @param reconnects the current reconnect count of the connection
+     */
+    synchronized PreparedStatementImpl take(StatementKey key, int reconnects) {
+        checkReconnects(reconnects);
+        PreparedStatementImpl statement = cache.remove(key);
+        if (statement == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return statement;
+    }
+
+    /**
+     * Add a recycled statement.
+     *
+     * @param reconnects the current reconnect count of the connection
+     */
+    synchronized void put(StatementKey key, PreparedStatementImpl statement, int reconnects) {
+        checkReconnects(reconnects);
+        cache.put(key, statement);
+    }
+
+    /**
+     * Drop the cached statements if the reconnect count of the connection has changed.
+     */
+    synchronized void checkReconnects(int current) {
+        if (current != this.reconnects) {
+            cache.clear();
+            this.reconnects = current;
+        }
+    }
+
+    synchronized void clear() {
+        cache.clear();
+    }
+
+    synchronized int size() {
+        return cache.size();
+    }
+
+    synchronized StatementCacheStatistics getStatistics() {
+        return new StatementCacheStatistics(cache.size(), maxStatements, hits, misses);
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kubling.teiid.jdbc;
+
+/**
+ * A snapshot of the state of a connection's prepared statement cache.
+ *
+ * @see BaseDataSource#setMaxStatements(int)
+ */
+public final class StatementCacheStatistics {
+
+    private final int entryCount;
+    private final int maxEntries;
+    private final long hitCount;
+    private final long missCount;
+
+    public StatementCacheStatistics(int entryCount, int maxEntries, long hitCount, long missCount) {
+        this.entryCount = entryCount;
+        this.maxEntries = maxEntries;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+    }
+
+    /**
+     * @return the number of closed statements waiting for reuse
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the number of statements at which the least recently used is evicted
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return the number of prepares that reused a cached statement
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of prepares that created a new statement
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCacheStatistics [entries=" + entryCount + ", maxEntries=" + maxEntries
+                + ", hits=" + hitCount + ", misses=" + missCount + "]";
+    }
+
+}
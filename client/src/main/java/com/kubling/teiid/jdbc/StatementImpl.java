@@ -25,6 +25,7 @@ import com.kubling.teiid.client.metadata.ParameterInfo;
 import com.kubling.teiid.client.metadata.ResultsMetadataConstants;
 import com.kubling.teiid.client.plan.Annotation;
 import com.kubling.teiid.client.plan.PlanNode;
+import com.kubling.teiid.client.security.LogonResult;
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.core.TeiidComponentException;
 import com.kubling.teiid.core.TeiidException;
@@ -42,6 +43,7 @@ import java.lang.ref.WeakReference;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
@@ -56,7 +58,7 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
 
     private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
 
-    static EnhancedTimer cancellationTimer = new EnhancedTimer("Teiid Statement Timeout");
+    static HashedWheelTimer cancellationTimer = new HashedWheelTimer("Teiid Statement Timeout");
 
     private static final class QueryTimeoutCancelTask implements Runnable {
         private final WeakReference<StatementImpl> ref;
@@ -90,7 +92,7 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
 
     //######## Configuration state #############
     private final ConnectionImpl driverConnection;
-    private final Properties execProps;
+    private Properties execProps;
 
     // fetch size value. This is the default fetch size used by the server
     private int fetchSize = BaseDataSource.DEFAULT_FETCH_SIZE;
@@ -110,6 +112,9 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
     // Differentiate timeout from cancel in blocking async operation
     protected volatile State commandStatus = State.RUNNING;
 
+    // set while a ResultsPublisher execution is pending, so that the result set leaves cursoring to the publisher
+    volatile boolean publishing;
+
     // number of seconds for the query to timeout.
     protected long queryTimeoutMS = NO_TIMEOUT;
 
@@ -161,6 +166,8 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
 
     private boolean closeOnCompletion;
 
+    private boolean poolable;
+
     static Pattern TRANSACTION_STATEMENT = Pattern.compile("\\s*((?:(?:commit|rollback|abort)(?:\\s+(?:transaction|work))?)|(start\\s+transaction(\\s+[^;]*)?))\\s*;?\\s*", Pattern.CASE_INSENSITIVE);
     static Pattern SET_STATEMENT = Pattern.compile("\\s*set(?:\\s+(payload))?\\s+((?:session authorization)|(?:[a-zA-Z]\\w*)|(?:\"[^\"]*\")+)\\s+(?:(?:to|=)\\s+)?((?:[^\\s]*)|(?:'[^']*')+)\\s*;?\\s*", Pattern.CASE_INSENSITIVE);
     static Pattern SET_CHARACTERISTIC_STATEMENT = Pattern.compile("\\s*set\\s+session\\s+characteristics\\s+as\\s+transaction\\s+isolation\\s+level\\s+((?:read\\s+(?:(?:committed)|(?:uncommitted)))|(?:repeatable\\s+read)|(?:serializable))\\s*", Pattern.CASE_INSENSITIVE);
@@ -174,7 +181,11 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         this.resultSetType = resultSetType;
         this.resultSetConcurrency = resultSetConcurrency;
         this.execProps = new Properties(this.driverConnection.getExecutionProperties());
+        setFetchSizeFromProperties();
+        setTimeoutFromProperties();
+    }
 
+    private void setFetchSizeFromProperties() {
         // Set initial fetch size
         String fetchSizeStr = this.execProps.getProperty(ExecutionProperties.PROP_FETCH_SIZE);
         if (fetchSizeStr != null) {
@@ -184,7 +195,6 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
                 // silently failover to default
             }
         }
-        setTimeoutFromProperties();
     }
 
     private void setTimeoutFromProperties() {
@@ -284,6 +294,39 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         }
     }
 
+    /**
+     * Reset the statement to its initial configuration and mark it closed, so that
+     * it may be handed out again by the connection.
+     */
+    void recycle() throws SQLException {
+        resetExecutionState();
+        clearBatch();
+        this.serverWarnings = null;
+        this.payload = null;
+        //the connection defaults may have been replaced, such as when a pooled connection is reset
+        this.execProps = new Properties(this.driverConnection.getExecutionProperties());
+        this.fetchSize = BaseDataSource.DEFAULT_FETCH_SIZE;
+        setFetchSizeFromProperties();
+        this.queryTimeoutMS = NO_TIMEOUT;
+        setTimeoutFromProperties();
+        this.maxRows = NO_LIMIT;
+        this.maxFieldSize = NO_LIMIT;
+        this.closeOnCompletion = false;
+        this.isClosed = true;
+    }
+
+    void reopen() {
+        this.isClosed = false;
+    }
+
+    boolean isPoolableInternal() {
+        return this.poolable;
+    }
+
+    void setPoolableInternal(boolean poolable) {
+        this.poolable = poolable;
+    }
+
     public void close() throws SQLException {
         if (isClosed) {
             return;
@@ -331,6 +374,16 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         return executeSql(new String[]{sql}, false, RequestMessage.ResultsMode.EITHER, false, options);
     }
 
+    @Override
+    public Flow.Publisher<List<?>> publishRows(String sql, RequestOptions options) {
+        return new ResultsPublisher<>(this, () -> submitExecute(sql, options), false);
+    }
+
+    @Override
+    public Flow.Publisher<List<List<?>>> publishBatches(String sql, RequestOptions options) {
+        return new ResultsPublisher<>(this, () -> submitExecute(sql, options), true);
+    }
+
     @Override
     public boolean execute(String sql) throws SQLException {
         return execute(sql, Statement.NO_GENERATED_KEYS);
@@ -527,7 +580,7 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
                             }
                         }
                         //TODO: this should force a start and through an exception if we're already in a txn
-                        this.getConnection().setAutoCommit(false);
+                        this.getMMConnection().setAutoCommit(false);
                         success = true;
                     } finally {
                         if (!success) {
@@ -537,17 +590,17 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
                 } else if (StringUtil.startsWithIgnoreCase(command, "commit")) {
                     commit = true;
                     if (synch) {
-                        this.getConnection().setAutoCommit(true);
+                        this.getMMConnection().setAutoCommit(true);
                     }
                 } else if (StringUtil.startsWithIgnoreCase(command, "rollback") || StringUtil.startsWithIgnoreCase(command, "abort")) {
                     commit = false;
-                    if (synch || !this.getConnection().isInLocalTxn()) {
-                        this.getConnection().rollback(false);
+                    if (synch || !this.getMMConnection().isInLocalTxn()) {
+                        this.getMMConnection().rollback(false);
                     }
                 }
                 this.updateCounts = new int[]{0};
                 if (commit != null && !synch) {
-                    ResultsFuture<?> pending = this.getConnection().submitSetAutoCommitTrue(commit);
+                    ResultsFuture<?> pending = this.getMMConnection().submitSetAutoCommitTrue(commit);
                     final ResultsFuture<Boolean> result = new ResultsFuture<>();
                     pending.addCompletionListener((ResultsFuture.CompletionListener) future -> {
                         try {
@@ -580,11 +633,26 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
                 reqMessage.setSpanContext(spanContext);
             }
         }
+        final long cacheTtl = getClientResultCacheTtl();
+        validateResultSetProperties();
+        final ClientResultCache.Key cacheKey = cacheTtl > 0
+                ? getClientResultCacheKey(reqMessage, isBatchedCommand, resultsMode, options, autoGenerateKeys) : null;
+        if (cacheKey != null) {
+            ResultsMessage cached = ClientResultCache.getInstance().get(cacheKey);
+            if (cached != null) {
+                receiveCachedResults(reqMessage, cached);
+                return booleanFuture(hasResultSet());
+            }
+        }
         ResultsFuture<ResultsMessage> pendingResult = execute(reqMessage, synch);
         final ResultsFuture<Boolean> result = new ResultsFuture<>();
         pendingResult.addCompletionListener(future -> {
             try {
-                postReceiveResults(reqMessage, future.get());
+                ResultsMessage resultsMsg = future.get();
+                postReceiveResults(reqMessage, resultsMsg);
+                if (cacheKey != null && ClientResultCache.isCacheable(resultsMsg)) {
+                    ClientResultCache.getInstance().put(cacheKey, resultsMsg, cacheTtl);
+                }
                 result.getResultsReceiver().receiveResults(hasResultSet());
             } catch (Throwable t) {
                 result.getResultsReceiver().exceptionOccurred(t);
@@ -716,7 +784,7 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
 
     private ResultsFuture<ResultsMessage> execute(final RequestMessage reqMsg, boolean synch) throws SQLException,
             TeiidSQLException {
-        this.getConnection().beginLocalTxnIfNeeded();
+        this.getMMConnection().beginLocalTxnIfNeeded();
         this.currentRequestID = this.driverConnection.nextRequestID();
         // Create a request message
         if (this.payload != null) {
@@ -737,7 +805,7 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
 
         ResultsFuture.CompletionListener<ResultsMessage> compeletionListener = null;
         if (queryTimeoutMS > 0 && (!synch || this.driverConnection.getServerConnection().isLocal())) {
-            final EnhancedTimer.Task c = cancellationTimer.add(cancelTask, queryTimeoutMS);
+            final HashedWheelTimer.Task c = cancellationTimer.add(cancelTask, queryTimeoutMS);
             compeletionListener = future -> c.cancel();
         }
 
@@ -753,8 +821,16 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         return pendingResult;
     }
 
+    /**
+     * @return true if the server will push the batches of a forward only cursor
+     */
+    boolean supportsStreamingCursors() throws SQLException {
+        return this.getMMConnection().getServerConnection() != null
+                && this.getMMConnection().getServerConnection().supportsStreamingCursors();
+    }
+
     boolean useCallingThread() throws SQLException {
-        if (this.getConnection().getServerConnection() == null || !this.getConnection().getServerConnection().isLocal()) {
+        if (this.getMMConnection().getServerConnection() == null || !this.getMMConnection().getServerConnection().isLocal()) {
             return false;
         }
         String useCallingThread = getExecutionProperty(LocalProfile.USE_CALLING_THREAD);
@@ -787,12 +863,8 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         resultsMsg.processResults();
 
         if (resultsMsg.isUpdateResult()) {
-            List<? extends List<?>> results = resultsMsg.getResultsList();
             if (resultsMsg.getUpdateCount() == -1) {
-                this.updateCounts = new int[results.size()];
-                for (int i = 0; i < results.size(); i++) {
-                    updateCounts[i] = (Integer) results.get(i).getFirst();
-                }
+                this.updateCounts = getUpdateCounts(resultsMsg);
             } else {
                 this.updateCounts = new int[]{resultsMsg.getUpdateCount()};
                 this.createResultSet(resultsMsg);
@@ -801,17 +873,11 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
                 logger.finer("Received update counts: " + Arrays.toString(updateCounts));
             }
             // In update scenarios close the statement implicitly - the server should have already done this
-            try {
-                getDQP().closeRequest(getCurrentRequestID());
-            } catch (TeiidProcessingException | TeiidComponentException e) {
-                throw TeiidSQLException.create(e);
-            }
+            closeUpdateRequest(getCurrentRequestID());
 
             //handle a batch update exception
             if (resultsMsg.getException() != null) {
-                TeiidSQLException exe = TeiidSQLException.create(resultsMsg.getException());
-                BatchUpdateException batchUpdateException =
-                        new BatchUpdateException(exe.getMessage(), exe.getSQLState(), exe.getErrorCode(), updateCounts, exe);
+                BatchUpdateException batchUpdateException = createBatchUpdateException(resultsMsg, updateCounts);
                 this.updateCounts = null;
                 throw batchUpdateException;
             }
@@ -824,6 +890,182 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
         }
     }
 
+    private long getClientResultCacheTtl() throws TeiidSQLException {
+        String ttl = getExecutionProperty(ExecutionProperties.RESULT_SET_CLIENT_CACHE_TTL);
+        if (ttl == null) {
+            return 0;
+        }
+        long result;
+        try {
+            result = Long.parseLong(ttl.trim());
+        } catch (NumberFormatException e) {
+            result = -1;
+        }
+        if (result < 0) {
+            throw new TeiidSQLException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20046, ttl,
+                    ExecutionProperties.RESULT_SET_CLIENT_CACHE_TTL));
+        }
+        return result;
+    }
+
+    /**
+     * Validate the numeric properties used by the {@link ResultSetImpl}, so that an invalid value
+     * fails before the request is sent rather than once the results are received.
+     */
+    private void validateResultSetProperties() throws TeiidSQLException {
+        getLongExecutionProperty(ExecutionProperties.ADAPTIVE_FETCH_BYTES, 0);
+        getIntExecutionProperty(ExecutionProperties.STREAMING_CURSOR_ROWS, 0);
+        getIntExecutionProperty(ExecutionProperties.READ_AHEAD_BATCHES, 0);
+        getLongExecutionProperty(ExecutionProperties.READ_AHEAD_BYTES, 0);
+    }
+
+    /**
+     * @return the value of an int execution property, or the default if it is not set
+     * @throws TeiidSQLException if the value is not a non-negative int
+     */
+    int getIntExecutionProperty(String name, int defaultValue) throws TeiidSQLException {
+        return (int) getLongExecutionProperty(name, defaultValue, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the value of a long execution property, or the default if it is not set
+     * @throws TeiidSQLException if the value is not a non-negative long
+     */
+    long getLongExecutionProperty(String name, long defaultValue) throws TeiidSQLException {
+        return getLongExecutionProperty(name, defaultValue, Long.MAX_VALUE);
+    }
+
+    private long getLongExecutionProperty(String name, long defaultValue, long max) throws TeiidSQLException {
+        String value = getExecutionProperty(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        long result;
+        try {
+            result = Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            result = -1;
+        }
+        if (result < 0 || result > max) {
+            throw new TeiidSQLException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20049, value, name));
+        }
+        return result;
+    }
+
+    /**
+     * @return the key of a query that may be answered by the {@link ClientResultCache}, or null if the
+     * request may update, is in a transaction, or has parameter values that cannot be compared
+     */
+    private ClientResultCache.Key getClientResultCacheKey(RequestMessage reqMessage, boolean isBatchedCommand,
+                                                          RequestMessage.ResultsMode resultsMode, RequestOptions options,
+                                                          boolean autoGenerateKeys) throws SQLException {
+        if (isBatchedCommand || autoGenerateKeys || publishing || resultsMode == RequestMessage.ResultsMode.UPDATECOUNT
+                || (options != null && options.isContinuous()) || reqMessage.getCommands().length != 1
+                || !this.driverConnection.getAutoCommit() || this.driverConnection.getTransactionXid() != null
+                || this.driverConnection.getServerConnection() == null) {
+            return null;
+        }
+        List<?> parameters = reqMessage.getParameterValues();
+        if (parameters != null) {
+            for (Object value : parameters) {
+                if (!ClientResultCache.isCacheableParameter(value)) {
+                    return null;
+                }
+            }
+            List<Object> copy = new ArrayList<>(parameters.size());
+            for (Object value : parameters) {
+                //dates are mutable, so the key holds its own copy
+                copy.add(value instanceof java.util.Date date ? date.clone() : value);
+            }
+            parameters = copy;
+        }
+        LogonResult logonResult = this.driverConnection.getServerConnection().getLogonResult();
+        return new ClientResultCache.Key(this.driverConnection.getUrl(), logonResult.getVdbName(),
+                logonResult.getVdbVersion(), logonResult.getSessionID(), reqMessage.getCommandString(), parameters,
+                reqMessage.getRowLimit(), reqMessage.isAnsiQuotedIdentifiers());
+    }
+
+    /**
+     * Create the result set from rows of the {@link ClientResultCache}.  There is no server request, so the
+     * metadata is limited to the column names and types.
+     */
+    private synchronized void receiveCachedResults(RequestMessage reqMessage, ResultsMessage resultsMsg)
+            throws SQLException {
+        commandStatus = State.DONE;
+        //the request was never sent, so the result set must not close it on the server
+        this.currentRequestID = -1;
+        ResultSetMetaData metadata = createResultSetMetaData(
+                createMetadataMap(resultsMsg.getColumnNames(), resultsMsg.getDataTypes()));
+        resultSet = new ResultSetImpl(resultsMsg, this, metadata, 0);
+        resultSet.setMaxFieldSize(this.maxFieldSize);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Results from the client result cache: " + reqMessage.getCommandString());
+        }
+    }
+
+    /**
+     * Send a batched update without waiting for the results, so that the chunks of a large batch can be
+     * pipelined.  Unlike {@link #executeSql(String[], boolean, RequestMessage.ResultsMode, boolean, RequestOptions)}
+     * the statement state is not updated, the results are instead passed to {@link #receiveBatchedUpdate(long, ResultsMessage)}
+     * in the order they were sent.  The request id is available from {@link #getCurrentRequestID()} until the next send.
+     */
+    ResultsFuture<ResultsMessage> submitBatchedUpdate(RequestMessage reqMessage) throws SQLException {
+        checkStatement();
+        if (this.driverConnection.getServerConnection() != null && !this.driverConnection.getServerConnection().isLocal()) {
+            String spanContext = TracingHelper.getSpanContext();
+            if (spanContext != null) {
+                reqMessage.setSpanContext(spanContext);
+            }
+        }
+        return execute(reqMessage, true);
+    }
+
+    /**
+     * @return the update counts of a result from {@link #submitBatchedUpdate(RequestMessage)}
+     * @throws BatchUpdateException with the counts prior to the failing command
+     */
+    int[] receiveBatchedUpdate(long requestID, ResultsMessage resultsMsg) throws SQLException {
+        synchronized (this) {
+            List<Throwable> resultsWarning = resultsMsg.getWarnings();
+            if (resultsWarning != null) {
+                accumulateWarnings(resultsWarning);
+            }
+            setAnalysisInfo(resultsMsg);
+        }
+        if (resultsMsg.getException() != null && resultsMsg.getResultsList() == null) {
+            throw TeiidSQLException.create(resultsMsg.getException());
+        }
+        resultsMsg.processResults();
+        int[] counts = getUpdateCounts(resultsMsg);
+        closeUpdateRequest(requestID);
+        if (resultsMsg.getException() != null) {
+            throw createBatchUpdateException(resultsMsg, counts);
+        }
+        return counts;
+    }
+
+    private static int[] getUpdateCounts(ResultsMessage resultsMsg) {
+        List<? extends List<?>> results = resultsMsg.getResultsList();
+        int[] counts = new int[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            counts[i] = (Integer) results.get(i).getFirst();
+        }
+        return counts;
+    }
+
+    private void closeUpdateRequest(long requestID) throws TeiidSQLException {
+        try {
+            getDQP().closeRequest(requestID);
+        } catch (TeiidProcessingException | TeiidComponentException e) {
+            throw TeiidSQLException.create(e);
+        }
+    }
+
+    private static BatchUpdateException createBatchUpdateException(ResultsMessage resultsMsg, int[] counts) {
+        TeiidSQLException exe = TeiidSQLException.create(resultsMsg.getException());
+        return new BatchUpdateException(exe.getMessage(), exe.getSQLState(), exe.getErrorCode(), counts, exe);
+    }
+
     protected RequestMessage createRequestMessage(String[] commands,
                                                   boolean isBatchedCommand, RequestMessage.ResultsMode resultsMode) {
         RequestMessage reqMessage = new RequestMessage();
@@ -1101,15 +1343,16 @@ public class StatementImpl extends WrapperImpl implements TeiidStatement {
 
     public boolean isPoolable() throws SQLException {
         checkStatement();
-        return false;
+        return poolable;
     }
 
-    public void setPoolable(boolean arg0) throws SQLException {
+    public void setPoolable(boolean poolable) throws SQLException {
         checkStatement();
+        this.poolable = poolable;
     }
 
-    public ConnectionImpl getConnection() throws SQLException {
-        return this.driverConnection;
+    public Connection getConnection() throws SQLException {
+        return this.driverConnection.getPublicConnection();
     }
 
     public boolean execute(String sql, int autoGeneratedKeys)
@@ -0,0 +1,179 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.client.util.ResultsStream;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Consumes the batches of a forward only cursor that the server pushes, rather than requesting each batch.
+ * <p>
+ * The server may only send as many rows as the client has granted credits for, which bounds the
+ * batches queued locally.  Credits are granted back as the application takes batches, once half
+ * of the initial credits have been consumed, so that the server is not left waiting while there is room.
+ * Throughput is then bound by bandwidth rather than by the round trip per batch.
+ */
+final class StreamingCursor {
+
+    interface CursorStreamer {
+        ResultsStream<ResultsMessage> streamCursorRequest(int beginRow, int credits) throws TeiidSQLException;
+
+        void grantCursorCredits(int credits) throws TeiidSQLException;
+    }
+
+    private static final Logger logger = Logger.getLogger("org.teiid.jdbc");
+
+    private final CursorStreamer streamer;
+    private final int credits;
+
+    //the server is only called once the lock has been released
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean started;
+    private ResultsStream<ResultsMessage> stream;
+    private ResultsFuture<ResultsMessage> taken;
+    private int consumed;
+
+    /**
+     * @param credits the number of rows the server may push ahead of the application
+     */
+    StreamingCursor(CursorStreamer streamer, int credits) {
+        this.streamer = streamer;
+        this.credits = Math.max(1, credits);
+    }
+
+    /**
+     * Begin streaming from the given row.  Has no effect once started.
+     */
+    void start(int beginRow) {
+        lock.lock();
+        try {
+            if (started) {
+                return;
+            }
+            started = true;
+        } finally {
+            lock.unlock();
+        }
+        ResultsStream<ResultsMessage> result;
+        try {
+            result = streamer.streamCursorRequest(beginRow, credits);
+        } catch (TeiidSQLException e) {
+            result = new ResultsStream<>();
+            result.exceptionOccurred(e);
+        }
+        lock.lock();
+        try {
+            stream = result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the future for the next batch in order, or null if streaming has not started or has ended
+     */
+    ResultsFuture<ResultsMessage> take() throws TeiidSQLException {
+        int grant = 0;
+        ResultsFuture<ResultsMessage> next = null;
+        lock.lock();
+        try {
+            if (stream == null) {
+                return null;
+            }
+            if (taken != null) {
+                if (!taken.isDone()) {
+                    //the previous wait timed out or was interrupted, wait for the same batch again
+                    return taken;
+                }
+                //the application has moved past the previously taken batch
+                grant = replenish(taken);
+            }
+            if (!stream.isDone() || stream.size() > 0) {
+                taken = stream.next();
+                next = taken;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (grant > 0) {
+            if (logger.isLoggable(Level.FINER)) {
+                logger.finer("granting cursor credits " + grant);
+            }
+            streamer.grantCursorCredits(grant);
+        }
+        return next;
+    }
+
+    /**
+     * Count the rows of a completed batch.
+     * @return the credits to grant once the lock is released, or 0
+     */
+    private int replenish(ResultsFuture<ResultsMessage> previous) {
+        taken = null;
+        try {
+            ResultsMessage message = previous.get();
+            if (message == null || message.getLastRow() < message.getFirstRow()) {
+                return 0;
+            }
+            consumed += message.getLastRow() - message.getFirstRow() + 1;
+        } catch (Exception e) {
+            //reported when the batch was taken
+            return 0;
+        }
+        if (consumed >= (credits + 1) / 2 && !stream.isDone()) {
+            int grant = consumed;
+            consumed = 0;
+            return grant;
+        }
+        return 0;
+    }
+
+    /**
+     * Stop reading the stream and discard the batches that have not been taken.
+     */
+    void close() {
+        lock.lock();
+        try {
+            if (stream != null) {
+                stream.close();
+            }
+            taken = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of batches received but not yet taken
+     */
+    int size() {
+        lock.lock();
+        try {
+            return stream == null ? 0 : stream.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -18,8 +18,12 @@
 
 package com.kubling.teiid.jdbc;
 
+import java.io.InputStream;
+import java.io.Reader;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Optional methods supported by Teiid Connections.
@@ -34,4 +38,44 @@ public interface TeiidConnection extends Connection {
      * @param newPassword the password to authenticate with
      */
     void changeUser(String userName, String newPassword) throws SQLException;
+
+    /**
+     * Insert the rows into the table, streaming them to the server rather than holding them in memory
+     * as {@link java.sql.PreparedStatement#executeBatch()} does.  The rows are taken as needed, each must
+     * have a value per column.  Values are sent in their string form and converted to the column types by the server.
+     *
+     * @param table   the name of the table, which is used as is in the insert
+     * @param columns the names of the columns to insert into
+     * @return the number of rows inserted
+     */
+    int bulkLoad(String table, String[] columns, Iterator<? extends List<?>> rows) throws SQLException;
+
+    /**
+     * Insert comma delimited text into the table, without a header row and one row per line,
+     * with the defaults of TEXTTABLE.  The text is streamed to the server.
+     *
+     * @see #bulkLoad(String, String[], Iterator)
+     */
+    int bulkLoad(String table, String[] columns, Reader csv) throws SQLException;
+
+    /**
+     * Insert comma delimited UTF-8 text into the table.
+     *
+     * @see #bulkLoad(String, String[], Reader)
+     */
+    int bulkLoad(String table, String[] columns, InputStream csv) throws SQLException;
+
+    /**
+     * @return the hit, miss and eviction counts and the size of the client side result cache, which is shared
+     * by all connections
+     * @see ExecutionProperties#RESULT_SET_CLIENT_CACHE_TTL
+     */
+    ClientResultCacheStatistics getClientResultCacheStatistics();
+
+    /**
+     * @return the hit and miss counts and the size of this connection's prepared statement cache,
+     * or null if statements are not cached
+     * @see BaseDataSource#setMaxStatements(int)
+     */
+    StatementCacheStatistics getStatementCacheStatistics();
 }
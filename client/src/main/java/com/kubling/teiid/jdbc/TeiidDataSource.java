@@ -111,6 +111,41 @@ public class TeiidDataSource extends BaseDataSource {
      */
     private boolean encryptRequests;
 
+    /**
+     * The policy used to select a server from a multi-host url, see {@link com.kubling.teiid.net.socket.LoadBalancingPolicy}
+     */
+    private String loadBalancingPolicy;
+
+    /**
+     * The ms between background checks of an idle auto failover connection.
+     */
+    private long heartbeatInterval;
+
+    /**
+     * The number of prepared statement metadata results to cache across all connections
+     * from this DataSource.  0, the default, uses only the per connection cache, if any.
+     */
+    private int sharedMetadataCacheSize;
+
+    private transient MetadataCache sharedMetadataCache;
+
+    /**
+     * The maximum number of pooled connections.  0, the default, disables pooling.
+     */
+    private int maxPoolSize;
+
+    private int minIdle;
+
+    private int maxIdle;
+
+    private long idleTimeout = ConnectionPool.DEFAULT_IDLE_TIMEOUT;
+
+    private long poolWaitTimeout;
+
+    private long poolValidationInterval = ConnectionPool.DEFAULT_VALIDATION_INTERVAL;
+
+    private transient ConnectionPool pool;
+
     private final TeiidDriver driver;
 
     public TeiidDataSource() {
@@ -143,6 +178,14 @@ public class TeiidDataSource extends BaseDataSource {
         if (getJaasName() != null) {
             props.setProperty(TeiidURL.CONNECTION.JAAS_NAME, getJaasName());
         }
+
+        if (getLoadBalancingPolicy() != null) {
+            props.setProperty(TeiidURL.CONNECTION.LOAD_BALANCING_POLICY, getLoadBalancingPolicy());
+        }
+
+        if (getHeartbeatInterval() > 0) {
+            props.setProperty(TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, String.valueOf(getHeartbeatInterval()));
+        }
         if (getKerberosServicePrincipleName() != null) {
             props.setProperty(TeiidURL.CONNECTION.KERBEROS_SERVICE_PRINCIPLE_NAME, getKerberosServicePrincipleName());
         }
@@ -260,19 +303,70 @@ public class TeiidDataSource extends BaseDataSource {
      * @see javax.sql.DataSource#getConnection(String, String)
      */
     public Connection getConnection(String userName, String password) throws java.sql.SQLException {
+        if (this.maxPoolSize > 0 && (userName == null || userName.equals(getUser()))
+                && (password == null || password.equals(getPassword()))) {
+            return getPool().getConnection();
+        }
+        return connect(userName, password);
+    }
 
+    private ConnectionImpl connect(String userName, String password) throws java.sql.SQLException {
         // check if this is embedded connection
         if (getServerName() == null) {
             super.validateProperties(userName, password);
             final Properties props = buildEmbeddedProperties(userName, password);
             String url = new JDBCURL(getDatabaseName(), null, null).getJDBCURL();
-            return driver.connect(url, props);
+            return useSharedMetadataCache(driver.connect(url, props));
         }
 
         // if not proceed with socket connection.
         validateProperties(userName, password);
         final Properties props = buildProperties(userName, password);
-        return driver.connect(new JDBCURL(this.getDatabaseName(), buildServerURL(), null).getJDBCURL(), props);
+        return useSharedMetadataCache(driver.connect(new JDBCURL(this.getDatabaseName(), buildServerURL(), null).getJDBCURL(), props));
+    }
+
+    private synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            long waitTimeout = poolWaitTimeout;
+            if (waitTimeout <= 0) {
+                waitTimeout = getLoginTimeout() > 0 ? getLoginTimeout() * 1000L : ConnectionPool.DEFAULT_WAIT_TIMEOUT;
+            }
+            pool = new ConnectionPool(() -> connect(null, null), maxPoolSize, minIdle, maxIdle, idleTimeout,
+                    waitTimeout, poolValidationInterval);
+        }
+        return pool;
+    }
+
+    /**
+     * Close the idle pooled connections and discard the pool.  Connections still in use are closed
+     * when they are returned.  A new pool, using the current pool properties, is created on the
+     * next call to {@link #getConnection()}.
+     */
+    public synchronized void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return the statistics for the connection pool, or null if no pool has been created
+     */
+    public synchronized ConnectionPoolStatistics getPoolStatistics() {
+        if (pool == null) {
+            return null;
+        }
+        return pool.getStatistics();
+    }
+
+    private synchronized ConnectionImpl useSharedMetadataCache(ConnectionImpl conn) {
+        if (conn != null && sharedMetadataCacheSize > 0) {
+            if (sharedMetadataCache == null) {
+                sharedMetadataCache = new MetadataCache(sharedMetadataCacheSize);
+            }
+            conn.setMetadataCache(sharedMetadataCache);
+        }
+        return conn;
     }
 
     private Properties buildEmbeddedProperties(final String userName, final String password) {
@@ -525,6 +619,29 @@ public class TeiidDataSource extends BaseDataSource {
         this.jaasName = jaasApplicationName;
     }
 
+    public String getLoadBalancingPolicy() {
+        return loadBalancingPolicy;
+    }
+
+    /**
+     * @param loadBalancingPolicy one of RANDOM, the default, LEAST_OUTSTANDING, LATENCY, or POWER_OF_TWO
+     */
+    public void setLoadBalancingPolicy(String loadBalancingPolicy) {
+        this.loadBalancingPolicy = loadBalancingPolicy;
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    /**
+     * @param heartbeatInterval ms between background checks of an idle connection when using auto failover,
+     *                          or 0, the default, to ping before a request instead
+     */
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
     /**
      * Kerberos KDC service principle name
      *
@@ -547,6 +664,92 @@ public class TeiidDataSource extends BaseDataSource {
         return TeiidDriver.logger;
     }
 
+    public int getSharedMetadataCacheSize() {
+        return sharedMetadataCacheSize;
+    }
+
+    /**
+     * Set the number of prepared statement metadata results cached and shared by all connections
+     * from this DataSource.
+     */
+    public synchronized void setSharedMetadataCacheSize(int sharedMetadataCacheSize) {
+        this.sharedMetadataCacheSize = sharedMetadataCacheSize;
+        this.sharedMetadataCache = null;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Set the maximum number of connections pooled by this DataSource.  When greater than 0
+     * {@link #getConnection()}, and {@link #getConnection(String, String)} with the configured
+     * credentials, return pooled connections that are recycled rather than closed.
+     * Pool properties are read when the pool is created, see {@link #closePool()}.
+     */
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * Set the number of idle connections the pool keeps open, even past the idle timeout.
+     */
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Set the maximum number of idle connections.  Connections returned past this count are closed.
+     * 0, the default, allows up to the max pool size.
+     */
+    public void setMaxIdle(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Set the milliseconds a pooled connection may stay idle before it is closed.
+     * &lt;= 0 never closes idle connections.  Defaults to 10 minutes.
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getPoolWaitTimeout() {
+        return poolWaitTimeout;
+    }
+
+    /**
+     * Set the milliseconds to wait for a connection when the pool is at its max size.
+     * 0, the default, uses the login timeout if set, otherwise 30 seconds.
+     */
+    public void setPoolWaitTimeout(long poolWaitTimeout) {
+        this.poolWaitTimeout = poolWaitTimeout;
+    }
+
+    public long getPoolValidationInterval() {
+        return poolValidationInterval;
+    }
+
+    /**
+     * Set the milliseconds a pooled connection may stay idle before it is pinged when handed out.
+     * Defaults to 30 seconds.
+     */
+    public void setPoolValidationInterval(long poolValidationInterval) {
+        this.poolValidationInterval = poolValidationInterval;
+    }
+
     public void setEncryptRequests(boolean encryptRequests) {
         this.encryptRequests = encryptRequests;
     }
@@ -20,6 +20,8 @@ package com.kubling.teiid.jdbc;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Flow;
 
 /**
  * This interface provides methods in
@@ -35,4 +37,28 @@ public interface TeiidPreparedStatement extends PreparedStatement {
      */
     void submitExecute(StatementCallback callback, RequestOptions options) throws SQLException;
 
+    /**
+     * Get a publisher of the rows of the query, which is executed when the first row is requested.
+     *
+     * @see TeiidStatement#publishRows(String, RequestOptions)
+     */
+    Flow.Publisher<List<?>> publishRows(RequestOptions options);
+
+    /**
+     * Get a publisher of the batches of rows of the query.
+     *
+     * @see TeiidStatement#publishBatches(String, RequestOptions)
+     */
+    Flow.Publisher<List<List<?>>> publishBatches(RequestOptions options);
+
+    /**
+     * Add rows to the batch by column, rather than setting the parameters and calling {@link #addBatch()} for each row.
+     * Each column holds the values of a parameter as an int[], long[], double[], float[], short[] or Object[],
+     * and there must be one column for each parameter, all of the same length.  Primitive values are not boxed,
+     * and are sent by column when the server supports it.  Values in an Object[] are used as is, without the
+     * conversions of the setXXX methods.  The number of columns is checked against the parameters here if the
+     * statement metadata is already known, otherwise by the server when the batch is executed.
+     */
+    void addBatchColumns(Object... columns) throws SQLException;
+
 }
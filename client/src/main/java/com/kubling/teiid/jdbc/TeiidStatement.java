@@ -24,6 +24,8 @@ import com.kubling.teiid.client.plan.PlanNode;
 import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Flow;
 
 
 /**
@@ -110,4 +112,20 @@ public interface TeiidStatement extends java.sql.Statement {
      */
     void submitExecute(String sql, StatementCallback callback, RequestOptions options)
             throws SQLException;
+
+    /**
+     * Get a publisher of the rows of the given query, which is executed when the first row is requested.
+     * <p>
+     * Rows are fetched from the server as the subscriber requests them, up to the fetch size at a time,
+     * and are delivered as lists of the values {@link java.sql.ResultSet#getObject(int)} would return.
+     * Cancelling the subscription closes the results.  Only a single subscriber is allowed and the
+     * Statement must still be closed by the caller.
+     */
+    Flow.Publisher<List<?>> publishRows(String sql, RequestOptions options);
+
+    /**
+     * Get a publisher of the batches of rows of the given query.  Each subscriber request is for a batch of
+     * up to the fetch size rows, otherwise the same as {@link #publishRows(String, RequestOptions)}.
+     */
+    Flow.Publisher<List<List<?>>> publishBatches(String sql, RequestOptions options);
 }
@@ -38,6 +38,20 @@ public interface ServerConnection {
 
     boolean supportsContinuous();
 
+    /**
+     * @return true if the server will push cursor batches with {@link com.kubling.teiid.client.DQP#streamCursorRequest(long, int, int, int)}
+     */
+    default boolean supportsStreamingCursors() {
+        return false;
+    }
+
+    /**
+     * @return the number of times the session has moved to a new server instance, such as on fail over
+     */
+    default int getReconnectCount() {
+        return 0;
+    }
+
     boolean isLocal();
 
     String getServerVersion();
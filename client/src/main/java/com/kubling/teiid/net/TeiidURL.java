@@ -76,6 +76,15 @@ public class TeiidURL {
 
         String ENCRYPT_REQUESTS = "encryptRequests";
         String LOGIN_TIMEOUT = "loginTimeout";
+        /**
+         * The {@link com.kubling.teiid.net.socket.LoadBalancingPolicy} used to select a host from a multi-host url.
+         */
+        String LOAD_BALANCING_POLICY = "loadBalancingPolicy";
+        /**
+         * The ms between background checks of an idle {@link #AUTO_FAILOVER} connection.  0, the default,
+         * instead pings the server before a request when the connection has been idle.
+         */
+        String HEARTBEAT_INTERVAL = "heartbeatInterval";
 
     }
 
@@ -0,0 +1,75 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+/**
+ * A snapshot of the bytes transferred over an {@link ObjectChannel}.
+ * <p>
+ * Payload bytes are the frame bytes before compression, so the ratio of wire bytes
+ * to payload bytes shows the effect of compression.
+ */
+public final class ChannelStatistics {
+
+    private final long bytesSent;
+    private final long payloadBytesSent;
+    private final long bytesReceived;
+    private final long payloadBytesReceived;
+
+    public ChannelStatistics(long bytesSent, long payloadBytesSent, long bytesReceived, long payloadBytesReceived) {
+        this.bytesSent = bytesSent;
+        this.payloadBytesSent = payloadBytesSent;
+        this.bytesReceived = bytesReceived;
+        this.payloadBytesReceived = payloadBytesReceived;
+    }
+
+    /**
+     * @return the number of bytes written to the socket
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return the number of bytes that would have been written without compression
+     */
+    public long getPayloadBytesSent() {
+        return payloadBytesSent;
+    }
+
+    /**
+     * @return the number of bytes read from the socket
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return the number of bytes received after decompression
+     */
+    public long getPayloadBytesReceived() {
+        return payloadBytesReceived;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelStatistics [bytesSent=" + bytesSent + ", payloadBytesSent=" + payloadBytesSent
+                + ", bytesReceived=" + bytesReceived + ", payloadBytesReceived=" + payloadBytesReceived + "]";
+    }
+
+}
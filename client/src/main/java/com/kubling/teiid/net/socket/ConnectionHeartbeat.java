@@ -0,0 +1,89 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+import com.kubling.teiid.core.util.ExecutorUtils;
+import com.kubling.teiid.jdbc.EnhancedTimer;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically checks the health of a fail over {@link SocketServerConnection} off of the request path.
+ * <p>
+ * The timer and the threads that perform the checks are shared by all connections.  Only a weak reference
+ * is held to the connection, so that an abandoned connection may still be collected.
+ */
+final class ConnectionHeartbeat implements Runnable {
+
+    private static final Logger log = Logger.getLogger("org.teiid.client.sockets");
+    private static final EnhancedTimer TIMER = new EnhancedTimer("Teiid Heartbeat");
+    private static final Executor CHECKERS = ExecutorUtils.newFixedThreadPool(4, "Teiid Heartbeat Check");
+
+    private final WeakReference<SocketServerConnection> connection;
+    private final long interval;
+    private EnhancedTimer.Task task;
+    private boolean cancelled;
+
+    private ConnectionHeartbeat(SocketServerConnection connection, long interval) {
+        this.connection = new WeakReference<>(connection);
+        this.interval = interval;
+    }
+
+    /**
+     * Start checking the connection every interval ms until cancelled
+     */
+    static ConnectionHeartbeat schedule(SocketServerConnection connection, long interval) {
+        ConnectionHeartbeat result = new ConnectionHeartbeat(connection, interval);
+        result.schedule();
+        return result;
+    }
+
+    private synchronized void schedule() {
+        if (!cancelled) {
+            task = TIMER.add(() -> CHECKERS.execute(this), interval);
+        }
+    }
+
+    @Override
+    public void run() {
+        SocketServerConnection conn = connection.get();
+        if (conn == null) {
+            return;
+        }
+        try {
+            if (!conn.heartbeat()) {
+                return;
+            }
+        } catch (Throwable t) {
+            log.log(Level.WARNING, "Unexpected exception checking the connection", t);
+        }
+        schedule();
+    }
+
+    synchronized void cancel() {
+        cancelled = true;
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+}
@@ -33,11 +33,23 @@ public class Handshake implements Externalizable {
     @Serial
     private static final long serialVersionUID = 7839271224736355515L;
 
+    /**
+     * The largest session ticket that will be read, tickets are expected to be far smaller
+     */
+    static final int MAX_TICKET_LENGTH = 1 << 16;
+
     private String version = ApplicationInfo.getInstance().getReleaseNumber();
     private byte[] publicKey;
     private byte[] publicKeyLarge;
     private AuthenticationType authType = AuthenticationType.USERPASSWORD;
     private boolean cbc = true;
+    private boolean compression;
+    private boolean resumption;
+    private byte[] sessionTicket;
+    private boolean gcm;
+    private boolean classDictionary;
+    private byte protocolVersion;
+    private boolean streamingCursors;
 
     public Handshake() {
 
@@ -120,6 +132,90 @@ public class Handshake implements Externalizable {
         this.cbc = cbc;
     }
 
+    /**
+     * Sent by the server if it understands compressed messages, and returned by the client
+     * if both sides should compress messages from then on.
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Sent by the server if it accepts session tickets.  When the client replies with a
+     * {@link #getSessionTicket()} the server sends another handshake with this set to true
+     * if the session was resumed, or false if the client should proceed with the full key exchange.
+     */
+    public boolean isResumption() {
+        return resumption;
+    }
+
+    public void setResumption(boolean resumption) {
+        this.resumption = resumption;
+    }
+
+    /**
+     * The ticket of the session the client wants to resume, sent instead of a public key.
+     */
+    public byte[] getSessionTicket() {
+        return sessionTicket;
+    }
+
+    public void setSessionTicket(byte[] sessionTicket) {
+        this.sessionTicket = sessionTicket;
+    }
+
+    /**
+     * Sent by the server if it supports AES/GCM for secure messages, and returned by the client
+     * if both sides should use it rather than {@link #isCbc()}.
+     */
+    public boolean isGcm() {
+        return gcm;
+    }
+
+    public void setGcm(boolean gcm) {
+        this.gcm = gcm;
+    }
+
+    /**
+     * Sent by the server if it supports per connection class dictionaries, and returned by the client
+     * if both sides should use them for the messages following the handshake.
+     */
+    public boolean isClassDictionary() {
+        return classDictionary;
+    }
+
+    public void setClassDictionary(boolean classDictionary) {
+        this.classDictionary = classDictionary;
+    }
+
+    /**
+     * The highest binary protocol version supported by the server, and the version to use as returned
+     * by the client.  0 if messages should only be sent with Java serialization.
+     */
+    public byte getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(byte protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    /**
+     * Sent by the server if it can push cursor batches against client granted credits, and returned
+     * by the client if it will accept a stream of results for a single request.
+     */
+    public boolean isStreamingCursors() {
+        return streamingCursors;
+    }
+
+    public void setStreamingCursors(boolean streamingCursors) {
+        this.streamingCursors = streamingCursors;
+    }
+
     @Override
     public void readExternal(ObjectInput in) throws IOException,
             ClassNotFoundException {
@@ -140,6 +236,45 @@ public class Handshake implements Externalizable {
         } catch (OptionalDataException | EOFException e) {
             cbc = false;
         }
+        try {
+            compression = in.readBoolean();
+        } catch (OptionalDataException | EOFException e) {
+            compression = false;
+        }
+        try {
+            resumption = in.readBoolean();
+            int ticketLength = in.readInt();
+            if (ticketLength < -1 || ticketLength > MAX_TICKET_LENGTH) {
+                throw new StreamCorruptedException("Invalid session ticket length " + ticketLength);
+            }
+            if (ticketLength > -1) {
+                sessionTicket = new byte[ticketLength];
+                in.readFully(sessionTicket);
+            }
+        } catch (OptionalDataException | EOFException e) {
+            resumption = false;
+            sessionTicket = null;
+        }
+        try {
+            gcm = in.readBoolean();
+        } catch (OptionalDataException | EOFException e) {
+            gcm = false;
+        }
+        try {
+            classDictionary = in.readBoolean();
+        } catch (OptionalDataException | EOFException e) {
+            classDictionary = false;
+        }
+        try {
+            protocolVersion = in.readByte();
+        } catch (OptionalDataException | EOFException e) {
+            protocolVersion = 0;
+        }
+        try {
+            streamingCursors = in.readBoolean();
+        } catch (OptionalDataException | EOFException e) {
+            streamingCursors = false;
+        }
     }
 
     @Override
@@ -154,6 +289,18 @@ public class Handshake implements Externalizable {
             out.write(publicKeyLarge);
         }
         out.writeBoolean(cbc);
+        out.writeBoolean(compression);
+        out.writeBoolean(resumption);
+        if (sessionTicket == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(sessionTicket.length);
+            out.write(sessionTicket);
+        }
+        out.writeBoolean(gcm);
+        out.writeBoolean(classDictionary);
+        out.writeByte(protocolVersion);
+        out.writeBoolean(streamingCursors);
     }
 
 }
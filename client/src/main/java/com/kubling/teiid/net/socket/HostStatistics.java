@@ -0,0 +1,144 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+import com.kubling.teiid.net.HostInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load information about a server host shared by all connections in the VM, used by the
+ * {@link LoadBalancingPolicy}s to select a host.
+ * <p>
+ * Latency is a peak sensitive exponentially weighted moving average of the response times
+ * of remote calls.  A slower response is taken immediately, faster responses are averaged in
+ * based upon the time since the last sample.  Without new samples the latency decays, so that
+ * a host that was once slow will eventually be tried again.
+ */
+public final class HostStatistics {
+
+    static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    static final long FAILURE_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final Map<String, HostStatistics> HOSTS = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private double latency;
+    private long lastSample;
+    private long lastFailure;
+    private boolean failed;
+
+    /**
+     * Get the shared statistics for the given host.  Resolved and unresolved {@link HostInfo}s
+     * for the same host name and port share the same statistics.
+     */
+    public static HostStatistics getStatistics(HostInfo info) {
+        return HOSTS.computeIfAbsent(info.getHostName() + ':' + info.getPortNumber(), k -> new HostStatistics());
+    }
+
+    static void clear() {
+        HOSTS.clear();
+    }
+
+    void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void requestCompleted() {
+        inFlight.decrementAndGet();
+    }
+
+    void connectionOpened() {
+        openConnections.incrementAndGet();
+        markUp();
+    }
+
+    void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    synchronized void markUp() {
+        failed = false;
+    }
+
+    synchronized void connectFailed(long now) {
+        failed = true;
+        lastFailure = now;
+    }
+
+    synchronized void recordLatency(long nanos, long now) {
+        double current = getLatency(now);
+        if (nanos > current) {
+            latency = nanos;
+        } else {
+            double weight = Math.exp(-(double) (now - lastSample) / DECAY_NANOS);
+            latency = current * weight + nanos * (1 - weight);
+        }
+        lastSample = now;
+    }
+
+    /**
+     * @return the decayed latency estimate in nanoseconds, or 0 if there have been no samples
+     */
+    synchronized double getLatency(long now) {
+        if (latency == 0) {
+            return 0;
+        }
+        return latency * Math.exp(-(double) Math.max(0, now - lastSample) / DECAY_NANOS);
+    }
+
+    /**
+     * @return true if the host was recently marked as down after a failure to connect or respond
+     */
+    synchronized boolean isSuspect(long now) {
+        return failed && now - lastFailure < FAILURE_BACKOFF_NANOS;
+    }
+
+    /**
+     * @return the number of remote calls awaiting a response
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of open socket connections
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * @return the current latency estimate in milliseconds
+     */
+    public double getLatencyMillis() {
+        return getLatency(System.nanoTime()) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "HostStatistics [inFlight=" + getInFlight() + ", openConnections=" + getOpenConnections()
+                + ", latencyMillis=" + getLatencyMillis() + "]";
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+import com.kubling.teiid.net.HostInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policies for selecting the next host to connect to from a multi-host URL.
+ * <p>
+ * Other than {@link #RANDOM} the policies use the {@link HostStatistics} gathered by the
+ * connections in this VM, and avoid hosts that have recently failed to connect unless
+ * no other host remains.
+ */
+public enum LoadBalancingPolicy {
+
+    /**
+     * Uniform random selection
+     */
+    RANDOM {
+        @Override
+        int select(List<HostInfo> hosts, long now, Random random) {
+            return random.nextInt(hosts.size());
+        }
+    },
+
+    /**
+     * Select the host with the fewest remote calls awaiting a response, then the fewest open connections
+     */
+    LEAST_OUTSTANDING {
+        @Override
+        int select(List<HostInfo> hosts, long now, Random random) {
+            int result = -1;
+            int ties = 0;
+            HostStatistics best = null;
+            for (int index : candidates(hosts, now)) {
+                HostStatistics stats = HostStatistics.getStatistics(hosts.get(index));
+                int compare = best == null ? -1 : Integer.compare(stats.getInFlight(), best.getInFlight());
+                if (compare == 0) {
+                    compare = Integer.compare(stats.getOpenConnections(), best.getOpenConnections());
+                }
+                if (compare < 0) {
+                    result = index;
+                    best = stats;
+                    ties = 1;
+                } else if (compare == 0 && random.nextInt(++ties) == 0) {
+                    result = index;
+                }
+            }
+            return result;
+        }
+    },
+
+    /**
+     * Select randomly weighted by the inverse of the latency multiplied by the remote calls awaiting a response
+     */
+    LATENCY {
+        @Override
+        int select(List<HostInfo> hosts, long now, Random random) {
+            List<Integer> candidates = candidates(hosts, now);
+            double[] weights = new double[candidates.size()];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                HostStatistics stats = HostStatistics.getStatistics(hosts.get(candidates.get(i)));
+                weights[i] = 1 / ((stats.getLatency(now) + LATENCY_FLOOR_NANOS) * (stats.getInFlight() + 1));
+                total += weights[i];
+            }
+            double value = random.nextDouble() * total;
+            for (int i = 0; i < weights.length - 1; i++) {
+                value -= weights[i];
+                if (value < 0) {
+                    return candidates.get(i);
+                }
+            }
+            return candidates.get(weights.length - 1);
+        }
+    },
+
+    /**
+     * Select the less loaded of two random hosts, where the load is the remote calls awaiting a response
+     * plus the open connections.  Ties are broken by latency.
+     */
+    POWER_OF_TWO {
+        @Override
+        int select(List<HostInfo> hosts, long now, Random random) {
+            List<Integer> candidates = candidates(hosts, now);
+            if (candidates.size() == 1) {
+                return candidates.get(0);
+            }
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            HostStatistics a = HostStatistics.getStatistics(hosts.get(candidates.get(first)));
+            HostStatistics b = HostStatistics.getStatistics(hosts.get(candidates.get(second)));
+            int compare = Integer.compare(a.getInFlight() + a.getOpenConnections(), b.getInFlight() + b.getOpenConnections());
+            if (compare == 0) {
+                compare = Double.compare(a.getLatency(now), b.getLatency(now));
+            }
+            return candidates.get(compare <= 0 ? first : second);
+        }
+    };
+
+    /**
+     * Keeps hosts without samples from getting an unbounded weight
+     */
+    static final double LATENCY_FLOOR_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * @param hosts the non-empty list of hosts to choose from
+     * @param now the current {@link System#nanoTime()}
+     * @return the index of the selected host
+     */
+    abstract int select(List<HostInfo> hosts, long now, Random random);
+
+    static List<Integer> candidates(List<HostInfo> hosts, long now) {
+        List<Integer> result = new ArrayList<>(hosts.size());
+        for (int i = 0; i < hosts.size(); i++) {
+            if (!HostStatistics.getStatistics(hosts.get(i)).isSuspect(now)) {
+                result.add(i);
+            }
+        }
+        if (result.isEmpty()) {
+            for (int i = 0; i < hosts.size(); i++) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,1177 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.core.types.InputStreamFactory;
+import com.kubling.teiid.core.types.InputStreamFactory.StreamFactoryReference;
+import com.kubling.teiid.core.util.BufferPool;
+import com.kubling.teiid.core.util.ExecutorUtils;
+import com.kubling.teiid.core.util.ExternalizeUtil;
+import com.kubling.teiid.core.util.PropertiesUtils;
+import com.kubling.teiid.jdbc.JDBCPlugin;
+import com.kubling.teiid.net.CommunicationException;
+import com.kubling.teiid.net.HostInfo;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectInput;
+import com.kubling.teiid.netty.handler.codec.serialization.ClassDictionary;
+import com.kubling.teiid.netty.handler.codec.serialization.CompactObjectInputStream;
+import com.kubling.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
+import com.kubling.teiid.netty.handler.codec.serialization.ObjectEncoderOutputStream;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * An {@link ObjectChannelFactory} based upon non-blocking {@link SocketChannel}s.
+ * <p>
+ * All channels share a small, static pool of selector event loops, so an idle connection
+ * does not hold a thread.  Messages are framed exactly as with the {@link OioObjectChannelFactory}.
+ * Once a {@link ObjectChannel.ChannelListener} has been set, decoded messages are
+ * delivered in order by a shared delivery pool, otherwise they are queued for {@link ObjectChannel#read()}.
+ * Listeners and the completion of write futures never run on the event loop, so that a slow callback does not
+ * hold up the other channels of the loop.
+ * <p>
+ * SSL connections are delegated to the {@link OioObjectChannelFactory}.
+ * <p>
+ * Outgoing write buffers are taken from the shared {@link BufferPool} and returned once
+ * they have been fully written to the socket.
+ */
+public final class NioObjectChannelFactory implements ObjectChannelFactory {
+
+    private final static int STREAM_BUFFER_SIZE = 1 << 15;
+    private final static int DEFAULT_MAX_OBJECT_SIZE = 1 << 25;
+    private final static int WRITE_HIGH_WATER_MARK = 1 << 20;
+    final static int DEFAULT_COMPRESSION_THRESHOLD = 1 << 12;
+
+    private static final Logger log = Logger.getLogger("com.kubling.teiid.client.sockets");
+
+    private static final BufferPool BUFFERS = BufferPool.getSharedPool();
+    private static final AtomicInteger NEXT_LOOP = new AtomicInteger();
+    private static final Executor DELIVERY = ExecutorUtils.newFixedThreadPool(
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2), "Teiid NIO Delivery");
+    private static EventLoop[] eventLoops;
+
+    /**
+     * A single selector thread servicing many channels.
+     */
+    final static class EventLoop implements Runnable {
+        private static final long MAX_SELECT_BACKOFF = 1000;
+
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE);
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "Teiid NIO Event Loop " + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        boolean inEventLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override
+        public void run() {
+            int failures = 0;
+            while (true) {
+                try {
+                    selector.select();
+                    failures = 0;
+                } catch (IOException e) {
+                    if (failures++ == 0) {
+                        log.log(Level.WARNING, "Unexpected selector failure", e);
+                    }
+                    //back off rather than spin while the selector keeps failing
+                    try {
+                        Thread.sleep(Math.min(MAX_SELECT_BACKOFF, 10L << Math.min(failures, 10)));
+                    } catch (InterruptedException ie) {
+                        //the loop is not stopped by interrupts
+                    }
+                    continue;
+                }
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        log.log(Level.WARNING, "Unexpected exception from event loop task", t);
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioObjectChannel channel = (NioObjectChannel) key.attachment();
+                    try {
+                        if (key.isValid() && key.isConnectable()) {
+                            channel.finishConnect();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            channel.flushPending();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            channel.readAvailable(readBuffer);
+                        }
+                    } catch (Throwable t) {
+                        channel.fail(t);
+                    }
+                }
+            }
+        }
+    }
+
+    private record ChannelFailure(Throwable cause) {}
+
+    /**
+     * A pending write of part of a file, guarded by the pending queue
+     */
+    private static final class FileRegion {
+        final FileChannel file;
+        long position;
+        long count;
+
+        FileRegion(FileChannel file, long position, long count) {
+            this.file = file;
+            this.position = position;
+            this.count = count;
+        }
+
+        /**
+         * @return the number of bytes transferred, which may be less than the count
+         */
+        long transferTo(SocketChannel channel) throws IOException {
+            long total = 0;
+            while (count > 0) {
+                long written = file.transferTo(position, count, channel);
+                if (written <= 0) {
+                    if (position >= file.size()) {
+                        throw new EOFException("File truncated during transfer");
+                    }
+                    break;
+                }
+                position += written;
+                count -= written;
+                total += written;
+            }
+            return total;
+        }
+    }
+
+    final static class NioObjectChannel implements ObjectChannel {
+
+        private static final int STATE_LENGTH = 0;
+        private static final int STATE_OBJECT = 1;
+        private static final int STATE_CHUNK_LENGTH = 2;
+        private static final int STATE_CHUNK = 3;
+
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final int maxObjectSize;
+        private final int soTimeout;
+        private final int compressionThreshold;
+        private final boolean classDictionary;
+        private final boolean binaryProtocol;
+        private final ClassLoader classLoader = this.getClass().getClassLoader();
+        private volatile SelectionKey key;
+
+        //read state - only accessed from the event loop
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+        private int state = STATE_LENGTH;
+        private byte[] frame;
+        private boolean frameCompressed;
+        private int framePosition;
+        //set during the handshake
+        private volatile ClassDictionary readDictionary;
+        private volatile boolean readBinary;
+        private volatile long bytesRead;
+        private volatile long payloadBytesRead;
+        private int chunkRemaining;
+        private Object result;
+        private List<StreamFactoryReference> streams;
+        private int streamIndex;
+        private OutputStream stream;
+
+        private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        private final ReentrantLock listenerLock = new ReentrantLock();
+        private volatile ChannelListener listener;
+        private volatile Throwable failure;
+        private final CompletableFuture<Void> connected = new CompletableFuture<>();
+
+        //callbacks, run in order by the delivery pool
+        private final Queue<Runnable> deliveries = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean delivering = new AtomicBoolean();
+        private volatile Thread deliveryThread;
+        private final ReentrantLock deliveryLock = new ReentrantLock();
+        private final Condition deliveryAdded = deliveryLock.newCondition();
+
+        //serializes the encoding of messages
+        private final ReentrantLock writeLock = new ReentrantLock();
+        //write state - guarded by pendingLock, locks rather than monitors so that a waiting
+        //virtual thread does not pin its carrier
+        private final ReentrantLock pendingLock = new ReentrantLock();
+        private final Condition pendingChanged = pendingLock.newCondition();
+        private final ArrayDeque<Object> pending = new ArrayDeque<>();
+        private long pendingBytes;
+        private final ObjectEncoderOutputStream outputStream;
+
+        private final OutputStream channelOutputStream = new OutputStream() {
+
+            private byte[] buffer = BUFFERS.take(STREAM_BUFFER_SIZE);
+            private int count;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (count == buffer.length) {
+                    flush();
+                }
+                buffer[count++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    if (count == buffer.length) {
+                        flush();
+                    }
+                    int toCopy = Math.min(len, buffer.length - count);
+                    System.arraycopy(b, off, buffer, count, toCopy);
+                    count += toCopy;
+                    off += toCopy;
+                    len -= toCopy;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (count == 0) {
+                    return;
+                }
+                ByteBuffer bb = ByteBuffer.wrap(buffer, 0, count);
+                buffer = BUFFERS.take(STREAM_BUFFER_SIZE);
+                count = 0;
+                enqueue(bb);
+            }
+        };
+
+        private NioObjectChannel(SocketChannel channel, EventLoop loop, int maxObjectSize, int soTimeout,
+                int compressionThreshold, boolean classDictionary, boolean binaryProtocol) throws IOException {
+            log.fine("creating new NioObjectChannel");
+            this.channel = channel;
+            this.loop = loop;
+            this.maxObjectSize = maxObjectSize;
+            this.soTimeout = soTimeout;
+            this.compressionThreshold = compressionThreshold;
+            this.classDictionary = classDictionary;
+            this.binaryProtocol = binaryProtocol;
+            this.outputStream = new ObjectEncoderOutputStream(new DataOutputStream(channelOutputStream), STREAM_BUFFER_SIZE);
+            this.outputStream.setFileRegionWriter(this::writeFileRegion);
+        }
+
+        private void register() {
+            try {
+                boolean connecting = channel.isConnectionPending();
+                this.key = channel.register(loop.selector, connecting ? SelectionKey.OP_CONNECT : SelectionKey.OP_READ, this);
+                if (!connecting) {
+                    connected.complete(null);
+                }
+            } catch (ClosedChannelException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Called from the event loop once the connect may be finished
+         */
+        void finishConnect() throws IOException {
+            if (channel.finishConnect()) {
+                key.interestOps(SelectionKey.OP_READ);
+                connected.complete(null);
+            }
+        }
+
+        /**
+         * Wait for the non-blocking connect to finish, closing the channel if it does not within the timeout
+         */
+        void awaitConnect(int timeoutMillis) throws IOException {
+            try {
+                connected.get(timeoutMillis > 0 ? timeoutMillis : Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException();
+            } catch (TimeoutException e) {
+                SocketTimeoutException ste = new SocketTimeoutException("Connect timed out after " + timeoutMillis + " milliseconds");
+                fail(ste);
+                throw ste;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioe) {
+                    throw ioe;
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (failure == null) {
+                fail(new EOFException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20023)));
+            }
+        }
+
+        /**
+         * Close the channel and report the failure to any waiting reader or the listener.
+         */
+        void fail(Throwable t) {
+            List<ResultsFuture<?>> toFail;
+            pendingLock.lock();
+            try {
+                if (failure != null) {
+                    return;
+                }
+                log.log(Level.FINER, "closing channel", t);
+                failure = t;
+                connected.completeExceptionally(t);
+                toFail = drainPending();
+                pendingChanged.signalAll();
+            } finally {
+                pendingLock.unlock();
+            }
+            SelectionKey k = this.key;
+            if (k != null) {
+                k.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            //the lob stream is only used by the event loop
+            if (loop.inEventLoop()) {
+                closeStream();
+            } else {
+                loop.execute(this::closeStream);
+            }
+            if (!toFail.isEmpty()) {
+                deliverLater(() -> {
+                    for (ResultsFuture<?> future : toFail) {
+                        future.getResultsReceiver().exceptionOccurred(t);
+                    }
+                });
+            }
+            deliver(new ChannelFailure(t));
+        }
+
+        private void closeStream() {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+                stream = null;
+            }
+        }
+
+        private List<ResultsFuture<?>> drainPending() {
+            List<ResultsFuture<?>> result = new ArrayList<>();
+            for (Object o : pending) {
+                if (o instanceof ResultsFuture<?> future) {
+                    result.add(future);
+                } else if (o instanceof ByteBuffer bb) {
+                    BUFFERS.give(bb.array());
+                }
+            }
+            pending.clear();
+            pendingBytes = 0;
+            return result;
+        }
+
+        @Override
+        public SocketAddress getRemoteAddress() {
+            return channel.socket().getRemoteSocketAddress();
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return channel.socket().getLocalAddress();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return failure == null && channel.isOpen();
+        }
+
+        @Override
+        public Object read() throws IOException, ClassNotFoundException {
+            log.finer("reading message from channel");
+            if (listener != null) {
+                throw new IllegalStateException("Messages are being delivered to a listener");
+            }
+            Object message;
+            try {
+                message = received.poll(soTimeout > 0 ? soTimeout : Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (message == null) {
+                Long timeout = OioObjectChannelFactory.TIMEOUTS.get();
+                if (timeout != null && timeout < System.currentTimeMillis()) {
+                    OioObjectChannelFactory.TIMEOUTS.remove();
+                    throw new InterruptedIOException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20035));
+                }
+                throw new SocketTimeoutException();
+            }
+            if (message instanceof ChannelFailure channelFailure) {
+                //leave the failure for any subsequent reads
+                received.add(channelFailure);
+                Throwable cause = channelFailure.cause();
+                if (cause instanceof IOException e) {
+                    throw e;
+                }
+                if (cause instanceof ClassNotFoundException e) {
+                    throw e;
+                }
+                throw new IOException(cause);
+            }
+            return message;
+        }
+
+        @Override
+        public boolean setChannelListener(ChannelListener channelListener) {
+            listenerLock.lock();
+            try {
+                Object message;
+                while ((message = received.poll()) != null) {
+                    deliver(channelListener, message);
+                }
+                this.listener = channelListener;
+            } finally {
+                listenerLock.unlock();
+            }
+            return true;
+        }
+
+        private void deliver(Object message) {
+            ChannelListener l;
+            listenerLock.lock();
+            try {
+                l = this.listener;
+                if (l == null) {
+                    received.add(message);
+                    return;
+                }
+            } finally {
+                listenerLock.unlock();
+            }
+            deliverLater(() -> deliver(l, message));
+        }
+
+        /**
+         * Run the callback after those already queued, on the delivery pool rather than the calling thread
+         */
+        private void deliverLater(Runnable callback) {
+            deliveries.add(callback);
+            if (delivering.compareAndSet(false, true)) {
+                DELIVERY.execute(this::runDeliveries);
+            } else if (deliveryThread != null) {
+                //wake a delivery thread waiting in deliverUntilDone
+                deliveryLock.lock();
+                try {
+                    deliveryAdded.signalAll();
+                } finally {
+                    deliveryLock.unlock();
+                }
+            }
+        }
+
+        private void runDeliveries() {
+            do {
+                deliveryThread = Thread.currentThread();
+                try {
+                    Runnable callback;
+                    while ((callback = deliveries.poll()) != null) {
+                        runCallback(callback);
+                    }
+                } finally {
+                    deliveryThread = null;
+                }
+                delivering.set(false);
+                //recheck for a callback added after the poll but before the flag was cleared
+            } while (!deliveries.isEmpty() && delivering.compareAndSet(false, true));
+        }
+
+        private static void runCallback(Runnable callback) {
+            try {
+                callback.run();
+            } catch (Throwable t) {
+                log.log(Level.WARNING, "Unexpected exception from channel callback", t);
+            }
+        }
+
+        /**
+         * Run the queued callbacks from a callback that is waiting on a later delivery
+         */
+        @Override
+        public boolean deliverUntilDone(Future<?> future, long timeout, TimeUnit unit)
+                throws InterruptedException, TimeoutException {
+            if (Thread.currentThread() != deliveryThread) {
+                return false;
+            }
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!future.isDone()) {
+                Runnable callback = deliveries.poll();
+                if (callback != null) {
+                    runCallback(callback);
+                    continue;
+                }
+                deliveryLock.lock();
+                try {
+                    if (deliveries.isEmpty() && !future.isDone()) {
+                        long nanos = deadline - System.nanoTime();
+                        if (nanos <= 0) {
+                            throw new TimeoutException();
+                        }
+                        //the future may also be completed by another thread
+                        deliveryAdded.awaitNanos(Math.min(nanos, TimeUnit.MILLISECONDS.toNanos(100)));
+                    }
+                } finally {
+                    deliveryLock.unlock();
+                }
+            }
+            return true;
+        }
+
+        private void deliver(ChannelListener l, Object message) {
+            try {
+                if (message instanceof ChannelFailure channelFailure) {
+                    l.onException(channelFailure.cause());
+                } else {
+                    l.onMessage(message);
+                }
+            } catch (Throwable t) {
+                log.log(Level.WARNING, "Unexpected exception from channel listener", t);
+            }
+        }
+
+        @Override
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        @Override
+        public void enableCompression() {
+            writeLock.lock();
+            try {
+                outputStream.setCompressionThreshold(compressionThreshold);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isClassDictionary() {
+            return classDictionary;
+        }
+
+        @Override
+        public void enableReadClassDictionary() {
+            readDictionary = new ClassDictionary();
+        }
+
+        @Override
+        public void enableWriteClassDictionary() {
+            writeLock.lock();
+            try {
+                outputStream.setClassDictionary(new ClassDictionary());
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isBinaryProtocol() {
+            return binaryProtocol;
+        }
+
+        @Override
+        public void enableReadBinaryProtocol() {
+            readBinary = true;
+        }
+
+        @Override
+        public void enableWriteBinaryProtocol(byte version) {
+            writeLock.lock();
+            try {
+                outputStream.setBinaryProtocolVersion(version);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public ChannelStatistics getStatistics() {
+            return new ChannelStatistics(outputStream.getBytesWritten(), outputStream.getPayloadBytesWritten(),
+                    bytesRead, payloadBytesRead);
+        }
+
+        @Override
+        public Future<?> write(Object msg) {
+            log.finer("writing message to channel");
+            ResultsFuture<Void> result = new ResultsFuture<>();
+            writeLock.lock();
+            try {
+                outputStream.writeObject(msg);
+                outputStream.flush();
+                outputStream.reset();
+                pendingLock.lock();
+                try {
+                    if (failure != null) {
+                        throw new IOException(failure);
+                    }
+                    if (!pending.isEmpty()) {
+                        //completed by the event loop once the preceding bytes are written
+                        pending.add(result);
+                        return result;
+                    }
+                } finally {
+                    pendingLock.unlock();
+                }
+                result.getResultsReceiver().receiveResults(null);
+            } catch (IOException e) {
+                fail(e);
+                if (!result.isDone()) {
+                    result.getResultsReceiver().exceptionOccurred(e);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            return result;
+        }
+
+        /**
+         * Write directly to the socket if nothing is pending, otherwise hand the
+         * bytes to the event loop.  Non-loop writers wait if too much is pending.
+         */
+        private void enqueue(ByteBuffer bb) throws IOException {
+            pendingLock.lock();
+            try {
+                if (failure != null) {
+                    throw new IOException(failure);
+                }
+                if (pending.isEmpty()) {
+                    channel.write(bb);
+                    if (!bb.hasRemaining()) {
+                        BUFFERS.give(bb.array());
+                        return;
+                    }
+                    loop.execute(this::flushPendingQuietly);
+                }
+                pending.add(bb);
+                pendingBytes += bb.remaining();
+                if (loop.inEventLoop()) {
+                    return;
+                }
+                while (pendingBytes > WRITE_HIGH_WATER_MARK && failure == null) {
+                    try {
+                        pendingChanged.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+                if (failure != null) {
+                    throw new IOException(failure);
+                }
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        /**
+         * Transfer the file region to the socket without copying it into the heap.  Unlike
+         * {@link #enqueue(ByteBuffer)} the caller waits for any remainder to be written by the
+         * event loop, as the file will be closed once this returns.
+         */
+        private void writeFileRegion(FileChannel file, long position, long count) throws IOException {
+            if (loop.inEventLoop()) {
+                //cannot wait on ourselves
+                ByteBuffer bb = ByteBuffer.allocate((int) count);
+                while (bb.hasRemaining() && file.read(bb, position + bb.position()) >= 0) {
+                    //read fully
+                }
+                bb.flip();
+                enqueue(bb);
+                return;
+            }
+            pendingLock.lock();
+            try {
+                if (failure != null) {
+                    throw new IOException(failure);
+                }
+                FileRegion region = new FileRegion(file, position, count);
+                if (pending.isEmpty()) {
+                    region.transferTo(channel);
+                    if (region.count == 0) {
+                        return;
+                    }
+                    loop.execute(this::flushPendingQuietly);
+                }
+                pending.add(region);
+                pendingBytes += region.count;
+                while (region.count > 0 && failure == null) {
+                    try {
+                        pendingChanged.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+                if (failure != null) {
+                    throw new IOException(failure);
+                }
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+
+        private void flushPendingQuietly() {
+            try {
+                flushPending();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Called from the event loop to write pending bytes and complete
+         * write futures.
+         */
+        void flushPending() throws IOException {
+            List<ResultsFuture<?>> completed = null;
+            boolean done = false;
+            pendingLock.lock();
+            try {
+                Object o;
+                while ((o = pending.peek()) != null) {
+                    if (o instanceof ByteBuffer bb) {
+                        int written = channel.write(bb);
+                        pendingBytes -= written;
+                        if (bb.hasRemaining()) {
+                            break;
+                        }
+                        BUFFERS.give(bb.array());
+                    } else if (o instanceof FileRegion region) {
+                        pendingBytes -= region.transferTo(channel);
+                        if (region.count > 0) {
+                            break;
+                        }
+                    } else {
+                        if (completed == null) {
+                            completed = new ArrayList<>();
+                        }
+                        completed.add((ResultsFuture<?>) o);
+                    }
+                    pending.poll();
+                }
+                if (pending.isEmpty()) {
+                    done = true;
+                }
+                pendingChanged.signalAll();
+            } finally {
+                pendingLock.unlock();
+            }
+            SelectionKey k = this.key;
+            if (k != null && k.isValid()) {
+                k.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+            if (completed != null) {
+                List<ResultsFuture<?>> toComplete = completed;
+                deliverLater(() -> {
+                    for (ResultsFuture<?> future : toComplete) {
+                        future.getResultsReceiver().receiveResults(null);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Called from the event loop to read and decode whatever is available.
+         */
+        void readAvailable(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+            for (int i = 0; i < 16 && failure == null; i++) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new EOFException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20023));
+                }
+                if (read == 0) {
+                    return;
+                }
+                buffer.flip();
+                decode(buffer);
+            }
+        }
+
+        private void decode(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+            while (buffer.hasRemaining()) {
+                switch (state) {
+                case STATE_LENGTH:
+                    if (!fillHeader(buffer)) {
+                        return;
+                    }
+                    int length = header.getInt(0);
+                    header.clear();
+                    if (length == 0 || length == Integer.MIN_VALUE) {
+                        throw new StreamCorruptedException("invalid data length: " + length);
+                    }
+                    frameCompressed = length < 0;
+                    length = Math.abs(length);
+                    if (length > maxObjectSize) {
+                        throw new StreamCorruptedException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20028, length, maxObjectSize));
+                    }
+                    frame = new byte[length];
+                    framePosition = 0;
+                    state = STATE_OBJECT;
+                    break;
+                case STATE_OBJECT:
+                    int toCopy = Math.min(buffer.remaining(), frame.length - framePosition);
+                    buffer.get(frame, framePosition, toCopy);
+                    framePosition += toCopy;
+                    if (framePosition == frame.length) {
+                        decodeFrame();
+                    }
+                    break;
+                case STATE_CHUNK_LENGTH:
+                    header.limit(2);
+                    if (!fillHeader(buffer)) {
+                        return;
+                    }
+                    chunkRemaining = 0xffff & header.getShort(0);
+                    header.clear();
+                    bytesRead += chunkRemaining + 2;
+                    payloadBytesRead += chunkRemaining + 2;
+                    if (chunkRemaining == 0) {
+                        stream.close();
+                        stream = null;
+                        streamIndex++;
+                        nextStream();
+                    } else {
+                        state = STATE_CHUNK;
+                    }
+                    break;
+                case STATE_CHUNK:
+                    int toWrite = Math.min(buffer.remaining(), chunkRemaining);
+                    if (buffer.hasArray()) {
+                        stream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), toWrite);
+                        buffer.position(buffer.position() + toWrite);
+                    } else {
+                        byte[] bytes = new byte[toWrite];
+                        buffer.get(bytes);
+                        stream.write(bytes);
+                    }
+                    chunkRemaining -= toWrite;
+                    if (chunkRemaining == 0) {
+                        state = STATE_CHUNK_LENGTH;
+                    }
+                    break;
+                default:
+                    throw new AssertionError();
+                }
+            }
+        }
+
+        private boolean fillHeader(ByteBuffer buffer) {
+            while (header.hasRemaining() && buffer.hasRemaining()) {
+                header.put(buffer.get());
+            }
+            return !header.hasRemaining();
+        }
+
+        private void decodeFrame() throws IOException, ClassNotFoundException {
+            bytesRead += frame.length + 4;
+            if (frameCompressed) {
+                frame = ObjectDecoderInputStream.inflate(frame, maxObjectSize);
+            }
+            payloadBytesRead += frame.length + 4;
+            if (readBinary && frame.length > 0 && BinaryObjectInput.isBinaryFrame(frame[0])) {
+                BinaryObjectInput in = new BinaryObjectInput(new ByteArrayInputStream(frame, 1, frame.length - 1),
+                        classLoader, readDictionary, maxObjectSize);
+                frame = null;
+                result = in.readMessage();
+                streams = Collections.emptyList();
+            } else {
+                CompactObjectInputStream cois = new CompactObjectInputStream(new ByteArrayInputStream(frame), classLoader, readDictionary);
+                frame = null;
+                result = cois.readObject();
+                streams = ExternalizeUtil.readList(cois, StreamFactoryReference.class);
+            }
+            streamIndex = 0;
+            nextStream();
+        }
+
+        /**
+         * Start reading the next lob stream or deliver the result if there are none remaining.
+         */
+        private void nextStream() throws IOException {
+            if (streamIndex < streams.size()) {
+                final File f = File.createTempFile("teiid", null);
+                streams.get(streamIndex).setStreamFactory(new InputStreamFactory() {
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        return new BufferedInputStream(new FileInputStream(f));
+                    }
+
+                });
+                this.stream = new BufferedOutputStream(new FileOutputStream(f), STREAM_BUFFER_SIZE);
+                state = STATE_CHUNK_LENGTH;
+                return;
+            }
+            Object toDeliver = result;
+            result = null;
+            streams = null;
+            state = STATE_LENGTH;
+            deliver(toDeliver);
+        }
+    }
+
+    private int receiveBufferSize = 0;
+    private int sendBufferSize = 0;
+    private boolean conserveBandwidth;
+    private int soTimeout = 1000;
+    private int connectTimeout = 30000;
+    private int maxObjectSize = DEFAULT_MAX_OBJECT_SIZE;
+    private boolean compression;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private boolean classDictionary = true;
+    private boolean binaryProtocol = true;
+    private int eventLoopCount = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private final OioObjectChannelFactory sslChannelFactory;
+
+    public NioObjectChannelFactory(Properties props) {
+        PropertiesUtils.setBeanProperties(this, props, "org.teiid.sockets", true);
+        this.sslChannelFactory = new OioObjectChannelFactory(props);
+    }
+
+    /**
+     * @return true if the current thread is one of the shared event loop threads
+     */
+    public static boolean isEventLoopThread() {
+        EventLoop[] loops;
+        synchronized (NioObjectChannelFactory.class) {
+            loops = eventLoops;
+        }
+        if (loops != null) {
+            for (EventLoop loop : loops) {
+                if (loop.inEventLoop()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private EventLoop nextEventLoop() throws IOException {
+        synchronized (NioObjectChannelFactory.class) {
+            if (eventLoops == null) {
+                EventLoop[] loops = new EventLoop[Math.max(1, eventLoopCount)];
+                for (int i = 0; i < loops.length; i++) {
+                    loops[i] = new EventLoop(i);
+                }
+                eventLoops = loops;
+            }
+            return eventLoops[Math.floorMod(NEXT_LOOP.getAndIncrement(), eventLoops.length)];
+        }
+    }
+
+    @Override
+    public ObjectChannel createObjectChannel(HostInfo info) throws CommunicationException, IOException {
+        if (info.isSsl()) {
+            return sslChannelFactory.createObjectChannel(info);
+        }
+        SocketChannel channel = SocketChannel.open();
+        try {
+            if (receiveBufferSize > 0) {
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+            }
+            if (sendBufferSize > 0) {
+                channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+            }
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, !conserveBandwidth);
+            channel.configureBlocking(false);
+            channel.connect(new InetSocketAddress(info.getInetAddress(), info.getPortNumber()));
+            EventLoop loop = nextEventLoop();
+            NioObjectChannel result = new NioObjectChannel(channel, loop, maxObjectSize, soTimeout,
+                    compression ? compressionThreshold : -1, classDictionary, binaryProtocol);
+            //a pending connect is finished by the event loop
+            loop.execute(result::register);
+            result.awaitConnect(connectTimeout);
+            return result;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public void setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
+    public boolean isConserveBandwidth() {
+        return conserveBandwidth;
+    }
+
+    public void setConserveBandwidth(boolean conserveBandwidth) {
+        this.conserveBandwidth = conserveBandwidth;
+    }
+
+    public void setSoTimeout(int soTimeout) {
+        this.soTimeout = soTimeout;
+    }
+
+    public void setMaxObjectSize(int maxObjectSize) {
+        this.maxObjectSize = maxObjectSize;
+    }
+
+    public int getSoTimeout() {
+        return soTimeout;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * The milliseconds to wait for a connection to be established, or 0 to wait indefinitely.
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * Request compression of large messages during the handshake.
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Messages with more than this number of bytes are compressed, if compression was negotiated.
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public boolean isClassDictionary() {
+        return classDictionary;
+    }
+
+    /**
+     * Request a per connection class dictionary during the handshake, so that classes
+     * are only described in full the first time they are sent.
+     */
+    public void setClassDictionary(boolean classDictionary) {
+        this.classDictionary = classDictionary;
+    }
+
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+
+    /**
+     * Request the binary protocol during the handshake, so that requests and results
+     * are not sent with Java serialization.
+     */
+    public void setBinaryProtocol(boolean binaryProtocol) {
+        this.binaryProtocol = binaryProtocol;
+    }
+
+    public int getEventLoopCount() {
+        return eventLoopCount;
+    }
+
+    /**
+     * The number of shared event loop threads.  Only effective before the first channel is created.
+     */
+    public void setEventLoopCount(int eventLoopCount) {
+        this.eventLoopCount = eventLoopCount;
+    }
+}
@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.SocketAddress;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public interface ObjectChannel {
 
@@ -37,4 +39,104 @@ public interface ObjectChannel {
 
     InetAddress getLocalAddress();
 
+    /**
+     * Receives messages pushed by a channel that performs its own reads.
+     */
+    interface ChannelListener {
+
+        void onMessage(Object message);
+
+        void onException(Throwable t);
+
+    }
+
+    /**
+     * Request that all subsequent messages be delivered to the listener rather than
+     * through {@link #read()}.  Any messages already received but not yet read are
+     * delivered first.
+     * @return true if the channel supports push delivery, false if the caller must
+     * continue to use {@link #read()}
+     */
+    default boolean setChannelListener(ChannelListener listener) {
+        return false;
+    }
+
+    /**
+     * If the calling thread is the one delivering messages to the {@link ChannelListener}, continue to
+     * deliver from it until the future is done.  This allows a synchronous call from a listener callback,
+     * which would otherwise wait on its own delivery.
+     *
+     * @return false if the calling thread does not deliver messages, in which case the caller may simply wait
+     */
+    default boolean deliverUntilDone(Future<?> future, long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        return false;
+    }
+
+    /**
+     * @return the compression threshold to use if the server supports compression,
+     * or -1 if compression should not be requested
+     */
+    default int getCompressionThreshold() {
+        return -1;
+    }
+
+    /**
+     * Compress subsequent messages larger than the {@link #getCompressionThreshold()}.
+     * Called once compression has been negotiated in the {@link Handshake}.
+     */
+    default void enableCompression() {
+    }
+
+    /**
+     * @return true if a class dictionary should be requested during the handshake
+     */
+    default boolean isClassDictionary() {
+        return false;
+    }
+
+    /**
+     * Decode subsequent messages with a class dictionary.  Called once the dictionary has been
+     * negotiated in the {@link Handshake}, before the peer may send a message that uses it.
+     */
+    default void enableReadClassDictionary() {
+    }
+
+    /**
+     * Encode subsequent messages with a class dictionary.  Called once the peer is known to
+     * decode with a dictionary.
+     */
+    default void enableWriteClassDictionary() {
+    }
+
+    /**
+     * @return true if the binary protocol should be requested during the handshake
+     */
+    default boolean isBinaryProtocol() {
+        return false;
+    }
+
+    /**
+     * Accept binary frames.  Called once the binary protocol has been negotiated in the
+     * {@link Handshake}, before the peer may send a binary frame.
+     */
+    default void enableReadBinaryProtocol() {
+    }
+
+    /**
+     * Send binary frames for the messages that have a binary form.  Called once the peer is
+     * known to accept them.
+     *
+     * @param version the negotiated binary protocol version
+     */
+    default void enableWriteBinaryProtocol(byte version) {
+    }
+
+    /**
+     * @return the bytes transferred so far, or null if not tracked
+     */
+    default ChannelStatistics getStatistics() {
+        return null;
+    }
+
 }
@@ -20,10 +20,12 @@ package com.kubling.teiid.net.socket;
 
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.core.util.AccessibleBufferedInputStream;
+import com.kubling.teiid.core.util.ExecutorUtils;
 import com.kubling.teiid.core.util.PropertiesUtils;
 import com.kubling.teiid.jdbc.JDBCPlugin;
 import com.kubling.teiid.net.CommunicationException;
 import com.kubling.teiid.net.HostInfo;
+import com.kubling.teiid.netty.handler.codec.serialization.ClassDictionary;
 import com.kubling.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
 import com.kubling.teiid.netty.handler.codec.serialization.ObjectEncoderOutputStream;
 
@@ -34,7 +36,11 @@ import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
 import java.security.GeneralSecurityException;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 
@@ -46,15 +52,31 @@ public final class OioObjectChannelFactory implements ObjectChannelFactory {
     private final static int DEFAULT_MAX_OBJECT_SIZE = 1 << 25;
 
     private static final Logger log = Logger.getLogger("com.kubling.teiid.client.sockets");
+    //each reader runs for the life of its connection, so there is a thread per task
+    private static final ExecutorService READERS = ExecutorUtils.newThreadPerTaskExecutor("Teiid Socket Reader");
 
     final static class OioObjectChannel implements ObjectChannel {
         private final Socket socket;
-        private final ObjectOutputStream outputStream;
-        private final ObjectInputStream inputStream;
+        private final ObjectEncoderOutputStream outputStream;
+        private final ObjectDecoderInputStream inputStream;
+        private final boolean dedicatedReader;
+        private final int compressionThreshold;
+        private final boolean classDictionary;
+        private final boolean binaryProtocol;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private volatile boolean closing;
+        private volatile Thread reader;
+        private volatile ChannelListener listener;
+        private boolean failureReported;
 
-        private OioObjectChannel(Socket socket, int maxObjectSize) throws IOException {
+        private OioObjectChannel(Socket socket, int maxObjectSize, boolean dedicatedReader, int compressionThreshold,
+                boolean classDictionary, boolean binaryProtocol) throws IOException {
             log.fine("creating new OioObjectChannel");
             this.socket = socket;
+            this.dedicatedReader = dedicatedReader;
+            this.compressionThreshold = compressionThreshold;
+            this.classDictionary = classDictionary;
+            this.binaryProtocol = binaryProtocol;
             DataOutputStream out = new DataOutputStream(socket.getOutputStream());
             outputStream = new ObjectEncoderOutputStream(out, STREAM_BUFFER_SIZE);
             final ClassLoader cl = this.getClass().getClassLoader();
@@ -64,6 +86,11 @@ public final class OioObjectChannelFactory implements ObjectChannelFactory {
 
         @Override
         public void close() {
+            closing = true;
+            closeSocket();
+        }
+
+        private void closeSocket() {
             log.finer("closing socket");
             try {
                 outputStream.flush();
@@ -115,24 +142,157 @@ public final class OioObjectChannelFactory implements ObjectChannelFactory {
                 }
                 throw e;
             } catch (IOException e) {
-                close();
+                closeSocket();
                 throw e;
             }
         }
 
+        /**
+         * If configured, start a reader from the shared executor that reads and delivers all responses so that
+         * callers need only wait on their results.
+         */
+        @Override
+        public boolean setChannelListener(final ChannelListener listener) {
+            if (!dedicatedReader) {
+                return false;
+            }
+            this.listener = listener;
+            READERS.execute(() -> {
+                this.reader = Thread.currentThread();
+                while (!failureReported) {
+                    Object message;
+                    try {
+                        message = read();
+                    } catch (SocketTimeoutException e) {
+                        continue;
+                    } catch (Exception e) {
+                        reportFailure(e);
+                        return;
+                    }
+                    listener.onMessage(message);
+                }
+            });
+            return true;
+        }
+
+        /**
+         * Read and deliver inline when called from the reader thread
+         */
+        @Override
+        public boolean deliverUntilDone(Future<?> future, long timeout, TimeUnit unit) throws TimeoutException {
+            if (Thread.currentThread() != reader) {
+                return false;
+            }
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!future.isDone()) {
+                if (deadline - System.nanoTime() <= 0) {
+                    throw new TimeoutException();
+                }
+                Object message;
+                try {
+                    message = read();
+                } catch (SocketTimeoutException e) {
+                    continue;
+                } catch (Exception e) {
+                    reportFailure(e);
+                    return true;
+                }
+                listener.onMessage(message);
+            }
+            return true;
+        }
+
+        /**
+         * Report a read failure to the listener once, the reader then stops.
+         * Only called from the reader thread.
+         */
+        private void reportFailure(Exception e) {
+            if (failureReported) {
+                return;
+            }
+            failureReported = true;
+            listener.onException(closing ? new EOFException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20023)) : e);
+        }
+
         @Override
-        public synchronized Future<?> write(Object msg) {
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        @Override
+        public void enableCompression() {
+            writeLock.lock();
+            try {
+                outputStream.setCompressionThreshold(compressionThreshold);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isClassDictionary() {
+            return classDictionary;
+        }
+
+        @Override
+        public void enableReadClassDictionary() {
+            inputStream.setClassDictionary(new ClassDictionary());
+        }
+
+        @Override
+        public void enableWriteClassDictionary() {
+            writeLock.lock();
+            try {
+                outputStream.setClassDictionary(new ClassDictionary());
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isBinaryProtocol() {
+            return binaryProtocol;
+        }
+
+        @Override
+        public void enableReadBinaryProtocol() {
+            inputStream.setBinaryProtocol(true);
+        }
+
+        @Override
+        public void enableWriteBinaryProtocol(byte version) {
+            writeLock.lock();
+            try {
+                outputStream.setBinaryProtocolVersion(version);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        @Override
+        public ChannelStatistics getStatistics() {
+            return new ChannelStatistics(outputStream.getBytesWritten(), outputStream.getPayloadBytesWritten(),
+                    inputStream.getBytesRead(), inputStream.getPayloadBytesRead());
+        }
+
+        @Override
+        public Future<?> write(Object msg) {
             log.finer("writing message to socket");
             ResultsFuture<Void> result = new ResultsFuture<>();
+            //a lock rather than the monitor so that a virtual thread blocked on the socket does not pin its carrier
+            writeLock.lock();
             try {
                 outputStream.writeObject(msg);
                 outputStream.flush();
                 outputStream.reset();
-                result.getResultsReceiver().receiveResults(null);
             } catch (IOException e) {
-                close();
+                closeSocket();
                 result.getResultsReceiver().exceptionOccurred(e);
+                return result;
+            } finally {
+                writeLock.unlock();
             }
+            result.getResultsReceiver().receiveResults(null);
             return result;
         }
     }
@@ -144,6 +304,11 @@ public final class OioObjectChannelFactory implements ObjectChannelFactory {
     private int soTimeout = 1000;
     private volatile SocketUtil.SSLSocketFactory sslSocketFactory;
     private int maxObjectSize = DEFAULT_MAX_OBJECT_SIZE;
+    private boolean dedicatedReader;
+    private boolean compression;
+    private int compressionThreshold = NioObjectChannelFactory.DEFAULT_COMPRESSION_THRESHOLD;
+    private boolean classDictionary = true;
+    private boolean binaryProtocol = true;
 
     public OioObjectChannelFactory(Properties props) {
         this.props = props;
@@ -174,7 +339,8 @@ public final class OioObjectChannelFactory implements ObjectChannelFactory {
         }
         socket.setTcpNoDelay(!conserveBandwidth); // enable Nagle's algorithm to conserve bandwidth
         socket.setSoTimeout(soTimeout);
-        return new OioObjectChannel(socket, maxObjectSize);
+        return new OioObjectChannel(socket, maxObjectSize, dedicatedReader, compression ? compressionThreshold : -1,
+                classDictionary, binaryProtocol);
     }
 
     public int getSendBufferSize() {
@@ -212,4 +378,62 @@ public final class OioObjectChannelFactory implements ObjectChannelFactory {
     public int getSoTimeout() {
         return soTimeout;
     }
+
+    public boolean isDedicatedReader() {
+        return dedicatedReader;
+    }
+
+    /**
+     * Use a reader thread per connection to deliver responses, rather than having
+     * the calling threads take turns reading.
+     */
+    public void setDedicatedReader(boolean dedicatedReader) {
+        this.dedicatedReader = dedicatedReader;
+    }
+
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * Request compression of large messages during the handshake.
+     */
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Messages with more than this number of bytes are compressed, if compression was negotiated.
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public boolean isClassDictionary() {
+        return classDictionary;
+    }
+
+    /**
+     * Request a per connection class dictionary during the handshake, so that classes
+     * are only described in full the first time they are sent.
+     */
+    public void setClassDictionary(boolean classDictionary) {
+        this.classDictionary = classDictionary;
+    }
+
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+
+    /**
+     * Request the binary protocol during the handshake, so that requests and results
+     * are not sent with Java serialization.
+     */
+    public void setBinaryProtocol(boolean binaryProtocol) {
+        this.binaryProtocol = binaryProtocol;
+    }
 }
\ No newline at end of file
@@ -20,6 +20,9 @@ package com.kubling.teiid.net.socket;
 
 import com.kubling.teiid.core.util.ArgCheck;
 import com.kubling.teiid.core.util.ExternalizeUtil;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectInput;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectOutput;
+import com.kubling.teiid.netty.handler.codec.serialization.CompactObjectOutputStream;
 
 import java.io.*;
 
@@ -58,6 +61,39 @@ public final class ServiceInvocationStruct implements Externalizable {
         ExternalizeUtil.writeArray(out, args);
     }
 
+    /**
+     * Write with the binary protocol.  The target class must be one of the
+     * {@link CompactObjectOutputStream#KNOWN_CLASSES}.
+     */
+    public void writeBinary(BinaryObjectOutput out) throws IOException {
+        out.write(CompactObjectOutputStream.KNOWN_CLASSES.get(targetClass));
+        out.writeString(methodName);
+        if (args == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(args.length + 1);
+            for (Object arg : args) {
+                out.writeObject(arg);
+            }
+        }
+    }
+
+    public void readBinary(BinaryObjectInput in) throws IOException, ClassNotFoundException {
+        int code = in.readUnsignedByte();
+        this.targetClass = CompactObjectOutputStream.KNOWN_CODES.get(code);
+        if (this.targetClass == null) {
+            throw new StreamCorruptedException("Unknown target class: " + code);
+        }
+        this.methodName = in.readString();
+        int length = in.readVarInt() - 1;
+        if (length >= 0) {
+            this.args = new Object[length];
+            for (int i = 0; i < length; i++) {
+                this.args[i] = in.readObject();
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "Invoke " + targetClass + "." + methodName + " " + args.length;
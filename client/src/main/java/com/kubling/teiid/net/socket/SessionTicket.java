@@ -0,0 +1,86 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+/**
+ * A server issued ticket that allows a session to be resumed on a new socket without
+ * another key exchange or identity assertion.
+ * <p>
+ * The ticket bytes are opaque to the client.  The server is expected to seal the session
+ * and the negotiated key into them.  The client keeps the key so that it can
+ * resume encryption with it.  The ticket is valid for at most {@link #MAX_LIFETIME} ms,
+ * regardless of the lifetime given by the server.
+ */
+public final class SessionTicket {
+
+    public static final long MAX_LIFETIME = 3600000;
+
+    private final byte[] ticket;
+    private final byte[] key;
+    private final boolean cbc;
+    private final boolean gcm;
+    private final long expiresAt;
+
+    /**
+     * @param ticket the opaque server ticket
+     * @param key the symmetric key negotiated for the session, or null if the session is not encrypted
+     * @param cbc true if the key is used in CBC mode
+     * @param lifetime ms the ticket is valid for, capped at {@link #MAX_LIFETIME}
+     * @param now the current time in ms
+     */
+    public SessionTicket(byte[] ticket, byte[] key, boolean cbc, long lifetime, long now) {
+        this(ticket, key, cbc, false, lifetime, now);
+    }
+
+    /**
+     * @param gcm true if the key is used with AES/GCM
+     */
+    public SessionTicket(byte[] ticket, byte[] key, boolean cbc, boolean gcm, long lifetime, long now) {
+        this.ticket = ticket;
+        this.key = key;
+        this.cbc = cbc;
+        this.gcm = gcm;
+        this.expiresAt = now + Math.max(0, Math.min(lifetime, MAX_LIFETIME));
+    }
+
+    public byte[] getTicket() {
+        return ticket;
+    }
+
+    public byte[] getKey() {
+        return key;
+    }
+
+    public boolean isCbc() {
+        return cbc;
+    }
+
+    public boolean isGcm() {
+        return gcm;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+}
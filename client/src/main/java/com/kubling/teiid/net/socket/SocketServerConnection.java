@@ -40,13 +40,16 @@ import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
 /**
  * Represents a client connection that maintains session state and allows for service fail over.
- * Implements a sticky random selection policy.
+ * Implements a sticky selection policy.  A fail over connection may be checked by a background
+ * heartbeat, rather than pinging before a request.
  */
 public class SocketServerConnection implements ServerConnection {
 
@@ -58,13 +61,20 @@ public class SocketServerConnection implements ServerConnection {
     private final boolean secure;
     private final Properties connProps;
 
+    //a lock rather than the monitor, as (re)connecting blocks on the network
+    private final ReentrantLock lock = new ReentrantLock();
     private SocketServerInstance serverInstance;
     private LogonResult logonResult;
+    private SessionTicket sessionTicket;
     private final ILogon logon;
     private boolean closed;
     private boolean failOver;
-    private long lastPing = System.currentTimeMillis();
+    private volatile long lastPing = System.currentTimeMillis();
     private int pingFailOverInterval = FAILOVER_PING_INTERVAL;
+    private long heartbeatInterval;
+    private volatile ConnectionHeartbeat heartbeat;
+    private boolean connected;
+    private volatile int reconnectCount;
     private final String serverVersion;
 
     public SocketServerConnection(
@@ -78,59 +88,166 @@ public class SocketServerConnection implements ServerConnection {
         //ILogon that is allowed to failover
         this.logon = this.getService(ILogon.class);
         this.failOver = Boolean.parseBoolean(connProps.getProperty(TeiidURL.CONNECTION.AUTO_FAILOVER));
+        this.heartbeatInterval = PropertiesUtils.getLongProperty(connProps, TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, 0);
         this.serverVersion = selectServerInstance().getServerVersion();
+        scheduleHeartbeat();
+    }
+
+    private void scheduleHeartbeat() {
+        lock.lock();
+        try {
+            if (this.heartbeat != null) {
+                this.heartbeat.cancel();
+                this.heartbeat = null;
+            }
+            if (failOver && heartbeatInterval > 0 && !closed) {
+                this.heartbeat = ConnectionHeartbeat.schedule(this, heartbeatInterval);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Implements a sticky random selection policy
-     * TODO: make this customizable
-     * TODO: put more information on hostinfo as to process response time, last successful connect, etc.
+     * Check an idle connection by pinging the server.  If the server does not respond, the host
+     * is marked as down and the session is moved to another server so that the next request does
+     * not have to discover the failure.
+     *
+     * @return false if the connection is closed and should no longer be checked
      */
-    public synchronized SocketServerInstance selectServerInstance()
-            throws CommunicationException, ConnectionException {
-        if (closed) {
-            throw new CommunicationException(JDBCPlugin.Event.TEIID20016, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20016));
+    boolean heartbeat() {
+        SocketServerInstance instance;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            instance = this.serverInstance;
+        } finally {
+            lock.unlock();
         }
-        if (this.serverInstance != null && (!failOver || this.serverInstance.isOpen())) {
-            return this.serverInstance;
+        if (instance == null) {
+            //a previous check or request failed, reconnect before the next request
+            reselect();
+            return true;
         }
-        List<HostInfo> hostKeys = new ArrayList<>(this.serverDiscovery.getKnownHosts());
-        closeServerInstance();
-        List<HostInfo> hostCopy = new ArrayList<>(hostKeys);
-        int knownHosts = hostKeys.size();
-        while (!hostKeys.isEmpty()) {
-            HostInfo hostInfo = this.serverDiscovery.selectNextInstance(hostKeys);
-
-            Exception ex;
-            try {
-                if (!hostInfo.isResolved()) {
-                    InetAddress inetAddress = hostInfo.getInetAddress();
-                    if (!hostInfo.isResolved()) {
-                        //create a resolved version
-                        hostInfo = new HostInfo(hostInfo.getHostName(),
-                                new InetSocketAddress(inetAddress, hostInfo.getPortNumber()));
-                    }
+        if (instance.getPendingCount() > 0
+                || System.currentTimeMillis() - Math.max(lastPing, instance.getLastResponseTime()) < heartbeatInterval) {
+            //in use, failures will be seen by the requests
+            return true;
+        }
+        try {
+            instance.getService(ILogon.class).ping().get(heartbeatInterval, TimeUnit.MILLISECONDS);
+            HostStatistics.getStatistics(instance.getHostInfo()).markUp();
+            lastPing = System.currentTimeMillis();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (TimeoutException e) {
+            if (instance.getPendingCount() > 1) {
+                //a request started during the ping, a slow response is not a failure of the host
+                return true;
+            }
+            log.log(Level.FINE, "Heartbeat timed out, failing over", e);
+            HostStatistics.getStatistics(instance.getHostInfo()).connectFailed(System.nanoTime());
+        } catch (Exception e) {
+            if (ExceptionUtil.getExceptionOfType(e, InvalidSessionException.class) != null) {
+                lock.lock();
+                try {
+                    disconnect();
+                } finally {
+                    lock.unlock();
                 }
-                hostInfo.setSsl(secure);
-                this.serverInstance = connectionFactory.getServerInstance(hostInfo);
-                connectSession();
+            } else {
+                log.log(Level.FINE, "Heartbeat failed, failing over", e);
+                HostStatistics.getStatistics(instance.getHostInfo()).connectFailed(System.nanoTime());
+            }
+        }
+        lock.lock();
+        try {
+            if (this.serverInstance == instance) {
+                closeServerInstance();
+            }
+        } finally {
+            lock.unlock();
+        }
+        reselect();
+        return true;
+    }
+
+    private void reselect() {
+        try {
+            selectServerInstance();
+            lastPing = System.currentTimeMillis();
+        } catch (CommunicationException | ConnectionException e) {
+            log.log(Level.FINE, "Unable to fail over, will retry", e);
+        }
+    }
+
+    /**
+     * Implements a sticky selection policy, the host is chosen by the {@link UrlServerDiscovery}
+     * both initially and on failover.
+     */
+    public SocketServerInstance selectServerInstance()
+            throws CommunicationException, ConnectionException {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new CommunicationException(JDBCPlugin.Event.TEIID20016, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20016));
+            }
+            if (this.serverInstance != null && (!failOver || this.serverInstance.isOpen())) {
                 return this.serverInstance;
-            } catch (IOException | SingleInstanceCommunicationException e) {
-                ex = e;
             }
-            if (knownHosts == 1) { //just a single host, use the exception
-                if (ex instanceof UnknownHostException) {
-                    throw new SingleInstanceCommunicationException(JDBCPlugin.Event.TEIID20019, ex,
-                            JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20019, hostInfo.getHostName()));
+            List<HostInfo> hostKeys = new ArrayList<>(this.serverDiscovery.getKnownHosts());
+            closeServerInstance();
+            List<HostInfo> hostCopy = new ArrayList<>(hostKeys);
+            int knownHosts = hostKeys.size();
+            while (!hostKeys.isEmpty()) {
+                HostInfo hostInfo = this.serverDiscovery.selectNextInstance(hostKeys);
+
+                Exception ex;
+                try {
+                    if (!hostInfo.isResolved()) {
+                        InetAddress inetAddress = hostInfo.getInetAddress();
+                        if (!hostInfo.isResolved()) {
+                            //create a resolved version
+                            hostInfo = new HostInfo(hostInfo.getHostName(),
+                                    new InetSocketAddress(inetAddress, hostInfo.getPortNumber()));
+                        }
+                    }
+                    hostInfo.setSsl(secure);
+                    if (this.logonResult != null && this.sessionTicket != null) {
+                        this.serverInstance = connectionFactory.getServerInstance(hostInfo, this.sessionTicket);
+                    } else {
+                        this.serverInstance = connectionFactory.getServerInstance(hostInfo);
+                    }
+                    connectSession();
+                    if (connected) {
+                        reconnectCount++;
+                    }
+                    connected = true;
+                    return this.serverInstance;
+                } catch (IOException | SingleInstanceCommunicationException e) {
+                    ex = e;
+                    HostStatistics.getStatistics(hostInfo).connectFailed(System.nanoTime());
+                }
+                if (knownHosts == 1) { //just a single host, use the exception
+                    if (ex instanceof UnknownHostException) {
+                        throw new SingleInstanceCommunicationException(JDBCPlugin.Event.TEIID20019, ex,
+                                JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20019, hostInfo.getHostName()));
+                    }
+                    throw new SingleInstanceCommunicationException(JDBCPlugin.Event.TEIID20020, ex,
+                            JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20020, hostInfo.getHostName(),
+                                    String.valueOf(hostInfo.getPortNumber()), ex.getMessage()));
                 }
-                throw new SingleInstanceCommunicationException(JDBCPlugin.Event.TEIID20020, ex,
-                        JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20020, hostInfo.getHostName(),
-                                String.valueOf(hostInfo.getPortNumber()), ex.getMessage()));
+                log.log(Level.FINE, "Unable to connect to host", ex);
             }
-            log.log(Level.FINE, "Unable to connect to host", ex);
+            throw new CommunicationException(JDBCPlugin.Event.TEIID20021,
+                    JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20021, hostCopy.toString()));
+        } finally {
+            lock.unlock();
         }
-        throw new CommunicationException(JDBCPlugin.Event.TEIID20021,
-                JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20021, hostCopy.toString()));
     }
 
     private void logon(ILogon newLogon) throws LogonException, TeiidComponentException, CommunicationException {
@@ -162,6 +279,11 @@ public class SocketServerConnection implements ServerConnection {
         logoff();
 
         this.logonResult = newResult;
+        Object ticket = newResult.getProperty(ILogon.SESSION_TICKET);
+        Object lifetime = newResult.getProperty(ILogon.SESSION_TICKET_LIFETIME);
+        if (ticket instanceof byte[] bytes && lifetime instanceof Number number) {
+            this.sessionTicket = instance.createSessionTicket(bytes, number.longValue());
+        }
     }
 
     public static void updateConnectionProperties(
@@ -202,6 +324,10 @@ public class SocketServerConnection implements ServerConnection {
 
     private ILogon connectSession() throws CommunicationException, ConnectionException {
         ILogon newLogon = this.serverInstance.getService(ILogon.class);
+        if (this.logonResult != null && this.serverInstance.isResumed()) {
+            //the server restored the session from the ticket
+            return newLogon;
+        }
         if (this.logonResult != null) {
             try {
                 newLogon.assertIdentity(logonResult.getSessionToken());
@@ -235,7 +361,8 @@ public class SocketServerConnection implements ServerConnection {
                         PropertiesUtils.getBooleanProperty(connProps, TeiidURL.CONNECTION.ENCRYPT_REQUESTS, false)) {
                     @Override
                     protected SocketServerInstance getInstance() throws CommunicationException {
-                        if (failOver && System.currentTimeMillis() - lastPing > pingFailOverInterval) {
+                        boolean checked = heartbeat != null;
+                        if (failOver && !checked && System.currentTimeMillis() - lastPing > pingFailOverInterval) {
                             try {
                                 ResultsFuture<?> future = selectServerInstance().getService(ILogon.class).ping();
                                 future.get();
@@ -250,7 +377,10 @@ public class SocketServerConnection implements ServerConnection {
                                 closeServerInstance();
                             }
                         }
-                        lastPing = System.currentTimeMillis();
+                        if (!checked) {
+                            //with a heartbeat the idle time is from the last response instead
+                            lastPing = System.currentTimeMillis();
+                        }
                         try {
                             return selectServerInstance();
                         } catch (ConnectionException e) {
@@ -274,17 +404,27 @@ public class SocketServerConnection implements ServerConnection {
                 }));
     }
 
-    public synchronized void close() {
-        if (this.closed) {
-            return;
-        }
+    public void close() {
+        lock.lock();
+        try {
+            if (this.closed) {
+                return;
+            }
 
-        if (this.serverInstance != null) {
-            logoff();
-            closeServerInstance();
-        }
+            if (this.heartbeat != null) {
+                this.heartbeat.cancel();
+                this.heartbeat = null;
+            }
 
-        this.closed = true;
+            if (this.serverInstance != null) {
+                logoff();
+                closeServerInstance();
+            }
+
+            this.closed = true;
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void logoff() {
@@ -305,14 +445,20 @@ public class SocketServerConnection implements ServerConnection {
 
     private void disconnect() {
         this.logonResult = null;
+        this.sessionTicket = null;
     }
 
-    private synchronized ResultsFuture<?> isOpen()
+    private ResultsFuture<?> isOpen()
             throws CommunicationException, InvalidSessionException, TeiidComponentException {
-        if (this.closed) {
-            throw new CommunicationException(JDBCPlugin.Event.TEIID20023, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20023));
+        lock.lock();
+        try {
+            if (this.closed) {
+                throw new CommunicationException(JDBCPlugin.Event.TEIID20023, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20023));
+            }
+            return logon.ping();
+        } finally {
+            lock.unlock();
         }
-        return logon.ping();
     }
 
     public boolean isOpen(long msToTest) {
@@ -329,10 +475,15 @@ public class SocketServerConnection implements ServerConnection {
         return logonResult;
     }
 
-    synchronized void closeServerInstance() {
-        if (this.serverInstance != null) {
-            this.serverInstance.shutdown();
-            this.serverInstance = null;
+    void closeServerInstance() {
+        lock.lock();
+        try {
+            if (this.serverInstance != null) {
+                this.serverInstance.shutdown();
+                this.serverInstance = null;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -350,6 +501,16 @@ public class SocketServerConnection implements ServerConnection {
 
     public void setFailOver(boolean failOver) {
         this.failOver = failOver;
+        scheduleHeartbeat();
+    }
+
+    /**
+     * @param heartbeatInterval ms between background checks of an idle fail over connection,
+     *                          or 0 to instead ping on demand before a request
+     */
+    public void setHeartbeatInterval(long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+        scheduleHeartbeat();
     }
 
     public void setFailOverPingInterval(int pingFailOverInterval) {
@@ -378,6 +539,17 @@ public class SocketServerConnection implements ServerConnection {
         return false;
     }
 
+    @Override
+    public int getReconnectCount() {
+        return reconnectCount;
+    }
+
+    @Override
+    public boolean supportsStreamingCursors() {
+        SocketServerInstance instance = this.serverInstance;
+        return instance != null && instance.isStreamingCursors();
+    }
+
     @Override
     public boolean isLocal() {
         return false;
@@ -387,4 +559,19 @@ public class SocketServerConnection implements ServerConnection {
     public String getServerVersion() {
         return this.serverVersion;
     }
+
+    /**
+     * @return the bytes transferred by the currently selected server instance, or null if there is none
+     */
+    public ChannelStatistics getStatistics() {
+        lock.lock();
+        try {
+            if (this.serverInstance == null) {
+                return null;
+            }
+            return this.serverInstance.getStatistics();
+        } finally {
+            lock.unlock();
+        }
+    }
 }
\ No newline at end of file
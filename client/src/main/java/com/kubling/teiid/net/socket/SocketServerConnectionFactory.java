@@ -56,6 +56,7 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 
     //config properties
     private long synchronousTtl = 240000L;
+    private boolean nio;
 
     private SocketServerConnectionFactory() {}
 
@@ -90,14 +91,24 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
 
     public void initialize(Properties info) {
         PropertiesUtils.setBeanProperties(this, info, "org.teiid.sockets", true);
-        this.channelFactory = new OioObjectChannelFactory(info);
+        if (nio) {
+            this.channelFactory = new NioObjectChannelFactory(info);
+        } else {
+            this.channelFactory = new OioObjectChannelFactory(info);
+        }
     }
 
     @Override
     public SocketServerInstance getServerInstance(HostInfo info) throws CommunicationException, IOException {
+        return getServerInstance(info, null);
+    }
+
+    @Override
+    public SocketServerInstance getServerInstance(HostInfo info, SessionTicket ticket)
+            throws CommunicationException, IOException {
         SocketServerInstanceImpl ssii =
                 new SocketServerInstanceImpl(info, getSynchronousTtl(), this.channelFactory.getSoTimeout());
-        ssii.connect(this.channelFactory);
+        ssii.connect(this.channelFactory, ticket);
         return ssii;
     }
 
@@ -129,6 +140,18 @@ public class SocketServerConnectionFactory implements ServerConnectionFactory, S
         this.synchronousTtl = synchronousTTL;
     }
 
+    public boolean isNio() {
+        return nio;
+    }
+
+    /**
+     * Use the shared selector based {@link NioObjectChannelFactory} rather than
+     * a blocking socket per connection.
+     */
+    public void setNio(boolean nio) {
+        this.nio = nio;
+    }
+
     @Override
     public String resolveHostname(InetAddress addr) {
         // only wait 100 milliseconds by default, this could be made configurable if needed
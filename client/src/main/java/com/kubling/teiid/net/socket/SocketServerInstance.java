@@ -52,4 +52,54 @@ public interface SocketServerInstance {
     String getServerVersion();
 
     InetAddress getLocalAddress();
+
+    /**
+     * @return the bytes transferred over the underlying channel, or null if not tracked
+     */
+    default ChannelStatistics getStatistics() {
+        return null;
+    }
+
+    /**
+     * Stop delivering the results for the message key, such as for a stream that is no longer read.
+     */
+    default void removeListener(Serializable messageKey) {
+    }
+
+    /**
+     * @return the number of requests and streams that are still waiting on the server
+     */
+    default int getPendingCount() {
+        return 0;
+    }
+
+    /**
+     * @return the time in ms that the last response was read from the server, or 0 if none has been
+     */
+    default long getLastResponseTime() {
+        return 0;
+    }
+
+    /**
+     * @return true if the handshake resumed an existing session from a {@link SessionTicket}
+     */
+    default boolean isResumed() {
+        return false;
+    }
+
+    /**
+     * @return true if the handshake established that the server may push cursor batches
+     */
+    default boolean isStreamingCursors() {
+        return false;
+    }
+
+    /**
+     * Bind a server issued ticket to the key negotiated by this instance.
+     *
+     * @return the ticket, or null if this instance does not support resumption
+     */
+    default SessionTicket createSessionTicket(byte[] ticket, long lifetime) {
+        return null;
+    }
 }
\ No newline at end of file
@@ -28,4 +28,14 @@ public interface SocketServerInstanceFactory extends HostnameResolver {
     SocketServerInstance getServerInstance(HostInfo info)
             throws CommunicationException, IOException;
 
+    /**
+     * Get an instance, attempting to resume the session of the ticket during the handshake.
+     *
+     * @param ticket may be null
+     */
+    default SocketServerInstance getServerInstance(HostInfo info, SessionTicket ticket)
+            throws CommunicationException, IOException {
+        return getServerInstance(info);
+    }
+
 }
\ No newline at end of file
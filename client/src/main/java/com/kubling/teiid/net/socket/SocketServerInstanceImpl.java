@@ -23,13 +23,16 @@ import com.kubling.teiid.client.util.ExceptionHolder;
 import com.kubling.teiid.client.util.ExceptionUtil;
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.client.util.ResultsReceiver;
+import com.kubling.teiid.client.util.ResultsStream;
 import com.kubling.teiid.core.crypto.CryptoException;
 import com.kubling.teiid.core.crypto.Cryptor;
 import com.kubling.teiid.core.crypto.DhKeyGenerator;
 import com.kubling.teiid.core.crypto.NullCryptor;
+import com.kubling.teiid.core.crypto.SymmetricCryptor;
 import com.kubling.teiid.jdbc.JDBCPlugin;
 import com.kubling.teiid.net.CommunicationException;
 import com.kubling.teiid.net.HostInfo;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectOutput;
 
 import java.io.EOFException;
 import java.io.IOException;
@@ -45,7 +48,10 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -54,6 +60,9 @@ import java.util.logging.Logger;
  * Client view of a socket server connection that exposes remote services
  * On construction this class will create a channel and exchange a handshake.
  * That handshake will establish a {@link Cryptor} to be used for secure traffic.
+ * <p>
+ * Blocking paths use a {@link ReentrantLock} rather than the object monitor, so that
+ * callers on virtual threads do not pin their carrier while waiting on the socket.
  */
 public class SocketServerInstanceImpl implements SocketServerInstance {
 
@@ -64,13 +73,24 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
 
     private final long synchTimeout;
     private final HostInfo info;
+    private final HostStatistics hostStatistics;
+    private final AtomicBoolean opened = new AtomicBoolean();
 
     private ObjectChannel socketChannel;
     private Cryptor cryptor;
+    private byte[] sessionKey;
+    private boolean cbc;
+    private boolean gcm;
+    private boolean resumed;
+    private boolean streamingCursors;
     private String serverVersion;
     private final HashMap<Class<?>, Object> serviceMap = new HashMap<>();
 
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readerDone = lock.newCondition();
     private boolean hasReader;
+    private volatile boolean pushed;
+    private volatile long lastResponseTime;
     private final int soTimeout;
 
     public SocketServerInstanceImpl(HostInfo info, long synchTimeout, int soTimeout) {
@@ -78,18 +98,52 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
             throw new AssertionError("Expected HostInfo to be resolved");
         }
         this.info = info;
+        this.hostStatistics = HostStatistics.getStatistics(info);
         this.synchTimeout = synchTimeout;
         this.soTimeout = soTimeout;
     }
 
-    public synchronized void connect(ObjectChannelFactory channelFactory) throws CommunicationException, IOException {
+    public void connect(ObjectChannelFactory channelFactory) throws CommunicationException, IOException {
+        connect(channelFactory, null);
+    }
+
+    /**
+     * @param ticket if not null and the server accepts tickets, the session to resume rather than
+     *               performing a new key exchange
+     */
+    public void connect(ObjectChannelFactory channelFactory, SessionTicket ticket)
+            throws CommunicationException, IOException {
+        lock.lock();
+        try {
+            doConnect(channelFactory, ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doConnect(ObjectChannelFactory channelFactory, SessionTicket ticket)
+            throws CommunicationException, IOException {
         this.socketChannel = channelFactory.createObjectChannel(info);
         try {
-            doHandshake();
+            doHandshake(ticket);
         } catch (CommunicationException | IOException e) {
             this.socketChannel.close();
             throw e;
         }
+        this.pushed = this.socketChannel.setChannelListener(new ObjectChannel.ChannelListener() {
+            @Override
+            public void onMessage(Object message) {
+                receivedMessage(message);
+            }
+
+            @Override
+            public void onException(Throwable t) {
+                exceptionOccurred(t);
+            }
+        });
+        if (opened.compareAndSet(false, true)) {
+            hostStatistics.connectionOpened();
+        }
     }
 
     @Override
@@ -105,7 +159,7 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
         return null;
     }
 
-    private void doHandshake() throws IOException, CommunicationException {
+    private void doHandshake(SessionTicket ticket) throws IOException, CommunicationException {
         Handshake handshake = null;
         boolean sentInit = false;
         long handShakeRetries = 1;
@@ -147,6 +201,27 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
             serverVersion = handshake.getVersion();
             handshake.setVersion();
 
+            boolean compression = handshake.isCompression() && this.socketChannel.getCompressionThreshold() >= 0;
+            handshake.setCompression(compression);
+            boolean classDictionary = handshake.isClassDictionary() && this.socketChannel.isClassDictionary();
+            handshake.setClassDictionary(classDictionary);
+            //use the highest version both sides support
+            byte protocolVersion = this.socketChannel.isBinaryProtocol()
+                    ? (byte) Math.max(0, Math.min(handshake.getProtocolVersion(), BinaryObjectOutput.VERSION)) : 0;
+            handshake.setProtocolVersion(protocolVersion);
+            //streams are always accepted, whether they are used is up to the statement
+            streamingCursors = handshake.isStreamingCursors();
+
+            if (ticket != null && handshake.isResumption() && resume(handshake, ticket)) {
+                if (compression) {
+                    this.socketChannel.enableCompression();
+                }
+                //the server's response did not yet use the dictionary or binary protocol
+                enableRead(classDictionary, protocolVersion > 0);
+                enableWrite(classDictionary, protocolVersion);
+                return;
+            }
+
             byte[] serverPublicKey = handshake.getPublicKey();
             byte[] serverPublicKeyLarge = handshake.getPublicKeyLarge();
 
@@ -170,47 +245,195 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
                     handshake.setPublicKeyLarge(null);
                 }
                 boolean useCbc = handshake.isCbc();
-                this.cryptor = keyGen.getSymmetricCryptor(serverPublicKey,
-                        "08.03".compareTo(serverVersion) > 0, this.getClass().getClassLoader(), large, useCbc);
+                //the server only offers gcm if it understands it, the echo confirms its use
+                boolean useGcm = handshake.isGcm();
+                SymmetricCryptor symmetricCryptor = keyGen.getSymmetricCryptor(serverPublicKey,
+                        "08.03".compareTo(serverVersion) > 0, this.getClass().getClassLoader(), large, useCbc, useGcm);
+                this.cryptor = symmetricCryptor;
+                this.sessionKey = symmetricCryptor.getEncodedKey();
+                this.cbc = useCbc;
+                this.gcm = useGcm;
             } else {
                 this.cryptor = new NullCryptor();
+                handshake.setGcm(false);
             }
 
+            //the server may use the negotiated encoding as soon as it reads the response
+            enableRead(classDictionary, protocolVersion > 0);
             this.socketChannel.write(handshake);
+            if (compression) {
+                this.socketChannel.enableCompression();
+            }
+            enableWrite(classDictionary, protocolVersion);
         } catch (CryptoException e) {
             throw new CommunicationException(JDBCPlugin.Event.TEIID20012, e, e.getMessage());
         }
     }
 
+    private void enableRead(boolean classDictionary, boolean binary) {
+        if (classDictionary) {
+            this.socketChannel.enableReadClassDictionary();
+        }
+        if (binary) {
+            this.socketChannel.enableReadBinaryProtocol();
+        }
+    }
+
+    private void enableWrite(boolean classDictionary, byte protocolVersion) {
+        if (classDictionary) {
+            this.socketChannel.enableWriteClassDictionary();
+        }
+        if (protocolVersion > 0) {
+            this.socketChannel.enableWriteBinaryProtocol(protocolVersion);
+        }
+    }
+
+    /**
+     * Offer the ticket instead of a public key and read the server's response.
+     *
+     * @return true if the session was resumed, false if the full key exchange should follow
+     */
+    private boolean resume(Handshake handshake, SessionTicket ticket)
+            throws IOException, CommunicationException, CryptoException {
+        byte[] serverPublicKey = handshake.getPublicKey();
+        if ((serverPublicKey == null) != (ticket.getKey() == null) || ticket.isExpired(System.currentTimeMillis())) {
+            //expired, or the server encryption requirement is different than when the ticket was issued
+            return false;
+        }
+        byte[] serverPublicKeyLarge = handshake.getPublicKeyLarge();
+        handshake.setPublicKey(null);
+        handshake.setPublicKeyLarge(null);
+        handshake.setSessionTicket(ticket.getTicket());
+        this.socketChannel.write(handshake);
+        Object obj;
+        try {
+            obj = this.socketChannel.read();
+        } catch (ClassNotFoundException e) {
+            throw new SingleInstanceCommunicationException(JDBCPlugin.Event.TEIID20010, e, e.getMessage());
+        }
+        if (!(obj instanceof Handshake)) {
+            throw new SingleInstanceCommunicationException(
+                    JDBCPlugin.Event.TEIID20009, null, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20009));
+        }
+        if (!((Handshake) obj).isResumption()) {
+            //rejected, the server expects the full exchange using its original keys
+            handshake.setSessionTicket(null);
+            handshake.setPublicKey(serverPublicKey);
+            handshake.setPublicKeyLarge(serverPublicKeyLarge);
+            return false;
+        }
+        if (ticket.getKey() == null) {
+            this.cryptor = new NullCryptor();
+        } else {
+            SymmetricCryptor symmetricCryptor = ticket.isGcm() ? SymmetricCryptor.getGcmCryptor(ticket.getKey())
+                    : SymmetricCryptor.getSymmectricCryptor(ticket.getKey(), ticket.isCbc());
+            symmetricCryptor.setUseSealedObject("08.03".compareTo(serverVersion) > 0);
+            symmetricCryptor.setClassLoader(this.getClass().getClassLoader());
+            this.cryptor = symmetricCryptor;
+        }
+        this.sessionKey = ticket.getKey();
+        this.cbc = ticket.isCbc();
+        this.gcm = ticket.isGcm();
+        this.resumed = true;
+        return true;
+    }
+
+    @Override
+    public void removeListener(Serializable messageKey) {
+        ResultsReceiver<Object> listener = asynchronousListeners.remove(messageKey);
+        if (listener instanceof TimedReceiver timed) {
+            timed.complete(false);
+        }
+    }
+
+    @Override
+    public int getPendingCount() {
+        return asynchronousListeners.size();
+    }
+
+    @Override
+    public long getLastResponseTime() {
+        return lastResponseTime;
+    }
+
+    @Override
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    @Override
+    public boolean isStreamingCursors() {
+        return streamingCursors;
+    }
+
+    @Override
+    public SessionTicket createSessionTicket(byte[] ticket, long lifetime) {
+        return new SessionTicket(ticket, sessionKey, cbc, gcm, lifetime, System.currentTimeMillis());
+    }
+
     @Override
     public String getServerVersion() {
         return serverVersion;
     }
 
+    @Override
+    public ChannelStatistics getStatistics() {
+        return socketChannel.getStatistics();
+    }
+
     public boolean isOpen() {
         return socketChannel.isOpen();
     }
 
+    /**
+     * Send the message without waiting for it to be written, so that many requests may be
+     * outstanding on the channel.  Responses are correlated by the message key.
+     * Failures that are known immediately are thrown, otherwise they are reported to the listener.
+     */
     public void send(Message message, ResultsReceiver<Object> listener, Serializable messageKey)
             throws CommunicationException, InterruptedException {
+        TimedReceiver timed = null;
         if (listener != null) {
-            asynchronousListeners.put(messageKey, listener);
+            timed = new TimedReceiver(listener);
+            hostStatistics.requestStarted();
+            asynchronousListeners.put(messageKey, timed);
         }
         message.setMessageKey(messageKey);
         boolean success = false;
         try {
             Future<?> writeFuture = socketChannel.write(message);
-            writeFuture.get(); //client writes are blocking to ensure proper failure handling
+            if (writeFuture instanceof ResultsFuture<?> pendingWrite && !writeFuture.isDone()) {
+                addWriteListener(pendingWrite, messageKey);
+            } else {
+                writeFuture.get();
+            }
             success = true;
         } catch (ExecutionException e) {
             throw new SingleInstanceCommunicationException(JDBCPlugin.Event.TEIID20013, e, e.getMessage());
         } finally {
-            if (!success) {
+            if (!success && timed != null) {
                 asynchronousListeners.remove(messageKey);
+                timed.complete(false);
             }
         }
     }
 
+    private <T> void addWriteListener(ResultsFuture<T> writeFuture, final Serializable messageKey) {
+        writeFuture.addCompletionListener(future -> {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                ResultsReceiver<Object> listener = asynchronousListeners.remove(messageKey);
+                if (listener != null) {
+                    listener.exceptionOccurred(
+                            new SingleInstanceCommunicationException(JDBCPlugin.Event.TEIID20013, e, e.getMessage()));
+                }
+            }
+        });
+    }
+
     /**
      * Send an exception to all clients that are currently waiting for a
      * response.
@@ -243,6 +466,7 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
     private void receivedMessage(Object packet) {
         log.log(Level.FINE, "reading packet");
         if (packet instanceof Message messagePacket) {
+            lastResponseTime = System.currentTimeMillis();
             Serializable messageKey = messagePacket.getMessageKey();
             ExceptionHolder holder = null;
             if (messageKey instanceof ExceptionHolder) {
@@ -265,13 +489,20 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
             if (log.isLoggable(Level.FINE)) {
                 log.log(Level.FINE, "read async message:" + messageKey);
             }
-            ResultsReceiver<Object> listener = asynchronousListeners.remove(messageKey);
+            ResultsReceiver<Object> listener = asynchronousListeners.get(messageKey);
+            //a stream remains registered until it has ended
+            if (!(listener instanceof TimedReceiver timed && timed.isStream())) {
+                listener = asynchronousListeners.remove(messageKey);
+            }
             if (listener != null) {
                 if (holder != null) {
                     listener.exceptionOccurred(holder.getException());
                 } else {
                     listener.receiveResults(messagePacket.getContents());
                 }
+                if (listener instanceof TimedReceiver timed && timed.isStream() && timed.isStreamDone()) {
+                    asynchronousListeners.remove(messageKey, listener);
+                }
             }
         } else {
             //TODO: could ping back
@@ -283,6 +514,15 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
 
     public void shutdown() {
         socketChannel.close();
+        if (opened.compareAndSet(true, false)) {
+            hostStatistics.connectionClosed();
+        }
+        //listeners for abandoned calls will not be notified
+        for (ResultsReceiver<Object> listener : asynchronousListeners.values()) {
+            if (listener instanceof TimedReceiver timed) {
+                timed.complete(false);
+            }
+        }
     }
 
     /**
@@ -293,17 +533,28 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
     }
 
     public void read(long timeout, TimeUnit unit, ResultsFuture<?> future) throws TimeoutException, InterruptedException {
+        if (pushed) {
+            //the channel delivers results itself, the caller only needs to wait on the future
+            //unless it is the thread delivering results, which must then deliver until the result arrives
+            if (!future.isDone()) {
+                socketChannel.deliverUntilDone(future, timeout, unit);
+            }
+            return;
+        }
         long timeoutMillis = (int) Math.min(unit.toMillis(timeout), Integer.MAX_VALUE);
         long start = System.currentTimeMillis();
         while (!future.isDone()) {
             boolean reading = false;
-            synchronized (this) {
+            lock.lock();
+            try {
                 if (!hasReader) {
                     hasReader = true;
                     reading = true;
                 } else if (!future.isDone()) {
-                    this.wait(Math.max(1, timeoutMillis));
+                    readerDone.await(Math.max(1, timeoutMillis), TimeUnit.MILLISECONDS);
                 }
+            } finally {
+                lock.unlock();
             }
             if (reading) {
                 Object message = null;
@@ -316,9 +567,12 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
                 } catch (Exception e) {
                     exceptionOccurred(e);
                 } finally {
-                    synchronized (this) {
+                    lock.lock();
+                    try {
                         hasReader = false;
-                        this.notifyAll();
+                        readerDone.signalAll();
+                    } finally {
+                        lock.unlock();
                     }
                 }
                 if (message != null) {
@@ -338,24 +592,131 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
     }
 
     @Override
-    public synchronized <T> T getService(Class<T> iface) {
-        Object service = this.serviceMap.get(iface);
-        if (service == null) {
-            service = Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[]{iface}, new RemoteInvocationHandler(iface, false) {
-                @Override
-                protected SocketServerInstanceImpl getInstance() {
-                    return SocketServerInstanceImpl.this;
-                }
-            });
-            this.serviceMap.put(iface, service);
+    public <T> T getService(Class<T> iface) {
+        lock.lock();
+        try {
+            Object service = this.serviceMap.get(iface);
+            if (service == null) {
+                service = Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class[]{iface}, new RemoteInvocationHandler(iface, false) {
+                    @Override
+                    protected SocketServerInstanceImpl getInstance() {
+                        return SocketServerInstanceImpl.this;
+                    }
+                });
+                this.serviceMap.put(iface, service);
+            }
+            return iface.cast(service);
+        } finally {
+            lock.unlock();
         }
-        return iface.cast(service);
     }
 
     public long getSynchTimeout() {
         return synchTimeout;
     }
 
+    /**
+     * Tracks the in flight count and response time of a call for the {@link HostStatistics}
+     */
+    private final class TimedReceiver implements ResultsReceiver<Object> {
+        private final ResultsReceiver<Object> delegate;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        TimedReceiver(ResultsReceiver<Object> delegate) {
+            this.delegate = delegate;
+        }
+
+        boolean isStream() {
+            return delegate instanceof ResultsStream<?>;
+        }
+
+        boolean isStreamDone() {
+            return ((ResultsStream<?>) delegate).isDone();
+        }
+
+        void complete(boolean responded) {
+            if (done.compareAndSet(false, true)) {
+                hostStatistics.requestCompleted();
+                if (responded) {
+                    long now = System.nanoTime();
+                    hostStatistics.recordLatency(now - start, now);
+                }
+            }
+        }
+
+        @Override
+        public void receiveResults(Object results) {
+            complete(true);
+            delegate.receiveResults(results);
+        }
+
+        @Override
+        public void exceptionOccurred(Throwable e) {
+            //only a server exception is a response
+            complete(!(e instanceof CommunicationException));
+            delegate.exceptionOccurred(e);
+        }
+    }
+
+    /**
+     * The {@link ResultsStream} for a remote call, which unwraps the server results and reads
+     * with the waiting thread as needed.
+     */
+    private static final class RemoteResultsStream extends ResultsStream<Object> {
+        private final SocketServerInstance instance;
+        private final Serializable messageKey;
+
+        RemoteResultsStream(SocketServerInstance instance, Serializable messageKey) {
+            this.instance = instance;
+            this.messageKey = messageKey;
+        }
+
+        @Override
+        protected void closed() {
+            instance.removeListener(messageKey);
+        }
+
+        @Override
+        public void receiveResults(Object result) {
+            try {
+                result = instance.getCryptor().unsealObject(result);
+            } catch (CryptoException e) {
+                exceptionOccurred(e);
+                return;
+            }
+            if (result instanceof ExceptionHolder holder) {
+                exceptionOccurred(holder.getException());
+            } else if (result instanceof Throwable t) {
+                exceptionOccurred(t);
+            } else {
+                super.receiveResults(result);
+            }
+        }
+
+        @Override
+        protected ResultsFuture<Object> createFuture() {
+            return new ResultsFuture<>() {
+                @Override
+                public Object get() throws InterruptedException, ExecutionException {
+                    try {
+                        return this.get(instance.getSynchTimeout(), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        throw new ExecutionException(e);
+                    }
+                }
+
+                @Override
+                public Object get(long timeout, TimeUnit unit)
+                        throws InterruptedException, ExecutionException,
+                        TimeoutException {
+                    instance.read(timeout, unit, this);
+                    return super.get(timeout, unit);
+                }
+            };
+        }
+    }
+
     public static abstract class RemoteInvocationHandler implements InvocationHandler {
 
         private final Class<?> targetClass;
@@ -379,6 +740,12 @@ public class SocketServerInstanceImpl implements SocketServerInstance {
                 if (secure != null && (!secure.optional() || secureOptional)) {
                     message.setContents(instance.getCryptor().sealObject(message.getContents()));
                 }
+                if (ResultsStream.class.isAssignableFrom(method.getReturnType())) {
+                    Serializable messageKey = MESSAGE_ID.getAndIncrement();
+                    ResultsStream<Object> stream = new RemoteResultsStream(instance, messageKey);
+                    instance.send(message, stream, messageKey);
+                    return stream;
+                }
                 ResultsFuture<Object> results = new ResultsFuture<>() {
                     @Override
                     protected Object convertResult() throws ExecutionException {
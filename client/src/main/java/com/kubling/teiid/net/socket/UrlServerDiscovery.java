@@ -18,19 +18,27 @@
 
 package com.kubling.teiid.net.socket;
 
+import com.kubling.teiid.jdbc.JDBCPlugin;
 import com.kubling.teiid.net.HostInfo;
 import com.kubling.teiid.net.TeiidURL;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 /**
- * Simple URL discovery strategy with a random load balancing policy
+ * Simple URL discovery strategy with a configurable {@link LoadBalancingPolicy}, random by default
  */
 public class UrlServerDiscovery {
 
+    private static final Logger log = Logger.getLogger("org.teiid.client.sockets");
+
     private TeiidURL url;
+    private LoadBalancingPolicy policy = LoadBalancingPolicy.RANDOM;
 
     public UrlServerDiscovery() {
     }
@@ -45,10 +53,26 @@ public class UrlServerDiscovery {
 
     public void init(TeiidURL url, Properties p) {
         this.url = url;
+        String value = p.getProperty(TeiidURL.CONNECTION.LOAD_BALANCING_POLICY);
+        if (value != null) {
+            try {
+                this.policy = LoadBalancingPolicy.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                log.log(Level.WARNING, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20047, value, LoadBalancingPolicy.RANDOM));
+            }
+        }
+    }
+
+    public LoadBalancingPolicy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(LoadBalancingPolicy policy) {
+        this.policy = policy;
     }
 
     public HostInfo selectNextInstance(List<HostInfo> hosts) {
-        return hosts.remove((int) (Math.random() * hosts.size()));
+        return hosts.remove(policy.select(hosts, System.nanoTime(), ThreadLocalRandom.current()));
     }
 
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.netty.handler.codec.serialization;
+
+import com.kubling.teiid.client.RequestMessage;
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.net.socket.Message;
+import com.kubling.teiid.net.socket.ServiceInvocationStruct;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectOutput.*;
+
+/**
+ * An {@link ObjectInput} for the binary protocol, which is interoperable with {@link BinaryObjectOutput}.
+ */
+public class BinaryObjectInput extends DataInputStream implements ObjectInput {
+
+    private final ClassLoader classLoader;
+    private final ClassDictionary classDictionary;
+    private final int maxLength;
+
+    /**
+     * @param classDictionary the connection class dictionary used for values that fell back to serialization, may be null
+     * @param maxLength the maximum length of a string or array, normally the max object size
+     */
+    public BinaryObjectInput(InputStream in, ClassLoader classLoader, ClassDictionary classDictionary, int maxLength) {
+        super(in);
+        this.classLoader = classLoader;
+        this.classDictionary = classDictionary;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return true if the frame starting with the given byte was written by {@link BinaryObjectOutput#writeMessage(Message)}
+     */
+    public static boolean isBinaryFrame(int firstByte) {
+        return (firstByte & 0xFF) == BINARY_FRAME;
+    }
+
+    /**
+     * Read the remainder of a binary frame, after the first byte
+     */
+    public Message readMessage() throws IOException, ClassNotFoundException {
+        Message message = new Message();
+        message.setMessageKey((Serializable) readObject());
+        message.setContents(readObject());
+        return message;
+    }
+
+    @Override
+    public Object readObject() throws IOException, ClassNotFoundException {
+        int tag = readUnsignedByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString();
+            case TAG_INTEGER:
+                return readSignedVarInt();
+            case TAG_LONG:
+                return readVarLong();
+            case TAG_DOUBLE:
+                return readDouble();
+            case TAG_FLOAT:
+                return readFloat();
+            case TAG_SHORT:
+                return readShort();
+            case TAG_BYTE:
+                return readByte();
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_CHARACTER:
+                return readChar();
+            case TAG_BIG_DECIMAL:
+                int scale = readSignedVarInt();
+                return new BigDecimal(new BigInteger(readByteArray()), scale);
+            case TAG_BIG_INTEGER:
+                return new BigInteger(readByteArray());
+            case TAG_DATE:
+                return new java.sql.Date(readVarLong());
+            case TAG_TIME:
+                return new java.sql.Time(readVarLong());
+            case TAG_TIMESTAMP:
+                java.sql.Timestamp ts = new java.sql.Timestamp(readVarLong());
+                ts.setNanos(readVarInt());
+                return ts;
+            case TAG_BYTES:
+                return readByteArray();
+            case TAG_LIST:
+                int size = readVarInt();
+                checkLength(size);
+                List<Object> list = new ArrayList<>(Math.min(size, 1 << 10));
+                for (int i = 0; i < size; i++) {
+                    list.add(readObject());
+                }
+                return list;
+            case TAG_REQUEST:
+                RequestMessage request = new RequestMessage();
+                request.readBinary(this);
+                return request;
+            case TAG_RESULTS:
+                ResultsMessage results = new ResultsMessage();
+                results.readBinary(this);
+                return results;
+            case TAG_INVOCATION:
+                ServiceInvocationStruct struct = new ServiceInvocationStruct();
+                struct.readBinary(this);
+                return struct;
+            case TAG_SERIALIZED:
+                byte[] bytes = readByteArray();
+                CompactObjectInputStream cois = new CompactObjectInputStream(
+                        new ByteArrayInputStream(bytes), classLoader, classDictionary);
+                return cois.readObject();
+            default:
+                throw new StreamCorruptedException("Unexpected binary type: " + tag);
+        }
+    }
+
+    public int readVarInt() throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException("Invalid varint");
+    }
+
+    public int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        throw new StreamCorruptedException("Invalid varlong");
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        checkLength(length);
+        byte[] bytes = new byte[length];
+        readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public String[] readStringArray() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        checkLength(length);
+        String[] result = new String[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = readString();
+        }
+        return result;
+    }
+
+    private byte[] readByteArray() throws IOException {
+        int length = readVarInt();
+        checkLength(length);
+        byte[] bytes = new byte[length];
+        readFully(bytes);
+        return bytes;
+    }
+
+    private void checkLength(int length) throws StreamCorruptedException {
+        if (length < 0 || length > maxLength) {
+            throw new StreamCorruptedException("Invalid length: " + length);
+        }
+    }
+
+}
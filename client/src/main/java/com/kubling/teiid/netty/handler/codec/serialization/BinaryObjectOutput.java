@@ -0,0 +1,322 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.netty.handler.codec.serialization;
+
+import com.kubling.teiid.client.ColumnBatch;
+import com.kubling.teiid.client.RequestMessage;
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.core.types.BaseLob;
+import com.kubling.teiid.core.util.AccessibleByteArrayOutputStream;
+import com.kubling.teiid.net.socket.Message;
+import com.kubling.teiid.net.socket.ServiceInvocationStruct;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLXML;
+import java.util.List;
+
+/**
+ * An {@link ObjectOutput} for the binary protocol, which writes the hot request and response messages
+ * with a fixed schema rather than with Java serialization.
+ * <p>
+ * {@link #writeObject(Object)} writes a type tag followed by the value.  Strings, numbers, temporal values,
+ * byte arrays, lists and the protocol messages have their own tags, anything else is written as a length
+ * prefixed {@link CompactObjectOutputStream} payload.  Lengths and most integer fields are written as varints.
+ * <p>
+ * Interoperable with {@link BinaryObjectInput}.
+ */
+public class BinaryObjectOutput extends DataOutputStream implements ObjectOutput {
+
+    /**
+     * The highest binary protocol version, the version used is negotiated in the handshake
+     */
+    public static final byte VERSION = 2;
+
+    /**
+     * The version from which batched parameter values may be sent with the {@link com.kubling.teiid.client.BatchSerializer}
+     */
+    public static final byte VERSION_COLUMNAR_PARAMETERS = 2;
+
+    /**
+     * The first byte of a binary frame, which can't be confused with the serialization stream version
+     */
+    static final int BINARY_FRAME = 0xB1;
+
+    static final int TAG_NULL = 0;
+    static final int TAG_STRING = 1;
+    static final int TAG_INTEGER = 2;
+    static final int TAG_LONG = 3;
+    static final int TAG_DOUBLE = 4;
+    static final int TAG_FLOAT = 5;
+    static final int TAG_SHORT = 6;
+    static final int TAG_BYTE = 7;
+    static final int TAG_TRUE = 8;
+    static final int TAG_FALSE = 9;
+    static final int TAG_CHARACTER = 10;
+    static final int TAG_BIG_DECIMAL = 11;
+    static final int TAG_BIG_INTEGER = 12;
+    static final int TAG_DATE = 13;
+    static final int TAG_TIME = 14;
+    static final int TAG_TIMESTAMP = 15;
+    static final int TAG_BYTES = 16;
+    static final int TAG_LIST = 17;
+    static final int TAG_REQUEST = 20;
+    static final int TAG_RESULTS = 21;
+    static final int TAG_INVOCATION = 22;
+    static final int TAG_SERIALIZED = 127;
+
+    private ClassDictionary classDictionary;
+    private AccessibleByteArrayOutputStream serialized;
+    private byte version = VERSION;
+
+    public BinaryObjectOutput(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Use the connection class dictionary for values that fall back to serialization
+     */
+    public void setClassDictionary(ClassDictionary classDictionary) {
+        this.classDictionary = classDictionary;
+    }
+
+    /**
+     * Set the negotiated version, which determines the encodings that the peer understands
+     */
+    public void setVersion(byte version) {
+        this.version = version;
+    }
+
+    public byte getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true if the object is a message that has a binary form.  Messages that carry lobs
+     * or streams are left to the {@link CompactObjectOutputStream}, which sends them as chunks.
+     */
+    public static boolean isBinary(Object obj) {
+        if (!(obj instanceof Message message)) {
+            return false;
+        }
+        Object contents = message.getContents();
+        if (contents instanceof ResultsMessage) {
+            return true;
+        }
+        if (!(contents instanceof ServiceInvocationStruct struct)
+                || !CompactObjectOutputStream.KNOWN_CLASSES.containsKey(struct.targetClass)) {
+            return false;
+        }
+        if (struct.args != null) {
+            for (Object arg : struct.args) {
+                if (arg instanceof RequestMessage request) {
+                    for (Object value : request.getParameterValues()) {
+                        if (isStream(value)) {
+                            return false;
+                        }
+                    }
+                } else if (isStream(arg)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStream(Object value) {
+        if (value instanceof List<?> list) {
+            //batched parameter values
+            for (Object o : list) {
+                if (isStream(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return value instanceof BaseLob || value instanceof Blob || value instanceof Clob || value instanceof SQLXML
+                || value instanceof InputStream || value instanceof Reader;
+    }
+
+    /**
+     * Write a binary frame for a message accepted by {@link #isBinary(Object)}
+     */
+    public void writeMessage(Message message) throws IOException {
+        write(BINARY_FRAME);
+        writeObject(message.getMessageKey());
+        writeObject(message.getContents());
+    }
+
+    @Override
+    public void writeObject(Object obj) throws IOException {
+        if (obj == null) {
+            write(TAG_NULL);
+            return;
+        }
+        Class<?> clazz = obj.getClass();
+        if (clazz == String.class) {
+            write(TAG_STRING);
+            writeString((String) obj);
+        } else if (clazz == Integer.class) {
+            write(TAG_INTEGER);
+            writeSignedVarInt((Integer) obj);
+        } else if (clazz == Long.class) {
+            write(TAG_LONG);
+            writeVarLong((Long) obj);
+        } else if (clazz == Double.class) {
+            write(TAG_DOUBLE);
+            writeDouble((Double) obj);
+        } else if (clazz == Float.class) {
+            write(TAG_FLOAT);
+            writeFloat((Float) obj);
+        } else if (clazz == Short.class) {
+            write(TAG_SHORT);
+            writeShort((Short) obj);
+        } else if (clazz == Byte.class) {
+            write(TAG_BYTE);
+            writeByte((Byte) obj);
+        } else if (clazz == Boolean.class) {
+            write((Boolean) obj ? TAG_TRUE : TAG_FALSE);
+        } else if (clazz == Character.class) {
+            write(TAG_CHARACTER);
+            writeChar((Character) obj);
+        } else if (clazz == BigDecimal.class) {
+            BigDecimal bd = (BigDecimal) obj;
+            write(TAG_BIG_DECIMAL);
+            writeSignedVarInt(bd.scale());
+            writeByteArray(bd.unscaledValue().toByteArray());
+        } else if (clazz == BigInteger.class) {
+            write(TAG_BIG_INTEGER);
+            writeByteArray(((BigInteger) obj).toByteArray());
+        } else if (clazz == java.sql.Date.class) {
+            write(TAG_DATE);
+            writeVarLong(((java.sql.Date) obj).getTime());
+        } else if (clazz == java.sql.Time.class) {
+            write(TAG_TIME);
+            writeVarLong(((java.sql.Time) obj).getTime());
+        } else if (clazz == java.sql.Timestamp.class) {
+            java.sql.Timestamp ts = (java.sql.Timestamp) obj;
+            write(TAG_TIMESTAMP);
+            writeVarLong(ts.getTime());
+            writeVarInt(ts.getNanos());
+        } else if (clazz == byte[].class) {
+            write(TAG_BYTES);
+            writeByteArray((byte[]) obj);
+        } else if (obj instanceof List<?> list && (clazz.getName().startsWith("java.util.") || clazz == ColumnBatch.Row.class)) {
+            write(TAG_LIST);
+            writeVarInt(list.size());
+            for (Object o : list) {
+                writeObject(o);
+            }
+        } else if (clazz == RequestMessage.class) {
+            write(TAG_REQUEST);
+            ((RequestMessage) obj).writeBinary(this);
+        } else if (clazz == ResultsMessage.class) {
+            write(TAG_RESULTS);
+            ((ResultsMessage) obj).writeBinary(this);
+        } else if (clazz == ServiceInvocationStruct.class) {
+            write(TAG_INVOCATION);
+            ((ServiceInvocationStruct) obj).writeBinary(this);
+        } else {
+            writeSerialized(obj);
+        }
+    }
+
+    private void writeSerialized(Object obj) throws IOException {
+        if (serialized == null) {
+            serialized = new AccessibleByteArrayOutputStream(256);
+        }
+        serialized.reset();
+        CompactObjectOutputStream oout = new CompactObjectOutputStream(serialized, classDictionary);
+        oout.writeObject(obj);
+        oout.close();
+        if (!oout.getStreams().isEmpty()) {
+            throw new NotSerializableException(obj.getClass().getName());
+        }
+        write(TAG_SERIALIZED);
+        writeVarInt(serialized.getCount());
+        write(serialized.getBuffer(), 0, serialized.getCount());
+    }
+
+    /**
+     * Write a non-negative int in 1 to 5 bytes
+     */
+    public void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        write(value);
+    }
+
+    /**
+     * Write an int zig-zag encoded, so that small negative values such as -1 are also short
+     */
+    public void writeSignedVarInt(int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Write a long zig-zag encoded in 1 to 10 bytes
+     */
+    public void writeVarLong(long value) throws IOException {
+        value = (value << 1) ^ (value >> 63);
+        while ((value & ~0x7FL) != 0) {
+            write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    /**
+     * Write a possibly null string as the UTF-8 length plus one followed by the UTF-8 bytes
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write a possibly null string array as the length plus one followed by the strings
+     */
+    public void writeStringArray(String[] values) throws IOException {
+        if (values == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(values.length + 1);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    private void writeByteArray(byte[] bytes) throws IOException {
+        writeVarInt(bytes.length);
+        write(bytes, 0, bytes.length);
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.netty.handler.codec.serialization;
+
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns ids to classes that are not {@link CompactObjectOutputStream#KNOWN_CLASSES} the first
+ * time they are written on a connection, so that later messages only need to send the id.
+ * <p>
+ * An instance is used for a single direction of a single connection, by the {@link ObjectEncoderOutputStream}
+ * to assign ids or by the decoder to resolve them.  Ids are assigned sequentially, so frames must be
+ * decoded in the order they were encoded.  Not thread-safe, the channel serializes access.
+ */
+public final class ClassDictionary {
+
+    /**
+     * The maximum number of classes, after which classes are written in full
+     */
+    static final int MAX_SIZE = 1 << 12;
+
+    //write state
+    private final Map<Class<?>, Integer> ids = new HashMap<>();
+    private final List<Class<?>> written = new ArrayList<>();
+
+    //read state - the ObjectStreamClass read from the stream, the class name or the resolved Class
+    private final List<Object> entries = new ArrayList<>();
+    private final Map<String, Class<?>> resolved = new HashMap<>();
+
+    /**
+     * @return the id of the class or null if it has not been written
+     */
+    Integer getId(Class<?> clazz) {
+        return ids.get(clazz);
+    }
+
+    /**
+     * @return the new id of the class or -1 if the dictionary is full
+     */
+    int add(Class<?> clazz) {
+        int id = written.size();
+        if (id >= MAX_SIZE) {
+            return -1;
+        }
+        ids.put(clazz, id);
+        written.add(clazz);
+        return id;
+    }
+
+    /**
+     * @return a mark to {@link #rollback(int)} to if the message is not sent
+     */
+    int mark() {
+        return written.size();
+    }
+
+    /**
+     * Forget the classes added since the mark, as the peer will not see them.
+     */
+    void rollback(int mark) {
+        while (written.size() > mark) {
+            ids.remove(written.removeLast());
+        }
+    }
+
+    void define(int id, Object entry) throws StreamCorruptedException {
+        if (id != entries.size()) {
+            throw new StreamCorruptedException("Unexpected class dictionary id " + id + ", expected " + entries.size());
+        }
+        entries.add(entry);
+    }
+
+    void set(int id, Class<?> clazz) {
+        entries.set(id, clazz);
+    }
+
+    Object get(int id) throws StreamCorruptedException {
+        if (id < 0 || id >= entries.size()) {
+            throw new StreamCorruptedException("Unknown class dictionary id " + id);
+        }
+        return entries.get(id);
+    }
+
+    /**
+     * @return the previously resolved class of the given name, or null
+     */
+    Class<?> getResolved(String name) {
+        return resolved.get(name);
+    }
+
+    void putResolved(String name, Class<?> clazz) {
+        resolved.put(name, clazz);
+    }
+
+    /**
+     * @return the number of classes written or read
+     */
+    public int size() {
+        return Math.max(written.size(), entries.size());
+    }
+
+}
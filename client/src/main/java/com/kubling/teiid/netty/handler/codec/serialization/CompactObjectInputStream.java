@@ -32,14 +32,24 @@ import java.util.logging.Logger;
 public class CompactObjectInputStream extends ObjectInputStream {
 
     private final ClassLoader classLoader;
+    private final ClassDictionary dictionary;
 
     CompactObjectInputStream(InputStream in) throws IOException {
         this(in, null);
     }
 
     public CompactObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+        this(in, classLoader, null);
+    }
+
+    /**
+     * @param dictionary the connection class dictionary, which also caches class resolution,
+     * or null if the peer does not use one
+     */
+    public CompactObjectInputStream(InputStream in, ClassLoader classLoader, ClassDictionary dictionary) throws IOException {
         super(in);
         this.classLoader = classLoader;
+        this.dictionary = dictionary;
     }
 
     @Override
@@ -63,13 +73,28 @@ public class CompactObjectInputStream extends ObjectInputStream {
             case CompactObjectOutputStream.TYPE_PRIMITIVE:
                 return super.readClassDescriptor();
             case CompactObjectOutputStream.TYPE_NON_PRIMITIVE:
-                String className = readUTF();
-                if (classLoader == null) {
-                    clazz = Class.forName(
-                            className, true,
-                            CompactObjectInputStream.class.getClassLoader());
+                return ObjectStreamClass.lookupAny(forName(readUTF()));
+            case CompactObjectOutputStream.TYPE_DICTIONARY:
+            case CompactObjectOutputStream.TYPE_DEFINE_PRIMITIVE:
+            case CompactObjectOutputStream.TYPE_DEFINE_NON_PRIMITIVE:
+                if (dictionary == null) {
+                    throw new StreamCorruptedException("Unexpected class dictionary type: " + type);
+                }
+                int id = readUnsignedShort();
+                if (type == CompactObjectOutputStream.TYPE_DEFINE_PRIMITIVE) {
+                    dictionary.define(id, super.readClassDescriptor());
+                } else if (type == CompactObjectOutputStream.TYPE_DEFINE_NON_PRIMITIVE) {
+                    dictionary.define(id, readUTF());
+                }
+                Object entry = dictionary.get(id);
+                if (entry instanceof ObjectStreamClass desc) {
+                    return desc;
+                }
+                if (entry instanceof String className) {
+                    clazz = forName(className);
+                    dictionary.set(id, clazz);
                 } else {
-                    clazz = Class.forName(className, true, classLoader);
+                    clazz = (Class<?>) entry;
                 }
                 return ObjectStreamClass.lookupAny(clazz);
             default:
@@ -82,10 +107,33 @@ public class CompactObjectInputStream extends ObjectInputStream {
         }
     }
 
+    private Class<?> forName(String className) throws ClassNotFoundException {
+        if (classLoader == null) {
+            return Class.forName(className, true, CompactObjectInputStream.class.getClassLoader());
+        }
+        return Class.forName(className, true, classLoader);
+    }
+
     @Override
     protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
         String name = desc.getName();
 
+        if (dictionary != null) {
+            //only classes that passed the check are cached
+            Class<?> clazz = dictionary.getResolved(name);
+            if (clazz != null) {
+                return clazz;
+            }
+            clazz = doResolveClass(desc);
+            dictionary.putResolved(name, clazz);
+            return clazz;
+        }
+        return doResolveClass(desc);
+    }
+
+    private Class<?> doResolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        String name = desc.getName();
+
         try {
             ObjectInputStreamWithClassloader.checkClass(name);
         } catch (ClassNotFoundException e) {
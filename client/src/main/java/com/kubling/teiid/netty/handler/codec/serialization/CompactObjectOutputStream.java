@@ -58,14 +58,23 @@ public class CompactObjectOutputStream extends ObjectOutputStream {
 
     static final int TYPE_PRIMITIVE = 0;
     static final int TYPE_NON_PRIMITIVE = 1;
+    //class dictionary references and definitions
+    static final int TYPE_DICTIONARY = 7;
+    static final int TYPE_DEFINE_PRIMITIVE = 8;
+    static final int TYPE_DEFINE_NON_PRIMITIVE = 9;
 
     public static final Map<Class<?>, Integer> KNOWN_CLASSES = new HashMap<>();
     public static final Map<Integer, Class<?>> KNOWN_CODES = new HashMap<>();
 
     private final List<InputStream> streams = new LinkedList<>();
     private final List<StreamFactoryReference> references = new LinkedList<>();
+    private final ClassDictionary dictionary;
 
     public static void addKnownClass(Class<?> clazz, byte code) {
+        if (code == TYPE_PRIMITIVE || code == TYPE_NON_PRIMITIVE
+                || (code >= TYPE_DICTIONARY && code <= TYPE_DEFINE_NON_PRIMITIVE)) {
+            throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20007, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20007));
+        }
         KNOWN_CLASSES.put(clazz, (int) code);
         if (KNOWN_CODES.put((int) code, clazz) != null) {
             throw new TeiidRuntimeException(JDBCPlugin.Event.TEIID20007, JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20007));
@@ -113,7 +122,15 @@ public class CompactObjectOutputStream extends ObjectOutputStream {
     }
 
     public CompactObjectOutputStream(OutputStream out) throws IOException {
+        this(out, null);
+    }
+
+    /**
+     * @param dictionary the connection class dictionary or null to always write full class descriptors
+     */
+    public CompactObjectOutputStream(OutputStream out, ClassDictionary dictionary) throws IOException {
         super(out);
+        this.dictionary = dictionary;
         enableReplaceObject(true);
     }
 
@@ -139,19 +156,40 @@ public class CompactObjectOutputStream extends ObjectOutputStream {
 
     @Override
     protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
-        if (desc.forClass().isPrimitive()
-                || !(Externalizable.class.isAssignableFrom(desc.forClass()))) {
-            write(TYPE_PRIMITIVE);
-            super.writeClassDescriptor(desc);
-        } else {
-            Integer b = KNOWN_CLASSES.get(desc.forClass());
+        Class<?> clazz = desc.forClass();
+        boolean primitive = clazz.isPrimitive() || !(Externalizable.class.isAssignableFrom(clazz));
+        if (!primitive) {
+            Integer b = KNOWN_CLASSES.get(clazz);
             if (b != null) {
                 write(b);
-            } else {
-                write(TYPE_NON_PRIMITIVE);
-                writeUTF(desc.getName());
+                return;
+            }
+        }
+        if (dictionary != null) {
+            Integer id = dictionary.getId(clazz);
+            if (id != null) {
+                write(TYPE_DICTIONARY);
+                writeShort(id);
+                return;
+            }
+            int newId = dictionary.add(clazz);
+            if (newId >= 0) {
+                write(primitive ? TYPE_DEFINE_PRIMITIVE : TYPE_DEFINE_NON_PRIMITIVE);
+                writeShort(newId);
+                writeDescriptor(desc, primitive);
+                return;
             }
         }
+        write(primitive ? TYPE_PRIMITIVE : TYPE_NON_PRIMITIVE);
+        writeDescriptor(desc, primitive);
+    }
+
+    private void writeDescriptor(ObjectStreamClass desc, boolean primitive) throws IOException {
+        if (primitive) {
+            super.writeClassDescriptor(desc);
+        } else {
+            writeUTF(desc.getName());
+        }
     }
 
     @Override
@@ -166,14 +204,16 @@ public class CompactObjectOutputStream extends ObjectOutputStream {
                         return sfr;
                     }
                     case ClobImpl clob -> {
-                        streams.add(new ReaderInputStream(clob.getCharacterStream(),
+                        InputStream file = getFileStream(clob, false);
+                        streams.add(file != null ? file : new ReaderInputStream(clob.getCharacterStream(),
                                 Charset.forName(Streamable.ENCODING)));
                         StreamFactoryReference sfr = new ClobImpl();
                         references.add(sfr);
                         return sfr;
                     }
-                    case BlobImpl ignored -> {
-                        streams.add(((Blob) obj).getBinaryStream());
+                    case BlobImpl blob -> {
+                        InputStream file = getFileStream(blob, true);
+                        streams.add(file != null ? file : blob.getBinaryStream());
                         StreamFactoryReference sfr = new BlobImpl();
                         references.add(sfr);
                         return sfr;
@@ -221,6 +261,22 @@ public class CompactObjectOutputStream extends ObjectOutputStream {
         return super.replaceObject(obj);
     }
 
+    /**
+     * Open the backing file directly so that the {@link ObjectEncoderOutputStream} may transfer it
+     * without copying.  A clob file qualifies only if it is already in the transfer encoding.
+     *
+     * @return the stream or null if the lob is not file backed
+     */
+    private static InputStream getFileStream(BaseLob lob, boolean binary) throws SQLException, IOException {
+        if (!(lob.getStreamFactory() instanceof InputStreamFactory.FileInputStreamFactory factory)) {
+            return null;
+        }
+        if (!binary && lob.getCharset() != null && !Streamable.CHARSET.equals(lob.getCharset())) {
+            return null;
+        }
+        return new FileInputStream(factory.getFile());
+    }
+
     static class SerializableInputStream extends InputStream implements Externalizable, StreamFactoryReference {
 
         private InputStreamFactory isf;
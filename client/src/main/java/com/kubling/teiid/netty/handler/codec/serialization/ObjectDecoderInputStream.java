@@ -25,11 +25,17 @@ import com.kubling.teiid.core.util.ObjectConverterUtil;
 import com.kubling.teiid.jdbc.JDBCPlugin;
 
 import java.io.*;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 
 /**
  * An {@link ObjectInput} which is interoperable {@link ObjectEncoderOutputStream}.
+ * <p>
+ * A negative frame length indicates a compressed frame of that many bytes, consisting of the
+ * uncompressed length followed by the deflated object bytes.
  *
  * @author The Netty Project (netty-dev@lists.jboss.org)
  * @author Trustin Lee (tlee@redhat.com)
@@ -43,6 +49,8 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
     private final DataInput dis;
     private final ClassLoader classLoader;
     private final int maxObjectSize;
+    private volatile ClassDictionary classDictionary;
+    private volatile boolean binaryProtocol;
 
     private int remaining;
     private boolean foundLength;
@@ -74,6 +82,10 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
     private int streamIndex;
     private OutputStream stream;
     private List<StreamFactoryReference> streams;
+    private byte[] chunkBuffer;
+
+    private volatile long bytesRead;
+    private volatile long payloadBytesRead;
 
     public ObjectDecoderInputStream(AccessibleBufferedInputStream in, ClassLoader classLoader, int maxObjectSize) 
             throws SecurityException, IOException {
@@ -84,6 +96,20 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
         this.maxObjectSize = maxObjectSize;
     }
 
+    /**
+     * Should be set before the peer starts encoding with its own dictionary.
+     */
+    public void setClassDictionary(ClassDictionary classDictionary) {
+        this.classDictionary = classDictionary;
+    }
+
+    /**
+     * Accept binary frames.  Should be set before the peer may send one.
+     */
+    public void setBinaryProtocol(boolean binaryProtocol) {
+        this.binaryProtocol = binaryProtocol;
+    }
+
     @Override
     protected final Object readObjectOverride() throws IOException,
             ClassNotFoundException {
@@ -91,17 +117,47 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
             if (!foundLength) {
                 clearRemaining();
                 remaining = dis.readInt();
-                if (remaining <= 0) {
+                if (remaining == 0 || remaining == Integer.MIN_VALUE) {
                     throw new StreamCorruptedException("invalid data length: " + remaining);
                 }
-                if (remaining > maxObjectSize) {
-                    throw new StreamCorruptedException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20028, remaining, maxObjectSize));
+                if (Math.abs(remaining) > maxObjectSize) {
+                    throw new StreamCorruptedException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20028, Math.abs(remaining), maxObjectSize));
                 }
             }
             foundLength = false;
-            CompactObjectInputStream cois = new CompactObjectInputStream(subStream, classLoader);
-            result = cois.readObject();
-            streams = ExternalizeUtil.readList(cois, StreamFactoryReference.class);
+            InputStream objectStream = subStream;
+            if (remaining < 0) {
+                int length = -remaining;
+                remaining = 0;
+                byte[] frame = new byte[length];
+                dis.readFully(frame);
+                bytesRead += length + 4;
+                objectStream = new ByteArrayInputStream(inflate(frame, maxObjectSize));
+                payloadBytesRead += objectStream.available() + 4;
+            } else {
+                bytesRead += remaining + 4;
+                payloadBytesRead += remaining + 4;
+            }
+            if (binaryProtocol) {
+                PushbackInputStream pis = new PushbackInputStream(objectStream, 1);
+                int first = pis.read();
+                if (first < 0) {
+                    throw new EOFException();
+                }
+                if (BinaryObjectInput.isBinaryFrame(first)) {
+                    result = new BinaryObjectInput(pis, classLoader, classDictionary, maxObjectSize).readMessage();
+                    streams = Collections.emptyList();
+                    objectStream = null;
+                } else {
+                    pis.unread(first);
+                    objectStream = pis;
+                }
+            }
+            if (objectStream != null) {
+                CompactObjectInputStream cois = new CompactObjectInputStream(objectStream, classLoader, classDictionary);
+                result = cois.readObject();
+                streams = ExternalizeUtil.readList(cois, StreamFactoryReference.class);
+            }
             streamIndex = 0;
         }
         while (streamIndex < streams.size()) {
@@ -109,6 +165,8 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
                 clearRemaining();
                 remaining = 0xffff & dis.readShort(); //convert to unsigned
                 foundLength = true;
+                bytesRead += remaining + 2;
+                payloadBytesRead += remaining + 2;
                 if (remaining < 0) {
                     throw new StreamCorruptedException("Invalid stream chunk length");
                 }
@@ -135,7 +193,11 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
                     remaining -= available;
                 }
                 if (remaining > 0) {
-                    ObjectConverterUtil.write(this.stream, in, in.getBuffer(), remaining, false);
+                    if (chunkBuffer == null) {
+                        //reading into the buffer of the input stream itself would overwrite partial reads
+                        chunkBuffer = new byte[in.getBuffer().length];
+                    }
+                    ObjectConverterUtil.write(this.stream, in, chunkBuffer, remaining, false);
                     remaining = 0;
                 }
                 continue;
@@ -151,6 +213,57 @@ public class ObjectDecoderInputStream extends ObjectInputStream {
         return toReturn;
     }
 
+    /**
+     * Inflate a compressed frame, which starts with the uncompressed length.
+     */
+    public static byte[] inflate(byte[] frame, int maxObjectSize) throws IOException {
+        if (frame.length < 4) {
+            throw new StreamCorruptedException("invalid compressed data length: " + frame.length);
+        }
+        int length = ((frame[0] & 0xff) << 24) | ((frame[1] & 0xff) << 16) | ((frame[2] & 0xff) << 8) | (frame[3] & 0xff);
+        if (length <= 0) {
+            throw new StreamCorruptedException("invalid data length: " + length);
+        }
+        if (length > maxObjectSize) {
+            throw new StreamCorruptedException(JDBCPlugin.Util.gs(JDBCPlugin.Event.TEIID20028, length, maxObjectSize));
+        }
+        byte[] result = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(frame, 4, frame.length - 4);
+            int count = 0;
+            while (count < length) {
+                int inflated = inflater.inflate(result, count, length - count);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                count += inflated;
+            }
+            if (count != length) {
+                throw new StreamCorruptedException("invalid compressed data, expected " + length + " bytes but found " + count);
+            }
+        } catch (DataFormatException e) {
+            throw new StreamCorruptedException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of bytes read, including framing
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the number of bytes read after decompression
+     */
+    public long getPayloadBytesRead() {
+        return payloadBytesRead;
+    }
+
     void clearRemaining() throws IOException {
         while (remaining > 0) {
             long skipped = in.skip(remaining);
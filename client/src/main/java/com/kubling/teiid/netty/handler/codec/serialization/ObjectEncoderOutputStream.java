@@ -17,38 +17,174 @@
  */
 package com.kubling.teiid.netty.handler.codec.serialization;
 
+import com.kubling.teiid.core.util.BufferPool;
 import com.kubling.teiid.core.util.ExternalizeUtil;
 import com.kubling.teiid.core.util.MultiArrayOutputStream;
+import com.kubling.teiid.net.socket.Message;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.zip.Deflater;
 
 
 /**
  * An {@link ObjectOutput} which is interoperable with {@link ObjectDecoderInputStream}.
+ * <p>
+ * Once compression is enabled, object frames larger than the threshold are deflated
+ * and written with a negative length, see {@link ObjectDecoderInputStream}.
+ * Lob chunks are never compressed.
+ * <p>
+ * Buffers beyond the initial size are taken from the shared {@link BufferPool} and
+ * returned once each object has been written.
+ * <p>
+ * If a {@link FileRegionWriter} is set, chunks of file backed lobs are handed to it rather
+ * than being copied through the heap.
+ * <p>
+ * If a {@link ClassDictionary} is set, classes are only described in full the first time they are written.
+ * <p>
+ * Once the binary protocol is enabled, messages accepted by {@link BinaryObjectOutput#isBinary(Object)}
+ * are written as binary frames rather than with Java serialization.
  *
  * @author The Netty Project (netty-dev@lists.jboss.org)
  * @author Trustin Lee (tlee@redhat.com)
  */
 public class ObjectEncoderOutputStream extends ObjectOutputStream {
 
+    /**
+     * Writes a region of a file directly to the underlying channel.
+     */
+    public interface FileRegionWriter {
+        /**
+         * Called after all preceding bytes have been flushed to the underlying stream.
+         * Must not return until the file may be closed.
+         */
+        void writeFileRegion(FileChannel file, long position, long count) throws IOException;
+    }
+
+    static final int MAX_CHUNK_SIZE = (1 << 16) - 2;
+
     private final DataOutputStream out;
     private final MultiArrayOutputStream baos;
 
+    private int compressionThreshold = -1;
+    private Deflater deflater;
+    private MultiArrayOutputStream compressed;
+    private byte[] deflateBuffer;
+
+    private volatile long bytesWritten;
+    private volatile long payloadBytesWritten;
+
+    private FileRegionWriter fileRegionWriter;
+    private ClassDictionary classDictionary;
+    private BinaryObjectOutput binaryOutput;
+
     public ObjectEncoderOutputStream(DataOutputStream out, int initialBufferSize)
             throws SecurityException, IOException {
         super();
         this.out = out;
-        baos = new MultiArrayOutputStream(initialBufferSize);
+        baos = new MultiArrayOutputStream(initialBufferSize, BufferPool.getSharedPool());
+    }
+
+    /**
+     * Compress object frames with more than the given number of bytes.
+     * Should only be set once the peer is known to understand compressed frames.
+     *
+     * @param compressionThreshold the threshold or -1 to disable compression
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+        if (compressionThreshold >= 0 && deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED, true);
+            compressed = new MultiArrayOutputStream(baos.getBuffers()[0].length, BufferPool.getSharedPool());
+            deflateBuffer = new byte[1 << 13];
+        }
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setFileRegionWriter(FileRegionWriter fileRegionWriter) {
+        this.fileRegionWriter = fileRegionWriter;
+    }
+
+    /**
+     * Should only be set once the peer is known to decode with its own dictionary, starting from the next object.
+     */
+    public void setClassDictionary(ClassDictionary classDictionary) {
+        this.classDictionary = classDictionary;
+        if (binaryOutput != null) {
+            binaryOutput.setClassDictionary(classDictionary);
+        }
+    }
+
+    /**
+     * Should only be set once the peer is known to understand binary frames.
+     */
+    public void setBinaryProtocol(boolean binaryProtocol) {
+        setBinaryProtocolVersion(binaryProtocol ? BinaryObjectOutput.VERSION : 0);
+    }
+
+    /**
+     * Should only be set once the peer is known to understand binary frames of the given version, 0 to disable.
+     */
+    public void setBinaryProtocolVersion(byte version) {
+        if (version <= 0) {
+            binaryOutput = null;
+            return;
+        }
+        if (binaryOutput == null) {
+            binaryOutput = new BinaryObjectOutput(baos);
+            binaryOutput.setClassDictionary(classDictionary);
+        }
+        binaryOutput.setVersion(version);
+    }
+
+    public boolean isBinaryProtocol() {
+        return binaryOutput != null;
+    }
+
+    public ClassDictionary getClassDictionary() {
+        return classDictionary;
+    }
+
+    /**
+     * @return the number of bytes written, including framing
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return the number of bytes that would have been written without compression
+     */
+    public long getPayloadBytesWritten() {
+        return payloadBytesWritten;
     }
 
     @Override
     final protected void writeObjectOverride(Object obj) throws IOException {
         baos.reset(4);
-        CompactObjectOutputStream oout = new CompactObjectOutputStream(baos);
-        oout.writeObject(obj);
-        ExternalizeUtil.writeCollection(oout, oout.getReferences());
-        oout.flush();
-        oout.close();
+        int mark = classDictionary == null ? 0 : classDictionary.mark();
+        CompactObjectOutputStream oout = null;
+        try {
+            if (binaryOutput != null && BinaryObjectOutput.isBinary(obj)) {
+                binaryOutput.writeMessage((Message) obj);
+            } else {
+                oout = new CompactObjectOutputStream(baos, classDictionary);
+                oout.writeObject(obj);
+                ExternalizeUtil.writeCollection(oout, oout.getReferences());
+                oout.flush();
+                oout.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            //the peer will not see the classes defined by this object
+            if (classDictionary != null) {
+                classDictionary.rollback(mark);
+            }
+            baos.reset(0);
+            throw e;
+        }
 
         int val = baos.getCount() - 4;
         byte[] b = baos.getBuffers()[0];
@@ -56,40 +192,140 @@ public class ObjectEncoderOutputStream extends ObjectOutputStream {
         b[2] = (byte) (val >>> 8);
         b[1] = (byte) (val >>> 16);
         b[0] = (byte) (val >>> 24);
-        baos.writeTo(out);
+        payloadBytesWritten += val + 4;
+        if (compressionThreshold >= 0 && val > compressionThreshold && compress(val)) {
+            compressed.writeTo(out);
+            bytesWritten += compressed.getCount();
+            compressed.reset(0);
+        } else {
+            baos.writeTo(out);
+            bytesWritten += val + 4;
+        }
 
-        if (!oout.getStreams().isEmpty()) {
+        if (oout != null && !oout.getStreams().isEmpty()) {
             baos.reset(0);
-            byte[] chunk = new byte[(1 << 16)];
-            for (InputStream is : oout.getStreams()) {
-                while (true) {
-                    int bytes = is.read(chunk, 2, chunk.length - 2);
-                    int toWrite = Math.max(0, bytes);
-                    chunk[1] = (byte) (toWrite >>> 0);
-                    chunk[0] = (byte) (toWrite >>> 8);
-                    if (baos.getIndex() + toWrite + 2 > b.length) {
-                        //exceeds the first buffer
-                        baos.writeTo(out);
-                        baos.reset(0);
-                        out.write(chunk, 0, toWrite + 2);
-                    } else {
-                        //buffer the small chunk
-                        baos.write(chunk, 0, toWrite + 2);
-                    }
-                    if (bytes < 1) {
-                        is.close();
-                        break;
-                    }
+            byte[] chunk = BufferPool.getSharedPool().take(1 << 16);
+            try {
+                writeStreams(oout, chunk, b.length);
+            } finally {
+                BufferPool.getSharedPool().give(chunk);
+            }
+        }
+        //return any grown buffers to the pool
+        baos.reset(0);
+    }
+
+    private void writeStreams(CompactObjectOutputStream oout, byte[] chunk, int bufferSize) throws IOException {
+        for (InputStream is : oout.getStreams()) {
+            if (fileRegionWriter != null && is instanceof FileInputStream fis) {
+                writeFileChunks(fis, bufferSize);
+                continue;
+            }
+            while (true) {
+                int bytes = is.read(chunk, 2, chunk.length - 2);
+                int toWrite = Math.max(0, bytes);
+                chunk[1] = (byte) (toWrite >>> 0);
+                chunk[0] = (byte) (toWrite >>> 8);
+                bytesWritten += toWrite + 2;
+                payloadBytesWritten += toWrite + 2;
+                if (baos.getIndex() + toWrite + 2 > bufferSize) {
+                    //exceeds the first buffer
+                    baos.writeTo(out);
+                    baos.reset(0);
+                    out.write(chunk, 0, toWrite + 2);
+                } else {
+                    //buffer the small chunk
+                    baos.write(chunk, 0, toWrite + 2);
+                }
+                if (bytes < 1) {
+                    is.close();
+                    break;
                 }
             }
-            if (baos.getIndex() > 0) {
+        }
+        if (baos.getIndex() > 0) {
+            baos.writeTo(out);
+        }
+    }
+
+    /**
+     * Write the file as chunks with only the chunk headers going through the buffer.
+     */
+    private void writeFileChunks(FileInputStream fis, int bufferSize) throws IOException {
+        try (fis) {
+            FileChannel file = fis.getChannel();
+            long position = file.position();
+            long end = file.size();
+            byte[] header = new byte[2];
+            while (true) {
+                int toWrite = (int) Math.min(MAX_CHUNK_SIZE, Math.max(0, end - position));
+                header[1] = (byte) (toWrite >>> 0);
+                header[0] = (byte) (toWrite >>> 8);
+                if (baos.getIndex() + 2 > bufferSize) {
+                    baos.writeTo(out);
+                    baos.reset(0);
+                }
+                baos.write(header, 0, 2);
+                bytesWritten += toWrite + 2;
+                payloadBytesWritten += toWrite + 2;
+                if (toWrite == 0) {
+                    break;
+                }
                 baos.writeTo(out);
+                baos.reset(0);
+                out.flush();
+                fileRegionWriter.writeFileRegion(file, position, toWrite);
+                position += toWrite;
+            }
+        }
+    }
+
+    /**
+     * Deflate the frame in baos into the compressed buffer, prefixed by the negated
+     * compressed length and the uncompressed length.
+     *
+     * @return false if compression did not reduce the size
+     */
+    private boolean compress(int length) throws IOException {
+        compressed.reset(8);
+        deflater.reset();
+        byte[][] buffers = baos.getBuffers();
+        for (int i = 0; i < buffers.length && buffers[i] != null; i++) {
+            boolean last = i + 1 == buffers.length || buffers[i + 1] == null;
+            int off = i == 0 ? 4 : 0;
+            deflater.setInput(buffers[i], off, (last ? baos.getIndex() : buffers[i].length) - off);
+            while (!deflater.needsInput()) {
+                compressed.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            compressed.write(deflateBuffer, 0, deflater.deflate(deflateBuffer));
+            if (compressed.getCount() >= length) {
+                return false;
             }
         }
+        int val = -(compressed.getCount() - 4);
+        if (-val >= length) {
+            return false;
+        }
+        byte[] b = compressed.getBuffers()[0];
+        b[0] = (byte) (val >>> 24);
+        b[1] = (byte) (val >>> 16);
+        b[2] = (byte) (val >>> 8);
+        b[3] = (byte) (val >>> 0);
+        b[4] = (byte) (length >>> 24);
+        b[5] = (byte) (length >>> 16);
+        b[6] = (byte) (length >>> 8);
+        b[7] = (byte) (length >>> 0);
+        return true;
     }
 
     @Override
     public void close() throws IOException {
+        if (deflater != null) {
+            deflater.end();
+        }
         out.close();
     }
 
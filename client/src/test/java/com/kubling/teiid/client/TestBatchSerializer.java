@@ -53,6 +53,15 @@ public class TestBatchSerializer {
         in.close();
 
         assertEquals(batchList, newBatch);
+
+        in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        List<List<Object>> columnBatch = BatchSerializer.readBatch(in, types, true);
+        in.close();
+
+        if (batch.length > 0) {
+            assertInstanceOf(ColumnBatch.class, columnBatch);
+        }
+        assertEquals(batchList, columnBatch);
         return newBatch;
     }
 
@@ -219,4 +228,61 @@ public class TestBatchSerializer {
         assertInstanceOf(ClobType.class, val);
     }
 
+    @Test
+    public void testColumnBatch() throws IOException, ClassNotFoundException {
+        String[] types = {DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.LONG,
+                DataTypeManager.DefaultDataTypes.DOUBLE, DataTypeManager.DefaultDataTypes.STRING};
+        List<?>[] batch = new List[]{Arrays.asList(1, 2L, 3.5d, "a"), Arrays.asList(null, null, null, null),
+                Arrays.asList(-1, Long.MAX_VALUE, -0.5d, "b")};
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(byteStream);
+        BatchSerializer.writeBatch(out, types, Arrays.asList(batch), BatchSerializer.CURRENT_VERSION);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(byteStream.toByteArray()));
+        ColumnBatch result = (ColumnBatch) BatchSerializer.readBatch(in, types, true);
+        assertEquals(4, result.getColumnCount());
+        assertTrue(result.isIntColumn(0));
+        assertTrue(result.isLongColumn(1));
+        assertTrue(result.isDoubleColumn(2));
+        assertFalse(result.isIntColumn(3));
+        assertEquals(-1, result.getInt(2, 0));
+        assertEquals(Long.MAX_VALUE, result.getLong(2, 1));
+        assertEquals(3.5d, result.getDouble(0, 2), 0);
+        assertTrue(result.isNull(1, 0));
+        assertEquals(0, result.getInt(1, 0));
+        assertFalse(result.isNull(0, 0));
+        assertNull(result.get(1).get(2));
+
+        //setting a value converts the column
+        result.get(1).set(0, 5);
+        assertFalse(result.isIntColumn(0));
+        assertEquals(Arrays.asList(1, 5, -1), Arrays.asList(result.getValue(0, 0), result.getValue(1, 0), result.getValue(2, 0)));
+    }
+
+    @Test
+    public void testWritePrimitiveColumns() throws IOException, ClassNotFoundException {
+        byte[] nulls = new byte[1];
+        nulls[0] = (byte) 0x40; //the second row
+        ColumnBatch batch = new ColumnBatch(3, new Object[]{new int[]{1, 0, 3}, new long[]{4, 5, 6},
+                new double[]{0.5, 1.5, 2.5}, new Object[]{"a", null, new java.util.Date(1)}}, new byte[][]{nulls, null, null, null});
+        String[] types = BatchSerializer.getBatchTypes(batch);
+        assertArrayEquals(new String[]{DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.LONG,
+                DataTypeManager.DefaultDataTypes.DOUBLE, DataTypeManager.DefaultDataTypes.OBJECT}, types);
+
+        List<List<Object>> result = helpTestSerialization(types, batch.toArray(new List<?>[0]), BatchSerializer.CURRENT_VERSION);
+        assertEquals(Arrays.asList(1, 4L, 0.5d, "a"), result.get(0));
+        assertEquals(Arrays.asList(null, 5L, 1.5d, null), result.get(1));
+        assertEquals(Arrays.asList(3, 6L, 2.5d, new java.util.Date(1)), result.get(2));
+    }
+
+    @Test
+    public void testGetBatchTypes() {
+        assertArrayEquals(new String[]{DataTypeManager.DefaultDataTypes.STRING, DataTypeManager.DefaultDataTypes.NULL,
+                DataTypeManager.DefaultDataTypes.OBJECT}, BatchSerializer.getBatchTypes(
+                Arrays.asList(Arrays.asList("a", null, 1), Arrays.asList(null, null, 1L))));
+        assertNull(BatchSerializer.getBatchTypes(Arrays.asList(Arrays.asList(1), Arrays.asList(1, 2))));
+        assertNull(BatchSerializer.getBatchTypes(Arrays.asList()));
+    }
+
 }
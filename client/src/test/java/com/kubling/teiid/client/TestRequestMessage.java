@@ -20,13 +20,18 @@ package com.kubling.teiid.client;
 
 import com.kubling.teiid.core.TeiidProcessingException;
 import com.kubling.teiid.core.util.UnitTestUtil;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectInput;
+import com.kubling.teiid.netty.handler.codec.serialization.BinaryObjectOutput;
 import com.kubling.teiid.netty.handler.codec.serialization.CompactObjectInputStream;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -64,8 +69,55 @@ public class TestRequestMessage {
 
     @Test
     public void testSerialize() throws Exception {
-        RequestMessage copy = UnitTestUtil.helpSerialize(example());
+        assertCopy(UnitTestUtil.helpSerialize(example()));
+    }
+
+    @Test
+    public void testBinary() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinaryObjectOutput out = new BinaryObjectOutput(baos);
+        example().writeBinary(out);
+        RequestMessage copy = new RequestMessage();
+        copy.readBinary(new BinaryObjectInput(new ByteArrayInputStream(baos.toByteArray()),
+                RequestMessage.class.getClassLoader(), null, 1 << 16));
+        assertCopy(copy);
+        assertEquals(baos.size(), out.size());
+    }
+
+    @Test
+    public void testBinaryColumnarParameters() throws Exception {
+        RequestMessage message = new RequestMessage();
+        message.setBatchedUpdate(true);
+        List<List<?>> params = new ArrayList<>();
+        params.add(Arrays.asList(1, "a"));
+        params.add(Arrays.asList(2, null));
+        params.addAll(new ColumnBatch(2, new Object[]{new int[]{3, 4}, new Object[]{"b", "c"}}, new byte[2][]));
+        message.setParameterValues(params);
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinaryObjectOutput out = new BinaryObjectOutput(baos);
+        message.writeBinary(out);
+        RequestMessage copy = new RequestMessage();
+        copy.readBinary(new BinaryObjectInput(new ByteArrayInputStream(baos.toByteArray()),
+                RequestMessage.class.getClassLoader(), null, 1 << 16));
+        assertArrayEquals(new String[]{"integer", "string"}, copy.getParameterTypes());
+        assertEquals(Arrays.asList(Arrays.asList(1, "a"), Arrays.asList(2, null), Arrays.asList(3, "b"),
+                Arrays.asList(4, "c")), copy.getParameterValues());
+
+        //the first version sends each row
+        baos.reset();
+        out = new BinaryObjectOutput(baos);
+        out.setVersion((byte) 1);
+        message.writeBinary(out);
+        copy = new RequestMessage();
+        copy.readBinary(new BinaryObjectInput(new ByteArrayInputStream(baos.toByteArray()),
+                RequestMessage.class.getClassLoader(), null, 1 << 16));
+        assertNull(copy.getParameterTypes());
+        assertEquals(4, copy.getParameterValues().size());
+        assertEquals(Arrays.asList(3, "b"), copy.getParameterValues().get(2));
+    }
 
+    private void assertCopy(RequestMessage copy) {
         assertTrue(copy.isCallableStatement());
         assertEquals(100, copy.getFetchSize());
         assertNotNull(copy.getParameterValues());
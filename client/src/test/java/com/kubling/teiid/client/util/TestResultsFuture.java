@@ -20,11 +20,12 @@ package com.kubling.teiid.client.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestResultsFuture {
 
@@ -42,4 +43,31 @@ public class TestResultsFuture {
         assertNotNull(future.get(-1, TimeUnit.MILLISECONDS));
     }
 
+    @Test
+    public void testCompletionListeners() throws Exception {
+        ResultsFuture<Integer> future = new ResultsFuture<>();
+        List<Integer> results = new ArrayList<>();
+        assertTrue(future.addCompletionListenerIfPending(f -> results.add(1)));
+        future.addCompletionListener(f -> results.add(2));
+        future.getResultsReceiver().receiveResults(3);
+        assertFalse(future.addCompletionListenerIfPending(f -> results.add(4)));
+        future.addCompletionListener(f -> results.add(5));
+        assertEquals(List.of(1, 2, 5), results);
+    }
+
+    @Test
+    public void testGetFromVirtualThread() throws Exception {
+        ResultsFuture<Integer> future = new ResultsFuture<>();
+        ResultsFuture<Integer> waiter = new ResultsFuture<>();
+        Thread.ofVirtual().start(() -> {
+            try {
+                waiter.getResultsReceiver().receiveResults(future.get());
+            } catch (Exception e) {
+                waiter.getResultsReceiver().exceptionOccurred(e);
+            }
+        });
+        future.getResultsReceiver().receiveResults(1);
+        assertEquals(Integer.valueOf(1), waiter.get(5, TimeUnit.SECONDS));
+    }
+
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestAdaptiveFetchSize {
+
+    private static List<List<?>> rows(int count, Object... values) {
+        List<List<?>> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(Arrays.asList(values));
+        }
+        return result;
+    }
+
+    @Test
+    public void testGrowsWhenStarved() {
+        AdaptiveFetchSize adaptive = new AdaptiveFetchSize(100, 1 << 20);
+        List<List<?>> narrow = rows(100, 1);
+        long now = 1;
+        adaptive.batchReceived(narrow, 0, now);
+        for (int i = 0; i < 5; i++) {
+            now += 1000;
+            adaptive.batchNeeded(now);
+            now += 1000;
+            //waited as long as it took to consume
+            adaptive.batchReceived(narrow, 1000, now);
+        }
+        assertEquals(3200, adaptive.getFetchSize());
+    }
+
+    @Test
+    public void testShrinksWhenConsumerIsSlow() {
+        AdaptiveFetchSize adaptive = new AdaptiveFetchSize(100, 1 << 20);
+        List<List<?>> narrow = rows(100, 1);
+        adaptive.batchReceived(narrow, 1000, 1);
+        adaptive.batchReceived(narrow, 1000, 2);
+        assertEquals(400, adaptive.getFetchSize());
+        adaptive.batchNeeded(1000000);
+        adaptive.batchReceived(narrow, 0, 1000001);
+        assertEquals(300, adaptive.getFetchSize());
+        for (int i = 0; i < 10; i++) {
+            adaptive.batchReceived(narrow, 0, 1000002 + i);
+        }
+        assertEquals(100, adaptive.getFetchSize());
+    }
+
+    @Test
+    public void testWideRowsCapped() {
+        AdaptiveFetchSize adaptive = new AdaptiveFetchSize(500, 1 << 20);
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'x');
+        adaptive.batchReceived(rows(500, new String(chars)), 1000, 1);
+        assertTrue(adaptive.getRowBytes() > 20000);
+        assertEquals((int) ((1 << 20) / adaptive.getRowBytes()), adaptive.getFetchSize());
+
+        adaptive = new AdaptiveFetchSize(500, 1);
+        adaptive.batchReceived(rows(1, new String(chars)), 0, 1);
+        assertEquals(AdaptiveFetchSize.MIN_FETCH_SIZE, adaptive.getFetchSize());
+    }
+
+    @Test
+    public void testEmptyBatch() {
+        AdaptiveFetchSize adaptive = new AdaptiveFetchSize(0, 0);
+        adaptive.batchReceived(Collections.emptyList(), 0, 1);
+        adaptive.batchReceived(null, 0, 2);
+        assertEquals(AdaptiveFetchSize.MIN_FETCH_SIZE, adaptive.getFetchSize());
+        assertEquals(0, adaptive.getRowBytes(), 0);
+    }
+
+}
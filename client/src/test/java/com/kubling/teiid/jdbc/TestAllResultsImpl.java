@@ -286,7 +286,7 @@ public class TestAllResultsImpl {
         StatementImpl s = Mockito.mock(StatementImpl.class);
         when(s.getFetchSize()).thenReturn(500);
         ConnectionImpl c = Mockito.mock(ConnectionImpl.class);
-        when(s.getConnection()).thenReturn(c);
+        when(s.getMMConnection()).thenReturn(c);
         Properties p = new Properties();
         when(c.getConnectionProps()).thenReturn(p);
         ResultSetImpl rs = new ResultSetImpl(exampleResultsMsg2(), s);
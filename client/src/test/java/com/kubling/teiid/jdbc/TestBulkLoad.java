@@ -0,0 +1,87 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.core.util.ObjectConverterUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestBulkLoad {
+
+    @Test
+    public void testSql() {
+        String[] columns = {"a", "b\"c"};
+        assertEquals("INSERT INTO x.y (\"a\", \"b\"\"c\") VALUES (?, ?)", BulkLoad.getInsertSql("x.y", columns));
+        assertEquals("INSERT INTO x.y (\"a\", \"b\"\"c\") SELECT \"t\".\"a\", \"t\".\"b\"\"c\" "
+                + "FROM TEXTTABLE(? COLUMNS \"a\" integer, \"b\"\"c\" string) AS \"t\"",
+                BulkLoad.getLoadSql("x.y", columns, new String[]{"integer", "string"}));
+    }
+
+    @Test
+    public void testTextRows() throws IOException {
+        List<List<?>> rows = Arrays.asList(Arrays.asList(1, "a"), Arrays.asList(null, ""),
+                Arrays.asList(2, "b,\"c\"\nd"));
+        String text = ObjectConverterUtil.convertToString(new BulkLoad.TextRowsReader(rows.iterator(), 2));
+        assertEquals("1,a\n,\"\"\n2,\"b,\"\"c\"\"\nd\"\n", text);
+    }
+
+    @Test
+    public void testTextRowsSmallReads() throws IOException {
+        //rows are only taken as they are read
+        Iterator<List<?>> rows = new Iterator<>() {
+            int count;
+
+            @Override
+            public boolean hasNext() {
+                return count < 1000;
+            }
+
+            @Override
+            public List<?> next() {
+                return Arrays.asList(count++, "value");
+            }
+        };
+        BulkLoad.TextRowsReader reader = new BulkLoad.TextRowsReader(rows, 2);
+        char[] chars = new char[3];
+        assertEquals(3, reader.read(chars, 0, 3));
+        assertEquals("0,v", new String(chars));
+        assertEquals(3, reader.read(chars, 0, 3));
+        //the remainder of the line
+        assertEquals(2, reader.read(chars, 0, 3));
+        assertEquals('\n', chars[1]);
+        assertEquals(1, reader.read(chars, 0, 1));
+        assertEquals('1', chars[0]);
+    }
+
+    @Test
+    public void testTextRowsWrongSize() {
+        BulkLoad.TextRowsReader reader = new BulkLoad.TextRowsReader(
+                List.<List<?>>of(Arrays.asList(1)).iterator(), 2);
+        IOException e = assertThrows(IOException.class, () -> reader.read(new char[10], 0, 10));
+        assertTrue(e.getMessage().startsWith("TEIID20045"));
+    }
+
+}
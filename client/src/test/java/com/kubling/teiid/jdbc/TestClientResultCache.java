@@ -0,0 +1,155 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.core.types.DataTypeManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestClientResultCache {
+
+    private static ClientResultCache.Key key(String sql, Object... params) {
+        return new ClientResultCache.Key("jdbc:teiid:vdb@mm://host:31000", "vdb", 1, "session", sql,
+                Arrays.asList(params), 0, false);
+    }
+
+    private static ResultsMessage results(int rows) {
+        List<List<?>> data = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            data.add(Arrays.asList(i, "value " + i));
+        }
+        ResultsMessage resultsMsg = new ResultsMessage(data, new String[]{"id", "name"},
+                new String[]{DataTypeManager.DefaultDataTypes.INTEGER, DataTypeManager.DefaultDataTypes.STRING});
+        resultsMsg.setFinalRow(rows);
+        return resultsMsg;
+    }
+
+    @Test
+    public void testHit() {
+        ClientResultCache cache = new ClientResultCache(ClientResultCache.DEFAULT_MAX_BYTES);
+        assertNull(cache.get(key("select 1", 1)));
+        cache.put(key("select 1", 1), results(3), 60000);
+
+        ResultsMessage cached = cache.get(key("select 1", 1));
+        assertNotNull(cached);
+        assertArrayEquals(new String[]{"id", "name"}, cached.getColumnNames());
+        assertEquals(1, cached.getFirstRow());
+        assertEquals(3, cached.getLastRow());
+        assertEquals(3, cached.getFinalRow());
+        assertEquals(Arrays.asList(2, "value 2"), new ArrayList<>(cached.getResultsList().get(2)));
+        //each hit has its own rows
+        assertNotSame(cached.getResultsList(), cache.get(key("select 1", 1)).getResultsList());
+
+        assertNull(cache.get(key("select 1", 2)));
+        assertNull(cache.get(key("select 2", 1)));
+
+        ClientResultCacheStatistics stats = cache.getStatistics();
+        assertEquals(1, stats.getEntryCount());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(3, stats.getMissCount());
+        assertTrue(stats.getBytes() > 0);
+    }
+
+    @Test
+    public void testNotSharedBetweenSessions() {
+        ClientResultCache cache = new ClientResultCache(ClientResultCache.DEFAULT_MAX_BYTES);
+        cache.put(key("select 1"), results(1), 60000);
+        assertNull(cache.get(new ClientResultCache.Key("jdbc:teiid:vdb@mm://host:31000", "vdb", 1, "other session",
+                "select 1", Collections.emptyList(), 0, false)));
+        assertNotNull(cache.get(key("select 1")));
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        ClientResultCache cache = new ClientResultCache(ClientResultCache.DEFAULT_MAX_BYTES);
+        cache.put(key("select 1"), results(1), 1);
+        Thread.sleep(5);
+        assertNull(cache.get(key("select 1")));
+        ClientResultCacheStatistics stats = cache.getStatistics();
+        assertEquals(0, stats.getEntryCount());
+        assertEquals(0, stats.getBytes());
+        assertEquals(1, stats.getExpirationCount());
+    }
+
+    @Test
+    public void testLargeTtl() {
+        ClientResultCache cache = new ClientResultCache(ClientResultCache.DEFAULT_MAX_BYTES);
+        cache.put(key("select 1"), results(1), Long.MAX_VALUE);
+        assertNotNull(cache.get(key("select 1")));
+        assertEquals(0, cache.getStatistics().getExpirationCount());
+    }
+
+    @Test
+    public void testEvictionBySize() {
+        ClientResultCache probe = new ClientResultCache(ClientResultCache.DEFAULT_MAX_BYTES);
+        probe.put(key("select 1"), results(100), 60000);
+        long size = probe.getStatistics().getBytes();
+
+        ClientResultCache cache = new ClientResultCache(size * 2 + size / 2);
+        cache.put(key("select 1"), results(100), 60000);
+        cache.put(key("select 2"), results(100), 60000);
+        //make select 1 the most recently used
+        assertNotNull(cache.get(key("select 1")));
+        cache.put(key("select 3"), results(100), 60000);
+
+        assertNotNull(cache.get(key("select 1")));
+        assertNull(cache.get(key("select 2")));
+        assertNotNull(cache.get(key("select 3")));
+        ClientResultCacheStatistics stats = cache.getStatistics();
+        assertEquals(2, stats.getEntryCount());
+        assertEquals(size * 2, stats.getBytes());
+        assertEquals(1, stats.getEvictionCount());
+
+        //larger than the whole cache
+        cache.put(key("select 4"), results(1000), 60000);
+        assertNull(cache.get(key("select 4")));
+        assertEquals(2, cache.getStatistics().getEntryCount());
+    }
+
+    @Test
+    public void testIsCacheable() {
+        assertTrue(ClientResultCache.isCacheable(results(2)));
+
+        ResultsMessage partial = results(2);
+        partial.setFinalRow(-1);
+        assertFalse(ClientResultCache.isCacheable(partial));
+
+        ResultsMessage lob = new ResultsMessage(Collections.singletonList(Collections.singletonList(null)),
+                new String[]{"x"}, new String[]{DataTypeManager.DefaultDataTypes.CLOB});
+        lob.setFinalRow(1);
+        assertFalse(ClientResultCache.isCacheable(lob));
+
+        ResultsMessage update = results(1);
+        update.setUpdateResult(true);
+        assertFalse(ClientResultCache.isCacheable(update));
+
+        assertTrue(ClientResultCache.isCacheableParameter("a"));
+        assertTrue(ClientResultCache.isCacheableParameter(null));
+        assertFalse(ClientResultCache.isCacheableParameter(new byte[1]));
+    }
+
+}
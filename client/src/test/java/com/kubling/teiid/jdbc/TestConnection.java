@@ -33,6 +33,7 @@ import org.mockito.stubbing.Answer;
 
 import java.sql.Array;
 import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Properties;
 
@@ -203,4 +204,85 @@ public class TestConnection {
             MatcherAssert.assertThat(ex.getMessage(), CoreMatchers.containsString(JDBCPlugin.Event.TEIID20036.name()));
         }
     }
+
+    @Test public void testStatementCache() throws SQLException {
+        ConnectionImpl conn = getMMConnection("jdbc:teiid:QT_Ora9DS@mm://localhost:7001;version=1;maxStatements=2");
+        PreparedStatementImpl stmt = conn.prepareStatement("select ?");
+        assertTrue(stmt.isPoolable());
+        stmt.setInt(1, 1);
+        stmt.setMaxRows(10);
+        stmt.setExecutionProperty(ExecutionProperties.PROP_FETCH_SIZE, "10");
+        stmt.addBatch();
+        stmt.close();
+        assertTrue(stmt.isClosed());
+        assertEquals(1, conn.getStatementCache().size());
+        //an idle statement cannot be used or cached twice
+        assertThrows(SQLException.class, stmt::execute);
+        stmt.close();
+        assertEquals(1, conn.getStatementCache().size());
+
+        PreparedStatementImpl reused = conn.prepareStatement("select ?");
+        assertSame(stmt, reused);
+        assertEquals(0, conn.getStatementCache().size());
+        assertFalse(reused.isClosed());
+        assertEquals(0, reused.getMaxRows());
+        assertEquals(BaseDataSource.DEFAULT_FETCH_SIZE, reused.getFetchSize());
+        assertNotEquals("10", reused.getExecutionProperty(ExecutionProperties.PROP_FETCH_SIZE));
+        assertTrue(reused.getParameterValues().isEmpty());
+        assertTrue(reused.getParameterValuesList().isEmpty());
+
+        reused.setPoolable(false);
+        reused.close();
+        assertEquals(0, conn.getStatementCache().size());
+
+        CallableStatementImpl call = conn.prepareCall("{call proc()}");
+        call.close();
+        assertEquals("{call proc()}", call.prepareSql);
+        assertEquals(1, conn.getStatementCache().size());
+        assertSame(call, conn.prepareCall("{call proc()}"));
+
+        StatementCacheStatistics stats = conn.getStatementCacheStatistics();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getMaxEntries());
+
+        conn.close();
+        assertEquals(0, conn.getStatementCache().size());
+        assertTrue(call.isClosed());
+    }
+
+    @Test public void testStatementCacheClearedAfterReconnect() throws SQLException {
+        ConnectionImpl conn = getMMConnection("jdbc:teiid:QT_Ora9DS@mm://localhost:7001;version=1;maxStatements=2");
+        PreparedStatementImpl open = conn.prepareStatement("select 1");
+        conn.prepareStatement("select 2").close();
+        assertEquals(1, conn.getStatementCache().size());
+
+        Mockito.when(conn.getServerConnection().getReconnectCount()).thenReturn(1);
+        //statements handed out before the reconnect are not cached
+        open.close();
+        assertEquals(0, conn.getStatementCache().size());
+        assertNotSame(open, conn.prepareStatement("select 1"));
+        assertEquals(3, conn.getStatementCacheStatistics().getMissCount());
+
+        PreparedStatementImpl after = conn.prepareStatement("select 2");
+        after.close();
+        assertSame(after, conn.prepareStatement("select 2"));
+    }
+
+    @Test public void testStatementCacheEviction() throws SQLException {
+        ConnectionImpl conn = getMMConnection("jdbc:teiid:QT_Ora9DS@mm://localhost:7001;version=1;maxStatements=2");
+        PreparedStatementImpl first = conn.prepareStatement("select 1");
+        conn.prepareStatement("select 2").close();
+        conn.prepareStatement("select 3").close();
+        first.close();
+        assertEquals(2, conn.getStatementCache().size());
+        //select 2 was the least recently used
+        assertNull(conn.getStatementCache().take(new StatementCache.StatementKey("select 2",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, false, false), 0));
+        assertSame(first, conn.getStatementCache().take(new StatementCache.StatementKey("select 1",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, false, false), 0));
+
+        assertNull(getMMConnection().getStatementCache());
+        assertNull(getMMConnection().getStatementCacheStatistics());
+    }
 }
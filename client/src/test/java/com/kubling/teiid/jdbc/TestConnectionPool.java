@@ -0,0 +1,259 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.DQP;
+import com.kubling.teiid.client.security.LogonResult;
+import com.kubling.teiid.client.security.SessionToken;
+import com.kubling.teiid.net.ServerConnection;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestConnectionPool {
+
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final AtomicInteger connects = new AtomicInteger();
+
+    private ConnectionImpl connect() {
+        connects.incrementAndGet();
+        DQP dqp = (DQP) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DQP.class},
+                (proxy, method, args) -> null);
+        LogonResult logonResult = new LogonResult(new SessionToken(1, "admin"), "vdb", "fake");
+        ServerConnection serverConnection = (ServerConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ServerConnection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getService" -> dqp;
+                    case "getLogonResult" -> logonResult;
+                    case "isOpen" -> open.get();
+                    default -> method.getReturnType() == boolean.class ? false : null;
+                });
+        return new ConnectionImpl(serverConnection, new Properties(), "jdbc:teiid:vdb@mm://localhost:31000");
+    }
+
+    private ConnectionPool pool(int maxSize, long waitTimeout, long validationInterval) {
+        return new ConnectionPool(this::connect, maxSize, 0, 0, 0, waitTimeout, validationInterval);
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        ConnectionPool pool = pool(2, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection first = pool.getConnection();
+        ConnectionImpl impl = ConnectionPool.getPooledConnection(first);
+        first.setAutoCommit(false);
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::getAutoCommit);
+        //closing twice has no effect
+        first.close();
+
+        Connection second = pool.getConnection();
+        assertSame(impl, ConnectionPool.getPooledConnection(second));
+        //recycled
+        assertTrue(second.getAutoCommit());
+        assertEquals(1, connects.get());
+
+        ConnectionPoolStatistics stats = pool.getStatistics();
+        assertEquals(1, stats.getActiveCount());
+        assertEquals(0, stats.getIdleCount());
+        assertEquals(1, stats.getCreatedCount());
+        assertEquals(2, stats.getBorrowedCount());
+        second.close();
+        assertEquals(1, pool.getStatistics().getIdleCount());
+
+        pool.close();
+        assertTrue(impl.isClosed());
+        assertEquals(1, pool.getStatistics().getDestroyedCount());
+        assertThrows(SQLException.class, pool::getConnection);
+    }
+
+    @Test
+    public void testSessionStateReset() throws Exception {
+        ConnectionPool pool = pool(1, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection first = pool.getConnection();
+        ConnectionImpl impl = ConnectionPool.getPooledConnection(first);
+        impl.setExecutionProperty(ExecutionProperties.PROP_FETCH_SIZE, "7");
+        first.setReadOnly(true);
+        first.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        first.close();
+
+        Connection second = pool.getConnection();
+        assertSame(impl, ConnectionPool.getPooledConnection(second));
+        assertEquals(String.valueOf(BaseDataSource.DEFAULT_FETCH_SIZE),
+                impl.getExecutionProperty(ExecutionProperties.PROP_FETCH_SIZE));
+        assertFalse(second.isReadOnly());
+        assertEquals(ConnectionImpl.DEFAULT_ISOLATION, second.getTransactionIsolation());
+        second.close();
+        pool.close();
+    }
+
+    @Test
+    public void testChangedUserNotReused() throws Exception {
+        ConnectionPool pool = pool(1, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection first = pool.getConnection();
+        ConnectionImpl impl = ConnectionPool.getPooledConnection(first);
+        impl.changeUser("other", null);
+        first.close();
+        assertTrue(impl.isClosed());
+        assertEquals(1, pool.getStatistics().getDestroyedCount());
+
+        Connection second = pool.getConnection();
+        assertNotSame(impl, ConnectionPool.getPooledConnection(second));
+        assertEquals(2, connects.get());
+        second.close();
+        pool.close();
+    }
+
+    @Test
+    public void testStatementReturnsPooledConnection() throws Exception {
+        ConnectionPool pool = pool(1, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection connection = pool.getConnection();
+        ConnectionImpl impl = ConnectionPool.getPooledConnection(connection);
+        assertSame(connection, connection.createStatement().getConnection());
+        assertSame(connection, connection.getMetaData().getConnection());
+        //closing through the statement returns the connection to the pool
+        connection.createStatement().getConnection().close();
+        assertEquals(1, pool.getStatistics().getIdleCount());
+        assertTrue(connection.isClosed());
+        assertFalse(impl.isClosed());
+        pool.close();
+    }
+
+    @Test
+    public void testProxyIdentity() throws Exception {
+        ConnectionPool pool = pool(1, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection first = pool.getConnection();
+        ConnectionImpl impl = ConnectionPool.getPooledConnection(first);
+        assertEquals(first, first);
+        assertNotEquals(first, impl);
+        assertEquals(System.identityHashCode(first), first.hashCode());
+        assertFalse(first.toString().contains(impl.toString()));
+        //the pooled connection is not exposed
+        assertTrue(first.isWrapperFor(TeiidConnection.class));
+        assertFalse(first.isWrapperFor(ConnectionImpl.class));
+        assertSame(first, first.unwrap(Connection.class));
+        assertThrows(SQLException.class, () -> first.unwrap(ConnectionImpl.class));
+        first.close();
+
+        //the same connection is handed out behind a different proxy
+        Connection second = pool.getConnection();
+        assertSame(impl, ConnectionPool.getPooledConnection(second));
+        assertNotEquals(first, second);
+        assertEquals(first, first);
+        second.close();
+        pool.close();
+    }
+
+    @Test
+    public void testWaitTimeout() throws Exception {
+        ConnectionPool pool = pool(1, 10, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection connection = pool.getConnection();
+        TeiidSQLException e = assertThrows(TeiidSQLException.class, pool::getConnection);
+        assertTrue(e.getMessage().startsWith(JDBCPlugin.Event.TEIID20040.name()));
+        assertEquals(1, pool.getStatistics().getWaitTimeoutCount());
+        connection.close();
+        pool.getConnection().close();
+        pool.close();
+    }
+
+    @Test
+    public void testWaiterServed() throws Exception {
+        ConnectionPool pool = pool(1, 10000, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection connection = pool.getConnection();
+        ConnectionImpl impl = ConnectionPool.getPooledConnection(connection);
+        CompletableFuture<ConnectionImpl> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.borrow();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        long end = System.currentTimeMillis() + 10000;
+        while (pool.getStatistics().getWaitingCount() == 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, pool.getStatistics().getWaitingCount());
+        connection.close();
+        assertSame(impl, waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(1, connects.get());
+        pool.close();
+    }
+
+    @Test
+    public void testValidation() throws Exception {
+        ConnectionPool pool = pool(1, 0, 0);
+        Connection connection = pool.getConnection();
+        ConnectionImpl impl = ConnectionPool.getPooledConnection(connection);
+        connection.close();
+        open.set(false);
+        assertNotSame(impl, pool.borrow());
+        assertTrue(impl.isClosed());
+        assertEquals(1, pool.getStatistics().getValidationFailureCount());
+        assertEquals(2, connects.get());
+        pool.close();
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        ConnectionPool pool = new ConnectionPool(this::connect, 4, 1, 0, 1000, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        first.close();
+        second.close();
+        pool.evict(System.currentTimeMillis());
+        assertEquals(2, pool.getStatistics().getIdleCount());
+        pool.evict(System.currentTimeMillis() + 2000);
+        ConnectionPoolStatistics stats = pool.getStatistics();
+        assertEquals(1, stats.getIdleCount());
+        assertEquals(1, stats.getDestroyedCount());
+        pool.close();
+    }
+
+    @Test
+    public void testMinIdle() throws Exception {
+        ConnectionPool pool = new ConnectionPool(this::connect, 4, 2, 0, 0, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        pool.evict(System.currentTimeMillis());
+        assertEquals(2, pool.getStatistics().getIdleCount());
+        assertEquals(0, pool.getStatistics().getActiveCount());
+        pool.close();
+    }
+
+    @Test
+    public void testMaxIdle() throws Exception {
+        ConnectionPool pool = new ConnectionPool(this::connect, 4, 0, 1, 0, 0, ConnectionPool.DEFAULT_VALIDATION_INTERVAL);
+        Connection first = pool.getConnection();
+        Connection second = pool.getConnection();
+        first.close();
+        second.close();
+        ConnectionPoolStatistics stats = pool.getStatistics();
+        assertEquals(1, stats.getIdleCount());
+        assertEquals(1, stats.getDestroyedCount());
+        pool.close();
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.core.util.ExecutorUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestHashedWheelTimer {
+
+    @Test
+    public void testRemove() {
+        HashedWheelTimer timer = new HashedWheelTimer("foo");
+        Runnable r = () -> {
+        };
+        HashedWheelTimer.Task tt = timer.add(r, 20000);
+        HashedWheelTimer.Task tt1 = timer.add(r, 20000);
+        HashedWheelTimer.Task tt2 = timer.add(r, 10000);
+        assertEquals(3, timer.getQueueSize());
+        tt.cancel();
+        tt1.cancel();
+        tt2.cancel();
+        assertEquals(0, timer.getQueueSize());
+        assertTrue(tt.isCancelled());
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("foo");
+        CountDownLatch latch = new CountDownLatch(2);
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        long start = System.nanoTime();
+        timer.add(latch::countDown, 20);
+        timer.add(cancelledRuns::incrementAndGet, 30).cancel();
+        timer.add(latch::countDown, 50);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, cancelledRuns.get());
+        assertEquals(0, timer.getQueueSize());
+
+        //restarts after going idle
+        CountDownLatch latch1 = new CountDownLatch(1);
+        Thread.sleep(50);
+        timer.add(latch1::countDown, 0);
+        assertTrue(latch1.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testMultipleRevolutions() throws Exception {
+        //a 4 bucket wheel of 1 ms ticks
+        HashedWheelTimer timer = new HashedWheelTimer(ExecutorUtils.newFixedThreadPool(1, "foo"),
+                ExecutorUtils.getDirectExecutor(), 1, TimeUnit.MILLISECONDS, 3);
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        timer.add(latch::countDown, 25);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(25));
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.DQP;
+import com.kubling.teiid.client.metadata.MetadataResult;
+import com.kubling.teiid.client.security.LogonResult;
+import com.kubling.teiid.client.security.SessionToken;
+import com.kubling.teiid.net.ServerConnection;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestMetadataCache {
+
+    private static MetadataCache.CacheKey key(String user, String sql) {
+        return new MetadataCache.CacheKey("vdb", 1, user, sql, false);
+    }
+
+    @Test
+    public void testKeyEquality() {
+        assertEquals(key("user", "select 1"), key("user", "select 1"));
+        assertEquals(key("user", "select 1").hashCode(), key("user", "select 1").hashCode());
+        assertNotEquals(key("user", "select 1"), key("other", "select 1"));
+        assertNotEquals(key("user", "select 1"), key("user", "select 2"));
+        assertNotEquals(key("user", "select 1"), new MetadataCache.CacheKey("vdb", 2, "user", "select 1", false));
+        assertNotEquals(key("user", "select 1"), new MetadataCache.CacheKey("vdb", 1, "user", "select 1", true));
+        assertEquals(new MetadataCache.CacheKey(null, 1, null, "select 1", false), new MetadataCache.CacheKey(null, 1, null, "select 1", false));
+    }
+
+    @Test
+    public void testHitsAndEviction() {
+        MetadataCache cache = new MetadataCache(2);
+        MetadataResult result = new MetadataResult();
+        assertNull(cache.get(key("user", "select 1")));
+        cache.put(key("user", "select 1"), result);
+        assertSame(result, cache.get(key("user", "select 1")));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.put(key("user", "select 2"), new MetadataResult());
+        //select 1 was used most recently
+        cache.get(key("user", "select 1"));
+        cache.put(key("user", "select 3"), new MetadataResult());
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key("user", "select 2")));
+        assertSame(result, cache.get(key("user", "select 1")));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testClearedAfterReconnect() throws Exception {
+        AtomicInteger reconnects = new AtomicInteger();
+        LogonResult logonResult = new LogonResult(new SessionToken(1, "user"), "vdb", "fake");
+        ServerConnection serverConnection = (ServerConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ServerConnection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getService" -> Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DQP.class},
+                            (p, m, a) -> null);
+                    case "getLogonResult" -> logonResult;
+                    case "getReconnectCount" -> reconnects.get();
+                    default -> method.getReturnType() == boolean.class ? false : null;
+                });
+        Properties props = new Properties();
+        props.setProperty(ConnectionImpl.METADATA_CACHE_SIZE, "10");
+        ConnectionImpl connection = new ConnectionImpl(serverConnection, props, "jdbc:teiid:vdb@mm://localhost:31000");
+        MetadataCache cache = connection.getMetadataCache();
+        cache.put(key("user", "select 1"), new MetadataResult());
+        assertEquals(1, connection.getMetadataCache().size());
+        //the same session on another server
+        reconnects.incrementAndGet();
+        assertEquals(0, connection.getMetadataCache().size());
+
+        //a shared cache is kept for the other connections
+        MetadataCache shared = new MetadataCache(10);
+        connection.setMetadataCache(shared);
+        shared.put(key("user", "select 1"), new MetadataResult());
+        reconnects.incrementAndGet();
+        assertEquals(1, connection.getMetadataCache().size());
+    }
+
+}
@@ -21,6 +21,7 @@ package com.kubling.teiid.jdbc;
 import com.kubling.teiid.client.DQP;
 import com.kubling.teiid.client.RequestMessage;
 import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.client.metadata.MetadataResult;
 import com.kubling.teiid.client.security.LogonResult;
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.core.TeiidException;
@@ -129,6 +130,141 @@ public class TestPreparedStatement {
         }
     }
 
+    @Test
+    public void testPipelinedBatchedUpdateExecution() throws Exception {
+        ConnectionImpl conn = Mockito.mock(ConnectionImpl.class);
+        Properties props = new Properties();
+        props.setProperty(ExecutionProperties.BATCH_PIPELINE_WINDOW, "3");
+        Mockito.when(conn.getConnectionProps()).thenReturn(props);
+        //chunks are only pipelined in a transaction
+        Mockito.when(conn.isInTransaction()).thenReturn(true);
+        DQP dqp = Mockito.mock(DQP.class);
+        ServerConnection serverConn = Mockito.mock(ServerConnection.class);
+        LogonResult logonResult = Mockito.mock(LogonResult.class);
+        Mockito.when(conn.getServerConnection()).thenReturn(serverConn);
+        Mockito.when(serverConn.getLogonResult()).thenReturn(logonResult);
+        Mockito.when(logonResult.getTimeZone()).thenReturn(TimeZone.getDefault());
+        Mockito.when(conn.getDQP()).thenReturn(dqp);
+
+        //each chunk reports its sequence as the update count, the results are left pending
+        final List<ResultsFuture<ResultsMessage>> pending = new ArrayList<>();
+        final List<Integer> sizes = new ArrayList<>();
+        final ResultsMessage[] previous = new ResultsMessage[1];
+        final int failingChunk = 2;
+        Mockito.when(dqp.executeRequest(ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    RequestMessage requestMessage = (RequestMessage) invocation.getArguments()[1];
+                    int chunk = pending.size();
+                    //the window is never exceeded
+                    assertTrue(chunk < 3 || pending.get(chunk - 3).isDone());
+                    int size = requestMessage.getParameterValues().size();
+                    sizes.add(size);
+                    ResultsMessage rm = new ResultsMessage();
+                    rm.setUpdateResult(true);
+                    if (chunk == failingChunk) {
+                        rm.setException(new TeiidException());
+                        rm.setResults(new List<?>[] {Arrays.asList(chunk), Arrays.asList(Statement.EXECUTE_FAILED)});
+                    } else {
+                        List<?>[] vals = new List<?>[size];
+                        Arrays.fill(vals, Arrays.asList(chunk));
+                        rm.setResults(Arrays.asList(vals));
+                    }
+                    ResultsFuture<ResultsMessage> results = new ResultsFuture<>();
+                    pending.add(results);
+                    //complete the chunk before last once the next is sent, so the pipeline has to wait
+                    if (chunk > 0 && !pending.get(chunk - 1).isDone()) {
+                        pending.get(chunk - 1).getResultsReceiver().receiveResults(previous[0]);
+                    }
+                    previous[0] = rm;
+                    return results;
+                });
+
+        PreparedStatementImpl statement = getMMPreparedStatement(conn, "delete from table where col=?");
+        for (int i = 0; i < 100000; i++) {
+            statement.setInt(1, Integer.valueOf(1));
+            statement.addBatch();
+        }
+        Mockito.doAnswer(invocation -> {
+            //cancelled chunks end without results
+            for (ResultsFuture<ResultsMessage> f : pending) {
+                if (!f.isDone()) {
+                    f.getResultsReceiver().exceptionOccurred(new TeiidException());
+                }
+            }
+            return null;
+        }).when(dqp).cancelRequest(ArgumentMatchers.anyLong());
+        try {
+            statement.executeBatch();
+            fail();
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            int prior = 0;
+            for (int i = 0; i < failingChunk; i++) {
+                prior += sizes.get(i);
+            }
+            assertEquals(prior + 2, counts.length);
+            assertEquals(0, counts[0]);
+            assertEquals(failingChunk - 1, counts[prior - 1]);
+            assertEquals(failingChunk, counts[prior]);
+            assertEquals(Statement.EXECUTE_FAILED, counts[prior + 1]);
+        }
+        //the chunks after the failure were cancelled
+        assertTrue(pending.size() > failingChunk + 1);
+        Mockito.verify(dqp, Mockito.atLeastOnce()).cancelRequest(ArgumentMatchers.anyLong());
+        for (ResultsFuture<ResultsMessage> f : pending) {
+            assertTrue(f.isDone());
+        }
+    }
+
+    @Test
+    public void testInvalidBatchPipelineWindow() throws Exception {
+        ConnectionImpl conn = Mockito.mock(ConnectionImpl.class);
+        Properties props = new Properties();
+        props.setProperty(ExecutionProperties.BATCH_PIPELINE_WINDOW, "x");
+        Mockito.when(conn.getConnectionProps()).thenReturn(props);
+        DQP dqp = Mockito.mock(DQP.class);
+        ServerConnection serverConn = Mockito.mock(ServerConnection.class);
+        Mockito.when(conn.getServerConnection()).thenReturn(serverConn);
+        Mockito.when(conn.getDQP()).thenReturn(dqp);
+
+        PreparedStatementImpl statement = getMMPreparedStatement(conn, "delete from table where col=?");
+        for (int i = 0; i < 300; i++) {
+            statement.setInt(1, 1);
+            statement.addBatch();
+        }
+        TeiidSQLException e = assertThrows(TeiidSQLException.class, statement::executeBatch);
+        assertTrue(e.getMessage().startsWith("TEIID20049"));
+        Mockito.verify(dqp, Mockito.never()).executeRequest(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testAddBatchColumns() throws Exception {
+        ConnectionImpl conn = Mockito.mock(ConnectionImpl.class);
+        DQP dqp = Mockito.mock(DQP.class);
+        Mockito.when(conn.getDQP()).thenReturn(dqp);
+        Mockito.when(dqp.getMetadata(Mockito.anyLong(), Mockito.anyString(), Mockito.anyBoolean()))
+                .thenReturn(new MetadataResult(null, new Map[] {new HashMap<>(), new HashMap<>()}));
+        PreparedStatementImpl statement = getMMPreparedStatement(conn, "insert into table (a, b) values (?, ?)");
+        statement.setInt(1, 1);
+        statement.setString(2, "a");
+        statement.addBatch();
+        statement.addBatchColumns(new long[]{2, 3}, new Object[]{"b", null});
+        assertEquals(Arrays.asList(Arrays.asList(1, "a"), Arrays.asList(2L, "b"), Arrays.asList(3L, null)),
+                statement.getParameterValuesList());
+        //the parameter count is not retrieved just to check the columns
+        Mockito.verify(dqp, Mockito.never()).getMetadata(Mockito.anyLong(), Mockito.anyString(), Mockito.anyBoolean());
+
+        assertThrows(TeiidSQLException.class, () -> statement.addBatchColumns(new long[]{2, 3}, new Object[]{"b"}));
+        assertThrows(TeiidSQLException.class, () -> statement.addBatchColumns(new boolean[]{true}, new int[]{1}));
+
+        //once known, the parameter count is checked
+        assertEquals(2, statement.getParameterMetaData().getParameterCount());
+        TeiidSQLException e = assertThrows(TeiidSQLException.class, () -> statement.addBatchColumns(new long[]{4}));
+        assertTrue(e.getMessage().startsWith("TEIID20048"));
+        assertThrows(TeiidSQLException.class, () -> statement.addBatchColumns(new long[]{4}, new int[]{5}, new int[]{6}));
+        assertEquals(3, statement.getParameterValuesList().size());
+    }
+
     /**
      * Verify that the <code>clearBatch()</code> method of
      * <code>MMPreparedStatement</code> is clearing the list of batched
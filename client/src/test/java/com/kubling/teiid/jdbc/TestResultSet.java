@@ -22,6 +22,7 @@ import com.kubling.teiid.client.DQP;
 import com.kubling.teiid.client.ResultsMessage;
 import com.kubling.teiid.client.lob.LobChunk;
 import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.client.util.ResultsStream;
 import com.kubling.teiid.core.TeiidProcessingException;
 import com.kubling.teiid.core.types.XMLType;
 import org.junit.jupiter.api.Test;
@@ -34,6 +35,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.*;
+import java.util.concurrent.Flow;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -701,6 +703,26 @@ public class TestResultSet {
         cs.close();
     }
 
+    @Test public void testReadAheadStreams() throws Exception {
+        StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
+        when(statement.getFetchSize()).thenReturn(10);
+        when(statement.getExecutionProperty(ExecutionProperties.READ_AHEAD_BATCHES)).thenReturn("4");
+        when(statement.supportsStreamingCursors()).thenReturn(true);
+        when(statement.getDQP().streamCursorRequest(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(new ResultsStream<>());
+        ResultSetImpl cs = new ResultSetImpl(TestAllResultsImpl.exampleResultsMsg4(1, 10, false), statement);
+        //the server pushes the read ahead batches rather than each being requested
+        Mockito.verify(statement.getDQP()).streamCursorRequest(Mockito.anyLong(), Mockito.eq(11), Mockito.eq(10), Mockito.eq(40));
+        Mockito.verify(statement.getDQP(), Mockito.never()).processCursorRequest(Mockito.anyLong(), Mockito.anyInt(), Mockito.anyInt());
+        cs.close();
+
+        //the budget limits the rows pushed ahead to a single batch
+        when(statement.getExecutionProperty(ExecutionProperties.READ_AHEAD_BYTES)).thenReturn("1");
+        cs = new ResultSetImpl(TestAllResultsImpl.exampleResultsMsg4(1, 10, false), statement);
+        Mockito.verify(statement.getDQP()).streamCursorRequest(Mockito.anyLong(), Mockito.eq(11), Mockito.eq(10), Mockito.eq(10));
+        cs.close();
+    }
+
     @Test public void testOutputParameter() throws Exception {
         StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
         ResultsMessage resultsMsg = new ResultsMessage();
@@ -743,8 +765,96 @@ public class TestResultSet {
         assertEquals("<a/>", cs.getString(1));
     }
 
+    @Test public void testPublishRows() throws Exception {
+        StatementImpl statement = createMockPublishingStatement(25);
+        List<Object> rows = new ArrayList<>();
+        Flow.Subscription subscription = subscribe(new ResultsPublisher<>(statement, () -> executePublished(statement), false), rows);
+
+        subscription.request(5);
+        assertEquals(5, rows.size());
+        Mockito.verify(statement.getDQP(), never()).processCursorRequest(anyLong(), anyInt(), anyInt());
+
+        //only the unbuffered demand is requested
+        subscription.request(8);
+        assertEquals(13, rows.size());
+        assertEquals(Arrays.asList(13), rows.get(12));
+        Mockito.verify(statement.getDQP()).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 11, 3);
+
+        //capped at the fetch size
+        subscription.request(Long.MAX_VALUE);
+        assertEquals(26, rows.size());
+        assertEquals("complete", rows.get(25));
+        Mockito.verify(statement.getDQP()).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 14, 10);
+        Mockito.verify(statement.getDQP()).processCursorRequest(TestAllResultsImpl.REQUEST_ID, 24, 10);
+    }
+
+    @Test public void testPublishBatches() throws Exception {
+        StatementImpl statement = createMockPublishingStatement(25);
+        ResultsPublisher<List<List<?>>> publisher = new ResultsPublisher<>(statement, () -> executePublished(statement), true);
+        List<Object> batches = new ArrayList<>();
+        Flow.Subscription subscription = subscribe(publisher, batches);
+
+        subscription.request(2);
+        assertEquals(2, batches.size());
+        assertEquals(10, ((List<?>) batches.get(1)).size());
+        Mockito.verify(statement.getDQP(), times(1)).processCursorRequest(anyLong(), anyInt(), anyInt());
+
+        subscription.cancel();
+        assertTrue(statement.getResultSet().isClosed());
+
+        List<Object> other = new ArrayList<>();
+        subscribe(publisher, other);
+        assertTrue(other.get(0) instanceof IllegalStateException);
+    }
+
     /////////////////////// Helper Method ///////////////////
 
+    private static StatementImpl createMockPublishingStatement(int totalLength) throws Exception {
+        StatementImpl statement = createMockStatement(ResultSet.TYPE_FORWARD_ONLY);
+        when(statement.getFetchSize()).thenReturn(10);
+        when(statement.getDQP().processCursorRequest(eq(TestAllResultsImpl.REQUEST_ID), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int begin = (Integer) invocation.getArguments()[1];
+            int length = Math.min((Integer) invocation.getArguments()[2], totalLength - begin + 1);
+            ResultsFuture<ResultsMessage> nextBatch = new ResultsFuture<>();
+            nextBatch.getResultsReceiver().receiveResults(
+                    TestAllResultsImpl.exampleResultsMsg4(begin, length, begin + length - 1 >= totalLength));
+            return nextBatch;
+        });
+        return statement;
+    }
+
+    private static ResultsFuture<Boolean> executePublished(StatementImpl statement) throws SQLException {
+        ResultSetImpl rs = new ResultSetImpl(TestAllResultsImpl.exampleResultsMsg4(1, 10, false), statement);
+        when(statement.getResultSet()).thenReturn(rs);
+        return StatementImpl.booleanFuture(true);
+    }
+
+    private static Flow.Subscription subscribe(Flow.Publisher<?> publisher, List<Object> received) {
+        Flow.Subscription[] result = new Flow.Subscription[1];
+        publisher.subscribe(new Flow.Subscriber<Object>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                result[0] = subscription;
+            }
+
+            @Override
+            public void onNext(Object item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                received.add(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                received.add("complete");
+            }
+        });
+        return result[0];
+    }
+
     private ResultSetImpl helpExecuteQuery() {
         try {
             return helpExecuteQuery(BATCH_SIZE, 1000, ResultSet.TYPE_SCROLL_INSENSITIVE);
@@ -21,6 +21,7 @@ package com.kubling.teiid.jdbc;
 import com.kubling.teiid.client.DQP;
 import com.kubling.teiid.client.RequestMessage;
 import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.client.security.LogonResult;
 import com.kubling.teiid.client.util.ResultsFuture;
 import com.kubling.teiid.net.ServerConnection;
 import org.junit.jupiter.api.Test;
@@ -317,4 +318,78 @@ public class TestStatement {
         assertFalse(rs.next());
     }
 
+    @Test public void testClientResultCache() throws Exception {
+        ConnectionImpl conn = Mockito.mock(ConnectionImpl.class);
+        Properties props = new Properties();
+        props.setProperty(ExecutionProperties.RESULT_SET_CLIENT_CACHE_TTL, "60000");
+        Mockito.when(conn.getConnectionProps()).thenReturn(props);
+        Mockito.when(conn.getAutoCommit()).thenReturn(true);
+        ServerConnection serverConn = Mockito.mock(ServerConnection.class);
+        LogonResult logonResult = Mockito.mock(LogonResult.class);
+        Mockito.when(conn.getServerConnection()).thenReturn(serverConn);
+        Mockito.when(serverConn.getLogonResult()).thenReturn(logonResult);
+        DQP dqp = Mockito.mock(DQP.class);
+        Mockito.when(conn.getDQP()).thenReturn(dqp);
+        Mockito.when(dqp.executeRequest(Mockito.anyLong(), Mockito.any())).thenAnswer(invocation -> {
+            ResultsMessage rm = new ResultsMessage(Arrays.asList(Arrays.asList(1), Arrays.asList(2)),
+                    new String[] {"id"}, new String[] {"integer"});
+            rm.setFinalRow(2);
+            ResultsFuture<ResultsMessage> results = new ResultsFuture<>();
+            results.getResultsReceiver().receiveResults(rm);
+            return results;
+        });
+        long hits = ClientResultCache.getInstance().getStatistics().getHitCount();
+        for (int i = 0; i < 2; i++) {
+            StatementImpl statement = new StatementImpl(conn, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY) {
+                @Override
+                protected TimeZone getServerTimeZone() throws SQLException {
+                    return null;
+                }
+            };
+            ResultSet rs = statement.executeQuery("select id from client_cache_test");
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+            assertFalse(rs.next());
+            assertEquals("integer", rs.getMetaData().getColumnTypeName(1));
+            rs.close();
+        }
+        //the second execution is answered from the cache, so there is no request to close
+        Mockito.verify(dqp, Mockito.times(1)).executeRequest(Mockito.anyLong(), Mockito.any());
+        Mockito.verify(dqp, Mockito.times(1)).closeRequest(Mockito.anyLong());
+        assertEquals(hits + 1, ClientResultCache.getInstance().getStatistics().getHitCount());
+    }
+
+    @Test public void testInvalidClientResultCacheTtl() throws Exception {
+        ConnectionImpl conn = Mockito.mock(ConnectionImpl.class);
+        Properties props = new Properties();
+        props.setProperty(ExecutionProperties.RESULT_SET_CLIENT_CACHE_TTL, "forever");
+        Mockito.when(conn.getConnectionProps()).thenReturn(props);
+        StatementImpl statement = new StatementImpl(conn, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.executeQuery("select 1");
+            fail();
+        } catch (TeiidSQLException e) {
+            assertTrue(e.getMessage().startsWith("TEIID20046"));
+        }
+        Mockito.verify(conn, Mockito.never()).getDQP();
+    }
+
+    @Test public void testInvalidResultSetProperties() throws Exception {
+        ConnectionImpl conn = Mockito.mock(ConnectionImpl.class);
+        for (String property : new String[] {ExecutionProperties.ADAPTIVE_FETCH_BYTES,
+                ExecutionProperties.STREAMING_CURSOR_ROWS, ExecutionProperties.READ_AHEAD_BATCHES,
+                ExecutionProperties.READ_AHEAD_BYTES}) {
+            Properties props = new Properties();
+            props.setProperty(property, "-1");
+            Mockito.when(conn.getConnectionProps()).thenReturn(props);
+            StatementImpl statement = new StatementImpl(conn, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            TeiidSQLException e = assertThrows(TeiidSQLException.class, () -> statement.executeQuery("select 1"));
+            assertTrue(e.getMessage().startsWith("TEIID20049"));
+            assertTrue(e.getMessage().contains(property));
+        }
+        Mockito.verify(conn, Mockito.never()).getDQP();
+    }
+
 }
@@ -0,0 +1,261 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.jdbc;
+
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.client.util.ResultsStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestStreamingCursor {
+
+    private static final int BATCH = 10;
+
+    /**
+     * Pushes batches of 10 rows up to the total while there are credits
+     */
+    private static class FakeServer implements StreamingCursor.CursorStreamer {
+        private final int total;
+        private final ResultsStream<ResultsMessage> stream = new ResultsStream<>();
+        private final List<Integer> grants = new ArrayList<>();
+        private int nextRow;
+        private int credits;
+
+        FakeServer(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public ResultsStream<ResultsMessage> streamCursorRequest(int beginRow, int initialCredits) {
+            nextRow = beginRow;
+            credits = initialCredits;
+            push();
+            return stream;
+        }
+
+        @Override
+        public void grantCursorCredits(int granted) {
+            grants.add(granted);
+            credits += granted;
+            push();
+        }
+
+        private void push() {
+            while (credits > 0 && nextRow <= total) {
+                int end = Math.min(total, nextRow + Math.min(BATCH, credits) - 1);
+                List<?>[] rows = new List<?>[end - nextRow + 1];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = Arrays.asList(nextRow + i);
+                }
+                ResultsMessage message = new ResultsMessage();
+                message.setResults(rows);
+                message.setFirstRow(nextRow);
+                message.setLastRow(end);
+                message.setFinalRow(end == total ? total : -1);
+                credits -= rows.length;
+                nextRow = end + 1;
+                stream.receiveResults(message);
+                if (end == total) {
+                    stream.receiveResults(null);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCredits() throws Exception {
+        FakeServer server = new FakeServer(100);
+        StreamingCursor cursor = new StreamingCursor(server, 30);
+        assertNull(cursor.take());
+        cursor.start(11);
+        //only the credited rows are pushed
+        assertEquals(3, cursor.size());
+        //a second start has no effect
+        cursor.start(21);
+        assertEquals(41, server.nextRow);
+
+        int expected = 11;
+        ResultsFuture<ResultsMessage> next;
+        while ((next = cursor.take()) != null) {
+            ResultsMessage message = next.get();
+            if (message == null) {
+                break;
+            }
+            assertEquals(expected, message.getFirstRow());
+            expected += BATCH;
+            assertTrue(cursor.size() <= 3);
+        }
+        assertEquals(101, expected);
+        //credits are returned in halves of the initial credits
+        assertEquals(List.of(20, 20, 20), server.grants.subList(0, 3));
+    }
+
+    @Test
+    public void testPending() throws Exception {
+        ResultsStream<ResultsMessage> stream = new ResultsStream<>();
+        StreamingCursor cursor = new StreamingCursor(new StreamingCursor.CursorStreamer() {
+            @Override
+            public ResultsStream<ResultsMessage> streamCursorRequest(int beginRow, int credits) {
+                return stream;
+            }
+
+            @Override
+            public void grantCursorCredits(int credits) {
+            }
+        }, 10);
+        cursor.start(1);
+        ResultsFuture<ResultsMessage> first = cursor.take();
+        assertFalse(first.isDone());
+        ResultsMessage message = new ResultsMessage();
+        stream.receiveResults(message);
+        assertSame(message, first.get());
+
+        stream.exceptionOccurred(new TeiidSQLException("failed"));
+        assertTrue(stream.isDone());
+        assertNull(cursor.take());
+    }
+
+    @Test
+    public void testRetryPending() throws Exception {
+        ResultsStream<ResultsMessage> stream = new ResultsStream<>();
+        List<Integer> grants = new ArrayList<>();
+        StreamingCursor cursor = new StreamingCursor(new StreamingCursor.CursorStreamer() {
+            @Override
+            public ResultsStream<ResultsMessage> streamCursorRequest(int beginRow, int credits) {
+                return stream;
+            }
+
+            @Override
+            public void grantCursorCredits(int credits) {
+                grants.add(credits);
+            }
+        }, 10);
+        cursor.start(1);
+        ResultsFuture<ResultsMessage> first = cursor.take();
+        assertThrows(TimeoutException.class, () -> first.get(1, TimeUnit.MILLISECONDS));
+        //the wait is retried on the same batch
+        assertSame(first, cursor.take());
+        ResultsMessage message = new ResultsMessage();
+        message.setFirstRow(1);
+        message.setLastRow(5);
+        stream.receiveResults(message);
+        assertSame(message, first.get());
+        //the rows are counted once taken past
+        cursor.take();
+        assertEquals(List.of(5), grants);
+    }
+
+    @Test
+    public void testGrantOutsideLock() throws Exception {
+        ResultsStream<ResultsMessage> stream = new ResultsStream<>();
+        StreamingCursor[] cursor = new StreamingCursor[1];
+        boolean[] closed = new boolean[1];
+        cursor[0] = new StreamingCursor(new StreamingCursor.CursorStreamer() {
+            @Override
+            public ResultsStream<ResultsMessage> streamCursorRequest(int beginRow, int credits) {
+                return stream;
+            }
+
+            @Override
+            public void grantCursorCredits(int credits) throws TeiidSQLException {
+                //another thread is not blocked while the grant is sent
+                Thread t = new Thread(() -> cursor[0].close());
+                t.start();
+                try {
+                    t.join(10000);
+                } catch (InterruptedException e) {
+                    throw TeiidSQLException.create(e);
+                }
+                closed[0] = !t.isAlive();
+            }
+        }, 2);
+        cursor[0].start(1);
+        ResultsMessage message = new ResultsMessage();
+        message.setFirstRow(1);
+        message.setLastRow(2);
+        stream.receiveResults(message);
+        assertSame(message, cursor[0].take().get());
+        cursor[0].take();
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        FakeServer server = new FakeServer(100);
+        StreamingCursor cursor = new StreamingCursor(server, 30);
+        cursor.start(1);
+        assertEquals(3, cursor.size());
+        cursor.close();
+        assertEquals(0, cursor.size());
+        assertNull(cursor.take());
+        //later batches are ignored
+        server.grantCursorCredits(10);
+        assertEquals(0, cursor.size());
+
+        ResultsStream<Integer> stream = new ResultsStream<>();
+        ResultsFuture<Integer> waiting = stream.next();
+        stream.close();
+        assertNull(waiting.get());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        StreamingCursor cursor = new StreamingCursor(new StreamingCursor.CursorStreamer() {
+            @Override
+            public ResultsStream<ResultsMessage> streamCursorRequest(int beginRow, int credits) throws TeiidSQLException {
+                throw new TeiidSQLException("failed");
+            }
+
+            @Override
+            public void grantCursorCredits(int credits) {
+            }
+        }, 10);
+        cursor.start(1);
+        assertNull(cursor.take());
+    }
+
+    @Test
+    public void testStreamOrder() throws Exception {
+        ResultsStream<Integer> stream = new ResultsStream<>();
+        stream.receiveResults(1);
+        ResultsFuture<Integer> waiting = stream.next();
+        assertEquals(Integer.valueOf(1), waiting.get());
+        waiting = stream.next();
+        assertThrows(IllegalStateException.class, stream::next);
+        stream.receiveResults(2);
+        assertEquals(Integer.valueOf(2), waiting.get());
+        stream.receiveResults(3);
+        stream.exceptionOccurred(new TeiidSQLException("failed"));
+        //results already received are taken before the exception
+        assertEquals(Integer.valueOf(3), stream.next().get());
+        ExecutionException e = assertThrows(ExecutionException.class, stream.next()::get);
+        assertEquals("failed", e.getCause().getMessage());
+    }
+
+}
@@ -136,10 +136,10 @@ public class TestTeiidDriver {
     @Test public void testGetPropertyInfo1() throws Exception {
         DriverPropertyInfo info[] = drv.getPropertyInfo("jdbc:teiid:vdb@mm://localhost:12345;applicationName=x", null);
 
-        assertEquals(29, info.length);
-        assertEquals(false, info[1].required);
-        assertEquals("ApplicationName", info[1].name);
-        assertEquals("x", info[1].value);
+        assertEquals(40, info.length);
+        assertEquals(false, info[3].required);
+        assertEquals("ApplicationName", info[3].name);
+        assertEquals("x", info[3].value);
 
         for (DriverPropertyInfo dpi : info) {
             assertTrue(!dpi.description.startsWith("<Missing message"), dpi.name);
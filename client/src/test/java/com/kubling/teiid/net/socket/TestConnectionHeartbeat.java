@@ -0,0 +1,278 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+import com.kubling.teiid.client.security.ILogon;
+import com.kubling.teiid.client.security.LogonResult;
+import com.kubling.teiid.client.security.SessionToken;
+import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.client.util.ResultsReceiver;
+import com.kubling.teiid.core.crypto.Cryptor;
+import com.kubling.teiid.core.crypto.NullCryptor;
+import com.kubling.teiid.net.HostInfo;
+import com.kubling.teiid.net.TeiidURL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestConnectionHeartbeat {
+
+    private static final class FakeInstance implements SocketServerInstance {
+        final HostInfo info;
+        final AtomicInteger pings = new AtomicInteger();
+        volatile boolean down;
+        volatile boolean hung;
+        volatile boolean shutdown;
+        volatile int pending;
+        volatile long lastResponse;
+
+        FakeInstance(HostInfo info) {
+            this.info = info;
+        }
+
+        @Override
+        public <T> T getService(Class<T> iface) {
+            return iface.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{iface},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "logon" -> new LogonResult(new SessionToken(1, "user"), "vdb", "fake");
+                        case "ping" -> {
+                            pings.incrementAndGet();
+                            if (down) {
+                                throw new SingleInstanceCommunicationException();
+                            }
+                            if (hung) {
+                                //a request starts while the ping is waiting
+                                pending = 2;
+                                yield new ResultsFuture<Void>();
+                            }
+                            yield ResultsFuture.NULL_FUTURE;
+                        }
+                        default -> null;
+                    }));
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public HostInfo getHostInfo() {
+            return info;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !shutdown;
+        }
+
+        @Override
+        public Cryptor getCryptor() {
+            return new NullCryptor();
+        }
+
+        @Override
+        public long getSynchTimeout() {
+            return 1000;
+        }
+
+        @Override
+        public void send(Message message, ResultsReceiver<Object> receiver, Serializable key) {
+            receiver.receiveResults(null);
+        }
+
+        @Override
+        public void read(long timeout, TimeUnit unit, ResultsFuture<?> resultsFuture) {
+        }
+
+        @Override
+        public int getPendingCount() {
+            return pending;
+        }
+
+        @Override
+        public long getLastResponseTime() {
+            return lastResponse;
+        }
+
+        @Override
+        public String getServerVersion() {
+            return "08.03";
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return null;
+        }
+    }
+
+    private final List<FakeInstance> instances = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        HostStatistics.clear();
+    }
+
+    private SocketServerConnection createConnection(Properties p) throws Exception {
+        p.setProperty(TeiidURL.CONNECTION.LOAD_BALANCING_POLICY, LoadBalancingPolicy.LEAST_OUTSTANDING.name());
+        UrlServerDiscovery discovery = new UrlServerDiscovery();
+        discovery.init(new TeiidURL("mm://127.0.0.1:31001,127.0.0.1:31002"), p);
+        SocketServerInstanceFactory factory = new SocketServerInstanceFactory() {
+            @Override
+            public SocketServerInstance getServerInstance(HostInfo info) {
+                FakeInstance instance = new FakeInstance(info);
+                instances.add(instance);
+                return instance;
+            }
+
+            @Override
+            public String resolveHostname(InetAddress addr) {
+                return null;
+            }
+        };
+        return new SocketServerConnection(factory, false, discovery, p);
+    }
+
+    @Test
+    public void testFailOverOnFailedHeartbeat() throws Exception {
+        Properties p = new Properties();
+        p.setProperty(TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, "1");
+        SocketServerConnection connection = createConnection(p);
+        FakeInstance first = instances.get(0);
+        Thread.sleep(5);
+        assertTrue(connection.heartbeat());
+        assertEquals(1, first.pings.get());
+        assertFalse(first.shutdown);
+        assertEquals(0, connection.getReconnectCount());
+
+        first.down = true;
+        Thread.sleep(5);
+        assertTrue(connection.heartbeat());
+        assertTrue(first.shutdown);
+        assertTrue(HostStatistics.getStatistics(first.getHostInfo()).isSuspect(System.nanoTime()));
+        //the session was moved to the other host without a request
+        assertEquals(2, instances.size());
+        FakeInstance second = instances.get(1);
+        assertNotEquals(first.getHostInfo(), second.getHostInfo());
+        assertSame(second, connection.selectServerInstance());
+        assertNotNull(connection.getLogonResult());
+        assertEquals(1, connection.getReconnectCount());
+
+        connection.close();
+        assertFalse(connection.heartbeat());
+    }
+
+    @Test
+    public void testActiveConnectionNotPinged() throws Exception {
+        Properties p = new Properties();
+        p.setProperty(TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, "60000");
+        SocketServerConnection connection = createConnection(p);
+        assertTrue(connection.heartbeat());
+        assertEquals(0, instances.get(0).pings.get());
+        connection.close();
+    }
+
+    @Test
+    public void testOutstandingRequestNotPinged() throws Exception {
+        Properties p = new Properties();
+        p.setProperty(TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, "1");
+        SocketServerConnection connection = createConnection(p);
+        FakeInstance first = instances.get(0);
+        first.pending = 1;
+        Thread.sleep(5);
+        assertTrue(connection.heartbeat());
+        assertEquals(0, first.pings.get());
+
+        //idle time is from the last response
+        first.pending = 0;
+        first.lastResponse = System.currentTimeMillis() + 60000;
+        assertTrue(connection.heartbeat());
+        assertEquals(0, first.pings.get());
+        connection.close();
+    }
+
+    @Test
+    public void testPingTimeoutWithOutstandingRequest() throws Exception {
+        Properties p = new Properties();
+        p.setProperty(TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, "10");
+        SocketServerConnection connection = createConnection(p);
+        FakeInstance first = instances.get(0);
+        first.hung = true;
+        Thread.sleep(15);
+        assertTrue(connection.heartbeat());
+        assertEquals(1, first.pings.get());
+        //the request is not failed over
+        assertFalse(first.shutdown);
+        assertSame(first, connection.selectServerInstance());
+
+        first.pending = 0;
+        first.hung = false;
+        first.down = true;
+        Thread.sleep(15);
+        assertTrue(connection.heartbeat());
+        assertTrue(first.shutdown);
+        connection.close();
+    }
+
+    @Test
+    public void testNoPingOnRequest() throws Exception {
+        Properties p = new Properties();
+        p.setProperty(TeiidURL.CONNECTION.AUTO_FAILOVER, "true");
+        p.setProperty(TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, "60000");
+        SocketServerConnection connection = createConnection(p);
+        connection.setFailOverPingInterval(0);
+        Thread.sleep(5);
+        connection.getService(ILogon.class).logoff();
+        assertEquals(0, instances.get(0).pings.get());
+
+        //without a heartbeat the ping is made before the request
+        connection.setHeartbeatInterval(0);
+        Thread.sleep(5);
+        connection.getService(ILogon.class).logoff();
+        assertEquals(1, instances.get(0).pings.get());
+        connection.close();
+    }
+
+    @Test
+    public void testScheduledHeartbeat() throws Exception {
+        Properties p = new Properties();
+        p.setProperty(TeiidURL.CONNECTION.AUTO_FAILOVER, "true");
+        p.setProperty(TeiidURL.CONNECTION.HEARTBEAT_INTERVAL, "10");
+        SocketServerConnection connection = createConnection(p);
+        FakeInstance first = instances.get(0);
+        long end = System.currentTimeMillis() + 10000;
+        while (first.pings.get() == 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(5);
+        }
+        assertTrue(first.pings.get() > 0);
+        connection.close();
+    }
+
+}
@@ -21,10 +21,9 @@ package com.kubling.teiid.net.socket;
 import com.kubling.teiid.core.util.UnitTestUtil;
 import org.junit.jupiter.api.Test;
 
-import java.io.FileInputStream;
-import java.io.ObjectInputStream;
+import java.io.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 @SuppressWarnings("nls")
 public class TestHandshake {
@@ -43,4 +42,99 @@ public class TestHandshake {
         assertEquals("11.02.03.a", hs.getVersion());
     }
 
+    @Test public void testCompression() throws Exception {
+        Handshake hs = new Handshake();
+        assertFalse(hs.isCompression());
+        hs.setCompression(true);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(hs);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        hs = (Handshake)ois.readObject();
+        assertTrue(hs.isCompression());
+        assertTrue(hs.isCbc());
+        assertFalse(hs.isGcm());
+    }
+
+    @Test public void testResumption() throws Exception {
+        Handshake hs = new Handshake();
+        hs.setResumption(true);
+        hs.setSessionTicket(new byte[] {1, 2, 3});
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(hs);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        hs = (Handshake)ois.readObject();
+        assertTrue(hs.isResumption());
+        assertArrayEquals(new byte[] {1, 2, 3}, hs.getSessionTicket());
+    }
+
+    @Test public void testInvalidTicketLength() throws Exception {
+        Handshake hs = new Handshake();
+        hs.setResumption(true);
+        hs.setSessionTicket(new byte[Handshake.MAX_TICKET_LENGTH + 1]);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(hs);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        assertThrows(StreamCorruptedException.class, ois::readObject);
+    }
+
+    @Test public void testGcm() throws Exception {
+        Handshake hs = new Handshake();
+        hs.setGcm(true);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(hs);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        hs = (Handshake)ois.readObject();
+        assertTrue(hs.isGcm());
+    }
+
+    @Test public void testClassDictionary() throws Exception {
+        Handshake hs = new Handshake();
+        assertFalse(hs.isClassDictionary());
+        hs.setClassDictionary(true);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(hs);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        hs = (Handshake)ois.readObject();
+        assertTrue(hs.isClassDictionary());
+        assertFalse(hs.isGcm());
+    }
+
+    @Test public void testProtocolVersion() throws Exception {
+        Handshake hs = new Handshake();
+        assertEquals(0, hs.getProtocolVersion());
+        hs.setProtocolVersion((byte) 1);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(hs);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        hs = (Handshake)ois.readObject();
+        assertEquals(1, hs.getProtocolVersion());
+        assertFalse(hs.isClassDictionary());
+    }
+
+    @Test public void testStreamingCursors() throws Exception {
+        Handshake hs = new Handshake();
+        assertFalse(hs.isStreamingCursors());
+        hs.setStreamingCursors(true);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(hs);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        hs = (Handshake)ois.readObject();
+        assertTrue(hs.isStreamingCursors());
+        assertEquals(0, hs.getProtocolVersion());
+    }
+
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+import com.kubling.teiid.net.HostInfo;
+import com.kubling.teiid.net.TeiidURL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("nls")
+public class TestLoadBalancingPolicy {
+
+    private final HostInfo a = new HostInfo("lb-a", 31000);
+    private final HostInfo b = new HostInfo("lb-b", 31000);
+    private final HostInfo c = new HostInfo("lb-c", 31000);
+    private final Random random = new Random(1);
+
+    @AfterEach
+    public void tearDown() {
+        HostStatistics.clear();
+    }
+
+    private List<HostInfo> hosts() {
+        return new ArrayList<>(Arrays.asList(a, b, c));
+    }
+
+    private int count(LoadBalancingPolicy policy, HostInfo expected, long now) {
+        int count = 0;
+        for (int i = 0; i < 1000; i++) {
+            List<HostInfo> hosts = hosts();
+            if (hosts.get(policy.select(hosts, now, random)).equals(expected)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+        HostStatistics.getStatistics(a).requestStarted();
+        HostStatistics.getStatistics(b).connectionOpened();
+        assertEquals(1000, count(LoadBalancingPolicy.LEAST_OUTSTANDING, c, System.nanoTime()));
+        HostStatistics.getStatistics(c).connectionOpened();
+        //b and c are tied
+        int selected = count(LoadBalancingPolicy.LEAST_OUTSTANDING, b, System.nanoTime());
+        assertTrue(selected > 400 && selected < 600, String.valueOf(selected));
+    }
+
+    @Test
+    public void testLatency() {
+        long now = System.nanoTime();
+        HostStatistics.getStatistics(a).recordLatency(TimeUnit.MILLISECONDS.toNanos(100), now);
+        HostStatistics.getStatistics(b).recordLatency(TimeUnit.MILLISECONDS.toNanos(1), now);
+        HostStatistics.getStatistics(c).recordLatency(TimeUnit.MILLISECONDS.toNanos(100), now);
+        assertTrue(count(LoadBalancingPolicy.LATENCY, b, now) > 900);
+    }
+
+    @Test
+    public void testLatencyDecay() {
+        long now = System.nanoTime();
+        HostStatistics stats = HostStatistics.getStatistics(a);
+        stats.recordLatency(TimeUnit.MILLISECONDS.toNanos(100), now);
+        //peaks are taken immediately
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), stats.getLatency(now), 1);
+        stats.recordLatency(TimeUnit.MILLISECONDS.toNanos(10), now + HostStatistics.DECAY_NANOS);
+        double latency = stats.getLatency(now + HostStatistics.DECAY_NANOS);
+        assertTrue(latency < TimeUnit.MILLISECONDS.toNanos(50) && latency > TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(stats.getLatency(now + 10 * HostStatistics.DECAY_NANOS) < latency / 1000);
+    }
+
+    @Test
+    public void testPowerOfTwo() {
+        HostStatistics.getStatistics(a).connectionOpened();
+        HostStatistics.getStatistics(a).connectionOpened();
+        HostStatistics.getStatistics(b).connectionOpened();
+        //a can never be selected as there is always a less loaded choice
+        assertEquals(0, count(LoadBalancingPolicy.POWER_OF_TWO, a, System.nanoTime()));
+        //c wins whenever it is one of the choices
+        int selected = count(LoadBalancingPolicy.POWER_OF_TWO, c, System.nanoTime());
+        assertTrue(selected > 566 && selected < 766, String.valueOf(selected));
+    }
+
+    @Test
+    public void testSuspectHostsAvoided() {
+        long now = System.nanoTime();
+        HostStatistics.getStatistics(b).connectionOpened();
+        HostStatistics.getStatistics(c).connectionOpened();
+        HostStatistics.getStatistics(a).connectFailed(now);
+        HostStatistics.getStatistics(b).connectFailed(now);
+        assertEquals(1000, count(LoadBalancingPolicy.LEAST_OUTSTANDING, c, now));
+        assertEquals(1000, count(LoadBalancingPolicy.POWER_OF_TWO, c, now));
+        assertEquals(1000, count(LoadBalancingPolicy.LATENCY, c, now));
+        //a successful connection clears the failure
+        HostStatistics.getStatistics(b).connectionOpened();
+        assertFalse(HostStatistics.getStatistics(b).isSuspect(now));
+        //once the backoff expires a is again the least loaded
+        assertEquals(1000, count(LoadBalancingPolicy.LEAST_OUTSTANDING, a, now + HostStatistics.FAILURE_BACKOFF_NANOS));
+        //when all hosts are suspect they are all candidates
+        HostStatistics.getStatistics(b).connectFailed(now);
+        HostStatistics.getStatistics(c).connectFailed(now);
+        assertEquals(1000, count(LoadBalancingPolicy.LEAST_OUTSTANDING, a, now));
+    }
+
+    @Test
+    public void testDiscoveryPolicy() throws Exception {
+        UrlServerDiscovery discovery = new UrlServerDiscovery();
+        Properties p = new Properties();
+        discovery.init(new TeiidURL("mm://lb-a:31000,lb-b:31000"), p);
+        assertEquals(LoadBalancingPolicy.RANDOM, discovery.getPolicy());
+        p.setProperty(TeiidURL.CONNECTION.LOAD_BALANCING_POLICY, "least_outstanding");
+        discovery.init(new TeiidURL("mm://lb-a:31000,lb-b:31000"), p);
+        assertEquals(LoadBalancingPolicy.LEAST_OUTSTANDING, discovery.getPolicy());
+
+        HostStatistics.getStatistics(a).connectionOpened();
+        List<HostInfo> hosts = new ArrayList<>(discovery.getKnownHosts());
+        assertEquals(b, discovery.selectNextInstance(hosts));
+        assertEquals(a, discovery.selectNextInstance(hosts));
+        assertTrue(hosts.isEmpty());
+
+        p.setProperty(TeiidURL.CONNECTION.LOAD_BALANCING_POLICY, "unknown");
+        discovery = new UrlServerDiscovery();
+        discovery.init(new TeiidURL("mm://lb-a:31000"), p);
+        assertEquals(LoadBalancingPolicy.RANDOM, discovery.getPolicy());
+    }
+
+}
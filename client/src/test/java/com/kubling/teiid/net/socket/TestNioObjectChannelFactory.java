@@ -0,0 +1,322 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.net.socket;
+
+import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.core.types.BlobImpl;
+import com.kubling.teiid.core.types.ClobImpl;
+import com.kubling.teiid.core.types.InputStreamFactory;
+import com.kubling.teiid.core.util.AccessibleBufferedInputStream;
+import com.kubling.teiid.core.util.ObjectConverterUtil;
+import com.kubling.teiid.net.HostInfo;
+import com.kubling.teiid.netty.handler.codec.serialization.ObjectDecoderInputStream;
+import com.kubling.teiid.netty.handler.codec.serialization.ObjectEncoderOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SuppressWarnings("nls")
+public class TestNioObjectChannelFactory {
+
+    private ServerSocket serverSocket;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        startEchoServer(false);
+    }
+
+    /**
+     * Echo every message back to the client using the blocking codec
+     */
+    private void startEchoServer(boolean sendHandshake) {
+        final ServerSocket server = serverSocket;
+        Thread echoThread = new Thread(() -> {
+            try (Socket socket = server.accept()) {
+                ObjectDecoderInputStream in = new ObjectDecoderInputStream(
+                        new AccessibleBufferedInputStream(socket.getInputStream(), 1024), getClass().getClassLoader(), 1 << 25);
+                ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(socket.getOutputStream()), 1024);
+                if (sendHandshake) {
+                    out.writeObject(new Handshake());
+                    out.flush();
+                    in.readObject();
+                }
+                while (true) {
+                    Object o = in.readObject();
+                    out.writeObject(o);
+                    out.flush();
+                }
+            } catch (Exception e) {
+                //closed
+            }
+        });
+        echoThread.setDaemon(true);
+        echoThread.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        serverSocket.close();
+    }
+
+    private NioObjectChannelFactory createFactory() {
+        Properties p = new Properties();
+        p.setProperty("org.teiid.sockets.soTimeout", "5000");
+        NioObjectChannelFactory factory = new NioObjectChannelFactory(p);
+        assertEquals(5000, factory.getSoTimeout());
+        return factory;
+    }
+
+    private HostInfo getHostInfo() throws UnknownHostException {
+        HostInfo info = new HostInfo(serverSocket.getInetAddress().getHostAddress(), serverSocket.getLocalPort());
+        info.getInetAddress();
+        return info;
+    }
+
+    private ObjectChannel createChannel() throws Exception {
+        return createFactory().createObjectChannel(getHostInfo());
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        ObjectChannel channel = createChannel();
+        channel.write("hello").get();
+        assertEquals("hello", channel.read());
+
+        //larger than the internal buffers
+        byte[] bytes = new byte[1 << 20];
+        Arrays.fill(bytes, (byte) 7);
+        channel.write(bytes).get();
+        assertArrayEquals(bytes, (byte[]) channel.read());
+        channel.close();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testReadTimeout() throws Exception {
+        Properties p = new Properties();
+        p.setProperty("org.teiid.sockets.soTimeout", "10");
+        ObjectChannel channel = new NioObjectChannelFactory(p).createObjectChannel(getHostInfo());
+        assertThrows(SocketTimeoutException.class, channel::read);
+        channel.close();
+    }
+
+    @Test
+    public void testConnectRefused() throws Exception {
+        //a bound socket that is not listening holds the port, so that the connect cannot be to itself
+        try (Socket blocker = new Socket()) {
+            blocker.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            HostInfo info = new HostInfo(blocker.getLocalAddress().getHostAddress(), blocker.getLocalPort());
+            assertThrows(ConnectException.class, () -> createFactory().createObjectChannel(info));
+        }
+    }
+
+    @Test
+    public void testConnectTimeout() throws Exception {
+        //fill the backlog of a server that never accepts, so that further connects are not answered
+        List<Socket> filled = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            boolean full = false;
+            for (int i = 0; i < 10 && !full; i++) {
+                Socket socket = new Socket();
+                filled.add(socket);
+                try {
+                    socket.connect(server.getLocalSocketAddress(), 200);
+                } catch (SocketTimeoutException e) {
+                    full = true;
+                }
+            }
+            assumeTrue(full);
+            NioObjectChannelFactory factory = createFactory();
+            factory.setConnectTimeout(100);
+            HostInfo info = new HostInfo(server.getInetAddress().getHostAddress(), server.getLocalPort());
+            assertThrows(SocketTimeoutException.class, () -> factory.createObjectChannel(info));
+        } finally {
+            for (Socket socket : filled) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void testListener() throws Exception {
+        ObjectChannel channel = createChannel();
+        final LinkedBlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        channel.write("first").get();
+        assertTrue(channel.setChannelListener(new ObjectChannel.ChannelListener() {
+            @Override
+            public void onMessage(Object message) {
+                //listeners are not called from the event loop
+                assertFalse(NioObjectChannelFactory.isEventLoopThread());
+                received.add(message);
+            }
+
+            @Override
+            public void onException(Throwable t) {
+                received.add(t);
+            }
+        }));
+        for (int i = 0; i < 100; i++) {
+            channel.write(i);
+        }
+        assertEquals("first", received.poll(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, received.poll(5, TimeUnit.SECONDS));
+        }
+        channel.close();
+        assertInstanceOf(EOFException.class, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testLobStream() throws Exception {
+        ObjectChannel channel = createChannel();
+        final byte[] bytes = new byte[100000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        BlobImpl blob = new BlobImpl(new InputStreamFactory() {
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(bytes);
+            }
+        });
+        channel.write(blob).get();
+        BlobImpl result = (BlobImpl) channel.read();
+        assertArrayEquals(bytes, ObjectConverterUtil.convertToByteArray(result.getBinaryStream()));
+        channel.close();
+    }
+
+    @Test
+    public void testFileLobStream() throws Exception {
+        ObjectChannel channel = createChannel();
+        //spans many chunks and is not a multiple of the chunk size
+        byte[] bytes = new byte[(3 << 20) + 17];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+        File f = File.createTempFile("lob", null);
+        f.deleteOnExit();
+        Files.write(f.toPath(), bytes);
+        channel.write(new Object[]{new BlobImpl(new InputStreamFactory.FileInputStreamFactory(f)), "x"}).get();
+        Object[] result = (Object[]) channel.read();
+        assertArrayEquals(bytes, ObjectConverterUtil.convertToByteArray(((BlobImpl) result[0]).getBinaryStream()));
+        assertEquals("x", result[1]);
+
+        Files.write(f.toPath(), "\u00e9t\u00e9".getBytes(StandardCharsets.UTF_8));
+        channel.write(new ClobImpl(new InputStreamFactory.FileInputStreamFactory(f), -1)).get();
+        assertEquals("\u00e9t\u00e9", ((ClobImpl) channel.read()).getSubString(1, 3));
+        channel.close();
+        f.delete();
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+        Properties p = new Properties();
+        p.setProperty("org.teiid.sockets.compression", "true");
+        p.setProperty("org.teiid.sockets.compressionThreshold", "100");
+        ObjectChannel channel = new NioObjectChannelFactory(p).createObjectChannel(getHostInfo());
+        assertEquals(100, channel.getCompressionThreshold());
+        channel.enableCompression();
+        byte[] bytes = new byte[100000];
+        channel.write(bytes).get();
+        assertArrayEquals(bytes, (byte[]) channel.read());
+        ChannelStatistics stats = channel.getStatistics();
+        assertTrue(stats.getBytesSent() * 10 < stats.getPayloadBytesSent());
+        //the echo server does not compress
+        assertEquals(stats.getPayloadBytesSent(), stats.getBytesReceived());
+        assertEquals(stats.getBytesReceived(), stats.getPayloadBytesReceived());
+        channel.close();
+    }
+
+    @Test
+    public void testServerInstance() throws Exception {
+        serverSocket.close();
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        startEchoServer(true);
+        SocketServerInstanceImpl instance = new SocketServerInstanceImpl(getHostInfo(), 5000, 5000);
+        instance.connect(createFactory());
+        ResultsFuture<Object> future = new ResultsFuture<>();
+        Message message = new Message();
+        message.setContents("contents");
+        instance.send(message, future.getResultsReceiver(), 1);
+        instance.read(5, TimeUnit.SECONDS, future);
+        assertEquals("contents", future.get(5, TimeUnit.SECONDS));
+
+        ResultsFuture<Object> pending = new ResultsFuture<>();
+        instance.shutdown();
+        assertFalse(instance.isOpen());
+        assertThrows(SingleInstanceCommunicationException.class,
+                () -> instance.send(new Message(), pending.getResultsReceiver(), 2));
+    }
+
+    @Test
+    public void testSynchronousCallFromDelivery() throws Exception {
+        serverSocket.close();
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        startEchoServer(true);
+        SocketServerInstanceImpl instance = new SocketServerInstanceImpl(getHostInfo(), 5000, 5000);
+        instance.connect(createFactory());
+        ResultsFuture<Object> first = new ResultsFuture<>();
+        ResultsFuture<Object> nested = new ResultsFuture<>();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        first.addCompletionListener(f -> {
+            try {
+                //a synchronous call waits on a result that is delivered by this same thread
+                Message message = new Message();
+                message.setContents("nested");
+                instance.send(message, nested.getResultsReceiver(), 2);
+                instance.read(5, TimeUnit.SECONDS, nested);
+                result.complete(nested.get(5, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        Message message = new Message();
+        message.setContents("first");
+        instance.send(message, first.getResultsReceiver(), 1);
+        assertEquals("nested", result.get(10, TimeUnit.SECONDS));
+        instance.shutdown();
+    }
+
+}
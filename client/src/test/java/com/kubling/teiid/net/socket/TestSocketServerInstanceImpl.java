@@ -20,6 +20,9 @@ package com.kubling.teiid.net.socket;
 
 import com.kubling.teiid.client.security.ILogon;
 import com.kubling.teiid.client.util.ResultsFuture;
+import com.kubling.teiid.core.crypto.DhKeyGenerator;
+import com.kubling.teiid.core.crypto.NullCryptor;
+import com.kubling.teiid.core.crypto.SymmetricCryptor;
 import com.kubling.teiid.net.CommunicationException;
 import com.kubling.teiid.net.HostInfo;
 import org.junit.jupiter.api.Test;
@@ -32,9 +35,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -150,4 +160,152 @@ public class TestSocketServerInstanceImpl {
         }
     }
 
+    @Test public void testPipelinedResponses() throws Exception {
+        final ObjectChannel.ChannelListener[] listener = new ObjectChannel.ChannelListener[1];
+        final List<ResultsFuture<Void>> writes = new ArrayList<>();
+        final FakeObjectChannel channel = new FakeObjectChannel(Arrays.asList(new Handshake())) {
+            @Override
+            public Future<?> write(Object msg) {
+                if (!(msg instanceof Message)) {
+                    return super.write(msg);
+                }
+                msgs.add(msg);
+                ResultsFuture<Void> result = new ResultsFuture<>();
+                writes.add(result);
+                return result;
+            }
+
+            @Override
+            public boolean setChannelListener(ChannelListener channelListener) {
+                listener[0] = channelListener;
+                return true;
+            }
+        };
+
+        SocketServerInstanceImpl instance = createInstance(channel);
+        assertNotNull(listener[0]);
+
+        List<ResultsFuture<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ResultsFuture<Object> result = new ResultsFuture<>();
+            results.add(result);
+            //does not block as the writes are still pending
+            instance.send(new Message(), result.getResultsReceiver(), i);
+        }
+        writes.get(0).getResultsReceiver().receiveResults(null);
+        writes.get(1).getResultsReceiver().receiveResults(null);
+        writes.get(2).getResultsReceiver().exceptionOccurred(new IOException());
+
+        //responses may arrive in any order
+        for (int i = 1; i >= 0; i--) {
+            Message response = new Message();
+            response.setMessageKey(i);
+            response.setContents(i * 10);
+            listener[0].onMessage(response);
+        }
+        instance.read(1, TimeUnit.SECONDS, results.get(0));
+        assertEquals(0, results.get(0).get(1, TimeUnit.SECONDS));
+        assertEquals(10, results.get(1).get(1, TimeUnit.SECONDS));
+        try {
+            results.get(2).get(1, TimeUnit.SECONDS);
+            fail("Exception expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SingleInstanceCommunicationException);
+        }
+    }
+
+    @Test public void testHostStatistics() throws Exception {
+        final ObjectChannel.ChannelListener[] listener = new ObjectChannel.ChannelListener[1];
+        final FakeObjectChannel channel = new FakeObjectChannel(Arrays.asList(new Handshake())) {
+            @Override
+            public boolean setChannelListener(ChannelListener channelListener) {
+                listener[0] = channelListener;
+                return true;
+            }
+        };
+        HostInfo info = new HostInfo("0.0.0.0", 2);
+        info.getInetAddress();
+        HostStatistics stats = HostStatistics.getStatistics(info);
+        SocketServerInstanceImpl instance = new SocketServerInstanceImpl(info, 1, 1);
+        instance.connect(channel);
+        assertEquals(1, stats.getOpenConnections());
+
+        ResultsFuture<Object> result = new ResultsFuture<>();
+        instance.send(new Message(), result.getResultsReceiver(), 1);
+        instance.send(new Message(), new ResultsFuture<>().getResultsReceiver(), 2);
+        assertEquals(2, stats.getInFlight());
+
+        Message response = new Message();
+        response.setMessageKey(1);
+        listener[0].onMessage(response);
+        assertTrue(result.isDone());
+        assertEquals(1, stats.getInFlight());
+        assertTrue(stats.getLatency(System.nanoTime()) > 0);
+
+        //the abandoned call is no longer counted
+        instance.shutdown();
+        assertEquals(0, stats.getInFlight());
+        assertEquals(0, stats.getOpenConnections());
+        instance.shutdown();
+        assertEquals(0, stats.getOpenConnections());
+    }
+
+    private static Handshake resumptionHandshake(boolean resumption) {
+        Handshake handshake = new Handshake();
+        handshake.setResumption(resumption);
+        return handshake;
+    }
+
+    @Test public void testResumedHandshake() throws Exception {
+        FakeObjectChannel channel = new FakeObjectChannel(Arrays.asList(resumptionHandshake(true), resumptionHandshake(true)));
+        HostInfo info = new HostInfo("0.0.0.0", 1);
+        info.getInetAddress();
+        SocketServerInstanceImpl ssii = new SocketServerInstanceImpl(info, 1, 1);
+        ssii.connect(channel, new SessionTicket(new byte[] {1, 2}, null, true, 1000, System.currentTimeMillis()));
+        assertTrue(ssii.isResumed());
+        assertEquals(1, channel.msgs.size());
+        Handshake sent = (Handshake)channel.msgs.get(0);
+        assertArrayEquals(new byte[] {1, 2}, sent.getSessionTicket());
+        assertNull(sent.getPublicKey());
+        assertTrue(ssii.getCryptor() instanceof NullCryptor);
+    }
+
+    @Test public void testResumedEncryptedHandshake() throws Exception {
+        Handshake server = resumptionHandshake(true);
+        server.setPublicKey(new DhKeyGenerator().createPublicKey(false));
+        FakeObjectChannel channel = new FakeObjectChannel(Arrays.asList(server, resumptionHandshake(true)));
+        HostInfo info = new HostInfo("0.0.0.0", 1);
+        info.getInetAddress();
+        SocketServerInstanceImpl ssii = new SocketServerInstanceImpl(info, 1, 1);
+        byte[] key = new byte[16];
+        ssii.connect(channel, new SessionTicket(new byte[] {1}, key, true, 1000, System.currentTimeMillis()));
+        assertTrue(ssii.isResumed());
+        assertNull(((Handshake)channel.msgs.get(0)).getPublicKey());
+        assertArrayEquals(key, ((SymmetricCryptor)ssii.getCryptor()).getEncodedKey());
+        assertArrayEquals(key, ssii.createSessionTicket(new byte[] {2}, 1000).getKey());
+    }
+
+    @Test public void testRejectedResumption() throws Exception {
+        FakeObjectChannel channel = new FakeObjectChannel(Arrays.asList(resumptionHandshake(true), resumptionHandshake(false)));
+        HostInfo info = new HostInfo("0.0.0.0", 1);
+        info.getInetAddress();
+        SocketServerInstanceImpl ssii = new SocketServerInstanceImpl(info, 1, 1);
+        ssii.connect(channel, new SessionTicket(new byte[] {1, 2}, null, true, 1000, System.currentTimeMillis()));
+        assertFalse(ssii.isResumed());
+        //the ticket, then the full handshake
+        assertEquals(2, channel.msgs.size());
+        assertNull(((Handshake)channel.msgs.get(1)).getSessionTicket());
+    }
+
+    @Test public void testExpiredTicket() throws Exception {
+        FakeObjectChannel channel = new FakeObjectChannel(Arrays.asList(resumptionHandshake(true)));
+        HostInfo info = new HostInfo("0.0.0.0", 1);
+        info.getInetAddress();
+        SocketServerInstanceImpl ssii = new SocketServerInstanceImpl(info, 1, 1);
+        ssii.connect(channel, new SessionTicket(new byte[] {1, 2}, null, true, 0, System.currentTimeMillis()));
+        assertFalse(ssii.isResumed());
+        assertEquals(1, channel.msgs.size());
+        assertNull(((Handshake)channel.msgs.get(0)).getSessionTicket());
+    }
+
 }
@@ -18,12 +18,18 @@
 
 package com.kubling.teiid.netty.handler.codec.serialization;
 
+import com.kubling.teiid.client.DQP;
+import com.kubling.teiid.client.RequestMessage;
+import com.kubling.teiid.client.ResultsMessage;
+import com.kubling.teiid.core.types.ArrayImpl;
 import com.kubling.teiid.core.types.ClobImpl;
 import com.kubling.teiid.core.types.InputStreamFactory;
 import com.kubling.teiid.core.types.Streamable;
 import com.kubling.teiid.core.util.AccessibleBufferedInputStream;
 import com.kubling.teiid.core.util.Assertion;
 import com.kubling.teiid.core.util.ReaderInputStream;
+import com.kubling.teiid.net.socket.Message;
+import com.kubling.teiid.net.socket.ServiceInvocationStruct;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -86,4 +92,141 @@ public class TestObjectDecoderInputStream {
         Object result = in.readObject();
         Assertion.assertTrue(result instanceof ClobImpl);
     }
+
+    @Test
+    public void testCompression() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(baos), 512);
+        out.setCompressionThreshold(64);
+
+        char[] chars = new char[10000];
+        Arrays.fill(chars, 'a');
+        String large = new String(chars);
+        out.writeObject(large);
+        out.writeObject("small");
+        out.writeObject(Arrays.asList(large, large));
+
+        Assertions.assertEquals(baos.size(), out.getBytesWritten());
+        Assertions.assertTrue(out.getBytesWritten() * 10 < out.getPayloadBytesWritten());
+
+        ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1 << 16);
+        Assertions.assertEquals(large, in.readObject());
+        Assertions.assertEquals("small", in.readObject());
+        Assertions.assertEquals(Arrays.asList(large, large), in.readObject());
+        Assertions.assertEquals(out.getBytesWritten(), in.getBytesRead());
+        Assertions.assertEquals(out.getPayloadBytesWritten(), in.getPayloadBytesRead());
+    }
+
+    @Test
+    public void testCompressedMaxObjectSize() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(baos), 512);
+        out.setCompressionThreshold(0);
+        out.writeObject(new byte[10000]);
+
+        ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1024);
+        Assertions.assertThrows(StreamCorruptedException.class, in::readObject);
+    }
+
+    @Test
+    public void testClassDictionary() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(baos), 512);
+        ClassDictionary written = new ClassDictionary();
+        out.setClassDictionary(written);
+
+        Object obj = Arrays.<Object>asList(new ArrayImpl(new Integer[] {1, 2}), new java.sql.Timestamp(0), new java.math.BigDecimal("1.1"));
+        out.writeObject(obj);
+        long first = out.getBytesWritten();
+        out.writeObject(obj);
+        long second = out.getBytesWritten() - first;
+        //only the ids are sent the second time
+        Assertions.assertTrue(second * 2 < first);
+        Assertions.assertTrue(written.size() > 3);
+
+        ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1 << 16);
+        ClassDictionary read = new ClassDictionary();
+        in.setClassDictionary(read);
+        Assertions.assertEquals(obj, in.readObject());
+        Assertions.assertEquals(obj, in.readObject());
+        Assertions.assertEquals(written.size(), read.size());
+
+        //without the dictionary the stream can't be read
+        in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1 << 16);
+        Assertions.assertThrows(StreamCorruptedException.class, in::readObject);
+    }
+
+    @Test
+    public void testClassDictionaryRollback() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(baos), 512);
+        ClassDictionary written = new ClassDictionary();
+        out.setClassDictionary(written);
+
+        Assertions.assertThrows(NotSerializableException.class, () -> out.writeObject(Arrays.asList(new java.sql.Timestamp(0), new Object())));
+        Assertions.assertEquals(0, written.size());
+        Assertions.assertEquals(0, baos.size());
+
+        Object obj = Arrays.asList(new java.sql.Timestamp(0));
+        out.writeObject(obj);
+        ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1 << 16);
+        in.setClassDictionary(new ClassDictionary());
+        Assertions.assertEquals(obj, in.readObject());
+    }
+
+    @Test
+    public void testBinaryProtocol() throws Exception {
+        RequestMessage request = new RequestMessage("select ?, ?, ?");
+        request.setParameterValues(Arrays.asList("a", 1L, new java.math.BigDecimal("-1.23"), new java.sql.Timestamp(1), null));
+        Message message = new Message();
+        message.setMessageKey(1);
+        message.setContents(new ServiceInvocationStruct(new Object[] {2L, request}, "executeRequest", DQP.class));
+
+        ResultsMessage results = new ResultsMessage(Arrays.asList(Arrays.asList(1, "x"), Arrays.asList(2, null)),
+                new String[] {"a", "b"}, new String[] {"integer", "string"});
+        results.setFinalRow(2);
+        Message response = new Message();
+        response.setMessageKey(1);
+        response.setContents(results);
+
+        //a lob parameter must be streamed, so the message is serialized
+        RequestMessage lobRequest = new RequestMessage("select ?");
+        lobRequest.setParameterValues(Arrays.asList(new ClobImpl("clob")));
+        Message lobMessage = new Message();
+        lobMessage.setContents(new ServiceInvocationStruct(new Object[] {3L, lobRequest}, "executeRequest", DQP.class));
+        Assertions.assertFalse(BinaryObjectOutput.isBinary(lobMessage));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectEncoderOutputStream out = new ObjectEncoderOutputStream(new DataOutputStream(baos), 512);
+        out.writeObject(message);
+        long serialized = out.getBytesWritten();
+        out.setBinaryProtocol(true);
+        out.writeObject(message);
+        long binary = out.getBytesWritten() - serialized;
+        Assertions.assertTrue(binary * 2 < serialized);
+        out.writeObject(response);
+        out.writeObject(lobMessage);
+
+        ObjectDecoderInputStream in = new ObjectDecoderInputStream(new AccessibleBufferedInputStream(new ByteArrayInputStream(baos.toByteArray()), 1024), Thread.currentThread().getContextClassLoader(), 1 << 16);
+        in.setBinaryProtocol(true);
+        for (int i = 0; i < 2; i++) {
+            Message copy = (Message) in.readObject();
+            Assertions.assertEquals(1, copy.getMessageKey());
+            ServiceInvocationStruct struct = (ServiceInvocationStruct) copy.getContents();
+            Assertions.assertEquals(DQP.class, struct.targetClass);
+            Assertions.assertEquals("executeRequest", struct.methodName);
+            Assertions.assertEquals(2L, struct.args[0]);
+            RequestMessage requestCopy = (RequestMessage) struct.args[1];
+            Assertions.assertEquals("select ?, ?, ?", requestCopy.getCommandString());
+            Assertions.assertEquals(request.getParameterValues(), requestCopy.getParameterValues());
+        }
+        ResultsMessage resultsCopy = (ResultsMessage) ((Message) in.readObject()).getContents();
+        Assertions.assertEquals(results.getResultsList(), resultsCopy.getResultsList());
+        Assertions.assertArrayEquals(results.getColumnNames(), resultsCopy.getColumnNames());
+        Assertions.assertEquals(2, resultsCopy.getFinalRow());
+        Assertions.assertEquals(-1, resultsCopy.getUpdateCount());
+        Assertions.assertNull(resultsCopy.getException());
+        RequestMessage lobCopy = (RequestMessage) ((ServiceInvocationStruct) ((Message) in.readObject()).getContents()).args[1];
+        Assertions.assertEquals("clob", ((ClobImpl) lobCopy.getParameterValues().get(0)).getSubString(1, 4));
+    }
 }
@@ -20,69 +20,107 @@ package com.kubling.teiid.core.crypto;
 
 import com.kubling.teiid.core.CorePlugin;
 import com.kubling.teiid.core.util.AccessibleByteArrayOutputStream;
+import com.kubling.teiid.core.util.BufferPool;
 import com.kubling.teiid.core.util.ObjectInputStreamWithClassloader;
 
 import javax.crypto.Cipher;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SealedObject;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import java.io.ByteArrayInputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.security.*;
+import java.security.spec.AlgorithmParameterSpec;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>Public methods in this class throw only <code>CryptoException</code>s.
+ * <p>Initialized ciphers are pooled, so that concurrent callers do not contend on a single
+ * cipher instance.  A cipher that fails is discarded rather than returned to the pool.
+ * <p>With a GCM algorithm each encryption uses a new random nonce, which is prepended to
+ * the ciphertext.
  */
 public class BasicCryptor implements Cryptor {
 
+    static final int GCM_NONCE_LENGTH = 12;
+    static final int GCM_TAG_BITS = 128;
+    private static final int MAX_POOLED_CIPHERS = 2 * Runtime.getRuntime().availableProcessors();
+
     /**
      * The key to be used for decryption.
      */
     protected Key decryptKey;
-    /**
-     * The <code>Cipher</code> to use for decryption.
-     */
-    private Cipher decryptCipher;
     /**
      * The key to be used for encryption.
      */
     private Key encryptKey;
-    /**
-     * The <code>Cipher</code> to use for encryption.
-     */
-    protected Cipher encryptCipher;
     protected String cipherAlgorithm;
     public static final String OLD_ENCRYPT_PREFIX = "{mm-encrypt}";
     public static final String ENCRYPT_PREFIX = "{teiid-encrypt}";
 
     private static final SecureRandom random = new SecureRandom();
 
-    private ClassLoader classLoader = BasicCryptor.class.getClassLoader();
-    private boolean useSealedObject = true;
-    private IvParameterSpec iv;
-    private byte[] randBuffer;
+    private volatile ClassLoader classLoader = BasicCryptor.class.getClassLoader();
+    private volatile boolean useSealedObject = true;
+    private final IvParameterSpec iv;
+    private final boolean gcm;
+
+    private final CipherPool encryptCiphers = new CipherPool(Cipher.ENCRYPT_MODE);
+    private final CipherPool decryptCiphers = new CipherPool(Cipher.DECRYPT_MODE);
+
+    /**
+     * A bounded pool of ciphers for one mode.  Non-GCM ciphers are pooled in their initialized
+     * state, which {@link Cipher#doFinal()} restores.
+     */
+    private final class CipherPool {
+        private final int mode;
+        private final ConcurrentLinkedQueue<Cipher> ciphers = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        CipherPool(int mode) {
+            this.mode = mode;
+        }
+
+        Cipher take() throws CryptoException {
+            Cipher cipher = ciphers.poll();
+            if (cipher != null) {
+                size.decrementAndGet();
+                return cipher;
+            }
+            return mode == Cipher.ENCRYPT_MODE ? initEncryptCipher() : initDecryptCipher();
+        }
+
+        void give(Cipher cipher) {
+            if (size.incrementAndGet() > MAX_POOLED_CIPHERS) {
+                size.decrementAndGet();
+                return;
+            }
+            ciphers.offer(cipher);
+        }
+    }
 
     public BasicCryptor(Key encryptKey, Key decryptKey, String algorithm, IvParameterSpec iv) throws CryptoException {
         this.encryptKey = encryptKey;
         this.cipherAlgorithm = algorithm;
         this.decryptKey = decryptKey;
         this.iv = iv;
-        if (iv != null) {
-            randBuffer = new byte[iv.getIV().length];
-        }
+        this.gcm = algorithm.contains("/GCM/");
 
-        initEncryptCipher();
-        initDecryptCipher();
+        //validate the algorithm and keys up front
+        encryptCiphers.give(initEncryptCipher());
+        decryptCiphers.give(initDecryptCipher());
     }
 
-    public synchronized void setUseSealedObject(boolean useSealedObject) {
+    public void setUseSealedObject(boolean useSealedObject) {
         this.useSealedObject = useSealedObject;
     }
 
-    public synchronized void setClassLoader(ClassLoader classLoader) {
+    public void setClassLoader(ClassLoader classLoader) {
         this.classLoader = classLoader;
     }
 
@@ -92,35 +130,49 @@ public class BasicCryptor implements Cryptor {
      * @param ciphertext The text to be encrypted, in byte form
      * @return The decrypted cleartext, in byte form
      */
-    public synchronized byte[] decrypt(byte[] ciphertext) throws CryptoException {
+    public byte[] decrypt(byte[] ciphertext) throws CryptoException {
+        Cipher cipher = decryptCiphers.take();
         try {
-            byte[] result = decryptCipher.doFinal(ciphertext);
+            byte[] result;
+            if (gcm) {
+                cipher.init(Cipher.DECRYPT_MODE, decryptKey, new GCMParameterSpec(GCM_TAG_BITS, ciphertext, 0, GCM_NONCE_LENGTH));
+                result = cipher.doFinal(ciphertext, GCM_NONCE_LENGTH, ciphertext.length - GCM_NONCE_LENGTH);
+            } else {
+                result = cipher.doFinal(ciphertext);
+            }
+            decryptCiphers.give(cipher);
             if (iv != null) {
                 //throw away the first block
                 return Arrays.copyOfRange(result, iv.getIV().length, result.length);
             }
             return result;
         } catch (Exception e) {
-            try {
-                initDecryptCipher();
-            } catch (CryptoException err) {
-                //shouldn't happen
-            }
             throw new CryptoException(CorePlugin.Event.TEIID10006, CorePlugin.Util.gs(CorePlugin.Event.TEIID10006, e.getClass().getName(), e.getMessage()));
         }
     }
 
+    private AlgorithmParameterSpec getInitialParameters() {
+        if (gcm) {
+            //a placeholder, a new nonce is used for each operation
+            byte[] nonce = new byte[GCM_NONCE_LENGTH];
+            random.nextBytes(nonce);
+            return new GCMParameterSpec(GCM_TAG_BITS, nonce);
+        }
+        return iv;
+    }
+
     /**
-     * Initialize the ciphers used for encryption and decryption.  The ciphers
-     * define the algorithms to be used.  They are initialized with the
-     * appropriate key to be used in the encryption or decryption operation.
+     * Create and initialize a cipher used for decryption.  The cipher
+     * defines the algorithm to be used.  It is initialized with the
+     * appropriate key to be used in the decryption operation.
      */
-    protected void initDecryptCipher() throws CryptoException {
+    protected Cipher initDecryptCipher() throws CryptoException {
 
         // Create and initialize decryption cipher
         try {
-            decryptCipher = Cipher.getInstance(cipherAlgorithm);
-            decryptCipher.init(Cipher.DECRYPT_MODE, decryptKey, iv);
+            Cipher decryptCipher = Cipher.getInstance(cipherAlgorithm);
+            decryptCipher.init(Cipher.DECRYPT_MODE, decryptKey, getInitialParameters());
+            return decryptCipher;
         } catch (NoSuchAlgorithmException e) {
             throw new CryptoException(CorePlugin.Event.TEIID10009, e,
                     CorePlugin.Util.gs(CorePlugin.Event.TEIID10009, cipherAlgorithm));
@@ -139,8 +191,8 @@ public class BasicCryptor implements Cryptor {
         }
     }
 
-    public synchronized Object unsealObject(Object object) throws CryptoException {
-        if (useSealedObject) {
+    public Object unsealObject(Object object) throws CryptoException {
+        if (useSealedObject && !gcm) {
             if (!(object instanceof SealedObject)) {
                 return object;
             }
@@ -148,17 +200,15 @@ public class BasicCryptor implements Cryptor {
             SealedObject so = (SealedObject) object;
 
             ClassLoader cl = Thread.currentThread().getContextClassLoader();
+            Cipher cipher = decryptCiphers.take();
             try {
                 if (cl != classLoader) {
                     Thread.currentThread().setContextClassLoader(BasicCryptor.class.getClassLoader());
                 }
-                return so.getObject(decryptCipher);
+                Object result = so.getObject(cipher);
+                decryptCiphers.give(cipher);
+                return result;
             } catch (Exception e) {
-                try {
-                    initDecryptCipher();
-                } catch (CryptoException err) {
-                    //shouldn't happen?
-                }
                 throw new CryptoException(CorePlugin.Event.TEIID10006,
                         CorePlugin.Util.gs(CorePlugin.Event.TEIID10006, e.getClass().getName(), e.getMessage()));
             } finally {
@@ -189,15 +239,22 @@ public class BasicCryptor implements Cryptor {
         return encrypt(cleartext, 0, cleartext.length);
     }
 
-    public synchronized byte[] encrypt(byte[] buffer, int offset, int length)
+    public byte[] encrypt(byte[] buffer, int offset, int length)
             throws CryptoException {
+        Cipher cipher = encryptCiphers.take();
         try {
             byte[] initBlock = null;
-            if (iv != null) {
+            if (gcm) {
+                initBlock = new byte[GCM_NONCE_LENGTH];
+                random.nextBytes(initBlock);
+                cipher.init(Cipher.ENCRYPT_MODE, encryptKey, new GCMParameterSpec(GCM_TAG_BITS, initBlock));
+            } else if (iv != null) {
+                byte[] randBuffer = new byte[iv.getIV().length];
                 random.nextBytes(randBuffer);
-                initBlock = encryptCipher.update(randBuffer);
+                initBlock = cipher.update(randBuffer);
             }
-            byte[] result = encryptCipher.doFinal(buffer, offset, length);
+            byte[] result = cipher.doFinal(buffer, offset, length);
+            encryptCiphers.give(cipher);
             if (initBlock != null) {
                 byte[] newResult = Arrays.copyOf(initBlock, initBlock.length + result.length);
                 System.arraycopy(result, 0, newResult, initBlock.length, result.length);
@@ -205,27 +262,23 @@ public class BasicCryptor implements Cryptor {
             }
             return result;
         } catch (Exception e) {
-            try {
-                initEncryptCipher();
-            } catch (CryptoException err) {
-                //shouldn't happen
-            }
             throw new CryptoException(CorePlugin.Event.TEIID10013,
                     CorePlugin.Util.gs(CorePlugin.Event.TEIID10013, e.getMessage()));
         }
     }
 
     /**
-     * Initialize the cipher used for encryption.  The cipher defines the
+     * Create and initialize a cipher used for encryption.  The cipher defines the
      * algorithm to be used.  It is initialized with the appropriate key to
      * be used in the encryption operation.
      */
-    protected void initEncryptCipher() throws CryptoException {
+    protected Cipher initEncryptCipher() throws CryptoException {
 
         // Create and initialize encryption cipher
         try {
-            encryptCipher = Cipher.getInstance(cipherAlgorithm);
-            encryptCipher.init(Cipher.ENCRYPT_MODE, encryptKey, iv);
+            Cipher encryptCipher = Cipher.getInstance(cipherAlgorithm);
+            encryptCipher.init(Cipher.ENCRYPT_MODE, encryptKey, getInitialParameters());
+            return encryptCipher;
         } catch (NoSuchAlgorithmException e) {
             throw new CryptoException(CorePlugin.Event.TEIID10016, e,
                     CorePlugin.Util.gs(CorePlugin.Event.TEIID10016, cipherAlgorithm));
@@ -244,23 +297,31 @@ public class BasicCryptor implements Cryptor {
         }
     }
 
-    public synchronized Object sealObject(Object object) throws CryptoException {
+    /**
+     * Seal the object.  With GCM, or when sealed objects are not used, the object is serialized once
+     * and the bytes encrypted, rather than using a {@link SealedObject} which must then itself be serialized.
+     */
+    public Object sealObject(Object object) throws CryptoException {
         try {
-            if (useSealedObject) {
-                return new SealedObject((Serializable) object, encryptCipher);
+            if (useSealedObject && !gcm) {
+                Cipher cipher = encryptCiphers.take();
+                SealedObject result = new SealedObject((Serializable) object, cipher);
+                encryptCiphers.give(cipher);
+                return result;
             }
-            AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13);
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(object);
-            oos.flush();
-            oos.close();
-            return encrypt(baos.getBuffer(), 0, baos.getCount());
-        } catch (Exception e) {
+            AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(1 << 13, BufferPool.getSharedPool());
             try {
-                initEncryptCipher();
-            } catch (CryptoException err) {
-                //shouldn't happen?
+                ObjectOutputStream oos = new ObjectOutputStream(baos);
+                oos.writeObject(object);
+                oos.flush();
+                oos.close();
+                return encrypt(baos.getBuffer(), 0, baos.getCount());
+            } finally {
+                baos.release();
             }
+        } catch (CryptoException e) {
+            throw e;
+        } catch (Exception e) {
             throw new CryptoException(CorePlugin.Event.TEIID10013,
                     CorePlugin.Util.gs(CorePlugin.Event.TEIID10013, e.getMessage()));
         }
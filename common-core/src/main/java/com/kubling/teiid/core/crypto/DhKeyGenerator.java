@@ -107,6 +107,19 @@ public class DhKeyGenerator {
             ClassLoader classLoader,
             boolean large,
             boolean cbc) throws CryptoException {
+        return getSymmetricCryptor(peerPublicKeyBytes, useSealedObject, classLoader, large, cbc, false);
+    }
+
+    /**
+     * @param gcm if true use AES/GCM rather than CBC or ECB
+     */
+    public SymmetricCryptor getSymmetricCryptor(
+            byte[] peerPublicKeyBytes,
+            boolean useSealedObject,
+            ClassLoader classLoader,
+            boolean large,
+            boolean cbc,
+            boolean gcm) throws CryptoException {
 
         PrivateKey privKey = large ? privateKeyLarge : privateKey;
         if (privKey == null) {
@@ -138,7 +151,7 @@ public class DhKeyGenerator {
             int keySize = SymmetricCryptor.DEFAULT_KEY_BITS;
             byte[] symKey = new byte[keySize / 8];
             System.arraycopy(hash, 0, symKey, 0, symKey.length);
-            SymmetricCryptor sc = SymmetricCryptor.getSymmectricCryptor(symKey, cbc);
+            SymmetricCryptor sc = gcm ? SymmetricCryptor.getGcmCryptor(symKey) : SymmetricCryptor.getSymmectricCryptor(symKey, cbc);
             sc.setUseSealedObject(useSealedObject);
             sc.setClassLoader(classLoader);
             return sc;
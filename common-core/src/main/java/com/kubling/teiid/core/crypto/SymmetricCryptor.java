@@ -41,6 +41,7 @@ public class SymmetricCryptor extends BasicCryptor {
     public static final String DEFAULT_SYM_KEY_ALGORITHM = "AES";
     public static final String ECB_SYM_ALGORITHM = "AES/ECB/PKCS5Padding";
     public static final String CBC_SYM_ALGORITHM = "AES/CBC/PKCS5Padding";
+    public static final String GCM_SYM_ALGORITHM = "AES/GCM/NoPadding";
     public static final int DEFAULT_KEY_BITS = 128;
     public static final String DEFAULT_STORE_PASSWORD = "changeit";
     public static final String DEFAULT_ALIAS = "cluster_key";
@@ -109,6 +110,14 @@ public class SymmetricCryptor extends BasicCryptor {
         return new SymmetricCryptor(secretKey, cbc);
     }
 
+    /**
+     * Creates an authenticated SymmetricCryptor using AES/GCM with the supplied byte array as the key
+     */
+    public static SymmetricCryptor getGcmCryptor(byte[] key) throws CryptoException {
+        Key secretKey = new SecretKeySpec(key, DEFAULT_SYM_KEY_ALGORITHM);
+        return new SymmetricCryptor(secretKey, GCM_SYM_ALGORITHM, null);
+    }
+
     public static SymmetricCryptor getSymmectricCryptor(
             byte[] key,
             String algorithm,
@@ -98,6 +98,10 @@ public abstract class InputStreamFactory implements Source {
             this.setSystemId(f.toURI().toASCIIString());
         }
 
+        public File getFile() {
+            return f;
+        }
+
         @Override
         public long getLength() {
             return f.length();
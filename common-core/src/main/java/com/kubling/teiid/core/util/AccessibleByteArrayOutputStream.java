@@ -22,6 +22,8 @@ import java.io.ByteArrayOutputStream;
 
 public class AccessibleByteArrayOutputStream extends ByteArrayOutputStream {
 
+    private BufferPool pool;
+
     public AccessibleByteArrayOutputStream() {
         super();
     }
@@ -30,6 +32,51 @@ public class AccessibleByteArrayOutputStream extends ByteArrayOutputStream {
         super(size);
     }
 
+    /**
+     * Grow using arrays from the pool.  Call {@link #release()} once the buffer is no longer needed.
+     */
+    public AccessibleByteArrayOutputStream(int size, BufferPool pool) {
+        super(0);
+        this.buf = pool.take(size);
+        this.pool = pool;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        if (pool != null) {
+            ensureCapacity(count + 1);
+        }
+        super.write(b);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        if (pool != null) {
+            ensureCapacity(count + len);
+        }
+        super.write(b, off, len);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buf.length) {
+            byte[] newBuf = pool.take(Math.max(buf.length << 1, capacity));
+            System.arraycopy(buf, 0, newBuf, 0, count);
+            pool.give(buf);
+            buf = newBuf;
+        }
+    }
+
+    /**
+     * Return the buffer to the pool, if any.  This stream must not be used afterwards.
+     */
+    public synchronized void release() {
+        if (pool != null && buf != null) {
+            pool.give(buf);
+        }
+        buf = null;
+        count = 0;
+    }
+
     public byte[] getBuffer() {
         return this.buf;
     }
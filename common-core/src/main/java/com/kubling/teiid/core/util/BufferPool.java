@@ -0,0 +1,155 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.core.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe pool of byte arrays used as serialization buffers.
+ * <p>
+ * Arrays are pooled in power of two size classes from {@link #MIN_SIZE} to {@link #MAX_SIZE}.
+ * Requests are rounded up to the size class, so the array returned may be larger than requested.
+ * Requests larger than the max size are simply allocated.  Arrays are only retained while the
+ * total pooled bytes are within the limit, otherwise they are left to the garbage collector.
+ * <p>
+ * An array must not be used after it has been returned to the pool.
+ */
+public class BufferPool {
+
+    public static final int MIN_SIZE = 1 << 10;
+    public static final int MAX_SIZE = 1 << 22;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_SIZE) - MIN_SHIFT + 1;
+
+    private static final BufferPool SHARED = new BufferPool(
+            PropertiesUtils.getHierarchicalProperty("org.teiid.bufferPoolSize", 1L << 25, Long.class));
+
+    /**
+     * @return the pool shared by the encoders in this VM, limited to org.teiid.bufferPoolSize bytes - 32MB by default.
+     */
+    public static BufferPool getSharedPool() {
+        return SHARED;
+    }
+
+    @SuppressWarnings("unchecked")
+    private final ConcurrentLinkedQueue<byte[]>[] pools = new ConcurrentLinkedQueue[CLASSES];
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+
+    /**
+     * @param maxPooledBytes the maximum bytes held by the pool, or 0 to not pool
+     */
+    public BufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        for (int i = 0; i < CLASSES; i++) {
+            pools[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * Get an array of at least the given size
+     */
+    public byte[] take(int size) {
+        if (size > MAX_SIZE) {
+            misses.increment();
+            return new byte[size];
+        }
+        int sizeClass = sizeClass(size);
+        byte[] result = pools[sizeClass].poll();
+        if (result != null) {
+            pooledBytes.addAndGet(-result.length);
+            hits.increment();
+            return result;
+        }
+        misses.increment();
+        return new byte[MIN_SIZE << sizeClass];
+    }
+
+    /**
+     * Return an array to the pool.  Arrays that are not a pooled size are ignored.
+     */
+    public void give(byte[] buffer) {
+        int length = buffer.length;
+        if (length < MIN_SIZE || length > MAX_SIZE || Integer.bitCount(length) != 1) {
+            return;
+        }
+        long current;
+        do {
+            current = pooledBytes.get();
+            if (current + length > maxPooledBytes) {
+                discards.increment();
+                return;
+            }
+        } while (!pooledBytes.compareAndSet(current, current + length));
+        pools[sizeClass(length)].offer(buffer);
+    }
+
+    /**
+     * @return the number of takes satisfied from the pool
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of takes that allocated a new array
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of arrays not retained because the pool was full
+     */
+    public long getDiscardCount() {
+        return discards.sum();
+    }
+
+    /**
+     * @return the bytes currently held by the pool
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    public long getMaxPooledBytes() {
+        return maxPooledBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool [hits=" + getHitCount() + ", misses=" + getMissCount() + ", discards="
+                + getDiscardCount() + ", pooledBytes=" + getPooledBytes() + "]";
+    }
+
+}
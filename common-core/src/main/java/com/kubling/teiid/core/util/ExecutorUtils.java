@@ -22,9 +22,21 @@ import java.util.concurrent.*;
 
 public class ExecutorUtils {
 
+    private static final boolean USE_VIRTUAL_THREADS = PropertiesUtils.getHierarchicalProperty(
+            "org.teiid.useVirtualThreads", false, Boolean.class);
+
+    /**
+     * @return true if org.teiid.useVirtualThreads is set, in which case the pools created here
+     * use virtual threads
+     */
+    public static boolean isUseVirtualThreads() {
+        return USE_VIRTUAL_THREADS;
+    }
+
     /**
      * Creates a fixed thread pool with named daemon threads that will expire after 60 seconds of
-     * inactivity.
+     * inactivity.  If {@link #isUseVirtualThreads()} the pool threads are virtual, the number of
+     * threads still limits the concurrency.
      */
     public static ExecutorService newFixedThreadPool(int nThreads, String name) {
         return newFixedThreadPool(nThreads, Integer.MAX_VALUE, name);
@@ -35,11 +47,19 @@ public class ExecutorUtils {
                 60L, TimeUnit.SECONDS,
                 maxQueue == 0 ?
                         new SynchronousQueue<>() :
-                        new LinkedBlockingQueue<>(maxQueue), new NamedThreadFactory(name));
+                        new LinkedBlockingQueue<>(maxQueue), new NamedThreadFactory(name, USE_VIRTUAL_THREADS));
         tpe.allowCoreThreadTimeOut(true);
         return tpe;
     }
 
+    /**
+     * Creates an executor that starts a new named thread for each task.  The threads are virtual if
+     * {@link #isUseVirtualThreads()}, otherwise they are platform daemon threads.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(new NamedThreadFactory(name, USE_VIRTUAL_THREADS));
+    }
+
     private static final Executor direct = Runnable::run;
 
     public static Executor getDirectExecutor() {
@@ -25,6 +25,9 @@ import java.util.Arrays;
 
 /**
  * A dynamic buffer that limits copying overhead
+ * <p>
+ * If constructed with a {@link BufferPool} the buffers are taken from the pool, buffers beyond the
+ * first are returned to it on reset, and all buffers are returned on {@link #release()}.
  */
 public class MultiArrayOutputStream extends OutputStream {
 
@@ -32,25 +35,53 @@ public class MultiArrayOutputStream extends OutputStream {
     private int index;
     private int count;
     private final byte[][] bufs = new byte[15][];
+    private final BufferPool pool;
 
     public MultiArrayOutputStream(int initialSize) {
         bufs[0] = new byte[initialSize];
+        this.pool = null;
+    }
+
+    public MultiArrayOutputStream(int initialSize, BufferPool pool) {
+        bufs[0] = pool.take(initialSize);
+        this.pool = pool;
     }
 
     public void reset(int newIndex) {
         Assertion.assertTrue(newIndex < bufs[0].length);
         while (bufferIndex > 0) {
+            if (pool != null) {
+                pool.give(bufs[bufferIndex]);
+            }
             bufs[bufferIndex--] = null;
         }
         count = index = newIndex;
     }
 
+    /**
+     * Return the buffers to the pool.  This stream must not be used afterwards.
+     */
+    public void release() {
+        reset(0);
+        if (pool != null && bufs[0] != null) {
+            pool.give(bufs[0]);
+        }
+        bufs[0] = null;
+    }
+
+    private byte[] allocate(int size) {
+        if (pool != null) {
+            return pool.take(size);
+        }
+        return new byte[size];
+    }
+
     @Override
     public void write(int b) throws IOException {
         int newIndex = index + 1;
         byte[] buf = bufs[bufferIndex];
         if (newIndex > buf.length) {
-            buf = bufs[++bufferIndex] = new byte[buf.length << 1];
+            buf = bufs[++bufferIndex] = allocate(buf.length << 1);
             buf[0] = (byte) b;
             index = 1;
         } else {
@@ -75,7 +106,13 @@ public class MultiArrayOutputStream extends OutputStream {
             if (diff > 0) {
                 to += diff;
             }
-            bufs[++bufferIndex] = Arrays.copyOfRange(b, off + copyLen, to);
+            if (pool != null) {
+                byte[] next = pool.take(Math.max(buf.length << 1, nextIndex));
+                System.arraycopy(b, off + copyLen, next, 0, nextIndex);
+                bufs[++bufferIndex] = next;
+            } else {
+                bufs[++bufferIndex] = Arrays.copyOfRange(b, off + copyLen, to);
+            }
             index = nextIndex;
         } else {
             System.arraycopy(b, off, buf, index, len);
@@ -25,13 +25,25 @@ public class NamedThreadFactory implements ThreadFactory {
 
     private final AtomicInteger threadNumber = new AtomicInteger();
     private final String threadBaseName;
+    private final boolean virtual;
 
     public NamedThreadFactory(String name) {
+        this(name, false);
+    }
+
+    /**
+     * @param virtual true to create virtual rather than platform daemon threads
+     */
+    public NamedThreadFactory(String name, boolean virtual) {
         this.threadBaseName = (name != null ? name : "Worker_");
+        this.virtual = virtual;
     }
 
     public Thread newThread(Runnable r) {
         String threadName = threadBaseName + threadNumber.getAndIncrement();
+        if (virtual) {
+            return Thread.ofVirtual().name(threadName).unstarted(r);
+        }
         Thread t = new Thread(r, threadName);
         t.setDaemon(true);
         return t;
@@ -25,6 +25,10 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -166,5 +170,53 @@ public class TestEncryptDecrypt {
         assertEquals(test, clearObject);
     }
 
-}
+    @Test
+    public void testGcm() throws Exception {
+        SymmetricCryptor gcmCryptor = SymmetricCryptor.getGcmCryptor(SymmetricCryptor.generateKey().getEncoded());
+        byte[] clear = CLEARTEXT.getBytes("UTF-8");
+        byte[] encrypted = gcmCryptor.encrypt(clear);
+        //a new nonce each time
+        assertFalse(Arrays.equals(encrypted, gcmCryptor.encrypt(clear)));
+        assertArrayEquals(clear, gcmCryptor.decrypt(encrypted));
+
+        //authenticated
+        encrypted[encrypted.length - 1]++;
+        try {
+            gcmCryptor.decrypt(encrypted);
+            fail("expected exception");
+        } catch (CryptoException e) {
+            //expected
+        }
 
+        //sealed as bytes, even if sealed objects were requested
+        gcmCryptor.setUseSealedObject(true);
+        ArrayList<String> test = new ArrayList<>(Arrays.asList(ALPHA_L, ALPHA_U));
+        Object sealed = gcmCryptor.sealObject(test);
+        assertTrue(sealed instanceof byte[]);
+        assertEquals(test, SymmetricCryptor.getGcmCryptor(gcmCryptor.getEncodedKey()).unsealObject(sealed));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        SymmetricCryptor cbcCryptor = SymmetricCryptor.getSymmectricCryptor(true);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        String clear = CLEARTEXT.substring(j % CLEARTEXT.length());
+                        assertEquals(clear, cbcCryptor.unsealObject(cbcCryptor.sealObject(clear)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kubling.teiid.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBufferPool {
+
+    @Test
+    public void testSizeClasses() {
+        BufferPool pool = new BufferPool(1 << 20);
+        assertEquals(BufferPool.MIN_SIZE, pool.take(1).length);
+        assertEquals(BufferPool.MIN_SIZE, pool.take(BufferPool.MIN_SIZE).length);
+        assertEquals(BufferPool.MIN_SIZE << 1, pool.take(BufferPool.MIN_SIZE + 1).length);
+        assertEquals(BufferPool.MAX_SIZE + 1, pool.take(BufferPool.MAX_SIZE + 1).length);
+        assertEquals(4, pool.getMissCount());
+    }
+
+    @Test
+    public void testReuse() {
+        BufferPool pool = new BufferPool(1 << 20);
+        byte[] buf = pool.take(5000);
+        pool.give(buf);
+        assertEquals(buf.length, pool.getPooledBytes());
+        assertSame(buf, pool.take(4097));
+        assertEquals(1, pool.getHitCount());
+        assertEquals(0, pool.getPooledBytes());
+
+        //not a pooled size
+        pool.give(new byte[5000]);
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testBound() {
+        BufferPool pool = new BufferPool(1 << 11);
+        pool.give(pool.take(1 << 11));
+        pool.give(pool.take(1 << 10));
+        assertEquals(1, pool.getDiscardCount());
+        assertEquals(1 << 11, pool.getPooledBytes());
+
+        pool = new BufferPool(0);
+        pool.give(pool.take(1));
+        assertEquals(1, pool.getDiscardCount());
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testMultiArrayOutputStream() throws IOException {
+        BufferPool pool = new BufferPool(1 << 20);
+        MultiArrayOutputStream maos = new MultiArrayOutputStream(10, pool);
+        maos.write(new byte[3000], 0, 3000);
+        assertEquals(3000, maos.getCount());
+        assertEquals(3000 - (1 << 10), maos.getIndex());
+        maos.reset(0);
+        //the grown buffer was returned
+        assertEquals(1 << 11, pool.getPooledBytes());
+        maos.release();
+        assertEquals((1 << 11) + (1 << 10), pool.getPooledBytes());
+    }
+
+    @Test
+    public void testAccessibleByteArrayOutputStream() {
+        BufferPool pool = new BufferPool(1 << 20);
+        AccessibleByteArrayOutputStream baos = new AccessibleByteArrayOutputStream(10, pool);
+        for (int i = 0; i < 3000; i++) {
+            baos.write(i);
+        }
+        assertEquals(3000, baos.getCount());
+        assertEquals(1 << 12, baos.getBuffer().length);
+        assertEquals((byte) 2999, baos.getBuffer()[2999]);
+        //the outgrown buffers were returned
+        assertEquals((1 << 10) + (1 << 11), pool.getPooledBytes());
+        baos.release();
+        assertEquals((1 << 10) + (1 << 11) + (1 << 12), pool.getPooledBytes());
+    }
+
+}